@@ -0,0 +1,234 @@
+package com.milsabores.backend.cache;
+
+import com.milsabores.backend.dto.CategoriaDTO;
+import com.milsabores.backend.dto.ProductoDTO;
+import com.milsabores.backend.repository.CategoriaRepository;
+import com.milsabores.backend.repository.ProductoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache en memoria del catálogo con invalidación write-through
+ *
+ * PROBLEMA:
+ * - Cada GET /api/productos ejecutaba un JOIN FETCH de 3 tablas
+ * - Con Hikari limitado a 2 conexiones, el catálogo competía con checkout y login
+ *
+ * SOLUCIÓN:
+ * - Un CatalogoSnapshot inmutable se construye una vez y se sirve sin tocar el pool
+ * - Los servicios que escriben publican CatalogoModificadoEvent
+ * - Después del commit se invalida la generación y se reconstruye en background
+ * - Mientras tanto los requests siguen recibiendo el snapshot anterior: ninguno
+ *   espera una recarga del catálogo. Solo el primer request sin snapshot (antes
+ *   del precalentamiento) espera al build (single-flight)
+ * - Los cambios solo de stock (una orden por checkout) se agrupan: a lo más una
+ *   reconstrucción cada catalogo.stock.espera-ms, no una por orden
+ * - Cada snapshot instalado se publica como CatalogoSnapshotPublicadoEvent
+ *   para que los índices derivados (búsqueda) se actualicen
+ *
+ * Métricas (GET /actuator/metrics/...):
+ * - catalogo.snapshot.version: versión del snapshot servido
+ * - catalogo.snapshot.productos: productos en el snapshot
+ * - catalogo.snapshot.reconstrucciones: total de reconstrucciones
+ * - catalogo.snapshot.construccion: tiempo de construcción
+ */
+@Component
+public class CatalogoCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoCache.class);
+
+    private final ProductoRepository productoRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<CatalogoSnapshot> snapshotActual = new AtomicReference<>();
+    // Se incrementa en cada invalidación; un snapshot es válido si cubre la generación actual
+    private final AtomicLong generacion = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private final ReentrantLock lockReconstruccion = new ReentrantLock();
+    // Hay una reconstrucción diferida (stock o reintento) que aún no empieza
+    private final AtomicBoolean reconstruccionProgramada = new AtomicBoolean();
+    private final long esperaStockMs;
+    private final ScheduledExecutorService reconstructor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalogo-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter reconstrucciones;
+    private final Timer tiempoConstruccion;
+
+    public CatalogoCache(ProductoRepository productoRepository,
+                         CategoriaRepository categoriaRepository,
+                         PlatformTransactionManager transactionManager,
+                         ApplicationEventPublisher eventPublisher,
+                         MeterRegistry meterRegistry,
+                         @Value("${catalogo.stock.espera-ms:2000}") long esperaStockMs) {
+        this.productoRepository = productoRepository;
+        this.esperaStockMs = esperaStockMs;
+        this.categoriaRepository = categoriaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.eventPublisher = eventPublisher;
+
+        Gauge.builder("catalogo.snapshot.version", version, AtomicLong::get)
+                .description("Versión del snapshot de catálogo servido")
+                .register(meterRegistry);
+        Gauge.builder("catalogo.snapshot.productos", snapshotActual,
+                        ref -> ref.get() != null ? ref.get().getProductos().size() : 0)
+                .description("Productos en el snapshot de catálogo")
+                .register(meterRegistry);
+        this.reconstrucciones = Counter.builder("catalogo.snapshot.reconstrucciones")
+                .description("Reconstrucciones del snapshot de catálogo")
+                .register(meterRegistry);
+        this.tiempoConstruccion = Timer.builder("catalogo.snapshot.construccion")
+                .description("Tiempo de construcción del snapshot de catálogo")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Obtener el snapshot vigente (o el anterior mientras se reconstruye en background)
+     * Nunca ejecuta queries salvo si todavía no hay ningún snapshot.
+     */
+    public CatalogoSnapshot obtener() {
+        CatalogoSnapshot snapshot = snapshotActual.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return reconstruir();
+    }
+
+    /**
+     * Marcar el snapshot como obsoleto y programar su reconstrucción inmediata
+     */
+    public void invalidar(String origen) {
+        long nuevaGeneracion = generacion.incrementAndGet();
+        logger.info("♻️ [CATALOGO] Snapshot invalidado por {} (generación {})", origen, nuevaGeneracion);
+        reconstructor.execute(this::reconstruirEnBackground);
+    }
+
+    /**
+     * Marcar el snapshot como obsoleto por un cambio de stock
+     * Las invalidaciones que llegan dentro de esperaStockMs comparten una reconstrucción.
+     */
+    public void invalidarStock(String origen) {
+        long nuevaGeneracion = generacion.incrementAndGet();
+        if (programarReconstruccion()) {
+            logger.debug("♻️ [CATALOGO] Stock modificado por {} (generación {}), reconstrucción en {}ms",
+                    origen, nuevaGeneracion, esperaStockMs);
+        }
+    }
+
+    /**
+     * Programar una reconstrucción en esperaStockMs si no hay otra pendiente
+     */
+    private boolean programarReconstruccion() {
+        if (!reconstruccionProgramada.compareAndSet(false, true)) {
+            return false;
+        }
+        reconstructor.schedule(() -> {
+            // Las invalidaciones posteriores a este punto programan la siguiente
+            reconstruccionProgramada.set(false);
+            reconstruirEnBackground();
+        }, esperaStockMs, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Invalidar después del commit de la transacción que modificó el catálogo
+     * fallbackExecution: también aplica a cambios hechos fuera de transacción
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        if (event.soloStock()) {
+            invalidarStock(event.origen());
+        } else {
+            invalidar(event.origen());
+        }
+    }
+
+    /**
+     * Precalentar el snapshot al arrancar (después de DataInitializer)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void precalentar() {
+        reconstructor.execute(this::reconstruirEnBackground);
+    }
+
+    @PreDestroy
+    public void detener() {
+        reconstructor.shutdownNow();
+    }
+
+    private void reconstruirEnBackground() {
+        try {
+            reconstruir();
+        } catch (RuntimeException e) {
+            // Se sigue sirviendo el snapshot anterior y se reintenta más tarde
+            logger.error("❌ [CATALOGO] Error reconstruyendo snapshot en background: {}", e.getMessage());
+            programarReconstruccion();
+        }
+    }
+
+    /**
+     * Reconstruir el snapshot si no cubre la generación actual
+     * Solo un thread construye a la vez; los demás esperan y reutilizan el resultado.
+     */
+    private CatalogoSnapshot reconstruir() {
+        lockReconstruccion.lock();
+        try {
+            // Leer la generación ANTES de consultar: si llega otra invalidación
+            // durante el build, este snapshot quedará obsoleto y se reconstruirá
+            long generacionObjetivo = generacion.get();
+            CatalogoSnapshot actual = snapshotActual.get();
+            if (actual != null && actual.getGeneracion() == generacionObjetivo) {
+                return actual;
+            }
+
+            CatalogoSnapshot nuevo = tiempoConstruccion.record(() -> transactionTemplate.execute(status -> {
+                List<ProductoDTO> productos = productoRepository.findAllWithCollections().stream()
+                        .map(ProductoDTO::desde)
+                        .toList();
+                List<CategoriaDTO> categorias = categoriaRepository.findAll().stream()
+                        .map(CategoriaDTO::desde)
+                        .toList();
+                return CatalogoSnapshot.construir(version.get() + 1, generacionObjetivo, productos, categorias);
+            }));
+
+            snapshotActual.set(nuevo);
+            version.set(nuevo.getVersion());
+            reconstrucciones.increment();
+            logger.info("✅ [CATALOGO] Snapshot v{} construido - Productos: {}, Categorías: {}",
+                    nuevo.getVersion(), nuevo.getProductos().size(), nuevo.getCategorias().size());
+
+            // Dentro del lock: los listeners reciben los snapshots en orden de versión
+            eventPublisher.publishEvent(new CatalogoSnapshotPublicadoEvent(nuevo));
+            return nuevo;
+        } finally {
+            lockReconstruccion.unlock();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.milsabores.backend.cache;
+
+/**
+ * Evento publicado por los servicios que modifican datos del catálogo
+ * (productos, variantes, imágenes, categorías o stock).
+ *
+ * CatalogoCache lo escucha DESPUÉS del commit para invalidar el snapshot,
+ * así nunca se reconstruye con datos no confirmados.
+ *
+ * @param origen    método que originó el cambio (solo para logs)
+ * @param soloStock el cambio es solo de stock (checkout, flush del libro): la
+ *                  reconstrucción se agrupa en vez de lanzarse por cada orden
+ */
+public record CatalogoModificadoEvent(String origen, boolean soloStock) {
+
+    public CatalogoModificadoEvent(String origen) {
+        this(origen, false);
+    }
+
+    public static CatalogoModificadoEvent stock(String origen) {
+        return new CatalogoModificadoEvent(origen, true);
+    }
+}
@@ -0,0 +1,115 @@
+package com.milsabores.backend.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caché de respuestas del catálogo ya serializadas a JSON (+ gzip)
+ *
+ * Cada respuesta se serializa UNA vez por versión del catálogo. Mientras el
+ * snapshot no cambie, los GET del catálogo solo copian bytes y los
+ * If-None-Match se responden con 304 sin tocar Hibernate ni Jackson.
+ *
+ * Métricas:
+ * - catalogo.respuestas.serializaciones: veces que se serializó una respuesta
+ * - catalogo.respuestas.no_modificado: respuestas 304 entregadas
+ */
+@Component
+public class CatalogoRespuestaCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoRespuestaCache.class);
+
+    private final CatalogoCache catalogoCache;
+    private final ObjectMapper objectMapper;
+    private final Map<String, RespuestaSerializada> respuestas = new ConcurrentHashMap<>();
+    private final Counter serializaciones;
+    private final Counter noModificado;
+
+    public CatalogoRespuestaCache(CatalogoCache catalogoCache, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.catalogoCache = catalogoCache;
+        this.objectMapper = objectMapper;
+        this.serializaciones = Counter.builder("catalogo.respuestas.serializaciones")
+                .description("Respuestas de catálogo serializadas con Jackson")
+                .register(meterRegistry);
+        this.noModificado = Counter.builder("catalogo.respuestas.no_modificado")
+                .description("Respuestas 304 Not Modified del catálogo")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Obtener la respuesta serializada para la versión vigente del catálogo
+     *
+     * @param clave     identificador de la respuesta (ej: "productos", "categoria:3")
+     * @param contenido función que extrae del snapshot el objeto a serializar
+     */
+    public RespuestaSerializada obtener(String clave, Function<CatalogoSnapshot, Object> contenido) {
+        CatalogoSnapshot snapshot = catalogoCache.obtener();
+        RespuestaSerializada actual = respuestas.get(clave);
+        if (actual != null && actual.getVersionCatalogo() == snapshot.getVersion()) {
+            return actual;
+        }
+
+        // Las respuestas de versiones anteriores ya no sirven (productos eliminados, etc.)
+        if (actual != null) {
+            respuestas.values().removeIf(r -> r.getVersionCatalogo() < snapshot.getVersion());
+        }
+
+        RespuestaSerializada nueva = serializar(snapshot.getVersion(), contenido.apply(snapshot));
+        respuestas.put(clave, nueva);
+        logger.info("🗜️ [CATALOGO] Respuesta '{}' serializada para v{} - JSON: {} bytes, gzip: {} bytes",
+                clave, snapshot.getVersion(), nueva.getTamanoJson(), nueva.getTamanoGzip());
+        return nueva;
+    }
+
+    /**
+     * Registrar una respuesta 304 en métricas
+     */
+    public void registrarNoModificado() {
+        noModificado.increment();
+    }
+
+    private RespuestaSerializada serializar(long version, Object contenido) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(contenido);
+            serializaciones.increment();
+            return new RespuestaSerializada(version, json, comprimir(json), calcularEtag(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Error serializando respuesta del catálogo", e);
+        }
+    }
+
+    private static byte[] comprimir(byte[] json) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error comprimiendo respuesta del catálogo", e);
+        }
+        return salida.toByteArray();
+    }
+
+    private static String calcularEtag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            // 128 bits son suficientes para distinguir representaciones
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.milsabores.backend.cache;
+
+import com.milsabores.backend.dto.CategoriaDTO;
+import com.milsabores.backend.dto.ProductoDTO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Snapshot inmutable y versionado del catálogo completo
+ * (productos + variantes + imágenes + categorías)
+ *
+ * Se construye una sola vez por versión y se comparte entre todos los requests
+ * sin sincronización: ninguna estructura interna se modifica después de construida.
+ */
+public final class CatalogoSnapshot {
+
+    private final long version;
+    private final long generacion;
+    private final LocalDateTime construidoEn;
+    private final List<ProductoDTO> productos;
+    private final Map<Long, ProductoDTO> productosPorId;
+    private final Map<Long, List<ProductoDTO>> productosPorCategoria;
+    private final List<CategoriaDTO> categorias;
+    private final Map<Long, CategoriaDTO> categoriasPorId;
+
+    private CatalogoSnapshot(long version, long generacion, List<ProductoDTO> productos, List<CategoriaDTO> categorias) {
+        this.version = version;
+        this.generacion = generacion;
+        this.construidoEn = LocalDateTime.now();
+        this.productos = List.copyOf(productos);
+        this.categorias = List.copyOf(categorias);
+
+        Map<Long, ProductoDTO> porId = new HashMap<>();
+        Map<Long, List<ProductoDTO>> porCategoria = new HashMap<>();
+        for (ProductoDTO producto : this.productos) {
+            porId.put(producto.getId(), producto);
+            if (producto.getCategoria() != null) {
+                porCategoria.computeIfAbsent(producto.getCategoria().getId(), k -> new ArrayList<>()).add(producto);
+            }
+        }
+        Map<Long, List<ProductoDTO>> porCategoriaInmutable = new HashMap<>();
+        porCategoria.forEach((categoriaId, lista) -> porCategoriaInmutable.put(categoriaId, List.copyOf(lista)));
+
+        Map<Long, CategoriaDTO> categoriasIndex = new LinkedHashMap<>();
+        for (CategoriaDTO categoria : this.categorias) {
+            categoriasIndex.put(categoria.getId(), categoria);
+        }
+
+        this.productosPorId = Map.copyOf(porId);
+        this.productosPorCategoria = Map.copyOf(porCategoriaInmutable);
+        this.categoriasPorId = Map.copyOf(categoriasIndex);
+    }
+
+    /**
+     * Construir snapshot ordenando productos y categorías por ID
+     *
+     * @param version    número de versión visible en métricas (monótono)
+     * @param generacion generación de invalidación que este snapshot cubre
+     */
+    public static CatalogoSnapshot construir(long version, long generacion,
+                                             List<ProductoDTO> productos, List<CategoriaDTO> categorias) {
+        List<ProductoDTO> productosOrdenados = new ArrayList<>(productos);
+        productosOrdenados.sort(Comparator.comparing(ProductoDTO::getId));
+        List<CategoriaDTO> categoriasOrdenadas = new ArrayList<>(categorias);
+        categoriasOrdenadas.sort(Comparator.comparing(CategoriaDTO::getId));
+        return new CatalogoSnapshot(version, generacion, productosOrdenados, categoriasOrdenadas);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getGeneracion() {
+        return generacion;
+    }
+
+    public LocalDateTime getConstruidoEn() {
+        return construidoEn;
+    }
+
+    public List<ProductoDTO> getProductos() {
+        return productos;
+    }
+
+    public Optional<ProductoDTO> getProducto(Long id) {
+        return Optional.ofNullable(productosPorId.get(id));
+    }
+
+    public List<CategoriaDTO> getCategorias() {
+        return categorias;
+    }
+
+    public Optional<CategoriaDTO> getCategoria(Long id) {
+        return Optional.ofNullable(categoriasPorId.get(id));
+    }
+
+    public boolean existeCategoria(Long id) {
+        return categoriasPorId.containsKey(id);
+    }
+
+    /**
+     * Productos de una categoría (lista vacía si la categoría no tiene productos)
+     */
+    public List<ProductoDTO> getProductosDeCategoria(Long categoriaId) {
+        return productosPorCategoria.getOrDefault(categoriaId, List.of());
+    }
+}
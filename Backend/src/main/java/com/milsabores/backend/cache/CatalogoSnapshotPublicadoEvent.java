@@ -0,0 +1,8 @@
+package com.milsabores.backend.cache;
+
+/**
+ * Evento publicado por CatalogoCache cada vez que se instala un snapshot nuevo
+ * Lo usan los índices derivados del catálogo (búsqueda) para actualizarse.
+ */
+public record CatalogoSnapshotPublicadoEvent(CatalogoSnapshot snapshot) {
+}
@@ -0,0 +1,119 @@
+package com.milsabores.backend.cache;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Respuesta JSON ya serializada (y comprimida con gzip) para una versión del catálogo
+ *
+ * El ETag es fuerte y se calcula sobre el contenido: dos instancias de Railway
+ * con el mismo catálogo entregan el mismo ETag, y una reconstrucción que no
+ * cambia el JSON no invalida la caché del navegador.
+ *
+ * La versión gzip es otra representación (otros bytes) y RFC 9110 §8.8.3 no
+ * permite compartir un ETag fuerte entre ambas: lleva el ETag base con el
+ * sufijo -gzip. Para If-None-Match cualquiera de los dos indica que el
+ * cliente tiene esta versión del catálogo.
+ */
+public final class RespuestaSerializada {
+
+    private final long versionCatalogo;
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final String etagGzip;
+
+    RespuestaSerializada(long versionCatalogo, byte[] json, byte[] gzip, String etag) {
+        this.versionCatalogo = versionCatalogo;
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+        // "abc" -> "abc-gzip"
+        this.etagGzip = etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    public long getVersionCatalogo() {
+        return versionCatalogo;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getEtagGzip() {
+        return etagGzip;
+    }
+
+    public int getTamanoJson() {
+        return json.length;
+    }
+
+    public int getTamanoGzip() {
+        return gzip.length;
+    }
+
+    /**
+     * Verificar si el cliente ya tiene esta representación (If-None-Match)
+     * Se usa comparación débil como indica RFC 9110 para If-None-Match.
+     */
+    public boolean coincideCon(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*")) {
+                return true;
+            }
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals(etag) || valor.equals(etagGzip)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Construir la respuesta HTTP: 304 si el ETag coincide, gzip si el cliente lo acepta
+     * El ETag (también en el 304) es el de la representación que se enviaría.
+     */
+    public ResponseEntity<byte[]> comoRespuesta(String ifNoneMatch, String acceptEncoding) {
+        boolean conGzip = aceptaGzip(acceptEncoding);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(conGzip ? etagGzip : etag);
+        headers.setCacheControl(CacheControl.noCache());
+        headers.setVary(java.util.List.of(HttpHeaders.ACCEPT_ENCODING));
+
+        if (coincideCon(ifNoneMatch)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (conGzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            headers.setContentLength(gzip.length);
+            return new ResponseEntity<>(gzip, headers, HttpStatus.OK);
+        }
+        headers.setContentLength(json.length);
+        return new ResponseEntity<>(json, headers, HttpStatus.OK);
+    }
+
+    private static boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String codificacion : acceptEncoding.split(",")) {
+            String[] partes = codificacion.trim().split(";");
+            if (partes[0].trim().equalsIgnoreCase("gzip")) {
+                // "gzip;q=0" significa que el cliente NO lo acepta
+                return partes.length < 2 || !partes[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
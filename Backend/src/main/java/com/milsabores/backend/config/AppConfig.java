@@ -2,12 +2,15 @@ package com.milsabores.backend.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * Configuración de beans de aplicación
+ * @EnableScheduling: flush periódico del libro de stock (LibroStock)
  */
 @Configuration
+@EnableScheduling
 public class AppConfig {
     
     /**
@@ -1,11 +1,13 @@
 package com.milsabores.backend.controller;
 
+import com.milsabores.backend.cache.CatalogoModificadoEvent;
 import com.milsabores.backend.model.Producto;
 import com.milsabores.backend.model.VarianteProducto;
 import com.milsabores.backend.repository.ProductoRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -39,12 +41,16 @@ public class AdminDataController {
     @Autowired
     private ProductoRepository productoRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Poblar variantes en productos que NO las tienen
      * 
      * @return ResponseEntity con resultado de operación
      */
     @PostMapping("/populate-variantes")
+    @Transactional
     public ResponseEntity<Map<String, Object>> populateVariantes() {
         try {
             logger.info("🔧 [ADMIN] Iniciando población de variantes...");
@@ -97,6 +103,10 @@ public class AdminDataController {
         );
         logger.info(mensaje);
         
+        if (productosActualizados > 0) {
+            eventPublisher.publishEvent(new CatalogoModificadoEvent("AdminDataController.populateVariantes"));
+        }
+        
         return ResponseEntity.ok(Map.of(
             "message", mensaje,
             "productosActualizados", productosActualizados,
@@ -130,7 +140,7 @@ public class AdminDataController {
      */
     @GetMapping("/verify-variantes")
     public ResponseEntity<String> verifyVariantes() {
-        List<Producto> productos = productoRepository.findAll();
+        List<Producto> productos = productoRepository.findAllWithCollections();
         
         StringBuilder sb = new StringBuilder();
         sb.append("📊 [ADMIN] Verificación de variantes:\n\n");
@@ -2,12 +2,14 @@ package com.milsabores.backend.controller;
 
 import com.milsabores.backend.dto.LoginRequest;
 import com.milsabores.backend.dto.LoginResponse;
+import com.milsabores.backend.dto.UsuarioDTO;
 import com.milsabores.backend.model.Usuario;
 import com.milsabores.backend.repository.UsuarioRepository;
 import com.milsabores.backend.service.AuthService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controlador REST para autenticación
@@ -39,21 +42,29 @@ public class AuthController {
     /**
      * Endpoint de login
      * POST /api/auth/login
+     *
+     * Respuesta asíncrona: BCrypt corre en HashContrasenas, no en el thread de Tomcat.
+     * 503 + Retry-After si el pool de BCrypt está saturado.
      */
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@RequestBody LoginRequest loginRequest) {
         logger.info("🔐 [REQUEST] POST /api/auth/login");
         logger.info("📧 [LOGIN] Correo: {}", loginRequest.getCorreo());
         logger.info("🔒 [LOGIN] Password recibida: {}", loginRequest.getPassword() != null ? "[PRESENTE]" : "[NULL]");
 
-        LoginResponse response = authService.authenticate(loginRequest);
-
-        if (response.isSuccess()) {
-            logger.info("✅ [LOGIN] Login exitoso: {}", loginRequest.getCorreo());
-            return ResponseEntity.ok(response);
-        } else {
-            logger.warn("❌ [LOGIN] Login fallido: {}", response.getMensaje());
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        try {
+            return authService.authenticate(loginRequest).thenApply(response -> {
+                if (response.isSuccess()) {
+                    logger.info("✅ [LOGIN] Login exitoso: {}", loginRequest.getCorreo());
+                    return ResponseEntity.ok(response);
+                } else {
+                    logger.warn("❌ [LOGIN] Login fallido: {}", response.getMensaje());
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+                }
+            });
+        } catch (IllegalStateException e) {
+            logger.warn("⚠️ [LOGIN] Login no disponible: {}", e.getMessage());
+            return CompletableFuture.completedFuture(saturado(e));
         }
     }
 
@@ -62,7 +73,7 @@ public class AuthController {
      * POST /api/auth/registro
      */
     @PostMapping("/registro")
-    public ResponseEntity<LoginResponse> registro(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<LoginResponse>> registro(@RequestBody Map<String, String> request) {
         logger.info("📝 [REQUEST] POST /api/auth/registro");
         logger.info("📧 [REGISTRO] Correo: {}", request.get("correo"));
         logger.info("👤 [REGISTRO] Nombre: {}", request.get("nombre"));
@@ -80,22 +91,35 @@ public class AuthController {
             usuario.setRegion(request.get("region"));
             usuario.setComuna(request.get("comuna"));
 
-            LoginResponse response = authService.registrar(usuario);
-
-            if (response.isSuccess()) {
-                logger.info("✅ [REGISTRO] Registro exitoso: {}", request.get("correo"));
-                return ResponseEntity.status(HttpStatus.CREATED).body(response);
-            } else {
-                logger.warn("❌ [REGISTRO] Registro fallido: {}", response.getMensaje());
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-            }
+            return authService.registrar(usuario).thenApply(response -> {
+                if (response.isSuccess()) {
+                    logger.info("✅ [REGISTRO] Registro exitoso: {}", request.get("correo"));
+                    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+                } else {
+                    logger.warn("❌ [REGISTRO] Registro fallido: {}", response.getMensaje());
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+                }
+            });
+        } catch (IllegalStateException e) {
+            logger.warn("⚠️ [REGISTRO] Registro no disponible: {}", e.getMessage());
+            return CompletableFuture.completedFuture(saturado(e));
         } catch (Exception e) {
             logger.error("❌ [REGISTRO] Error inesperado: {}", e.getMessage());
             LoginResponse errorResponse = new LoginResponse("Error al procesar el registro", false);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse));
         }
     }
 
+    /**
+     * Pool de BCrypt saturado: 503 + Retry-After para que el cliente reintente
+     */
+    private static ResponseEntity<LoginResponse> saturado(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .body(new LoginResponse(e.getMessage(), false));
+    }
+
     /**
      * Endpoint para obtener perfil del usuario autenticado
      * GET /api/auth/perfil
@@ -129,7 +153,7 @@ public class AuthController {
             Usuario usuario = usuarioOpt.get();
             logger.info("✅ [PERFIL] Perfil cargado - ID: {}, Rol: {}", usuario.getId(), usuario.getRol().getNombre());
 
-            return ResponseEntity.ok(usuario);
+            return ResponseEntity.ok(UsuarioDTO.desde(usuario));
             
         } catch (Exception e) {
             logger.error("❌ [PERFIL] Error inesperado: {}", e.getMessage());
@@ -1,17 +1,20 @@
 package com.milsabores.backend.controller;
 
+import com.milsabores.backend.cache.CatalogoRespuestaCache;
+import com.milsabores.backend.cache.CatalogoSnapshot;
+import com.milsabores.backend.cache.RespuestaSerializada;
+import com.milsabores.backend.dto.CategoriaDTO;
 import com.milsabores.backend.model.Categoria;
 import com.milsabores.backend.service.CategoriaService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * Controlador REST para gestión de Categorías
  * Capa de presentación - MVC Pattern
@@ -24,36 +27,48 @@ public class CategoriaController {
 
     private static final Logger logger = LoggerFactory.getLogger(CategoriaController.class);
     private final CategoriaService categoriaService;
+    private final CatalogoRespuestaCache respuestaCache;
 
     @Autowired
-    public CategoriaController(CategoriaService categoriaService) {
+    public CategoriaController(CategoriaService categoriaService, CatalogoRespuestaCache respuestaCache) {
         this.categoriaService = categoriaService;
+        this.respuestaCache = respuestaCache;
     }
 
+    /**
+     * Listar categorías desde la respuesta pre-serializada del catálogo
+     * Responde 304 si el If-None-Match coincide con el ETag vigente.
+     */
     @GetMapping
-    public ResponseEntity<List<Categoria>> listarCategorias(HttpServletRequest request) {
+    public ResponseEntity<byte[]> listarCategorias(HttpServletRequest request) {
         logger.info("📥 [REQUEST] GET /api/categorias");
         logger.info("   Origin: {}", request.getHeader("Origin"));
         logger.info("   User-Agent: {}", request.getHeader("User-Agent"));
         logger.info("   Method: {}", request.getMethod());
         
-        List<Categoria> categorias = categoriaService.obtenerTodas();
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        RespuestaSerializada respuesta = respuestaCache.obtener("categorias", CatalogoSnapshot::getCategorias);
         
-        logger.info("📤 [RESPONSE] {} categorías encontradas", categorias.size());
-        return ResponseEntity.ok(categorias);
+        if (respuesta.coincideCon(ifNoneMatch)) {
+            respuestaCache.registrarNoModificado();
+            logger.info("📤 [RESPONSE] 304 Not Modified - ETag: {}", respuesta.getEtag());
+        } else {
+            logger.info("📤 [RESPONSE] Categorías serializadas - {} bytes", respuesta.getTamanoJson());
+        }
+        return respuesta.comoRespuesta(ifNoneMatch, request.getHeader(HttpHeaders.ACCEPT_ENCODING));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Categoria> obtenerCategoria(@PathVariable Long id) {
+    public ResponseEntity<CategoriaDTO> obtenerCategoria(@PathVariable Long id) {
         return categoriaService.obtenerPorId(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public ResponseEntity<Categoria> crearCategoria(@RequestBody Categoria categoria) {
+    public ResponseEntity<CategoriaDTO> crearCategoria(@RequestBody Categoria categoria) {
         try {
-            Categoria nuevaCategoria = categoriaService.crear(categoria);
+            CategoriaDTO nuevaCategoria = categoriaService.crear(categoria);
             return ResponseEntity.status(HttpStatus.CREATED).body(nuevaCategoria);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
@@ -61,11 +76,11 @@ public class CategoriaController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Categoria> actualizarCategoria(
+    public ResponseEntity<CategoriaDTO> actualizarCategoria(
             @PathVariable Long id, 
             @RequestBody Categoria categoriaActualizada) {
         try {
-            Categoria categoria = categoriaService.actualizar(id, categoriaActualizada);
+            CategoriaDTO categoria = categoriaService.actualizar(id, categoriaActualizada);
             return ResponseEntity.ok(categoria);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
@@ -1,5 +1,6 @@
 package com.milsabores.backend.controller;
 
+import com.milsabores.backend.dto.ContactoDTO;
 import com.milsabores.backend.model.Contacto;
 import com.milsabores.backend.service.ContactoService;
 import org.slf4j.Logger;
@@ -77,12 +78,12 @@ public class ContactoController {
      * GET /api/contactos
      */
     @GetMapping
-    public ResponseEntity<List<Contacto>> listarContactos(
+    public ResponseEntity<List<ContactoDTO>> listarContactos(
             @RequestParam(required = false) Boolean leido) {
         
         logger.info("📋 Admin solicitando lista de contactos (leído: {})", leido);
         
-        List<Contacto> contactos;
+        List<ContactoDTO> contactos;
         
         if (leido != null) {
             contactos = contactoService.obtenerPorEstado(leido);
@@ -98,7 +99,7 @@ public class ContactoController {
      * GET /api/contactos/{id}
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Contacto> obtenerContactoPorId(@PathVariable Long id) {
+    public ResponseEntity<ContactoDTO> obtenerContactoPorId(@PathVariable Long id) {
         logger.info("🔍 Admin solicitando contacto con ID: {}", id);
         
         return contactoService.obtenerPorId(id)
@@ -111,7 +112,7 @@ public class ContactoController {
      * PUT /api/contactos/{id}/leido
      */
     @PutMapping("/{id}/leido")
-    public ResponseEntity<Contacto> marcarComoLeido(
+    public ResponseEntity<ContactoDTO> marcarComoLeido(
             @PathVariable Long id,
             @RequestBody Map<String, Boolean> body) {
         
@@ -121,7 +122,7 @@ public class ContactoController {
             logger.info("📝 Admin marcando contacto {} como {}", 
                        id, leido ? "LEÍDO" : "NO LEÍDO");
             
-            Contacto contactoActualizado = contactoService.marcarComoLeido(id, leido);
+            ContactoDTO contactoActualizado = contactoService.marcarComoLeido(id, leido);
             
             return ResponseEntity.ok(contactoActualizado);
             
@@ -27,7 +27,7 @@ import java.util.Map;
  * - Opcionalmente se puede persistir en DB
  * 
  * Seguridad:
- * - Rate limiting recomendado (evitar flood)
+ * - Rate limiting por IP (LimiteSolicitudesFilter, limite.logs.*)
  * - Validación de tamaño de batch
  * - Sanitización de datos sensibles
  */
@@ -1,16 +1,34 @@
 package com.milsabores.backend.controller;
 
 import com.milsabores.backend.dto.CrearOrdenRequest;
-import com.milsabores.backend.model.Orden;
+import com.milsabores.backend.dto.EstadoOrdenDTO;
+import com.milsabores.backend.dto.FiltroOrdenes;
+import com.milsabores.backend.dto.OrdenDTO;
+import com.milsabores.backend.dto.PaginaOrdenesDTO;
+import com.milsabores.backend.dto.VentasEnVivoDTO;
+import com.milsabores.backend.estadisticas.AcumuladoVentas;
+import com.milsabores.backend.estadisticas.VentasEnVivo;
+import com.milsabores.backend.exception.IdempotenciaConflictoException;
+import com.milsabores.backend.exception.ServicioSaturadoException;
+import com.milsabores.backend.service.ExportacionOrdenesService;
+import com.milsabores.backend.service.IdempotenciaService;
 import com.milsabores.backend.service.OrdenService;
+import com.milsabores.backend.service.RecepcionOrdenesService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -24,11 +42,29 @@ import java.util.Map;
 public class OrdenController {
 
     private static final Logger logger = LoggerFactory.getLogger(OrdenController.class);
+    public static final String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String HEADER_IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final OrdenService ordenService;
+    private final IdempotenciaService idempotenciaService;
+    private final RecepcionOrdenesService recepcionOrdenesService;
+    private final ExportacionOrdenesService exportacionOrdenesService;
+    private final AcumuladoVentas acumuladoVentas;
+    private final VentasEnVivo ventasEnVivo;
 
     @Autowired
-    public OrdenController(OrdenService ordenService) {
+    public OrdenController(OrdenService ordenService,
+                           IdempotenciaService idempotenciaService,
+                           RecepcionOrdenesService recepcionOrdenesService,
+                           ExportacionOrdenesService exportacionOrdenesService,
+                           AcumuladoVentas acumuladoVentas,
+                           VentasEnVivo ventasEnVivo) {
         this.ordenService = ordenService;
+        this.idempotenciaService = idempotenciaService;
+        this.recepcionOrdenesService = recepcionOrdenesService;
+        this.exportacionOrdenesService = exportacionOrdenesService;
+        this.acumuladoVentas = acumuladoVentas;
+        this.ventasEnVivo = ventasEnVivo;
     }
 
     /**
@@ -37,11 +73,11 @@ public class OrdenController {
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'EMPLEADO')")
-    public ResponseEntity<List<Orden>> listarTodas() {
+    public ResponseEntity<List<OrdenDTO>> listarTodas() {
         logger.info("📋 [GET] /api/ordenes - Listar todas las órdenes");
         
         try {
-            List<Orden> ordenes = ordenService.obtenerTodasOrdenes();
+            List<OrdenDTO> ordenes = ordenService.obtenerTodasOrdenes();
             logger.info("✅ [GET] Órdenes listadas - Total: {}", ordenes.size());
             return ResponseEntity.ok(ordenes);
         } catch (Exception e) {
@@ -50,23 +86,99 @@ public class OrdenController {
         }
     }
 
+    /**
+     * Órdenes paginadas con cursor (keyset), más recientes primero (ADMIN y EMPLEADO)
+     *
+     * GET /api/ordenes/pagina?limite=20&desde=2025-12-01&hasta=2025-12-31&estado=COMPLETADA
+     * La siguiente página se pide con ?cursor=<siguienteCursor> y los mismos filtros.
+     */
+    @GetMapping("/pagina")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLEADO')")
+    public ResponseEntity<?> listarPagina(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + OrdenService.LIMITE_PAGINA_DEFECTO) int limite,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String estado) {
+        logger.info("📋 [GET] /api/ordenes/pagina - limite: {}, desde: {}, hasta: {}, estado: {}",
+                limite, desde, hasta, estado);
+        try {
+            PaginaOrdenesDTO pagina = ordenService.obtenerPagina(filtro(desde, hasta, estado), cursor, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ [GET] /api/ordenes/pagina - Parámetros inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Exportar órdenes y sus líneas para contabilidad (ADMIN y EMPLEADO)
+     *
+     * GET /api/ordenes/exportar?formato=csv|ndjson&desde=2025-01-01&hasta=2025-12-31&estado=COMPLETADA
+     * La respuesta se escribe en streaming mientras se lee la BD (memoria constante).
+     * 400 si los parámetros son inválidos, 503 + Retry-After si ya hay una
+     * exportación en curso (ver manejadores al final de la clase).
+     */
+    @GetMapping("/exportar")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLEADO')")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String estado) {
+        logger.info("📤 [GET] /api/ordenes/exportar - formato: {}, desde: {}, hasta: {}, estado: {}",
+                formato, desde, hasta, estado);
+        ExportacionOrdenesService.Formato tipo = ExportacionOrdenesService.Formato.desde(formato);
+        StreamingResponseBody cuerpo = exportacionOrdenesService.preparar(filtro(desde, hasta, estado), tipo);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(tipo.getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"ordenes-" + LocalDate.now() + "." + tipo.getExtension() + "\"")
+            .body(cuerpo);
+    }
+
+    private static FiltroOrdenes filtro(LocalDate desde, LocalDate hasta, String estado) {
+        return FiltroOrdenes.builder()
+                .desde(desde)
+                .hasta(hasta)
+                .estado(estado == null || estado.isBlank() ? null : estado.trim().toUpperCase())
+                .build();
+    }
+
     /**
      * Crear nueva orden desde carrito de compras (CLIENTE autenticado)
      * POST /api/ordenes/crear
+     *
+     * Header opcional Idempotency-Key: un reintento con la misma clave devuelve la
+     * orden original (201 + Idempotent-Replayed: true) en vez de crear otra.
      */
     @PostMapping("/crear")
     @PreAuthorize("hasRole('CLIENTE')")
-    public ResponseEntity<?> crearOrden(@RequestBody CrearOrdenRequest request) {
-        logger.info("🛒 [POST] /api/ordenes/crear - Usuario ID: {}, Items: {}", 
-            request.getUsuarioId(), request.getItems().size());
+    public ResponseEntity<?> crearOrden(
+            @RequestHeader(value = HEADER_IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestBody CrearOrdenRequest request) {
+        logger.info("🛒 [POST] /api/ordenes/crear - Usuario ID: {}, Items: {}, Idempotency-Key: {}", 
+            request.getUsuarioId(), request.getItems().size(), idempotencyKey);
         
         try {
-            Orden ordenCreada = ordenService.crearOrden(request);
+            if (idempotencyKey == null) {
+                OrdenDTO ordenCreada = ordenService.crearOrden(request);
+                logger.info("✅ [POST] Orden creada exitosamente - ID: {}, Total: ${}", 
+                    ordenCreada.getId(), ordenCreada.getTotal());
+                return ResponseEntity.status(HttpStatus.CREATED).body(ordenCreada);
+            }
             
-            logger.info("✅ [POST] Orden creada exitosamente - ID: {}, Total: ${}", 
-                ordenCreada.getId(), ordenCreada.getTotal());
-            
-            return ResponseEntity.status(HttpStatus.CREATED).body(ordenCreada);
+            IdempotenciaService.Resultado resultado = idempotenciaService.crearOrden(idempotencyKey, request);
+            OrdenDTO orden = resultado.orden();
+            logger.info("✅ [POST] Orden {} - ID: {}, Total: ${}", 
+                resultado.repetida() ? "reproducida" : "creada exitosamente", orden.getId(), orden.getTotal());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .header(HEADER_IDEMPOTENT_REPLAYED, String.valueOf(resultado.repetida()))
+                .body(orden);
+        } catch (IdempotenciaConflictoException e) {
+            logger.warn("⚠️ [POST] Idempotency-Key reutilizada con otro body: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             logger.error("❌ [POST] Error al crear orden: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -78,6 +190,50 @@ public class OrdenController {
         }
     }
 
+    /**
+     * Encolar una orden para confirmación asíncrona (CLIENTE autenticado)
+     * POST /api/ordenes/async
+     *
+     * Responde 202 con un token; la orden se confirma en el siguiente lote.
+     * 503 + Retry-After si el modo está deshabilitado o la cola está llena.
+     */
+    @PostMapping("/async")
+    @PreAuthorize("hasRole('CLIENTE')")
+    public ResponseEntity<?> encolarOrden(@RequestBody CrearOrdenRequest request) {
+        logger.info("📥 [POST] /api/ordenes/async - Usuario ID: {}", request.getUsuarioId());
+        
+        try {
+            String token = recepcionOrdenesService.encolar(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(EstadoOrdenDTO.enCola(token));
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ [POST] Orden asíncrona rechazada: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            logger.warn("⚠️ [POST] Recepción asíncrona no disponible: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Consultar el estado de una orden asíncrona (CLIENTE autenticado)
+     * GET /api/ordenes/async/{token}
+     */
+    @GetMapping("/async/{token}")
+    @PreAuthorize("hasRole('CLIENTE')")
+    public ResponseEntity<?> estadoOrden(@PathVariable String token) {
+        if (!recepcionOrdenesService.isHabilitado()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "La recepción asíncrona de órdenes está deshabilitada"));
+        }
+        return recepcionOrdenesService.consultar(token)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Token de orden no encontrado o expirado")));
+    }
+
     /**
      * Obtener estadísticas de ventas últimos 15 días (ADMIN y EMPLEADO)
      * GET /api/ordenes/stats/ultimos-15-dias
@@ -134,4 +290,73 @@ public class OrdenController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * Ventas de las últimas 48 horas y 31 días desde memoria (ADMIN y EMPLEADO)
+     * GET /api/ordenes/stats/en-vivo
+     */
+    @GetMapping("/stats/en-vivo")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLEADO')")
+    public ResponseEntity<VentasEnVivoDTO> ventasEnVivo() {
+        return ResponseEntity.ok(ventasEnVivo.instantanea());
+    }
+
+    /**
+     * Stream SSE de ventas en vivo para el dashboard (ADMIN y EMPLEADO)
+     * GET /api/ordenes/stats/en-vivo/stream
+     * Evento "ventas" con la instantánea cada vez que se confirma una orden.
+     * 503 + Retry-After si ya hay demasiados dashboards conectados.
+     */
+    @GetMapping(value = "/stats/en-vivo/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLEADO')")
+    public ResponseEntity<SseEmitter> streamVentasEnVivo() {
+        logger.info("📡 [GET] /api/ordenes/stats/en-vivo/stream");
+        SseEmitter emitter = ventasEnVivo.suscribir();
+        return ResponseEntity.ok()
+            .header("X-Accel-Buffering", "no")
+            .body(emitter);
+    }
+
+    /**
+     * Recalcular ventas_diarias y ventas_mensuales desde ordenes (solo ADMIN)
+     * POST /api/ordenes/stats/reconstruir
+     */
+    @PostMapping("/stats/reconstruir")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> reconstruirEstadisticas() {
+        logger.info("♻️ [POST] /api/ordenes/stats/reconstruir");
+        
+        try {
+            acumuladoVentas.reconstruir();
+            logger.info("✅ [POST] Acumulados de ventas reconstruidos");
+            return ResponseEntity.ok(ordenService.obtenerResumenGeneral());
+        } catch (Exception e) {
+            logger.error("❌ [POST] Error al reconstruir acumulados: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Parámetros inválidos en los endpoints que no capturan la excepción
+     * (exportar devuelve el cuerpo tipado para que Spring lo escriba en streaming)
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> parametrosInvalidos(IllegalArgumentException e, HttpServletRequest request) {
+        logger.warn("⚠️ [{}] {} - Parámetros inválidos: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
+        return ResponseEntity.badRequest()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of("error", e.getMessage()));
+    }
+
+    /**
+     * Cupo de exportación o de streams en vivo lleno: 503 + Retry-After
+     */
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity<Map<String, String>> saturado(ServicioSaturadoException e, HttpServletRequest request) {
+        logger.warn("⚠️ [{}] {} - {}", request.getMethod(), request.getRequestURI(), e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getSegundosReintento()))
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of("error", e.getMessage()));
+    }
 }
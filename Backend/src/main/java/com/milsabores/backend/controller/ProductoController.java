@@ -1,15 +1,27 @@
 package com.milsabores.backend.controller;
 
+import com.milsabores.backend.cache.CatalogoRespuestaCache;
+import com.milsabores.backend.cache.CatalogoSnapshot;
+import com.milsabores.backend.cache.RespuestaSerializada;
+import com.milsabores.backend.dto.FiltroProductos;
+import com.milsabores.backend.dto.ItemLoteDTO;
+import com.milsabores.backend.dto.LoteProductosRequest;
+import com.milsabores.backend.dto.PaginaProductosDTO;
+import com.milsabores.backend.dto.ProductoDTO;
+import com.milsabores.backend.dto.ResultadoBusquedaDTO;
+import com.milsabores.backend.dto.SugerenciaDTO;
 import com.milsabores.backend.model.Producto;
 import com.milsabores.backend.service.ProductoService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -24,31 +36,130 @@ public class ProductoController {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductoController.class);
     private final ProductoService productoService;
+    private final CatalogoRespuestaCache respuestaCache;
 
     @Autowired
-    public ProductoController(ProductoService productoService) {
+    public ProductoController(ProductoService productoService, CatalogoRespuestaCache respuestaCache) {
         this.productoService = productoService;
+        this.respuestaCache = respuestaCache;
     }
 
+    /**
+     * Listar productos desde la respuesta pre-serializada del catálogo
+     * Responde 304 si el If-None-Match coincide con el ETag vigente.
+     */
     @GetMapping
-    public ResponseEntity<List<Producto>> listarProductos() {
+    public ResponseEntity<byte[]> listarProductos(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         long startTime = System.currentTimeMillis();
         logger.info("📦 [GET] /api/productos - Listar todos los productos");
         
-        List<Producto> productos = productoService.obtenerTodos();
+        RespuestaSerializada respuesta = respuestaCache.obtener("productos", CatalogoSnapshot::getProductos);
         
         long duration = System.currentTimeMillis() - startTime;
-        logger.info("✅ [GET] Productos listados - Total: {} en {}ms", productos.size(), duration);
+        if (respuesta.coincideCon(ifNoneMatch)) {
+            respuestaCache.registrarNoModificado();
+            logger.info("✅ [GET] Productos sin cambios (304) - ETag: {} en {}ms", respuesta.getEtag(), duration);
+        } else {
+            logger.info("✅ [GET] Productos listados - {} bytes en {}ms", respuesta.getTamanoJson(), duration);
+        }
         
-        return ResponseEntity.ok(productos);
+        return respuesta.comoRespuesta(ifNoneMatch, acceptEncoding);
+    }
+
+    /**
+     * Catálogo paginado con cursor (keyset) y filtros
+     *
+     * GET /api/productos/pagina?limite=20&categoriaId=1&precioMin=5000&precioMax=30000&soloConStock=true&orden=nombre
+     * La siguiente página se pide con ?cursor=<siguienteCursor> y los mismos filtros.
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<?> listarPagina(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ProductoService.LIMITE_PAGINA_DEFECTO) int limite,
+            @RequestParam(required = false) Long categoriaId,
+            @RequestParam(required = false) Integer precioMin,
+            @RequestParam(required = false) Integer precioMax,
+            @RequestParam(defaultValue = "false") boolean soloConStock,
+            @RequestParam(defaultValue = "id") String orden) {
+        logger.info("📦 [GET] /api/productos/pagina - limite: {}, categoria: {}, precio: [{}, {}], soloConStock: {}, orden: {}",
+                limite, categoriaId, precioMin, precioMax, soloConStock, orden);
+        try {
+            FiltroProductos filtro = FiltroProductos.builder()
+                    .categoriaId(categoriaId)
+                    .precioMin(precioMin)
+                    .precioMax(precioMax)
+                    .soloConStock(soloConStock)
+                    .orden(FiltroProductos.Orden.desde(orden))
+                    .build();
+            PaginaProductosDTO pagina = productoService.obtenerPagina(filtro, cursor, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ [GET] /api/productos/pagina - Parámetros inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Búsqueda de productos (insensible a tildes, por prefijo, ordenada por relevancia)
+     *
+     * GET /api/productos/buscar?q=brazo reina&pagina=0&tamano=20
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<?> buscarProductos(
+            @RequestParam("q") String consulta,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "" + ProductoService.LIMITE_PAGINA_DEFECTO) int tamano) {
+        try {
+            ResultadoBusquedaDTO resultado = productoService.buscar(consulta, pagina, tamano);
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ [GET] /api/productos/buscar - Parámetros inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Autocompletado del buscador: top-N nombres de productos y categorías para el prefijo
+     *
+     * GET /api/productos/sugerencias?q=tor&n=8
+     * Se invoca en cada tecla: se sirve desde memoria y solo loguea en DEBUG.
+     */
+    @GetMapping("/sugerencias")
+    public ResponseEntity<List<SugerenciaDTO>> sugerencias(
+            @RequestParam(value = "q", defaultValue = "") String prefijo,
+            @RequestParam(defaultValue = "8") int n) {
+        List<SugerenciaDTO> sugerencias = productoService.sugerir(prefijo, n);
+        logger.debug("🔤 [GET] /api/productos/sugerencias?q={} - {} sugerencias", prefijo, sugerencias.size());
+        return ResponseEntity.ok(sugerencias);
+    }
+
+    /**
+     * Precio y stock vigentes de varios items del carrito en un solo request
+     *
+     * POST /api/productos/lote
+     * Body: { "items": [ { "productoId": 1, "varianteId": 3 }, { "productoId": 2, "varianteId": null } ] }
+     * Responde los items en el mismo orden; los inexistentes vienen con encontrado = false.
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<?> resolverLote(@RequestBody LoteProductosRequest request) {
+        try {
+            List<ItemLoteDTO> items = productoService.resolverLote(request.getItems());
+            logger.info("🛒 [POST] /api/productos/lote - {} items resueltos", items.size());
+            return ResponseEntity.ok(items);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ [POST] /api/productos/lote - Lote inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Producto> obtenerProductoPorId(@PathVariable Long id) {
-        Optional<Producto> productoOpt = productoService.obtenerPorId(id);
+    public ResponseEntity<ProductoDTO> obtenerProductoPorId(@PathVariable Long id) {
+        Optional<ProductoDTO> productoOpt = productoService.obtenerPorId(id);
         
         if (productoOpt.isPresent()) {
-            Producto producto = productoOpt.get();
+            ProductoDTO producto = productoOpt.get();
             logger.info("📦 [GET] /api/productos/{} - Variantes: {}, Imagenes: {}", 
                 id, producto.getVariantes().size(), producto.getImagenes().size());
             
@@ -59,10 +170,29 @@ public class ProductoController {
         }
     }
 
+    /**
+     * Productos comprados frecuentemente junto a este (ProductDetail)
+     *
+     * GET /api/productos/{id}/comprados-juntos?limite=4
+     * Se sirve desde memoria; lista vacía si el producto no tiene ventas en común.
+     */
+    @GetMapping("/{id}/comprados-juntos")
+    public ResponseEntity<?> compradosJuntos(@PathVariable Long id,
+                                             @RequestParam(defaultValue = "4") int limite) {
+        try {
+            List<ProductoDTO> productos = productoService.compradosJuntos(id, limite);
+            logger.debug("🤝 [GET] /api/productos/{}/comprados-juntos - {} productos", id, productos.size());
+            return ResponseEntity.ok(productos);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ [GET] /api/productos/{}/comprados-juntos - Parámetros inválidos: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/categoria/{id}")
-    public ResponseEntity<List<Producto>> listarPorCategoria(@PathVariable Long id) {
+    public ResponseEntity<List<ProductoDTO>> listarPorCategoria(@PathVariable Long id) {
         try {
-            List<Producto> productos = productoService.obtenerPorCategoria(id);
+            List<ProductoDTO> productos = productoService.obtenerPorCategoria(id);
             return ResponseEntity.ok(productos);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -70,9 +200,9 @@ public class ProductoController {
     }
 
     @PostMapping
-    public ResponseEntity<Producto> crearProducto(@RequestBody Producto producto) {
+    public ResponseEntity<ProductoDTO> crearProducto(@RequestBody Producto producto) {
         try {
-            Producto nuevoProducto = productoService.crear(producto);
+            ProductoDTO nuevoProducto = productoService.crear(producto);
             return ResponseEntity.status(HttpStatus.CREATED).body(nuevoProducto);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
@@ -82,11 +212,11 @@ public class ProductoController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Producto> actualizarProducto(
+    public ResponseEntity<ProductoDTO> actualizarProducto(
             @PathVariable Long id, 
             @RequestBody Producto productoActualizado) {
         try {
-            Producto producto = productoService.actualizar(id, productoActualizado);
+            ProductoDTO producto = productoService.actualizar(id, productoActualizado);
             return ResponseEntity.ok(producto);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
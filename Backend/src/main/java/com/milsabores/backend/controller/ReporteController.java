@@ -0,0 +1,99 @@
+package com.milsabores.backend.controller;
+
+import com.milsabores.backend.dto.TopVentasDTO;
+import com.milsabores.backend.estadisticas.CompradosJuntos;
+import com.milsabores.backend.estadisticas.MasVendidos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Controlador REST de reportes de ventas
+ * Capa de presentación - MVC Pattern
+ * Solo accesible por ADMIN
+ * CORS configurado globalmente en SecurityConfig
+ */
+@RestController
+@RequestMapping("/api/reportes")
+@PreAuthorize("hasRole('ADMIN')")
+public class ReporteController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReporteController.class);
+    private final MasVendidos masVendidos;
+    private final CompradosJuntos compradosJuntos;
+
+    @Autowired
+    public ReporteController(MasVendidos masVendidos, CompradosJuntos compradosJuntos) {
+        this.masVendidos = masVendidos;
+        this.compradosJuntos = compradosJuntos;
+    }
+
+    /**
+     * Productos más vendidos (ADMIN)
+     * GET /api/reportes/top-productos?ventana=semana&k=10
+     * ventana: dia | semana | mes (terminan hoy); k: 1..50
+     */
+    @GetMapping("/top-productos")
+    public ResponseEntity<?> topProductos(@RequestParam(defaultValue = "semana") String ventana,
+                                          @RequestParam(defaultValue = "10") int k) {
+        logger.info("🏆 [GET] /api/reportes/top-productos - ventana: {}, k: {}", ventana, k);
+
+        try {
+            TopVentasDTO top = masVendidos.topProductos(MasVendidos.Ventana.desde(ventana), k);
+            return ResponseEntity.ok(top);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ [GET] Parámetros inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Variantes más vendidas (ADMIN)
+     * GET /api/reportes/top-variantes?ventana=semana&k=10
+     * ventana: dia | semana | mes (terminan hoy); k: 1..50
+     */
+    @GetMapping("/top-variantes")
+    public ResponseEntity<?> topVariantes(@RequestParam(defaultValue = "semana") String ventana,
+                                          @RequestParam(defaultValue = "10") int k) {
+        logger.info("🏆 [GET] /api/reportes/top-variantes - ventana: {}, k: {}", ventana, k);
+
+        try {
+            TopVentasDTO top = masVendidos.topVariantes(MasVendidos.Ventana.desde(ventana), k);
+            return ResponseEntity.ok(top);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ [GET] Parámetros inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Reconstruir la matriz de comprados juntos desde detalles_orden (ADMIN)
+     * POST /api/reportes/comprados-juntos/reconstruir
+     * Se mantiene sola con cada orden; esto es para corregirla después de cambios en la BD.
+     */
+    @PostMapping("/comprados-juntos/reconstruir")
+    public ResponseEntity<?> reconstruirCompradosJuntos() {
+        logger.info("🔄 [POST] /api/reportes/comprados-juntos/reconstruir");
+
+        try {
+            int productos = compradosJuntos.reconstruir();
+            return ResponseEntity.ok(Map.of("productos", productos));
+        } catch (IllegalStateException e) {
+            logger.warn("⚠️ [POST] Reconstrucción rechazada: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
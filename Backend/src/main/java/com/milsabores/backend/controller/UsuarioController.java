@@ -1,10 +1,12 @@
 package com.milsabores.backend.controller;
 
+import com.milsabores.backend.dto.UsuarioDTO;
 import com.milsabores.backend.model.Usuario;
 import com.milsabores.backend.service.UsuarioService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -38,11 +40,11 @@ public class UsuarioController {
      * GET /api/usuarios
      */
     @GetMapping
-    public ResponseEntity<List<Usuario>> listarTodos() {
+    public ResponseEntity<List<UsuarioDTO>> listarTodos() {
         logger.info("📋 [GET] /api/usuarios - Listar todos los usuarios");
         
         try {
-            List<Usuario> usuarios = usuarioService.listarTodos();
+            List<UsuarioDTO> usuarios = usuarioService.listarTodos();
             logger.info("✅ [GET] Usuarios listados - Total: {}", usuarios.size());
             return ResponseEntity.ok(usuarios);
         } catch (Exception e) {
@@ -60,7 +62,7 @@ public class UsuarioController {
         logger.info("🔍 [GET] /api/usuarios/{} - Obtener usuario", id);
         
         try {
-            Usuario usuario = usuarioService.obtenerPorId(id);
+            UsuarioDTO usuario = usuarioService.obtenerPorId(id);
             logger.info("✅ [GET] Usuario encontrado - ID: {}", id);
             return ResponseEntity.ok(usuario);
         } catch (RuntimeException e) {
@@ -113,6 +115,9 @@ public class UsuarioController {
             error.put("success", false);
             error.put("message", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (IllegalStateException e) {
+            logger.warn("⚠️ [POST] Hash de contraseña no disponible: {}", e.getMessage());
+            return saturado(e);
         } catch (Exception e) {
             logger.error("❌ [POST] Error inesperado: {}", e.getMessage());
             Map<String, Object> error = new HashMap<>();
@@ -161,6 +166,9 @@ public class UsuarioController {
             error.put("success", false);
             error.put("message", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (IllegalStateException e) {
+            logger.warn("⚠️ [PUT] Hash de contraseña no disponible: {}", e.getMessage());
+            return saturado(e);
         } catch (RuntimeException e) {
             logger.warn("⚠️ [PUT] Usuario no encontrado - ID: {}", id);
             Map<String, Object> error = new HashMap<>();
@@ -214,4 +222,16 @@ public class UsuarioController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
+
+    /**
+     * Pool de BCrypt saturado (HashContrasenas): 503 + Retry-After
+     */
+    private static ResponseEntity<?> saturado(IllegalStateException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("success", false);
+        error.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .body(error);
+    }
 }
@@ -0,0 +1,28 @@
+package com.milsabores.backend.dto;
+
+import com.milsabores.backend.model.Categoria;
+import lombok.Value;
+
+/**
+ * Vista de solo lectura de una Categoría
+ * Mismos campos JSON que la entidad (sin la lista de productos)
+ */
+@Value
+public class CategoriaDTO {
+    Long id;
+    String nombre;
+    String descripcion;
+    String imagen;
+
+    public static CategoriaDTO desde(Categoria categoria) {
+        if (categoria == null) {
+            return null;
+        }
+        return new CategoriaDTO(
+                categoria.getId(),
+                categoria.getNombre(),
+                categoria.getDescripcion(),
+                categoria.getImagen()
+        );
+    }
+}
@@ -0,0 +1,32 @@
+package com.milsabores.backend.dto;
+
+import com.milsabores.backend.model.Contacto;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista de un mensaje de contacto para el backoffice
+ */
+@Value
+public class ContactoDTO {
+    Long id;
+    String nombre;
+    String email;
+    String telefono;
+    String mensaje;
+    LocalDateTime fechaEnvio;
+    Boolean leido;
+
+    public static ContactoDTO desde(Contacto contacto) {
+        return new ContactoDTO(
+                contacto.getId(),
+                contacto.getNombre(),
+                contacto.getEmail(),
+                contacto.getTelefono(),
+                contacto.getMensaje(),
+                contacto.getFechaEnvio(),
+                contacto.getLeido()
+        );
+    }
+}
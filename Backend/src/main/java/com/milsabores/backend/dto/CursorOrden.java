@@ -0,0 +1,42 @@
+package com.milsabores.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco de la paginación keyset de órdenes
+ *
+ * Guarda la última orden entregada (fecha, id) del orden fecha DESC, id DESC.
+ * Se envía al cliente en Base64 URL-safe: "<fecha ISO>|<id>".
+ */
+public record CursorOrden(LocalDateTime fecha, Long id) {
+
+    public static CursorOrden desde(OrdenDTO ultima) {
+        return new CursorOrden(ultima.getFecha(), ultima.getId());
+    }
+
+    public String codificar() {
+        String plano = fecha + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodificar un cursor recibido del cliente
+     *
+     * @throws IllegalArgumentException si el cursor es inválido
+     */
+    public static CursorOrden decodificar(String cursor) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = plano.split("\\|");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new CursorOrden(LocalDateTime.parse(partes[0]), Long.parseLong(partes[1]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.milsabores.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco de la paginación keyset del catálogo
+ *
+ * Guarda la última fila entregada (id, y nombre si se ordena por nombre).
+ * Se envía al cliente en Base64 URL-safe: "I|<id>" o "N|<id>|<nombre>".
+ */
+public record CursorProducto(FiltroProductos.Orden orden, Long id, String nombre) {
+
+    public static CursorProducto desde(ProductoDTO ultimo, FiltroProductos.Orden orden) {
+        return new CursorProducto(orden, ultimo.getId(), orden == FiltroProductos.Orden.NOMBRE ? ultimo.getNombre() : null);
+    }
+
+    public String codificar() {
+        String plano = orden == FiltroProductos.Orden.NOMBRE ? "N|" + id + "|" + nombre : "I|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodificar un cursor recibido del cliente
+     *
+     * @throws IllegalArgumentException si el cursor es inválido o no corresponde al orden pedido
+     */
+    public static CursorProducto decodificar(String cursor, FiltroProductos.Orden ordenEsperado) {
+        String plano;
+        try {
+            plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+
+        // El nombre va al final y puede contener '|'
+        String[] partes = plano.split("\\|", 3);
+        FiltroProductos.Orden orden = switch (partes[0]) {
+            case "I" -> FiltroProductos.Orden.ID;
+            case "N" -> FiltroProductos.Orden.NOMBRE;
+            default -> throw new IllegalArgumentException("Cursor inválido");
+        };
+        if (orden != ordenEsperado) {
+            throw new IllegalArgumentException("El cursor no corresponde al orden solicitado: " + ordenEsperado);
+        }
+        if ((orden == FiltroProductos.Orden.ID && partes.length != 2)
+                || (orden == FiltroProductos.Orden.NOMBRE && partes.length != 3)) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+
+        try {
+            Long id = Long.parseLong(partes[1]);
+            return new CursorProducto(orden, id, orden == FiltroProductos.Orden.NOMBRE ? partes[2] : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
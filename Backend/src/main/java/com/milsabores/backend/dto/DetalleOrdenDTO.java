@@ -0,0 +1,32 @@
+package com.milsabores.backend.dto;
+
+import com.milsabores.backend.model.DetalleOrden;
+import lombok.Value;
+
+/**
+ * Línea de una orden con los datos del producto/variante vendidos
+ */
+@Value
+public class DetalleOrdenDTO {
+    Long id;
+    Integer cantidad;
+    Integer precioUnitario;
+    Integer subtotal;
+    Long productoId;
+    String productoNombre;
+    Long varianteId;
+    String varianteNombre;
+
+    public static DetalleOrdenDTO desde(DetalleOrden detalle) {
+        return new DetalleOrdenDTO(
+                detalle.getId(),
+                detalle.getCantidad(),
+                detalle.getPrecioUnitario(),
+                detalle.getSubtotal(),
+                detalle.getProducto() != null ? detalle.getProducto().getId() : null,
+                detalle.getProducto() != null ? detalle.getProducto().getNombre() : null,
+                detalle.getVariante() != null ? detalle.getVariante().getId() : null,
+                detalle.getVariante() != null ? detalle.getVariante().getNombre() : null
+        );
+    }
+}
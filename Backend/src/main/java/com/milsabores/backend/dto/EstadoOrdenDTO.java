@@ -0,0 +1,37 @@
+package com.milsabores.backend.dto;
+
+import lombok.Value;
+
+/**
+ * Estado de una orden recibida en modo asíncrono (GET /api/ordenes/async/{token})
+ *
+ * EN_COLA -> COMPLETADA (orden con ID) o RECHAZADA (error con el motivo)
+ */
+@Value
+public class EstadoOrdenDTO {
+
+    public static final String EN_COLA = "EN_COLA";
+    public static final String COMPLETADA = "COMPLETADA";
+    public static final String RECHAZADA = "RECHAZADA";
+
+    String token;
+    String estado;
+    OrdenDTO orden;
+    String error;
+
+    public static EstadoOrdenDTO enCola(String token) {
+        return new EstadoOrdenDTO(token, EN_COLA, null, null);
+    }
+
+    public static EstadoOrdenDTO completada(String token, OrdenDTO orden) {
+        return new EstadoOrdenDTO(token, COMPLETADA, orden, null);
+    }
+
+    public static EstadoOrdenDTO rechazada(String token, String error) {
+        return new EstadoOrdenDTO(token, RECHAZADA, null, error);
+    }
+
+    public boolean isTerminado() {
+        return !EN_COLA.equals(estado);
+    }
+}
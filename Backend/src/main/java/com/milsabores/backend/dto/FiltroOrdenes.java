@@ -0,0 +1,19 @@
+package com.milsabores.backend.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros de la paginación keyset de órdenes (GET /api/ordenes/pagina)
+ *
+ * desde y hasta son días inclusivos; estado se compara exacto (ej: COMPLETADA).
+ */
+@Value
+@Builder
+public class FiltroOrdenes {
+    LocalDate desde;
+    LocalDate hasta;
+    String estado;
+}
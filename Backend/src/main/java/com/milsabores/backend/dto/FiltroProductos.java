@@ -0,0 +1,39 @@
+package com.milsabores.backend.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Filtros de la paginación keyset del catálogo (GET /api/productos/pagina)
+ *
+ * Los filtros de precio y stock se evalúan sobre las variantes: un producto
+ * califica si tiene AL MENOS una variante que cumpla todos los filtros.
+ */
+@Value
+@Builder
+public class FiltroProductos {
+
+    public enum Orden {
+        ID, NOMBRE;
+
+        public static Orden desde(String valor) {
+            for (Orden orden : values()) {
+                if (orden.name().equalsIgnoreCase(valor)) {
+                    return orden;
+                }
+            }
+            throw new IllegalArgumentException("Orden no soportado: " + valor + " (usar 'id' o 'nombre')");
+        }
+    }
+
+    Long categoriaId;
+    Integer precioMin;
+    Integer precioMax;
+    boolean soloConStock;
+    @Builder.Default
+    Orden orden = Orden.ID;
+
+    public boolean filtraVariantes() {
+        return precioMin != null || precioMax != null || soloConStock;
+    }
+}
@@ -0,0 +1,34 @@
+package com.milsabores.backend.dto;
+
+import com.milsabores.backend.model.ImagenProducto;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista de solo lectura de una ImagenProducto (sin referencia al producto padre)
+ */
+@Value
+public class ImagenProductoDTO {
+    Long id;
+    String urlSupabase;
+    String nombreArchivo;
+    String tipoMime;
+    Long tamanoBytes;
+    Boolean esPrincipal;
+    Integer orden;
+    LocalDateTime fechaCarga;
+
+    public static ImagenProductoDTO desde(ImagenProducto imagen) {
+        return new ImagenProductoDTO(
+                imagen.getId(),
+                imagen.getUrlSupabase(),
+                imagen.getNombreArchivo(),
+                imagen.getTipoMime(),
+                imagen.getTamanoBytes(),
+                imagen.getEsPrincipal(),
+                imagen.getOrden(),
+                imagen.getFechaCarga()
+        );
+    }
+}
@@ -0,0 +1,34 @@
+package com.milsabores.backend.dto;
+
+import lombok.Value;
+
+/**
+ * Precio y stock vigentes de un par (producto, variante) del carrito
+ *
+ * Si el producto no tiene variante, precio es el precioBase y stock es null.
+ * encontrado = false cuando el producto o la variante ya no existen.
+ */
+@Value
+public class ItemLoteDTO {
+    Long productoId;
+    Long varianteId;
+    boolean encontrado;
+    String productoNombre;
+    String varianteNombre;
+    Integer precio;
+    Integer stock;
+
+    public static ItemLoteDTO noEncontrado(Long productoId, Long varianteId) {
+        return new ItemLoteDTO(productoId, varianteId, false, null, null, null, null);
+    }
+
+    public static ItemLoteDTO desde(ProductoDTO producto) {
+        return new ItemLoteDTO(producto.getId(), null, true, producto.getNombre(), null,
+                producto.getPrecioBase(), null);
+    }
+
+    public static ItemLoteDTO desde(ProductoDTO producto, VarianteProductoDTO variante) {
+        return new ItemLoteDTO(producto.getId(), variante.getId(), true, producto.getNombre(), variante.getNombre(),
+                variante.getPrecio(), variante.getStock());
+    }
+}
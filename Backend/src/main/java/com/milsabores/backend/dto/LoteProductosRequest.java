@@ -0,0 +1,25 @@
+package com.milsabores.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para resolver en lote los items del carrito (POST /api/productos/lote)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteProductosRequest {
+    private List<Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long productoId;
+        private Long varianteId; // Puede ser null si no tiene variante
+    }
+}
@@ -0,0 +1,16 @@
+package com.milsabores.backend.dto;
+
+import lombok.Value;
+
+/**
+ * Producto o variante en el ranking de más vendidos (GET /api/reportes/top-*)
+ * En el ranking de productos varianteId y variante son null.
+ */
+@Value
+public class MasVendidoDTO {
+    Long productoId;
+    String producto;
+    Long varianteId;
+    String variante;
+    long unidades;
+}
@@ -0,0 +1,36 @@
+package com.milsabores.backend.dto;
+
+import com.milsabores.backend.model.Orden;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Vista de una Orden con su cliente y detalles
+ *
+ * Se construye dentro de la transacción de OrdenService: el controller
+ * serializa solo este objeto y nunca toca colecciones lazy.
+ */
+@Value
+public class OrdenDTO {
+    Long id;
+    LocalDateTime fecha;
+    Integer total;
+    String estado;
+    UsuarioDTO usuario;
+    List<DetalleOrdenDTO> detalles;
+
+    public static OrdenDTO desde(Orden orden) {
+        List<DetalleOrdenDTO> detalles = orden.getDetalles() == null ? List.of() :
+                orden.getDetalles().stream().map(DetalleOrdenDTO::desde).toList();
+        return new OrdenDTO(
+                orden.getId(),
+                orden.getFecha(),
+                orden.getTotal(),
+                orden.getEstado(),
+                UsuarioDTO.desde(orden.getUsuario()),
+                detalles
+        );
+    }
+}
@@ -0,0 +1,18 @@
+package com.milsabores.backend.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Página de órdenes (más recientes primero) con cursor para pedir la siguiente
+ *
+ * siguienteCursor es null cuando no hay más resultados.
+ */
+@Value
+public class PaginaOrdenesDTO {
+    List<OrdenDTO> ordenes;
+    String siguienteCursor;
+    boolean hayMas;
+    int limite;
+}
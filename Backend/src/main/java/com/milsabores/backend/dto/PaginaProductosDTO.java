@@ -0,0 +1,18 @@
+package com.milsabores.backend.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Página del catálogo con cursor para pedir la siguiente
+ *
+ * siguienteCursor es null cuando no hay más resultados.
+ */
+@Value
+public class PaginaProductosDTO {
+    List<ProductoDTO> productos;
+    String siguienteCursor;
+    boolean hayMas;
+    int limite;
+}
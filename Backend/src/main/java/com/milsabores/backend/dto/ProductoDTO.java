@@ -0,0 +1,58 @@
+package com.milsabores.backend.dto;
+
+import com.milsabores.backend.model.ImagenProducto;
+import com.milsabores.backend.model.Producto;
+import com.milsabores.backend.model.VarianteProducto;
+import lombok.Value;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Vista inmutable de un Producto con categoría, variantes e imágenes
+ *
+ * Produce el mismo JSON que la entidad Producto, pero no depende de la sesión
+ * Hibernate: se puede compartir entre threads y serializar fuera de transacción.
+ * Variantes ordenadas por ID e imágenes por "orden" para que el JSON sea estable.
+ */
+@Value
+public class ProductoDTO {
+    Long id;
+    String nombre;
+    String descripcion;
+    String imagen;
+    Integer precioBase;
+    CategoriaDTO categoria;
+    List<VarianteProductoDTO> variantes;
+    List<ImagenProductoDTO> imagenes;
+
+    /**
+     * Construir desde una entidad con colecciones ya inicializadas
+     * (llamar dentro de la transacción que cargó el producto)
+     */
+    public static ProductoDTO desde(Producto producto) {
+        List<VarianteProductoDTO> variantes = producto.getVariantes() == null ? List.of() :
+                producto.getVariantes().stream()
+                        .sorted(Comparator.comparing(VarianteProducto::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                        .map(VarianteProductoDTO::desde)
+                        .toList();
+
+        List<ImagenProductoDTO> imagenes = producto.getImagenes() == null ? List.of() :
+                producto.getImagenes().stream()
+                        .sorted(Comparator.comparing(ImagenProducto::getOrden, Comparator.nullsLast(Comparator.naturalOrder()))
+                                .thenComparing(ImagenProducto::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                        .map(ImagenProductoDTO::desde)
+                        .toList();
+
+        return new ProductoDTO(
+                producto.getId(),
+                producto.getNombre(),
+                producto.getDescripcion(),
+                producto.getImagen(),
+                producto.getPrecioBase(),
+                CategoriaDTO.desde(producto.getCategoria()),
+                variantes,
+                imagenes
+        );
+    }
+}
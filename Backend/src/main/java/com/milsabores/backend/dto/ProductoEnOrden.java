@@ -0,0 +1,8 @@
+package com.milsabores.backend.dto;
+
+/**
+ * Producto presente en una orden (sin repetir por variante)
+ * Para reconstruir la matriz de CompradosJuntos desde detalles_orden.
+ */
+public record ProductoEnOrden(Long ordenId, Long productoId) {
+}
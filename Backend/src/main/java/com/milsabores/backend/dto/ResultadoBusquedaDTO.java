@@ -0,0 +1,17 @@
+package com.milsabores.backend.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Página de resultados de búsqueda de productos (ordenados por relevancia)
+ */
+@Value
+public class ResultadoBusquedaDTO {
+    String consulta;
+    int total;
+    int pagina;
+    int tamano;
+    List<ProductoDTO> productos;
+}
@@ -0,0 +1,17 @@
+package com.milsabores.backend.dto;
+
+import com.milsabores.backend.model.Rol;
+import lombok.Value;
+
+/**
+ * Vista de un Rol (mantiene la forma usuario.rol.nombre que usa el frontend)
+ */
+@Value
+public class RolDTO {
+    Long id;
+    String nombre;
+
+    public static RolDTO desde(Rol rol) {
+        return rol == null ? null : new RolDTO(rol.getId(), rol.getNombre());
+    }
+}
@@ -0,0 +1,17 @@
+package com.milsabores.backend.dto;
+
+import lombok.Value;
+
+/**
+ * Sugerencia de autocompletado (producto o categoría)
+ */
+@Value
+public class SugerenciaDTO {
+
+    public static final String PRODUCTO = "PRODUCTO";
+    public static final String CATEGORIA = "CATEGORIA";
+
+    String tipo;
+    Long id;
+    String nombre;
+}
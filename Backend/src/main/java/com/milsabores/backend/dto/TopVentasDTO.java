@@ -0,0 +1,20 @@
+package com.milsabores.backend.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Ranking de más vendidos de una ventana de días (GET /api/reportes/top-*)
+ *
+ * conciliado: todos los días de la ventana vienen de la compactación exacta contra
+ * detalles_orden; si es false, las unidades son estimaciones del sketch (cota superior).
+ */
+@Value
+public class TopVentasDTO {
+    String ventana;
+    String desde;
+    String hasta;
+    boolean conciliado;
+    List<MasVendidoDTO> items;
+}
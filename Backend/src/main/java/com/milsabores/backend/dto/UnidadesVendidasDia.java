@@ -0,0 +1,10 @@
+package com.milsabores.backend.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Unidades vendidas de un producto/variante en un día (GROUP BY en la BD, ver DetalleOrdenRepository)
+ * varianteId es null para productos sin variante.
+ */
+public record UnidadesVendidasDia(LocalDate dia, Long productoId, Long varianteId, Long unidades) {
+}
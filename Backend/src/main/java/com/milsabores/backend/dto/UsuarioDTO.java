@@ -0,0 +1,36 @@
+package com.milsabores.backend.dto;
+
+import com.milsabores.backend.model.Usuario;
+import lombok.Value;
+
+/**
+ * Vista de un Usuario para respuestas REST
+ *
+ * No incluye el hash de la contraseña (la entidad lo serializaba completo).
+ */
+@Value
+public class UsuarioDTO {
+    Long id;
+    String rut;
+    String nombre;
+    String apellido;
+    String correo;
+    String direccion;
+    String region;
+    String comuna;
+    RolDTO rol;
+
+    public static UsuarioDTO desde(Usuario usuario) {
+        return new UsuarioDTO(
+                usuario.getId(),
+                usuario.getRut(),
+                usuario.getNombre(),
+                usuario.getApellido(),
+                usuario.getCorreo(),
+                usuario.getDireccion(),
+                usuario.getRegion(),
+                usuario.getComuna(),
+                RolDTO.desde(usuario.getRol())
+        );
+    }
+}
@@ -0,0 +1,26 @@
+package com.milsabores.backend.dto;
+
+import com.milsabores.backend.model.VarianteProducto;
+import lombok.Value;
+
+/**
+ * Vista de solo lectura de una VarianteProducto
+ */
+@Value
+public class VarianteProductoDTO {
+    Long id;
+    String nombre;
+    Integer precio;
+    Integer stock;
+    String infoNutricional;
+
+    public static VarianteProductoDTO desde(VarianteProducto variante) {
+        return new VarianteProductoDTO(
+                variante.getId(),
+                variante.getNombre(),
+                variante.getPrecio(),
+                variante.getStock(),
+                variante.getInfoNutricional()
+        );
+    }
+}
@@ -0,0 +1,9 @@
+package com.milsabores.backend.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Fila agregada de ventas de un día (GROUP BY en la BD, ver OrdenRepository)
+ */
+public record VentasDia(LocalDate dia, Long ordenes, Long total) {
+}
@@ -0,0 +1,28 @@
+package com.milsabores.backend.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Ventas recientes servidas desde memoria (GET /api/ordenes/stats/en-vivo y su stream SSE)
+ *
+ * horas: últimas 48 horas, dias: últimos 31 días; ambos del más antiguo al actual.
+ * version cambia con cada orden confirmada: el dashboard puede ignorar repeticiones.
+ */
+@Value
+public class VentasEnVivoDTO {
+    long version;
+    String generado;
+    Punto hoy;
+    Punto horaActual;
+    List<Punto> horas;
+    List<Punto> dias;
+
+    @Value
+    public static class Punto {
+        String periodo;
+        long ordenes;
+        long total;
+    }
+}
@@ -0,0 +1,9 @@
+package com.milsabores.backend.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Fila agregada de ventas de una hora (GROUP BY en la BD, ver OrdenRepository)
+ */
+public record VentasHora(LocalDate dia, Integer hora, Long ordenes, Long total) {
+}
@@ -0,0 +1,7 @@
+package com.milsabores.backend.dto;
+
+/**
+ * Fila agregada de ventas de un mes (GROUP BY en la BD, ver OrdenRepository)
+ */
+public record VentasMes(Integer anio, Integer mes, Long ordenes, Long total) {
+}
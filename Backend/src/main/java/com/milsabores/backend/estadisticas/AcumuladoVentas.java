@@ -0,0 +1,283 @@
+package com.milsabores.backend.estadisticas;
+
+import com.milsabores.backend.dto.VentasDia;
+import com.milsabores.backend.dto.VentasMes;
+import com.milsabores.backend.model.Orden;
+import com.milsabores.backend.model.VentaDiaria;
+import com.milsabores.backend.model.VentaMensual;
+import com.milsabores.backend.repository.OrdenRepository;
+import com.milsabores.backend.repository.VentaDiariaRepository;
+import com.milsabores.backend.repository.VentaMensualRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Acumulados de ventas por día y por mes mantenidos incrementalmente
+ *
+ * PROBLEMA:
+ * - Cada GET /api/ordenes/stats/* agregaba la tabla ordenes completa del rango
+ * - El resumen contaba TODAS las órdenes: el costo crecía con el historial
+ *
+ * SOLUCIÓN:
+ * - ventas_diarias y ventas_mensuales (V13) guardan órdenes y total por período
+ * - crearOrden registra cada orden aquí; antes del commit de su transacción se
+ *   aplica un MERGE por día y por mes tocado (un lote de recepción asíncrona con
+ *   50 órdenes del mismo día son 2 sentencias, no 100)
+ * - Si la transacción hace rollback, el acumulado no cambia
+ * - Los días se bloquean antes que los meses y en orden de fecha: dos transacciones
+ *   de órdenes no pueden esperarse mutuamente
+ * - reconstruir() recalcula desde ordenes (historial previo o corrección manual)
+ *
+ * Las filas de hoy, mañana y sus meses se crean por adelantado (prepararPeriodos):
+ * el MERGE de la primera orden del día actualiza una fila existente en vez de
+ * competir con otra transacción por insertarla.
+ *
+ * Métricas (GET /actuator/metrics/...):
+ * - ventas.acumulado.reconstruccion: tiempo de cada reconstrucción
+ */
+@Component
+public class AcumuladoVentas {
+
+    private static final Logger logger = LoggerFactory.getLogger(AcumuladoVentas.class);
+
+    // MERGE estándar (PostgreSQL 15+ y H2): suma a la fila del período o la crea
+    private static final String SQL_ACUMULAR = "MERGE INTO %1$s v " +
+            "USING (VALUES (CAST(? AS DATE), CAST(? AS BIGINT), CAST(? AS BIGINT))) AS d(%2$s, ordenes, total) " +
+            "ON v.%2$s = d.%2$s " +
+            "WHEN MATCHED THEN UPDATE SET ordenes = v.ordenes + d.ordenes, total = v.total + d.total " +
+            "WHEN NOT MATCHED THEN INSERT (%2$s, ordenes, total) VALUES (d.%2$s, d.ordenes, d.total)";
+    private static final String SQL_ACUMULAR_DIA = String.format(SQL_ACUMULAR, "ventas_diarias", "dia");
+    private static final String SQL_ACUMULAR_MES = String.format(SQL_ACUMULAR, "ventas_mensuales", "mes");
+
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final VentaMensualRepository ventaMensualRepository;
+    private final OrdenRepository ordenRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean reconstruirAlIniciar;
+
+    private final ReentrantLock lockReconstruccion = new ReentrantLock();
+    private final Timer tiempoReconstruccion;
+
+    public AcumuladoVentas(VentaDiariaRepository ventaDiariaRepository,
+                           VentaMensualRepository ventaMensualRepository,
+                           OrdenRepository ordenRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${ventas.acumulado.reconstruir-al-iniciar:true}") boolean reconstruirAlIniciar) {
+        this.ventaDiariaRepository = ventaDiariaRepository;
+        this.ventaMensualRepository = ventaMensualRepository;
+        this.ordenRepository = ordenRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconstruirAlIniciar = reconstruirAlIniciar;
+
+        this.tiempoReconstruccion = Timer.builder("ventas.acumulado.reconstruccion")
+                .description("Tiempo de reconstrucción de ventas_diarias y ventas_mensuales")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sumar una orden confirmada a su día y su mes
+     *
+     * Debe llamarse dentro de la transacción de la orden. Las órdenes de la misma
+     * transacción se agrupan en memoria y se escriben antes del commit.
+     */
+    public void registrar(Orden orden) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("AcumuladoVentas.registrar requiere una transacción activa");
+        }
+
+        Pendientes pendientes = (Pendientes) TransactionSynchronizationManager.getResource(this);
+        if (pendientes == null) {
+            Pendientes nuevos = new Pendientes();
+            TransactionSynchronizationManager.bindResource(this, nuevos);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    aplicar(nuevos);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AcumuladoVentas.this);
+                }
+            });
+            pendientes = nuevos;
+        }
+
+        long total = orden.getTotal() != null ? orden.getTotal() : 0L;
+        pendientes.sumar(orden.getFecha().toLocalDate(), total);
+    }
+
+    /**
+     * Un MERGE por día y luego uno por mes, en orden de fecha
+     *
+     * Por JDBC sobre la conexión de la transacción: una query nativa del
+     * EntityManager forzaría un flush extra de la sesión antes del commit.
+     */
+    private void aplicar(Pendientes pendientes) {
+        Map<LocalDate, long[]> meses = new TreeMap<>();
+        pendientes.dias.forEach((dia, valores) -> {
+            acumularDia(dia, valores[0], valores[1]);
+            long[] mes = meses.computeIfAbsent(dia.withDayOfMonth(1), m -> new long[2]);
+            mes[0] += valores[0];
+            mes[1] += valores[1];
+        });
+        meses.forEach((mes, valores) -> acumularMes(mes, valores[0], valores[1]));
+    }
+
+    private void acumularDia(LocalDate dia, long ordenes, long total) {
+        jdbcTemplate.update(SQL_ACUMULAR_DIA, dia, ordenes, total);
+    }
+
+    private void acumularMes(LocalDate mes, long ordenes, long total) {
+        jdbcTemplate.update(SQL_ACUMULAR_MES, mes, ordenes, total);
+    }
+
+    /**
+     * Cargar el historial si el acumulado está vacío (primer despliegue con V13)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void inicializar() {
+        try {
+            if (reconstruirAlIniciar && ventaMensualRepository.count() == 0) {
+                reconstruir();
+            }
+            prepararPeriodos();
+        } catch (RuntimeException e) {
+            // Las estadísticas quedan incompletas hasta reconstruir; las órdenes siguen acumulando
+            logger.error("❌ [VENTAS] Error inicializando acumulados de ventas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Crear las filas de hoy y mañana (y sus meses) antes de que lleguen órdenes
+     */
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT1H")
+    public void prepararPeriodos() {
+        LocalDate hoy = LocalDate.now();
+        for (LocalDate dia : new LocalDate[] {hoy, hoy.plusDays(1)}) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    acumularDia(dia, 0, 0);
+                    acumularMes(dia.withDayOfMonth(1), 0, 0);
+                });
+            } catch (RuntimeException e) {
+                // Una orden insertó la fila primero: ya existe
+                logger.warn("⚠️ [VENTAS] No se pudo preparar el acumulado de {}: {}", dia, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Recalcular ventas_diarias y ventas_mensuales desde ordenes
+     *
+     * - Días anteriores a ayer y meses anteriores al de ayer: DELETE + INSERT ... SELECT
+     *   agregando en la BD (ninguna orden nueva cae en ellos)
+     * - Ayer, hoy y los meses abiertos: se bloquea la fila y se recalcula; una orden en
+     *   vuelo o ya estaba confirmada (se cuenta en la consulta) o espera el lock y suma
+     *   su parte después
+     *
+     * Idempotente: puede repetirse con la aplicación recibiendo órdenes.
+     */
+    public void reconstruir() {
+        lockReconstruccion.lock();
+        try {
+            tiempoReconstruccion.record(() -> {
+                LocalDate hoy = LocalDate.now();
+                LocalDate ayer = hoy.minusDays(1);
+                LocalDate primerMesAbierto = ayer.withDayOfMonth(1);
+
+                int dias = transactionTemplate.execute(status -> {
+                    ventaDiariaRepository.eliminarAnterioresA(ayer);
+                    return ventaDiariaRepository.cargarDesdeOrdenes(ayer.atStartOfDay());
+                });
+                recalcularDia(ayer);
+                recalcularDia(hoy);
+
+                int meses = transactionTemplate.execute(status -> {
+                    ventaMensualRepository.eliminarAnterioresA(primerMesAbierto);
+                    return ventaMensualRepository.cargarDesdeDias(primerMesAbierto);
+                });
+                for (LocalDate mes = primerMesAbierto; !mes.isAfter(hoy); mes = mes.plusMonths(1)) {
+                    recalcularMes(mes);
+                }
+
+                logger.info("✅ [VENTAS] Acumulados reconstruidos - {} días y {} meses cerrados más los períodos abiertos",
+                        dias, meses);
+            });
+        } finally {
+            lockReconstruccion.unlock();
+        }
+    }
+
+    private void recalcularDia(LocalDate dia) {
+        transactionTemplate.executeWithoutResult(status -> {
+            acumularDia(dia, 0, 0);
+            VentaDiaria fila = ventaDiariaRepository.bloquear(dia).orElseThrow();
+
+            long ordenes = 0;
+            long total = 0;
+            for (VentasDia ventas : ordenRepository.sumarVentasPorDia(dia.atStartOfDay(), dia.plusDays(1).atStartOfDay())) {
+                if (ventas.dia().equals(dia)) {
+                    ordenes += ventas.ordenes();
+                    total += ventas.total();
+                }
+            }
+            fila.setOrdenes(ordenes);
+            fila.setTotal(total);
+        });
+    }
+
+    private void recalcularMes(LocalDate mes) {
+        transactionTemplate.executeWithoutResult(status -> {
+            acumularMes(mes, 0, 0);
+            VentaMensual fila = ventaMensualRepository.bloquear(mes).orElseThrow();
+
+            long ordenes = 0;
+            long total = 0;
+            for (VentasMes ventas : ordenRepository.sumarVentasPorMes(mes.atStartOfDay(), mes.plusMonths(1).atStartOfDay())) {
+                if (ventas.anio() == mes.getYear() && ventas.mes() == mes.getMonthValue()) {
+                    ordenes += ventas.ordenes();
+                    total += ventas.total();
+                }
+            }
+            fila.setOrdenes(ordenes);
+            fila.setTotal(total);
+        });
+    }
+
+    /**
+     * Órdenes y total por día acumulados en la transacción en curso
+     */
+    private static final class Pendientes {
+        private final Map<LocalDate, long[]> dias = new TreeMap<>();
+
+        void sumar(LocalDate dia, long total) {
+            long[] valores = dias.computeIfAbsent(dia, d -> new long[2]);
+            valores[0]++;
+            valores[1] += total;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.milsabores.backend.estadisticas;
+
+import com.milsabores.backend.dto.ProductoEnOrden;
+import com.milsabores.backend.repository.DetalleOrdenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Comprados juntos": matriz de co-ocurrencia de productos en una misma orden
+ *
+ * Matriz dispersa: una fila MapaLongInt (long -> int, sin boxing) por producto
+ * con cuántas órdenes lo incluyeron junto a cada otro producto.
+ *
+ * - Cada orden confirmada (OrdenConfirmadaEvent, después del commit) suma 1 a
+ *   cada par de productos distintos de la orden
+ * - recomendar(): recorre la fila del producto en memoria (microsegundos, sin BD)
+ * - reconstruir(): lee detalles_orden por rangos de IDs (una conexión a la vez;
+ *   el pool es de 2) y cuenta los pares en paralelo con fork-join; las órdenes
+ *   confirmadas durante la reconstrucción se reaplican sobre la matriz nueva
+ *
+ * Requiere una sola instancia del backend (como VentasEnVivo y MasVendidos).
+ *
+ * Métricas (GET /actuator/metrics/...):
+ * - recomendaciones.reconstruccion: tiempo de cada reconstrucción completa
+ */
+@Component
+public class CompradosJuntos {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompradosJuntos.class);
+
+    public static final int K_MAXIMO = 12;
+    // Órdenes por hoja del fork-join: bajo esto contar secuencialmente es más barato que dividir
+    static final int UMBRAL_ORDENES = 2048;
+
+    private final DetalleOrdenRepository detalleOrdenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer tiempoReconstruccion;
+    private final int ordenesPorLectura;
+
+    // Lecturas concurrentes; escritura al sumar una orden o reemplazar la matriz
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock reconstruyendo = new ReentrantLock();
+    private Matriz matriz = new Matriz();
+    // Órdenes confirmadas mientras se reconstruye (null si no hay reconstrucción)
+    private List<Orden> pendientes;
+
+    public CompradosJuntos(DetalleOrdenRepository detalleOrdenRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${recomendaciones.ordenes-por-lectura:20000}") int ordenesPorLectura) {
+        this.detalleOrdenRepository = detalleOrdenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.ordenesPorLectura = ordenesPorLectura;
+
+        this.tiempoReconstruccion = Timer.builder("recomendaciones.reconstruccion")
+                .description("Tiempo de reconstrucción de la matriz de comprados juntos")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener
+    public void onOrdenConfirmada(OrdenConfirmadaEvent event) {
+        registrar(event.ordenId(), event.lineas().stream().mapToLong(OrdenConfirmadaEvent.Linea::productoId).toArray());
+    }
+
+    void registrar(long ordenId, long[] productos) {
+        Orden orden = new Orden(ordenId, distintos(productos));
+        lock.writeLock().lock();
+        try {
+            matriz.sumar(orden.productos());
+            if (pendientes != null) {
+                pendientes.add(orden);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Los k productos comprados más veces junto al producto (más frecuente primero;
+     * empates por ID). Vacío si el producto nunca se vendió con otro.
+     */
+    public List<Long> recomendar(long productoId, int k) {
+        if (k < 1 || k > K_MAXIMO) {
+            throw new IllegalArgumentException("k debe estar entre 1 y " + K_MAXIMO);
+        }
+
+        // Selección por inserción en arreglos de tamaño k: sin ordenar la fila completa
+        long[] claves = new long[k];
+        int[] conteos = new int[k];
+        int[] encontrados = {0};
+        lock.readLock().lock();
+        try {
+            MapaLongInt fila = matriz.filas.get(productoId);
+            if (fila == null) {
+                return List.of();
+            }
+            fila.recorrer((clave, conteo) -> {
+                int n = encontrados[0];
+                if (n == k && !antes(clave, conteo, claves[k - 1], conteos[k - 1])) {
+                    return;
+                }
+                int i = n == k ? k - 1 : n;
+                while (i > 0 && antes(clave, conteo, claves[i - 1], conteos[i - 1])) {
+                    claves[i] = claves[i - 1];
+                    conteos[i] = conteos[i - 1];
+                    i--;
+                }
+                claves[i] = clave;
+                conteos[i] = conteo;
+                encontrados[0] = Math.min(n + 1, k);
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> resultado = new ArrayList<>(encontrados[0]);
+        for (int i = 0; i < encontrados[0]; i++) {
+            resultado.add(claves[i]);
+        }
+        return resultado;
+    }
+
+    /**
+     * Construir la matriz con el historial completo al arrancar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        try {
+            reconstruir();
+        } catch (RuntimeException e) {
+            // Se siguen contando las órdenes nuevas; el historial queda fuera hasta reconstruir
+            logger.error("❌ [RECOMENDACIONES] Error construyendo comprados juntos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstruir la matriz desde detalles_orden (POST /api/reportes/comprados-juntos/reconstruir)
+     *
+     * @return cantidad de productos con al menos un par
+     * @throws IllegalStateException si ya hay una reconstrucción en curso
+     */
+    public int reconstruir() {
+        if (!reconstruyendo.tryLock()) {
+            throw new IllegalStateException("Ya hay una reconstrucción de comprados juntos en curso");
+        }
+        try {
+            return tiempoReconstruccion.record(this::reconstruirMatriz);
+        } finally {
+            reconstruyendo.unlock();
+        }
+    }
+
+    private int reconstruirMatriz() {
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Matriz nueva;
+        long[] ordenesLeidas;
+        try {
+            Historial historial = leerHistorial();
+            ordenesLeidas = historial.ordenes();
+            nueva = ForkJoinPool.commonPool().invoke(new Conteo(historial, 0, historial.inicios().length - 1));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Las confirmadas durante la lectura pueden estar o no en lo leído
+            int reaplicadas = 0;
+            for (Orden orden : pendientes) {
+                if (Arrays.binarySearch(ordenesLeidas, orden.id()) < 0) {
+                    nueva.sumar(orden.productos());
+                    reaplicadas++;
+                }
+            }
+            matriz = nueva;
+            pendientes = null;
+            logger.info("✅ [RECOMENDACIONES] Comprados juntos reconstruido - {} órdenes, {} productos, {} reaplicadas",
+                    ordenesLeidas.length, nueva.filas.size(), reaplicadas);
+            return nueva.filas.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Leer (orden, producto) por rangos de IDs de orden, cada rango en su transacción
+     */
+    private Historial leerHistorial() {
+        long maxOrdenId = transactionTemplate.execute(status -> detalleOrdenRepository.maxOrdenId());
+
+        long[] ordenes = new long[1024];
+        long[] productos = new long[1024];
+        int filas = 0;
+        for (long desde = 0; desde < maxOrdenId; desde += ordenesPorLectura) {
+            long inicioRango = desde;
+            List<ProductoEnOrden> rango = transactionTemplate.execute(status ->
+                    detalleOrdenRepository.findProductosPorOrden(inicioRango, inicioRango + ordenesPorLectura));
+            if (filas + rango.size() > ordenes.length) {
+                int capacidad = Math.max(ordenes.length * 2, filas + rango.size());
+                ordenes = Arrays.copyOf(ordenes, capacidad);
+                productos = Arrays.copyOf(productos, capacidad);
+            }
+            for (ProductoEnOrden fila : rango) {
+                ordenes[filas] = fila.ordenId();
+                productos[filas] = fila.productoId();
+                filas++;
+            }
+        }
+
+        // inicios[i] = primera fila de la i-ésima orden; el último es el fin
+        int[] inicios = new int[filas + 1];
+        long[] idsOrdenes = new long[filas];
+        int cantidadOrdenes = 0;
+        for (int i = 0; i < filas; i++) {
+            if (i == 0 || ordenes[i] != ordenes[i - 1]) {
+                inicios[cantidadOrdenes] = i;
+                idsOrdenes[cantidadOrdenes] = ordenes[i];
+                cantidadOrdenes++;
+            }
+        }
+        inicios[cantidadOrdenes] = filas;
+        return new Historial(Arrays.copyOf(idsOrdenes, cantidadOrdenes), Arrays.copyOf(inicios, cantidadOrdenes + 1),
+                Arrays.copyOf(productos, filas));
+    }
+
+    private static boolean antes(long clave, int conteo, long otraClave, int otroConteo) {
+        return conteo > otroConteo || (conteo == otroConteo && clave < otraClave);
+    }
+
+    private static long[] distintos(long[] productos) {
+        return Arrays.stream(productos).distinct().toArray();
+    }
+
+    private record Orden(long id, long[] productos) {
+    }
+
+    /**
+     * Productos de las órdenes leídas, en arreglos primitivos
+     * (productos de la orden i = productos[inicios[i] .. inicios[i + 1]))
+     */
+    private record Historial(long[] ordenes, int[] inicios, long[] productos) {
+    }
+
+    /**
+     * Cuenta los pares de las órdenes [desde, hasta): divide hasta UMBRAL_ORDENES
+     * y combina sumando la matriz menor en la mayor
+     */
+    private static final class Conteo extends RecursiveTask<Matriz> {
+
+        private final Historial historial;
+        private final int desde;
+        private final int hasta;
+
+        Conteo(Historial historial, int desde, int hasta) {
+            this.historial = historial;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected Matriz compute() {
+            if (hasta - desde <= UMBRAL_ORDENES) {
+                Matriz parcial = new Matriz();
+                for (int orden = desde; orden < hasta; orden++) {
+                    parcial.sumar(historial.productos(), historial.inicios()[orden], historial.inicios()[orden + 1]);
+                }
+                return parcial;
+            }
+
+            int medio = (desde + hasta) >>> 1;
+            Conteo izquierda = new Conteo(historial, desde, medio);
+            izquierda.fork();
+            Matriz derecha = new Conteo(historial, medio, hasta).compute();
+            Matriz combinada = izquierda.join();
+            return combinada.combinar(derecha);
+        }
+    }
+
+    /**
+     * Matriz simétrica dispersa producto -> (producto -> órdenes en común)
+     */
+    private static final class Matriz {
+
+        private final Map<Long, MapaLongInt> filas = new HashMap<>();
+        private long pares;
+
+        void sumar(long[] productos) {
+            sumar(productos, 0, productos.length);
+        }
+
+        /**
+         * Sumar una orden (productos distintos en [desde, hasta)): cada par en ambas direcciones
+         */
+        void sumar(long[] productos, int desde, int hasta) {
+            for (int i = desde; i < hasta; i++) {
+                for (int j = i + 1; j < hasta; j++) {
+                    fila(productos[i]).incrementar(productos[j], 1);
+                    fila(productos[j]).incrementar(productos[i], 1);
+                    pares++;
+                }
+            }
+        }
+
+        Matriz combinar(Matriz otra) {
+            Matriz mayor = pares >= otra.pares ? this : otra;
+            Matriz menor = mayor == this ? otra : this;
+            menor.filas.forEach((producto, fila) -> mayor.fila(producto).sumar(fila));
+            mayor.pares += menor.pares;
+            return mayor;
+        }
+
+        private MapaLongInt fila(long producto) {
+            return filas.computeIfAbsent(producto, p -> new MapaLongInt());
+        }
+    }
+}
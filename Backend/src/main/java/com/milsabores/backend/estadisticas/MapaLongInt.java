@@ -0,0 +1,104 @@
+package com.milsabores.backend.estadisticas;
+
+/**
+ * Mapa long -> int sin boxing (direccionamiento abierto, sondeo lineal)
+ *
+ * Dos arreglos paralelos en vez de un HashMap<Long, Integer>: sin un objeto
+ * Entry + Long + Integer por par, y el recorrido es secuencial en memoria.
+ * La clave 0 marca celda vacía: solo admite IDs distintos de 0 (los de secuencia).
+ * Sin eliminación (los conteos solo crecen). No es thread-safe.
+ */
+final class MapaLongInt {
+
+    @FunctionalInterface
+    interface Visitante {
+        void visitar(long clave, int valor);
+    }
+
+    private static final int CAPACIDAD_INICIAL = 8;
+
+    private long[] claves;
+    private int[] valores;
+    private int tamano;
+
+    MapaLongInt() {
+        this.claves = new long[CAPACIDAD_INICIAL];
+        this.valores = new int[CAPACIDAD_INICIAL];
+    }
+
+    /**
+     * Sumar delta al valor de la clave (0 si no estaba)
+     */
+    void incrementar(long clave, int delta) {
+        if (clave == 0) {
+            throw new IllegalArgumentException("La clave 0 está reservada");
+        }
+        int posicion = buscar(claves, clave);
+        if (claves[posicion] == clave) {
+            valores[posicion] += delta;
+            return;
+        }
+        claves[posicion] = clave;
+        valores[posicion] = delta;
+        // Factor de carga <= 1/2: los sondeos se mantienen cortos
+        if (++tamano * 2 > claves.length) {
+            agrandar();
+        }
+    }
+
+    int obtener(long clave) {
+        int posicion = buscar(claves, clave);
+        return claves[posicion] == clave && clave != 0 ? valores[posicion] : 0;
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    void recorrer(Visitante visitante) {
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != 0) {
+                visitante.visitar(claves[i], valores[i]);
+            }
+        }
+    }
+
+    /**
+     * Acumular todos los pares de otro mapa
+     */
+    void sumar(MapaLongInt otro) {
+        otro.recorrer(this::incrementar);
+    }
+
+    private void agrandar() {
+        long[] clavesAnteriores = claves;
+        int[] valoresAnteriores = valores;
+        claves = new long[clavesAnteriores.length * 2];
+        valores = new int[clavesAnteriores.length * 2];
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            if (clavesAnteriores[i] != 0) {
+                int posicion = buscar(claves, clavesAnteriores[i]);
+                claves[posicion] = clavesAnteriores[i];
+                valores[posicion] = valoresAnteriores[i];
+            }
+        }
+    }
+
+    /**
+     * Posición de la clave o de la primera celda vacía de su secuencia de sondeo
+     */
+    private static int buscar(long[] claves, long clave) {
+        int mascara = claves.length - 1;
+        int posicion = (int) (mezclar(clave) & mascara);
+        while (claves[posicion] != 0 && claves[posicion] != clave) {
+            posicion = (posicion + 1) & mascara;
+        }
+        return posicion;
+    }
+
+    // IDs consecutivos caerían en celdas consecutivas y alargarían los sondeos
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,382 @@
+package com.milsabores.backend.estadisticas;
+
+import com.milsabores.backend.cache.CatalogoCache;
+import com.milsabores.backend.cache.CatalogoSnapshot;
+import com.milsabores.backend.dto.MasVendidoDTO;
+import com.milsabores.backend.dto.ProductoDTO;
+import com.milsabores.backend.dto.TopVentasDTO;
+import com.milsabores.backend.dto.UnidadesVendidasDia;
+import com.milsabores.backend.dto.VarianteProductoDTO;
+import com.milsabores.backend.repository.DetalleOrdenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Productos y variantes más vendidos por ventana de días (GET /api/reportes/top-*)
+ *
+ * PROBLEMA:
+ * - No había forma de ver los más vendidos sin exportar detalles_orden completo
+ *
+ * SOLUCIÓN (streaming):
+ * - Cada línea de una orden confirmada (OrdenConfirmadaEvent, después del commit)
+ *   suma sus unidades a un Count-Min Sketch del día y a uno por ventana (día,
+ *   semana, mes), y actualiza un heap acotado de candidatos con la estimación
+ * - La consulta lee los k primeros del heap de la ventana: O(k), sin BD
+ *   (los nombres salen del snapshot del catálogo)
+ * - Al cambiar el día las ventanas se rearman sumando los sketches diarios
+ *   (son lineales) y reevaluando la unión de candidatos de esos días
+ *
+ * Conciliación:
+ * - Al arrancar se cargan los últimos 30 días desde detalles_orden (GROUP BY)
+ * - Cada noche se reemplazan los días cerrados por su conteo exacto: un candidato
+ *   desplazado por colisiones del sketch vuelve a su lugar
+ *
+ * Órdenes anteriores al arranque vienen de la carga inicial y posteriores de los
+ * eventos (mismo corte que VentasEnVivo). Requiere una sola instancia del backend.
+ *
+ * Métricas (GET /actuator/metrics/...):
+ * - reportes.mas-vendidos.compactacion: tiempo de cada conciliación con la BD
+ */
+@Component
+public class MasVendidos {
+
+    private static final Logger logger = LoggerFactory.getLogger(MasVendidos.class);
+
+    public static final int K_MAXIMO = 50;
+    static final int DIAS = 30;
+    // Candidatos por heap: más que K_MAXIMO para que un producto que sube no quede fuera
+    static final int CAPACIDAD_CANDIDATOS = 2 * K_MAXIMO;
+    // 1024 x 4 contadores (32 KB por sketch): error <= 0,27% de las unidades de la ventana
+    static final int ANCHO_SKETCH = 1024;
+    static final int PROFUNDIDAD_SKETCH = 4;
+
+    /**
+     * Ventanas consultables: terminan hoy e incluyen `dias` días
+     */
+    public enum Ventana {
+        DIA(1), SEMANA(7), MES(30);
+
+        private final int dias;
+
+        Ventana(int dias) {
+            this.dias = dias;
+        }
+
+        public static Ventana desde(String valor) {
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Ventana inválida: " + valor + " (dia, semana o mes)");
+            }
+        }
+    }
+
+    private final DetalleOrdenRepository detalleOrdenRepository;
+    private final CatalogoCache catalogoCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer tiempoCompactacion;
+
+    private final LocalDateTime corte = LocalDateTime.now();
+    // Todo el estado de abajo se protege con el monitor de esta instancia
+    private final Agregado[] dias = new Agregado[DIAS];
+    private final Map<Ventana, Agregado> ventanas = new EnumMap<>(Ventana.class);
+    private long hoy = Long.MIN_VALUE;
+    // Producto de cada variante vista: para nombrar variantes sin recorrer el catálogo
+    private final Map<Long, Long> productoDeVariante = new ConcurrentHashMap<>();
+
+    public MasVendidos(DetalleOrdenRepository detalleOrdenRepository,
+                       CatalogoCache catalogoCache,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.detalleOrdenRepository = detalleOrdenRepository;
+        this.catalogoCache = catalogoCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+
+        this.tiempoCompactacion = Timer.builder("reportes.mas-vendidos.compactacion")
+                .description("Tiempo de conciliación de más vendidos con detalles_orden")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener
+    public void onOrdenConfirmada(OrdenConfirmadaEvent event) {
+        registrar(event.fecha(), event.lineas());
+    }
+
+    synchronized void registrar(LocalDateTime fecha, List<OrdenConfirmadaEvent.Linea> lineas) {
+        if (fecha.isBefore(corte) || lineas == null || lineas.isEmpty()) {
+            return;
+        }
+        long dia = fecha.toLocalDate().toEpochDay();
+        avanzar(Math.max(hoy, dia));
+
+        Agregado agregadoDia = diaParaEscribir(dia);
+        if (agregadoDia == null) {
+            // Orden de un día que ya salió de todas las ventanas
+            return;
+        }
+        for (OrdenConfirmadaEvent.Linea linea : lineas) {
+            if (linea.varianteId() != null) {
+                productoDeVariante.put(linea.varianteId(), linea.productoId());
+            }
+            agregadoDia.sumar(linea.productoId(), linea.varianteId(), linea.cantidad());
+            for (Ventana ventana : Ventana.values()) {
+                if (dia > hoy - ventana.dias) {
+                    ventanas.get(ventana).sumar(linea.productoId(), linea.varianteId(), linea.cantidad());
+                }
+            }
+        }
+    }
+
+    /**
+     * Los k productos más vendidos de la ventana
+     */
+    public TopVentasDTO topProductos(Ventana ventana, int k) {
+        return consultar(ventana, k, LocalDate.now(), true);
+    }
+
+    /**
+     * Las k variantes más vendidas de la ventana
+     */
+    public TopVentasDTO topVariantes(Ventana ventana, int k) {
+        return consultar(ventana, k, LocalDate.now(), false);
+    }
+
+    TopVentasDTO consultar(Ventana ventana, int k, LocalDate fecha, boolean productos) {
+        if (k < 1 || k > K_MAXIMO) {
+            throw new IllegalArgumentException("k debe estar entre 1 y " + K_MAXIMO);
+        }
+
+        List<TopK.Candidato> primeros;
+        boolean conciliado;
+        synchronized (this) {
+            avanzar(Math.max(hoy, fecha.toEpochDay()));
+            Agregado agregado = ventanas.get(ventana);
+            primeros = (productos ? agregado.topProductos : agregado.topVariantes).primeros(k);
+            conciliado = agregado.conciliado;
+        }
+
+        // Fuera del lock: k búsquedas en el snapshot del catálogo (memoria)
+        CatalogoSnapshot catalogo = catalogoCache.obtener();
+        List<MasVendidoDTO> items = new ArrayList<>(primeros.size());
+        for (TopK.Candidato candidato : primeros) {
+            items.add(productos ? itemProducto(catalogo, candidato) : itemVariante(catalogo, candidato));
+        }
+        LocalDate hasta = LocalDate.ofEpochDay(Math.max(hoy, fecha.toEpochDay()));
+        return new TopVentasDTO(ventana.name().toLowerCase(Locale.ROOT), hasta.minusDays(ventana.dias - 1L).toString(),
+                hasta.toString(), conciliado, items);
+    }
+
+    /**
+     * Carga inicial de los últimos 30 días (hasta el corte) desde detalles_orden
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void sembrar() {
+        try {
+            LocalDate hasta = corte.toLocalDate();
+            conciliar(hasta.minusDays(DIAS - 1L), corte, true);
+            logger.info("✅ [REPORTES] Más vendidos cargados hasta {}", corte);
+        } catch (RuntimeException e) {
+            // Se siguen contando las órdenes nuevas; el historial previo queda fuera
+            logger.error("❌ [REPORTES] Error cargando más vendidos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reemplazar los días cerrados de las ventanas por su conteo exacto
+     */
+    @Scheduled(cron = "${reportes.mas-vendidos.compactacion-cron:0 30 3 * * *}")
+    public void compactar() {
+        try {
+            LocalDate hoyFecha = LocalDate.now();
+            conciliar(hoyFecha.minusDays(DIAS - 1L), hoyFecha.atStartOfDay(), false);
+            logger.info("✅ [REPORTES] Más vendidos conciliados con detalles_orden hasta {}", hoyFecha.minusDays(1));
+        } catch (RuntimeException e) {
+            // Las estimaciones siguen sirviendo; se reintenta la próxima noche
+            logger.error("❌ [REPORTES] Error compactando más vendidos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Construir los días de [desde, fin) con la BD (fuera del lock) e instalarlos
+     *
+     * @param fusionar true en la carga inicial: los días ya tienen órdenes posteriores
+     *                 al corte que no están en la consulta y se suman
+     */
+    private void conciliar(LocalDate desde, LocalDateTime fin, boolean fusionar) {
+        tiempoCompactacion.record(() -> {
+            List<UnidadesVendidasDia> filas = transactionTemplate.execute(status ->
+                    detalleOrdenRepository.sumarUnidadesPorDia(desde.atStartOfDay(), fin));
+
+            Map<Long, Agregado> exactos = new HashMap<>();
+            for (LocalDate dia = desde; dia.isBefore(fin.toLocalDate()) || (fusionar && dia.equals(fin.toLocalDate()));
+                 dia = dia.plusDays(1)) {
+                exactos.put(dia.toEpochDay(), new Agregado());
+            }
+            for (UnidadesVendidasDia fila : filas) {
+                Agregado agregado = exactos.get(fila.dia().toEpochDay());
+                if (agregado == null) {
+                    continue;
+                }
+                if (fila.varianteId() != null) {
+                    productoDeVariante.put(fila.varianteId(), fila.productoId());
+                }
+                agregado.sumar(fila.productoId(), fila.varianteId(), fila.unidades());
+            }
+            exactos.values().forEach(agregado -> agregado.conciliado = true);
+
+            synchronized (this) {
+                exactos.forEach((dia, exacto) -> instalar(dia, exacto, fusionar));
+                hoy = Math.max(hoy, fin.toLocalDate().toEpochDay());
+                rearmarVentanas();
+            }
+        });
+    }
+
+    private void instalar(long dia, Agregado exacto, boolean fusionar) {
+        int posicion = (int) Math.floorMod(dia, (long) DIAS);
+        Agregado actual = dias[posicion];
+        if (actual != null && actual.dia > dia) {
+            // La posición ya es de un día más nuevo
+            return;
+        }
+        exacto.dia = dia;
+        if (fusionar && actual != null && actual.dia == dia) {
+            exacto.sumar(actual);
+            exacto.conciliado = actual.conciliado;
+        }
+        dias[posicion] = exacto;
+    }
+
+    /**
+     * Mover las ventanas al día `nuevoHoy` (rearma si cambió)
+     */
+    private void avanzar(long nuevoHoy) {
+        if (nuevoHoy != hoy) {
+            hoy = nuevoHoy;
+            rearmarVentanas();
+        }
+    }
+
+    /**
+     * Cada ventana = suma de los sketches de sus días; los candidatos se reevalúan
+     * con el sketch sumado (un producto mediano todos los días puede superar a uno
+     * que lideró un solo día)
+     */
+    private void rearmarVentanas() {
+        for (Ventana ventana : Ventana.values()) {
+            Agregado agregado = new Agregado();
+            for (long dia = hoy - ventana.dias + 1; dia <= hoy; dia++) {
+                Agregado delDia = dia(dia);
+                if (delDia == null) {
+                    agregado.conciliado = false;
+                    continue;
+                }
+                agregado.sumar(delDia);
+                agregado.conciliado &= delDia.conciliado;
+            }
+            ventanas.put(ventana, agregado);
+        }
+    }
+
+    private Agregado dia(long dia) {
+        Agregado agregado = dias[(int) Math.floorMod(dia, (long) DIAS)];
+        return agregado != null && agregado.dia == dia ? agregado : null;
+    }
+
+    private Agregado diaParaEscribir(long dia) {
+        if (dia <= hoy - DIAS) {
+            return null;
+        }
+        Agregado agregado = dia(dia);
+        if (agregado == null) {
+            agregado = new Agregado();
+            agregado.dia = dia;
+            agregado.conciliado = false;
+            dias[(int) Math.floorMod(dia, (long) DIAS)] = agregado;
+        }
+        return agregado;
+    }
+
+    private MasVendidoDTO itemProducto(CatalogoSnapshot catalogo, TopK.Candidato candidato) {
+        return new MasVendidoDTO(candidato.clave(), nombreProducto(catalogo, candidato.clave()), null, null,
+                candidato.unidades());
+    }
+
+    private MasVendidoDTO itemVariante(CatalogoSnapshot catalogo, TopK.Candidato candidato) {
+        Long productoId = productoDeVariante.get(candidato.clave());
+        String variante = Optional.ofNullable(productoId)
+                .flatMap(catalogo::getProducto)
+                .flatMap(producto -> producto.getVariantes().stream()
+                        .filter(v -> v.getId().equals(candidato.clave()))
+                        .findFirst())
+                .map(VarianteProductoDTO::getNombre)
+                .orElse("Variante #" + candidato.clave());
+        return new MasVendidoDTO(productoId, productoId != null ? nombreProducto(catalogo, productoId) : null,
+                candidato.clave(), variante, candidato.unidades());
+    }
+
+    private static String nombreProducto(CatalogoSnapshot catalogo, Long productoId) {
+        return catalogo.getProducto(productoId).map(ProductoDTO::getNombre).orElse("Producto #" + productoId);
+    }
+
+    /**
+     * Sketch + candidatos de productos y de variantes (un día o una ventana)
+     */
+    private static final class Agregado {
+        private long dia;
+        private boolean conciliado = true;
+        private final SketchConteo productos = new SketchConteo(ANCHO_SKETCH, PROFUNDIDAD_SKETCH);
+        private final SketchConteo variantes = new SketchConteo(ANCHO_SKETCH, PROFUNDIDAD_SKETCH);
+        private final TopK topProductos = new TopK(CAPACIDAD_CANDIDATOS);
+        private final TopK topVariantes = new TopK(CAPACIDAD_CANDIDATOS);
+
+        void sumar(Long productoId, Long varianteId, long unidades) {
+            productos.sumar(productoId, unidades);
+            topProductos.ofrecer(productoId, productos.estimar(productoId));
+            if (varianteId != null) {
+                variantes.sumar(varianteId, unidades);
+                topVariantes.ofrecer(varianteId, variantes.estimar(varianteId));
+            }
+            conciliado = false;
+        }
+
+        /**
+         * Acumular otro agregado: sketches sumados y candidatos de ambos reevaluados
+         */
+        void sumar(Agregado otro) {
+            productos.sumar(otro.productos);
+            variantes.sumar(otro.variantes);
+            reevaluar(topProductos, productos, otro.topProductos.claves());
+            reevaluar(topVariantes, variantes, otro.topVariantes.claves());
+        }
+
+        private static void reevaluar(TopK top, SketchConteo sketch, Set<Long> otros) {
+            Set<Long> claves = new HashSet<>(top.claves());
+            claves.addAll(otros);
+            claves.forEach(clave -> top.ofrecer(clave, sketch.estimar(clave)));
+        }
+    }
+}
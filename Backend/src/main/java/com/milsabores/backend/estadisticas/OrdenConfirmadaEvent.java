@@ -0,0 +1,17 @@
+package com.milsabores.backend.estadisticas;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Orden creada por OrdenService.crearOrden
+ * Los listeners transaccionales la reciben solo si la transacción hace commit.
+ */
+public record OrdenConfirmadaEvent(Long ordenId, LocalDateTime fecha, long total, List<Linea> lineas) {
+
+    /**
+     * Un DetalleOrden: varianteId es null para productos sin variante
+     */
+    public record Linea(Long productoId, Long varianteId, int cantidad) {
+    }
+}
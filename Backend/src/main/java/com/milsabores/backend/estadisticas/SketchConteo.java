@@ -0,0 +1,83 @@
+package com.milsabores.backend.estadisticas;
+
+/**
+ * Count-Min Sketch: conteo aproximado por clave en memoria fija
+ *
+ * profundidad filas de ancho contadores; cada clave suma en una celda por fila
+ * y la estimación es el mínimo. Nunca subestima; con N unidades sumadas, la
+ * sobreestimación es a lo más e/ancho * N con probabilidad 1 - e^-profundidad.
+ *
+ * Lineal: la suma de dos sketches es el sketch de la unión (ventanas de varios días).
+ * No es thread-safe: MasVendidos lo usa bajo su lock.
+ */
+final class SketchConteo {
+
+    // Una semilla por fila: funciones de hash independientes sobre la misma clave
+    private static final long[] SEMILLAS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL
+    };
+
+    private final int ancho;
+    private final int profundidad;
+    private final long[] celdas;
+    private long total;
+
+    /**
+     * @param ancho potencia de 2
+     * @param profundidad entre 1 y 8
+     */
+    SketchConteo(int ancho, int profundidad) {
+        if (Integer.bitCount(ancho) != 1 || profundidad < 1 || profundidad > SEMILLAS.length) {
+            throw new IllegalArgumentException("Dimensiones de sketch inválidas: " + ancho + "x" + profundidad);
+        }
+        this.ancho = ancho;
+        this.profundidad = profundidad;
+        this.celdas = new long[ancho * profundidad];
+    }
+
+    void sumar(long clave, long cantidad) {
+        for (int fila = 0; fila < profundidad; fila++) {
+            celdas[fila * ancho + posicion(clave, fila)] += cantidad;
+        }
+        total += cantidad;
+    }
+
+    long estimar(long clave) {
+        long minimo = Long.MAX_VALUE;
+        for (int fila = 0; fila < profundidad; fila++) {
+            minimo = Math.min(minimo, celdas[fila * ancho + posicion(clave, fila)]);
+        }
+        return minimo;
+    }
+
+    /**
+     * Acumular otro sketch de las mismas dimensiones
+     */
+    void sumar(SketchConteo otro) {
+        if (otro.ancho != ancho || otro.profundidad != profundidad) {
+            throw new IllegalArgumentException("Sketches de distintas dimensiones");
+        }
+        for (int i = 0; i < celdas.length; i++) {
+            celdas[i] += otro.celdas[i];
+        }
+        total += otro.total;
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    private int posicion(long clave, int fila) {
+        return (int) (mezclar(clave ^ SEMILLAS[fila]) & (ancho - 1));
+    }
+
+    /**
+     * Finalizador de SplitMix64: IDs consecutivos quedan repartidos en todo el ancho
+     */
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,70 @@
+package com.milsabores.backend.estadisticas;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Candidatos a más vendidos con su estimación, acotados a una capacidad fija
+ *
+ * Heap ordenado (TreeSet) + índice por clave: actualizar una clave y desalojar
+ * la menor son O(log capacidad); leer los k primeros es O(k).
+ * Una clave nueva entra solo si su estimación supera a la menor del heap.
+ * No es thread-safe: MasVendidos lo usa bajo su lock.
+ */
+final class TopK {
+
+    record Candidato(long clave, long unidades) {
+    }
+
+    private static final Comparator<Candidato> POR_UNIDADES =
+            Comparator.comparingLong(Candidato::unidades).thenComparingLong(Candidato::clave);
+
+    private final int capacidad;
+    private final Map<Long, Long> unidadesPorClave = new HashMap<>();
+    private final TreeSet<Candidato> heap = new TreeSet<>(POR_UNIDADES);
+
+    TopK(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    /**
+     * Registrar la estimación actual de una clave
+     */
+    void ofrecer(long clave, long unidades) {
+        Long anterior = unidadesPorClave.get(clave);
+        if (anterior != null) {
+            heap.remove(new Candidato(clave, anterior));
+        } else if (unidadesPorClave.size() >= capacidad) {
+            Candidato menor = heap.first();
+            if (unidades <= menor.unidades()) {
+                return;
+            }
+            heap.pollFirst();
+            unidadesPorClave.remove(menor.clave());
+        }
+        heap.add(new Candidato(clave, unidades));
+        unidadesPorClave.put(clave, unidades);
+    }
+
+    /**
+     * Los k candidatos con más unidades, de mayor a menor
+     */
+    List<Candidato> primeros(int k) {
+        List<Candidato> primeros = new ArrayList<>(Math.min(k, heap.size()));
+        Iterator<Candidato> iterador = heap.descendingIterator();
+        while (iterador.hasNext() && primeros.size() < k) {
+            primeros.add(iterador.next());
+        }
+        return primeros;
+    }
+
+    Set<Long> claves() {
+        return unidadesPorClave.keySet();
+    }
+}
@@ -0,0 +1,300 @@
+package com.milsabores.backend.estadisticas;
+
+import com.milsabores.backend.dto.VentasEnVivoDTO;
+import com.milsabores.backend.dto.VentasHora;
+import com.milsabores.backend.exception.ServicioSaturadoException;
+import com.milsabores.backend.model.VentaDiaria;
+import com.milsabores.backend.repository.OrdenRepository;
+import com.milsabores.backend.repository.VentaDiariaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Ventas de las últimas horas y días en memoria para el dashboard en vivo
+ *
+ * PROBLEMA:
+ * - Durante eventos (Fiestas Patrias, Navidad) el personal deja el dashboard abierto
+ *   refrescando estadísticas: cada refresco consultaba la BD, que con 2 conexiones
+ *   compite con el checkout
+ *
+ * SOLUCIÓN:
+ * - Dos buffers circulares (48 horas y 31 días) de cubetas con LongAdder
+ * - Cada orden confirmada (OrdenConfirmadaEvent, después del commit) suma a su hora
+ *   y su día sin locks: una cubeta vieja se reemplaza con CAS al cambiar el período
+ * - Al arrancar se siembran desde la BD una sola vez; después GET .../en-vivo y el
+ *   stream SSE se sirven solo desde memoria (cero queries por dashboard)
+ * - Un thread programado difunde la instantánea a los suscriptores SSE cuando hay
+ *   órdenes nuevas, y cada latido-ms aunque no haya (mantiene viva la conexión y
+ *   desplaza las cubetas al cambiar la hora)
+ *
+ * Las órdenes anteriores al arranque vienen de la siembra y las posteriores de los
+ * eventos: el corte es el instante de creación de este bean.
+ * Requiere una sola instancia del backend (como LibroStock).
+ *
+ * Métricas (GET /actuator/metrics/...):
+ * - ventas.en-vivo.suscriptores: streams SSE abiertos
+ */
+@Component
+public class VentasEnVivo {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasEnVivo.class);
+
+    static final int HORAS = 48;
+    static final int DIAS = 31;
+
+    private final OrdenRepository ordenRepository;
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxSuscriptores;
+    private final long timeoutSuscripcionMs;
+    private final long latidoMs;
+
+    private final LocalDateTime corte = LocalDateTime.now();
+    private final Serie horas = new Serie(HORAS);
+    private final Serie dias = new Serie(DIAS);
+    private final AtomicLong version = new AtomicLong();
+
+    private final CopyOnWriteArrayList<SseEmitter> suscriptores = new CopyOnWriteArrayList<>();
+    // Solo los modifica el thread del scheduler
+    private long versionDifundida = -1;
+    private long ultimaDifusion;
+
+    public VentasEnVivo(OrdenRepository ordenRepository,
+                        VentaDiariaRepository ventaDiariaRepository,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${ventas.en-vivo.max-suscriptores:20}") int maxSuscriptores,
+                        @Value("${ventas.en-vivo.timeout-ms:1800000}") long timeoutSuscripcionMs,
+                        @Value("${ventas.en-vivo.latido-ms:15000}") long latidoMs) {
+        this.ordenRepository = ordenRepository;
+        this.ventaDiariaRepository = ventaDiariaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.maxSuscriptores = maxSuscriptores;
+        this.timeoutSuscripcionMs = timeoutSuscripcionMs;
+        this.latidoMs = latidoMs;
+
+        Gauge.builder("ventas.en-vivo.suscriptores", suscriptores, List::size)
+                .description("Streams SSE de ventas en vivo abiertos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sumar la orden después del commit (un rollback no la publica)
+     */
+    @TransactionalEventListener
+    public void onOrdenConfirmada(OrdenConfirmadaEvent event) {
+        registrar(event.fecha(), event.total());
+    }
+
+    void registrar(LocalDateTime fecha, long total) {
+        if (fecha.isBefore(corte)) {
+            // Ya contada por la siembra
+            return;
+        }
+        horas.sumar(indiceHora(fecha), 1, total);
+        dias.sumar(fecha.toLocalDate().toEpochDay(), 1, total);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Cargar las órdenes anteriores al arranque (después de AcumuladoVentas.inicializar)
+     *
+     * - Horas: ordenes agrupadas por hora de las últimas 48 horas
+     * - Días anteriores a hoy: ventas_diarias; hoy: la suma de sus horas, para no
+     *   contar dos veces órdenes posteriores al corte que ya están en el acumulado
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void sembrar() {
+        try {
+            LocalDate hoy = corte.toLocalDate();
+            LocalDateTime inicioHoras = corte.truncatedTo(ChronoUnit.HOURS).minusHours(HORAS - 1);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (VentasHora fila : ordenRepository.sumarVentasPorHora(inicioHoras, corte)) {
+                    horas.sumar(fila.dia().toEpochDay() * 24 + fila.hora(), fila.ordenes(), fila.total());
+                    if (fila.dia().equals(hoy)) {
+                        dias.sumar(hoy.toEpochDay(), fila.ordenes(), fila.total());
+                    }
+                }
+                for (VentaDiaria fila : ventaDiariaRepository.findByDiaBetweenOrderByDia(hoy.minusDays(DIAS - 1), hoy.minusDays(1))) {
+                    dias.sumar(fila.getDia().toEpochDay(), fila.getOrdenes(), fila.getTotal());
+                }
+            });
+            version.incrementAndGet();
+            logger.info("✅ [VENTAS] Ventas en vivo sembradas hasta {}", corte);
+        } catch (RuntimeException e) {
+            // Se siguen contando las órdenes nuevas; el historial previo queda en 0
+            logger.error("❌ [VENTAS] Error sembrando ventas en vivo: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Instantánea de las series (solo memoria)
+     */
+    public VentasEnVivoDTO instantanea() {
+        return instantanea(LocalDateTime.now());
+    }
+
+    VentasEnVivoDTO instantanea(LocalDateTime ahora) {
+        long versionActual = version.get();
+        long horaActual = indiceHora(ahora);
+        long diaActual = ahora.toLocalDate().toEpochDay();
+        List<VentasEnVivoDTO.Punto> puntosHoras = horas.leer(horaActual,
+                hora -> LocalDate.ofEpochDay(Math.floorDiv(hora, 24)).atTime((int) Math.floorMod(hora, 24), 0).toString());
+        List<VentasEnVivoDTO.Punto> puntosDias = dias.leer(diaActual, dia -> LocalDate.ofEpochDay(dia).toString());
+        return new VentasEnVivoDTO(versionActual, ahora.toString(),
+                puntosDias.get(puntosDias.size() - 1), puntosHoras.get(puntosHoras.size() - 1),
+                puntosHoras, puntosDias);
+    }
+
+    /**
+     * Abrir un stream SSE: recibe la instantánea actual y luego cada cambio
+     *
+     * @throws ServicioSaturadoException si ya hay max-suscriptores streams abiertos
+     */
+    public SseEmitter suscribir() {
+        SseEmitter emitter = new SseEmitter(timeoutSuscripcionMs);
+        suscriptores.add(emitter);
+        if (suscriptores.size() > maxSuscriptores) {
+            suscriptores.remove(emitter);
+            throw new ServicioSaturadoException("Demasiados dashboards conectados en vivo, intente más tarde", 30);
+        }
+        emitter.onCompletion(() -> suscriptores.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> suscriptores.remove(emitter));
+
+        enviar(emitter, instantanea());
+        logger.info("📡 [VENTAS] Stream en vivo abierto - {} suscriptores", suscriptores.size());
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${ventas.en-vivo.intervalo-ms:2000}", initialDelayString = "${ventas.en-vivo.intervalo-ms:2000}")
+    public void difundir() {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        if (version.get() == versionDifundida && ahora - ultimaDifusion < latidoMs) {
+            return;
+        }
+
+        VentasEnVivoDTO instantanea = instantanea();
+        for (SseEmitter emitter : suscriptores) {
+            enviar(emitter, instantanea);
+        }
+        versionDifundida = instantanea.getVersion();
+        ultimaDifusion = ahora;
+    }
+
+    int getSuscriptores() {
+        return suscriptores.size();
+    }
+
+    private void enviar(SseEmitter emitter, VentasEnVivoDTO instantanea) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("ventas")
+                    .id(Long.toString(instantanea.getVersion()))
+                    .data(instantanea));
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado: se descarta sin esperar al timeout
+            suscriptores.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static long indiceHora(LocalDateTime fecha) {
+        return fecha.toLocalDate().toEpochDay() * 24 + fecha.getHour();
+    }
+
+    /**
+     * Buffer circular de cubetas por período (hora o día desde epoch)
+     */
+    static final class Serie {
+        private final AtomicReferenceArray<Cubeta> cubetas;
+
+        Serie(int tamano) {
+            this.cubetas = new AtomicReferenceArray<>(tamano);
+        }
+
+        void sumar(long periodo, long ordenes, long total) {
+            Cubeta cubeta = cubeta(periodo);
+            if (cubeta != null) {
+                cubeta.ordenes.add(ordenes);
+                cubeta.total.add(total);
+            }
+        }
+
+        /**
+         * Cubeta del período; reemplaza con CAS la de un período anterior que
+         * ocupaba la misma posición. Vacío si el período ya salió del buffer.
+         */
+        private Cubeta cubeta(long periodo) {
+            int posicion = (int) Math.floorMod(periodo, (long) cubetas.length());
+            while (true) {
+                Cubeta actual = cubetas.get(posicion);
+                if (actual != null && actual.periodo == periodo) {
+                    return actual;
+                }
+                if (actual != null && actual.periodo > periodo) {
+                    return null;
+                }
+                Cubeta nueva = new Cubeta(periodo);
+                if (cubetas.compareAndSet(posicion, actual, nueva)) {
+                    return nueva;
+                }
+            }
+        }
+
+        /**
+         * Los últimos períodos hasta `hasta` inclusive, del más antiguo al actual
+         */
+        List<VentasEnVivoDTO.Punto> leer(long hasta, LongFunction<String> etiqueta) {
+            int tamano = cubetas.length();
+            List<VentasEnVivoDTO.Punto> puntos = new ArrayList<>(tamano);
+            for (long periodo = hasta - tamano + 1; periodo <= hasta; periodo++) {
+                Cubeta cubeta = cubetas.get((int) Math.floorMod(periodo, (long) tamano));
+                boolean vigente = cubeta != null && cubeta.periodo == periodo;
+                puntos.add(new VentasEnVivoDTO.Punto(etiqueta.apply(periodo),
+                        vigente ? cubeta.ordenes.sum() : 0L,
+                        vigente ? cubeta.total.sum() : 0L));
+            }
+            return puntos;
+        }
+    }
+
+    private static final class Cubeta {
+        private final long periodo;
+        private final LongAdder ordenes = new LongAdder();
+        private final LongAdder total = new LongAdder();
+
+        Cubeta(long periodo) {
+            this.periodo = periodo;
+        }
+    }
+}
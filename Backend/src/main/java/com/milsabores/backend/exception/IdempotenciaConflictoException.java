@@ -0,0 +1,12 @@
+package com.milsabores.backend.exception;
+
+/**
+ * Se reutilizó una Idempotency-Key con un body distinto al original
+ * (el controller responde 422 Unprocessable Entity)
+ */
+public class IdempotenciaConflictoException extends RuntimeException {
+
+    public IdempotenciaConflictoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.milsabores.backend.exception;
+
+/**
+ * Un recurso acotado (cupo de exportación, streams en vivo) está lleno
+ * (el controller responde 503 Service Unavailable + Retry-After)
+ */
+public class ServicioSaturadoException extends IllegalStateException {
+
+    private final long segundosReintento;
+
+    public ServicioSaturadoException(String message, long segundosReintento) {
+        super(message);
+        this.segundosReintento = segundosReintento;
+    }
+
+    public long getSegundosReintento() {
+        return segundosReintento;
+    }
+}
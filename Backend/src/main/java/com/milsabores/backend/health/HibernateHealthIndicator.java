@@ -95,7 +95,7 @@ public class HibernateHealthIndicator implements HealthIndicator {
             if (!lazyLoadingWorking) {
                 builder.status("DOWN");
                 builder.withDetail("error", errorMessage);
-                builder.withDetail("solution", "Verificar fetch=EAGER o spring.jpa.open-in-view=true");
+                builder.withDetail("solution", "Cargar colecciones dentro de @Transactional(readOnly = true) (open-in-view deshabilitado)");
             } else {
                 // WARN si variantes o imagenes están vacías
                 if (variantesCount == 0 || imagenesCount == 0) {
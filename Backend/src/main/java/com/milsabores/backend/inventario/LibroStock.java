@@ -0,0 +1,341 @@
+package com.milsabores.backend.inventario;
+
+import com.milsabores.backend.cache.CatalogoModificadoEvent;
+import com.milsabores.backend.model.MovimientoStock;
+import com.milsabores.backend.repository.MovimientoStockRepository;
+import com.milsabores.backend.repository.VarianteProductoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Libro de stock en memoria con escritura diferida (write-behind)
+ *
+ * PROBLEMA:
+ * - En días peak (Fiestas Patrias, Navidad) muchas órdenes compran las mismas variantes
+ * - El UPDATE condicional serializa todos esos checkouts en el lock de fila de PostgreSQL
+ *
+ * SOLUCIÓN:
+ * - Un contador atómico por variante (CAS) con el stock disponible
+ * - crearOrden reserva contra los contadores y persiste un MovimientoStock por variante
+ *   en la misma transacción de la orden (INSERT, sin locks sobre filas compartidas)
+ * - Si la transacción hace rollback, la reserva se devuelve al contador
+ * - Un flush periódico suma los movimientos pendientes y los aplica a
+ *   variantes_producto en lote (un UPDATE por variante por flush, no por orden)
+ *
+ * Invariante: disponible = variantes_producto.stock - SUM(movimientos_stock pendientes)
+ * Por eso, tras una caída, basta con volver a leer ese valor: los movimientos de
+ * órdenes confirmadas siguen en el journal y las reservas no confirmadas se pierden
+ * junto con su orden.
+ *
+ * Requiere una sola instancia del backend (los contadores viven en el proceso).
+ * Por eso viene deshabilitado: se activa explícitamente (STOCK_LEDGER_HABILITADO=true)
+ * solo en despliegues de una réplica. Con stock.ledger.habilitado=false,
+ * OrdenService vuelve al UPDATE condicional.
+ *
+ * Métricas (GET /actuator/metrics/...):
+ * - stock.ledger.variantes: variantes con contador cargado
+ * - stock.ledger.rechazos: reservas rechazadas por stock insuficiente
+ * - stock.ledger.flush: tiempo de cada flush con movimientos
+ * - stock.ledger.movimientos.aplicados: movimientos aplicados a la BD
+ */
+@Component
+public class LibroStock {
+
+    private static final Logger logger = LoggerFactory.getLogger(LibroStock.class);
+
+    static final int TAMANO_LOTE_FLUSH = 1000;
+
+    private final VarianteProductoRepository varianteProductoRepository;
+    private final MovimientoStockRepository movimientoStockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean habilitado;
+
+    private final ConcurrentHashMap<Long, AtomicInteger> disponibles = new ConcurrentHashMap<>();
+    // Lectura: órdenes con reservas en curso (compartido, no serializa checkouts)
+    // Escritura: recarga de contadores tras una edición de stock del administrador
+    private final ReentrantReadWriteLock recarga = new ReentrantReadWriteLock();
+    private final ReentrantLock lockFlush = new ReentrantLock();
+
+    private final Counter rechazos;
+    private final Counter movimientosAplicados;
+    private final Timer tiempoFlush;
+
+    public LibroStock(VarianteProductoRepository varianteProductoRepository,
+                      MovimientoStockRepository movimientoStockRepository,
+                      PlatformTransactionManager transactionManager,
+                      ApplicationEventPublisher eventPublisher,
+                      MeterRegistry meterRegistry,
+                      @Value("${stock.ledger.habilitado:false}") boolean habilitado) {
+        this.varianteProductoRepository = varianteProductoRepository;
+        this.movimientoStockRepository = movimientoStockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.habilitado = habilitado;
+
+        Gauge.builder("stock.ledger.variantes", disponibles, Map::size)
+                .description("Variantes con contador de stock en memoria")
+                .register(meterRegistry);
+        this.rechazos = Counter.builder("stock.ledger.rechazos")
+                .description("Reservas rechazadas por stock insuficiente")
+                .register(meterRegistry);
+        this.movimientosAplicados = Counter.builder("stock.ledger.movimientos.aplicados")
+                .description("Movimientos de stock aplicados a variantes_producto")
+                .register(meterRegistry);
+        this.tiempoFlush = Timer.builder("stock.ledger.flush")
+                .description("Tiempo de aplicación de movimientos pendientes")
+                .register(meterRegistry);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Reservar stock para todas las variantes de una orden
+     *
+     * Debe llamarse dentro de la transacción de la orden: la reserva se devuelve
+     * si esa transacción no hace commit. Todo o nada: si una variante no alcanza
+     * se liberan las ya reservadas.
+     *
+     * @param cantidades cantidad total por variante
+     * @return ID de la primera variante sin stock suficiente, o vacío si se reservó todo
+     */
+    public Optional<Long> reservar(SortedMap<Long, Integer> cantidades) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("LibroStock.reservar requiere una transacción activa");
+        }
+
+        recarga.readLock().lock();
+        Map<Long, Integer> reservadas = new TreeMap<>();
+        try {
+            for (Map.Entry<Long, Integer> entrada : cantidades.entrySet()) {
+                if (!descontar(contador(entrada.getKey()), entrada.getValue())) {
+                    liberar(reservadas);
+                    rechazos.increment();
+                    recarga.readLock().unlock();
+                    return Optional.of(entrada.getKey());
+                }
+                reservadas.put(entrada.getKey(), entrada.getValue());
+            }
+        } catch (RuntimeException e) {
+            liberar(reservadas);
+            recarga.readLock().unlock();
+            throw e;
+        }
+
+        // El read lock se mantiene hasta el fin de la transacción: una recarga no puede
+        // leer la BD mientras hay reservas cuyo movimiento todavía no es visible
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status != STATUS_COMMITTED) {
+                        liberar(reservadas);
+                        logger.info("↩️ [STOCK] Reserva liberada por rollback - {} variantes", reservadas.size());
+                    }
+                } finally {
+                    recarga.readLock().unlock();
+                }
+            }
+        });
+        return Optional.empty();
+    }
+
+    /**
+     * Persistir los movimientos de una orden (misma transacción que la orden)
+     */
+    public void registrarMovimientos(Long ordenId, Map<Long, Integer> cantidades) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<MovimientoStock> movimientos = new ArrayList<>(cantidades.size());
+        cantidades.forEach((varianteId, cantidad) ->
+                movimientos.add(new MovimientoStock(null, varianteId, ordenId, cantidad, ahora)));
+        movimientoStockRepository.saveAll(movimientos);
+    }
+
+    /**
+     * Stock disponible según el libro (carga la variante si aún no está)
+     */
+    public int disponible(Long varianteId) {
+        return contador(varianteId).get();
+    }
+
+    @Scheduled(fixedDelayString = "${stock.ledger.flush-ms:2000}", initialDelayString = "${stock.ledger.flush-ms:2000}")
+    public void flushProgramado() {
+        if (habilitado) {
+            flush();
+        }
+    }
+
+    /**
+     * Aplicar los movimientos pendientes a variantes_producto
+     * Cada lote en su propia transacción: UPDATE por variante + DELETE de los movimientos.
+     *
+     * @return cantidad de movimientos aplicados
+     */
+    public int flush() {
+        if (!lockFlush.tryLock()) {
+            return 0;
+        }
+        try {
+            int total = 0;
+            int aplicados;
+            do {
+                aplicados = transactionTemplate.execute(status -> aplicarLote());
+                total += aplicados;
+            } while (aplicados == TAMANO_LOTE_FLUSH);
+
+            if (total > 0) {
+                movimientosAplicados.increment(total);
+                // El stock persistido cambió: el snapshot del catálogo se reconstruye
+                eventPublisher.publishEvent(CatalogoModificadoEvent.stock("LibroStock.flush"));
+            }
+            return total;
+        } catch (RuntimeException e) {
+            // Los movimientos siguen en el journal: se reintenta en el próximo flush
+            logger.error("❌ [STOCK] Error aplicando movimientos pendientes: {}", e.getMessage());
+            return 0;
+        } finally {
+            lockFlush.unlock();
+        }
+    }
+
+    private int aplicarLote() {
+        List<MovimientoStock> pendientes = movimientoStockRepository.findPendientes(PageRequest.of(0, TAMANO_LOTE_FLUSH));
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+
+        return tiempoFlush.record(() -> {
+            // Orden por ID de variante: mismo orden de locks que los demás escritores
+            Map<Long, Integer> porVariante = new TreeMap<>();
+            List<Long> ids = new ArrayList<>(pendientes.size());
+            for (MovimientoStock movimiento : pendientes) {
+                porVariante.merge(movimiento.getVarianteId(), movimiento.getCantidad(), Integer::sum);
+                ids.add(movimiento.getId());
+            }
+            porVariante.forEach(varianteProductoRepository::aplicarDescuento);
+            movimientoStockRepository.deleteAllByIdInBatch(ids);
+
+            logger.info("💾 [STOCK] Flush - {} movimientos aplicados a {} variantes", pendientes.size(), porVariante.size());
+            return pendientes.size();
+        });
+    }
+
+    /**
+     * Recuperación al arrancar: aplicar lo que quedó en el journal y precargar contadores
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliar() {
+        try {
+            // Aunque el libro esté deshabilitado: el UPDATE condicional necesita el stock al día
+            int aplicados = flush();
+            if (!habilitado) {
+                logger.info("ℹ️ [STOCK] Libro de stock deshabilitado - checkout con UPDATE condicional ({} movimientos recuperados)",
+                        aplicados);
+                return;
+            }
+            recargar("arranque");
+            logger.info("✅ [STOCK] Libro de stock listo - {} movimientos recuperados, {} variantes",
+                    aplicados, disponibles.size());
+        } catch (RuntimeException e) {
+            // Sin precarga los contadores se cargan bajo demanda en la primera reserva
+            logger.error("❌ [STOCK] Error en reconciliación inicial: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Volver a leer los contadores después de que un administrador fijó stock en la BD
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockModificado(StockModificadoEvent event) {
+        if (habilitado) {
+            recargar(event.origen());
+        }
+    }
+
+    /**
+     * Reemplazar todos los contadores por el valor persistido menos los pendientes
+     * Espera a que terminen las órdenes con reservas en curso.
+     */
+    public void recargar(String origen) {
+        recarga.writeLock().lock();
+        try {
+            Map<Long, Integer> leidos = new HashMap<>();
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Object[] fila : varianteProductoRepository.findStockDisponibleTodas()) {
+                    leidos.put((Long) fila[0], ((Number) fila[1]).intValue());
+                }
+            });
+            disponibles.clear();
+            leidos.forEach((id, stock) -> disponibles.put(id, new AtomicInteger(stock)));
+            logger.info("♻️ [STOCK] Contadores recargados por {} - {} variantes", origen, disponibles.size());
+        } finally {
+            recarga.writeLock().unlock();
+        }
+    }
+
+    private AtomicInteger contador(Long varianteId) {
+        AtomicInteger contador = disponibles.get(varianteId);
+        if (contador != null) {
+            return contador;
+        }
+        // Variante nueva o sin precarga: se lee fuera del mapa (usa la transacción en
+        // curso) para no retener el lock del bin de ConcurrentHashMap durante la query.
+        // Si otro thread la cargó entre tanto, gana su contador: nadie descuenta de un
+        // contador que aún no está en el mapa, así que ambas lecturas son válidas.
+        Long stock = varianteProductoRepository.findStockDisponible(varianteId);
+        AtomicInteger nuevo = new AtomicInteger(stock != null ? stock.intValue() : 0);
+        AtomicInteger existente = disponibles.putIfAbsent(varianteId, nuevo);
+        return existente != null ? existente : nuevo;
+    }
+
+    private static boolean descontar(AtomicInteger contador, int cantidad) {
+        int actual;
+        do {
+            actual = contador.get();
+            if (actual < cantidad) {
+                return false;
+            }
+        } while (!contador.compareAndSet(actual, actual - cantidad));
+        return true;
+    }
+
+    private void liberar(Map<Long, Integer> reservadas) {
+        reservadas.forEach((varianteId, cantidad) -> {
+            AtomicInteger contador = disponibles.get(varianteId);
+            if (contador != null) {
+                contador.addAndGet(cantidad);
+            }
+        });
+    }
+}
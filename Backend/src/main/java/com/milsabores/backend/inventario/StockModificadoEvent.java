@@ -0,0 +1,13 @@
+package com.milsabores.backend.inventario;
+
+/**
+ * Evento publicado cuando un administrador fija el stock de variantes
+ * directamente en la BD (edición de producto, carga de datos)
+ *
+ * LibroStock descarta sus contadores después del commit y los vuelve a leer.
+ * Las órdenes NO publican este evento: su descuento ya pasó por el libro.
+ *
+ * @param origen servicio que realizó el cambio (para logs)
+ */
+public record StockModificadoEvent(String origen) {
+}
@@ -11,7 +11,9 @@ import lombok.AllArgsConstructor;
 @Data @NoArgsConstructor @AllArgsConstructor
 public class DetalleOrden {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled (V11): 50 IDs por nextval, permite batch de INSERT
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "detalles_orden_seq")
+    @SequenceGenerator(name = "detalles_orden_seq", sequenceName = "detalles_orden_id_seq", allocationSize = 50)
     private Long id;
 
     private Integer cantidad;
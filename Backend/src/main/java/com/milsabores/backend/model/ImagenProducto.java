@@ -3,7 +3,9 @@ package com.milsabores.backend.model;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
@@ -19,12 +21,18 @@ import java.time.LocalDateTime;
 public class ImagenProducto {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled (V11): 50 IDs por nextval, permite batch de INSERT
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "imagenes_producto_seq")
+    @SequenceGenerator(name = "imagenes_producto_seq", sequenceName = "imagenes_producto_id_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne
     @JoinColumn(name = "producto_id", nullable = false)
     @JsonBackReference("producto-imagenes")
+    // Sin excluir, hashCode/toString recorren producto -> colección -> este elemento
+    // y fallan mientras Hibernate está llenando la colección del producto
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Producto producto;
     
     /**
@@ -0,0 +1,37 @@
+package com.milsabores.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Descuento de stock confirmado por una orden y pendiente de aplicar
+ * a variantes_producto (ver LibroStock)
+ *
+ * Sin relaciones JPA: el journal solo se inserta y se borra en lote.
+ */
+@Entity
+@Table(name = "movimientos_stock")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class MovimientoStock {
+    @Id
+    // Pooled (V11): 50 IDs por nextval, permite batch de INSERT
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movimientos_stock_seq")
+    @SequenceGenerator(name = "movimientos_stock_seq", sequenceName = "movimientos_stock_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "variante_id", nullable = false)
+    private Long varianteId;
+
+    @Column(name = "orden_id", nullable = false)
+    private Long ordenId;
+
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+}
@@ -12,7 +12,9 @@ import java.util.List;
 @Data @NoArgsConstructor @AllArgsConstructor
 public class Orden {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled (V11): 50 IDs por nextval, permite batch de INSERT
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ordenes_seq")
+    @SequenceGenerator(name = "ordenes_seq", sequenceName = "ordenes_id_seq", allocationSize = 50)
     private Long id;
 
     private LocalDateTime fecha;
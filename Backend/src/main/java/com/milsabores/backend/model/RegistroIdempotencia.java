@@ -0,0 +1,29 @@
+package com.milsabores.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key ya usada para crear una orden (ver IdempotenciaService)
+ */
+@Entity
+@Table(name = "idempotencia_ordenes")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class RegistroIdempotencia {
+    @Id
+    @Column(length = 300)
+    private String clave;
+
+    @Column(nullable = false, length = 64)
+    private String huella;
+
+    @Column(name = "orden_id", nullable = false)
+    private Long ordenId;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+}
@@ -1,5 +1,6 @@
 package com.milsabores.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -32,4 +33,9 @@ public class Usuario {
     @ManyToOne
     @JoinColumn(name = "rol_id", nullable = false)
     private Rol rol;
+
+    // Versión de los JWT vigentes (V14): cambia con rol, correo o contraseña
+    @JsonIgnore
+    @Column(name = "token_version", nullable = false)
+    private Integer tokenVersion = 0;
 }
\ No newline at end of file
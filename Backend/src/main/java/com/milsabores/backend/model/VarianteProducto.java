@@ -3,7 +3,9 @@ package com.milsabores.backend.model;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import lombok.AllArgsConstructor;
 
 @Entity
@@ -11,7 +13,9 @@ import lombok.AllArgsConstructor;
 @Data @NoArgsConstructor @AllArgsConstructor
 public class VarianteProducto {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled (V11): 50 IDs por nextval, permite batch de INSERT
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "variantes_producto_seq")
+    @SequenceGenerator(name = "variantes_producto_seq", sequenceName = "variantes_producto_id_seq", allocationSize = 50)
     private Long id;
 
     private String nombre;
@@ -24,5 +28,9 @@ public class VarianteProducto {
     @ManyToOne
     @JoinColumn(name = "producto_id", nullable = false)
     @JsonBackReference("producto-variantes")
+    // Sin excluir, hashCode/toString recorren producto -> colección -> este elemento
+    // y fallan mientras Hibernate está llenando la colección del producto
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Producto producto;
 }
\ No newline at end of file
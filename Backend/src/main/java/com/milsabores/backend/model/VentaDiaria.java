@@ -0,0 +1,25 @@
+package com.milsabores.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Órdenes y total vendido de un día (ver AcumuladoVentas)
+ */
+@Entity
+@Table(name = "ventas_diarias")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class VentaDiaria {
+    @Id
+    private LocalDate dia;
+
+    @Column(nullable = false)
+    private Long ordenes;
+
+    @Column(nullable = false)
+    private Long total;
+}
@@ -0,0 +1,26 @@
+package com.milsabores.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Órdenes y total vendido de un mes (ver AcumuladoVentas)
+ * El mes se identifica por su primer día.
+ */
+@Entity
+@Table(name = "ventas_mensuales")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class VentaMensual {
+    @Id
+    private LocalDate mes;
+
+    @Column(nullable = false)
+    private Long ordenes;
+
+    @Column(nullable = false)
+    private Long total;
+}
@@ -1,14 +1,46 @@
 package com.milsabores.backend.repository;
 
+import com.milsabores.backend.dto.ProductoEnOrden;
+import com.milsabores.backend.dto.UnidadesVendidasDia;
 import com.milsabores.backend.model.DetalleOrden;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * Repositorio para gestión de detalles de orden
  * Capa de persistencia - Clean Architecture
  */
 @Repository
 public interface DetalleOrdenRepository extends JpaRepository<DetalleOrden, Long> {
-    // Métodos de consulta heredados de JpaRepository
+
+    /**
+     * Unidades vendidas por día, producto y variante en [inicio, fin)
+     * Para sembrar y compactar MasVendidos (a lo más 30 días).
+     */
+    @Query("SELECT new com.milsabores.backend.dto.UnidadesVendidasDia(cast(o.fecha as LocalDate), p.id, v.id, sum(d.cantidad)) " +
+           "FROM DetalleOrden d JOIN d.orden o JOIN d.producto p LEFT JOIN d.variante v " +
+           "WHERE o.fecha >= :inicio AND o.fecha < :fin " +
+           "GROUP BY cast(o.fecha as LocalDate), p.id, v.id")
+    List<UnidadesVendidasDia> sumarUnidadesPorDia(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+
+    /**
+     * Productos distintos de cada orden con ID en (desde, hasta], ordenados por orden
+     * Para reconstruir CompradosJuntos por rangos de IDs (usa idx_detalles_orden).
+     */
+    @Query("SELECT DISTINCT new com.milsabores.backend.dto.ProductoEnOrden(d.orden.id, d.producto.id) " +
+           "FROM DetalleOrden d " +
+           "WHERE d.orden.id > :desde AND d.orden.id <= :hasta " +
+           "ORDER BY d.orden.id")
+    List<ProductoEnOrden> findProductosPorOrden(@Param("desde") Long desde, @Param("hasta") Long hasta);
+
+    /**
+     * Mayor ID de orden con detalles (0 si no hay)
+     */
+    @Query("SELECT coalesce(max(d.orden.id), 0) FROM DetalleOrden d")
+    Long maxOrdenId();
 }
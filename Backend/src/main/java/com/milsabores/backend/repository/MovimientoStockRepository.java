@@ -0,0 +1,23 @@
+package com.milsabores.backend.repository;
+
+import com.milsabores.backend.model.MovimientoStock;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio del journal de movimientos de stock pendientes
+ * Capa de persistencia - Clean Architecture
+ */
+@Repository
+public interface MovimientoStockRepository extends JpaRepository<MovimientoStock, Long> {
+
+    /**
+     * Movimientos pendientes más antiguos primero (un lote por flush)
+     */
+    @Query("SELECT m FROM MovimientoStock m ORDER BY m.id")
+    List<MovimientoStock> findPendientes(Pageable lote);
+}
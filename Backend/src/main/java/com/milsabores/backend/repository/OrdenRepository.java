@@ -1,5 +1,8 @@
 package com.milsabores.backend.repository;
 
+import com.milsabores.backend.dto.VentasDia;
+import com.milsabores.backend.dto.VentasHora;
+import com.milsabores.backend.dto.VentasMes;
 import com.milsabores.backend.model.Orden;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -7,14 +10,16 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para entidad Orden
  * Capa de acceso a datos - Clean Architecture
  */
 @Repository
-public interface OrdenRepository extends JpaRepository<Orden, Long> {
+public interface OrdenRepository extends JpaRepository<Orden, Long>, OrdenRepositoryCustom {
     
     /**
      * Encontrar órdenes entre dos fechas
@@ -26,6 +31,50 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
      */
     List<Orden> findAllByOrderByFechaDesc();
     
+    /**
+     * Todas las órdenes con cliente, rol y detalles en UNA query
+     * (la colección detalles es la única fetch-join, no hay producto cartesiano)
+     */
+    @Query("SELECT DISTINCT o FROM Orden o " +
+           "JOIN FETCH o.usuario u " +
+           "JOIN FETCH u.rol " +
+           "LEFT JOIN FETCH o.detalles d " +
+           "LEFT JOIN FETCH d.producto " +
+           "LEFT JOIN FETCH d.variante " +
+           "ORDER BY o.fecha DESC")
+    List<Orden> findAllConDetallesOrderByFechaDesc();
+    
+    /**
+     * Una orden con cliente, rol y detalles en UNA query
+     */
+    @Query("SELECT o FROM Orden o " +
+           "JOIN FETCH o.usuario u " +
+           "JOIN FETCH u.rol " +
+           "LEFT JOIN FETCH o.detalles d " +
+           "LEFT JOIN FETCH d.producto " +
+           "LEFT JOIN FETCH d.variante " +
+           "WHERE o.id = :id")
+    Optional<Orden> findByIdConDetalles(@Param("id") Long id);
+    
+    /**
+     * Inicializar detalles (con producto, categoría y variante) de órdenes ya cargadas
+     * en UNA query por página. DEBE llamarse en la transacción que cargó las órdenes.
+     */
+    default List<Orden> cargarDetalles(List<Orden> ordenes) {
+        if (!ordenes.isEmpty()) {
+            fetchDetalles(ordenes.stream().map(Orden::getId).toList());
+        }
+        return ordenes;
+    }
+    
+    @Query("SELECT DISTINCT o FROM Orden o " +
+           "LEFT JOIN FETCH o.detalles d " +
+           "LEFT JOIN FETCH d.producto p " +
+           "LEFT JOIN FETCH p.categoria " +
+           "LEFT JOIN FETCH d.variante " +
+           "WHERE o.id IN :ids")
+    List<Orden> fetchDetalles(@Param("ids") Collection<Long> ids);
+    
     /**
      * Sumar total de ventas entre dos fechas
      */
@@ -36,4 +85,35 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
      * Contar órdenes entre dos fechas
      */
     Long countByFechaBetween(LocalDateTime inicio, LocalDateTime fin);
+    
+    /**
+     * Ventas agrupadas por día en la BD: una fila por día con órdenes
+     * (cast a fecha = date_trunc('day') en PostgreSQL, usa idx_ordenes_fecha)
+     */
+    @Query("SELECT new com.milsabores.backend.dto.VentasDia(cast(o.fecha as LocalDate), count(o), coalesce(sum(o.total), 0)) " +
+           "FROM Orden o " +
+           "WHERE o.fecha BETWEEN :inicio AND :fin " +
+           "GROUP BY cast(o.fecha as LocalDate)")
+    List<VentasDia> sumarVentasPorDia(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+    
+    /**
+     * Ventas agrupadas por mes en la BD: una fila por mes con órdenes
+     */
+    @Query("SELECT new com.milsabores.backend.dto.VentasMes(extract(year from o.fecha), extract(month from o.fecha), " +
+           "count(o), coalesce(sum(o.total), 0)) " +
+           "FROM Orden o " +
+           "WHERE o.fecha BETWEEN :inicio AND :fin " +
+           "GROUP BY extract(year from o.fecha), extract(month from o.fecha)")
+    List<VentasMes> sumarVentasPorMes(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
+    
+    /**
+     * Ventas agrupadas por hora en la BD para el rango [inicio, fin)
+     * Solo para sembrar VentasEnVivo al arrancar (rango de 48 horas).
+     */
+    @Query("SELECT new com.milsabores.backend.dto.VentasHora(cast(o.fecha as LocalDate), extract(hour from o.fecha), " +
+           "count(o), coalesce(sum(o.total), 0)) " +
+           "FROM Orden o " +
+           "WHERE o.fecha >= :inicio AND o.fecha < :fin " +
+           "GROUP BY cast(o.fecha as LocalDate), extract(hour from o.fecha)")
+    List<VentasHora> sumarVentasPorHora(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
 }
@@ -0,0 +1,21 @@
+package com.milsabores.backend.repository;
+
+import com.milsabores.backend.dto.CursorOrden;
+import com.milsabores.backend.dto.FiltroOrdenes;
+import com.milsabores.backend.model.Orden;
+
+import java.util.List;
+
+/**
+ * Queries dinámicas de Orden (fragmento implementado en OrdenRepositoryCustomImpl)
+ */
+public interface OrdenRepositoryCustom {
+
+    /**
+     * Página keyset de órdenes con cliente y rol cargados (sin detalles)
+     *
+     * @param cursor última orden de la página anterior, o null para la primera página
+     * @param limite máximo de filas a devolver
+     */
+    List<Orden> buscarPagina(FiltroOrdenes filtro, CursorOrden cursor, int limite);
+}
@@ -0,0 +1,63 @@
+package com.milsabores.backend.repository;
+
+import com.milsabores.backend.dto.CursorOrden;
+import com.milsabores.backend.dto.FiltroOrdenes;
+import com.milsabores.backend.model.Orden;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Paginación keyset de órdenes (fecha DESC, id DESC)
+ *
+ * El WHERE (fecha, id) < (:fecha, :id) recorre idx_ordenes_fecha_id o
+ * idx_ordenes_estado_fecha_id (V12) desde el cursor: el costo de cada página
+ * no depende de cuántas órdenes haya en el historial.
+ * Cliente y rol son ManyToOne y no multiplican filas, así que el LIMIT
+ * se aplica sobre órdenes; los detalles se cargan aparte por IDs.
+ */
+public class OrdenRepositoryCustomImpl implements OrdenRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Orden> buscarPagina(FiltroOrdenes filtro, CursorOrden cursor, int limite) {
+        StringBuilder jpql = new StringBuilder("SELECT o FROM Orden o JOIN FETCH o.usuario u JOIN FETCH u.rol");
+        List<String> condiciones = new ArrayList<>();
+        Map<String, Object> parametros = new HashMap<>();
+
+        if (filtro.getDesde() != null) {
+            condiciones.add("o.fecha >= :desde");
+            parametros.put("desde", filtro.getDesde().atStartOfDay());
+        }
+        if (filtro.getHasta() != null) {
+            condiciones.add("o.fecha < :hasta");
+            parametros.put("hasta", filtro.getHasta().plusDays(1).atStartOfDay());
+        }
+        if (filtro.getEstado() != null) {
+            condiciones.add("o.estado = :estado");
+            parametros.put("estado", filtro.getEstado());
+        }
+        if (cursor != null) {
+            condiciones.add("(o.fecha < :cursorFecha OR (o.fecha = :cursorFecha AND o.id < :cursorId))");
+            parametros.put("cursorFecha", cursor.fecha());
+            parametros.put("cursorId", cursor.id());
+        }
+
+        if (!condiciones.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", condiciones));
+        }
+        jpql.append(" ORDER BY o.fecha DESC, o.id DESC");
+
+        TypedQuery<Orden> query = entityManager.createQuery(jpql.toString(), Orden.class);
+        parametros.forEach(query::setParameter);
+        query.setMaxResults(limite);
+        return query.getResultList();
+    }
+}
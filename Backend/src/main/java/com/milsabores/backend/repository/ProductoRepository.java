@@ -5,6 +5,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,38 +16,92 @@ import java.util.Optional;
  * 
  * FIX: @EntityGraph REMOVIDO - incompatible con PgBouncer + causa queries duplicadas
  * Usar SOLO queries custom con JOIN FETCH explícito
+ *
+ * CARGA POR FASES (*WithCollections):
+ * - Un JOIN FETCH de variantes + imagenes devuelve |variantes| × |imagenes| filas por producto
+ * - Ahora se cargan productos + categoría, y luego cada colección con UNA query IN por ids
+ * - Las 3 queries corren en la misma transacción/conexión: Hibernate completa las
+ *   colecciones sobre las mismas instancias del persistence context (PgBouncer-safe,
+ *   no hay lazy loading fuera de la transacción)
  */
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
-    
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
+
     /**
-     * FIX ALTERNATIVO: JPQL con JOIN FETCH explícito
-     * Si @EntityGraph falla en PgBouncer, usar JOIN FETCH directo
-     * FETCH carga collections en una sola query (no lazy)
+     * Máximo de ids por cláusula IN (evita sentencias gigantes con catálogos grandes)
      */
-    @Query("SELECT DISTINCT p FROM Producto p " +
-           "LEFT JOIN FETCH p.variantes " +
-           "LEFT JOIN FETCH p.imagenes " +
-           "LEFT JOIN FETCH p.categoria " +
-           "WHERE p.id = :id")
-    Optional<Producto> findByIdWithCollections(@Param("id") Long id);
-    
+    int TAMANO_LOTE_IN = 500;
+
     /**
-     * FIX: findAll con JOIN FETCH explícito
+     * Producto con categoría, variantes e imágenes (3 queries, sin producto cartesiano)
      */
-    @Query("SELECT DISTINCT p FROM Producto p " +
-           "LEFT JOIN FETCH p.variantes " +
-           "LEFT JOIN FETCH p.imagenes " +
-           "LEFT JOIN FETCH p.categoria")
-    List<Producto> findAllWithCollections();
-    
+    @Transactional(readOnly = true)
+    default Optional<Producto> findByIdWithCollections(Long id) {
+        Optional<Producto> producto = findByIdWithCategoria(id);
+        producto.ifPresent(p -> cargarColecciones(List.of(p)));
+        return producto;
+    }
+
     /**
-     * FIX: findByCategoriaId con JOIN FETCH explícito
+     * Todos los productos con categoría, variantes e imágenes (3 queries, sin producto cartesiano)
      */
+    @Transactional(readOnly = true)
+    default List<Producto> findAllWithCollections() {
+        return cargarColecciones(findAllWithCategoria());
+    }
+
+    /**
+     * Productos de una categoría con variantes e imágenes (3 queries, sin producto cartesiano)
+     */
+    @Transactional(readOnly = true)
+    default List<Producto> findByCategoriaIdWithCollections(Long categoriaId) {
+        return cargarColecciones(findByCategoriaIdWithCategoria(categoriaId));
+    }
+
+    /**
+     * Inicializar variantes e imágenes de productos ya cargados en el persistence context
+     * DEBE llamarse dentro de la misma transacción que cargó los productos.
+     */
+    default List<Producto> cargarColecciones(List<Producto> productos) {
+        if (productos.isEmpty()) {
+            return productos;
+        }
+        List<Long> ids = productos.stream().map(Producto::getId).toList();
+        for (int desde = 0; desde < ids.size(); desde += TAMANO_LOTE_IN) {
+            List<Long> lote = ids.subList(desde, Math.min(desde + TAMANO_LOTE_IN, ids.size()));
+            fetchVariantes(lote);
+            fetchImagenes(lote);
+        }
+        return productos;
+    }
+
+    // ========== FASE 1: productos + categoría (ManyToOne, no multiplica filas) ==========
+
+    @Query("SELECT p FROM Producto p " +
+           "LEFT JOIN FETCH p.categoria " +
+           "WHERE p.id = :id")
+    Optional<Producto> findByIdWithCategoria(@Param("id") Long id);
+
+    @Query("SELECT p FROM Producto p " +
+           "LEFT JOIN FETCH p.categoria " +
+           "ORDER BY p.id")
+    List<Producto> findAllWithCategoria();
+
+    @Query("SELECT p FROM Producto p " +
+           "LEFT JOIN FETCH p.categoria " +
+           "WHERE p.categoria.id = :categoriaId " +
+           "ORDER BY p.id")
+    List<Producto> findByCategoriaIdWithCategoria(@Param("categoriaId") Long categoriaId);
+
+    // ========== FASE 2: una colección por query (filas = elementos de la colección) ==========
+
     @Query("SELECT DISTINCT p FROM Producto p " +
            "LEFT JOIN FETCH p.variantes " +
+           "WHERE p.id IN :ids")
+    List<Producto> fetchVariantes(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT p FROM Producto p " +
            "LEFT JOIN FETCH p.imagenes " +
-           "LEFT JOIN FETCH p.categoria " +
-           "WHERE p.categoria.id = :categoriaId")
-    List<Producto> findByCategoriaIdWithCollections(@Param("categoriaId") Long categoriaId);
+           "WHERE p.id IN :ids")
+    List<Producto> fetchImagenes(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,21 @@
+package com.milsabores.backend.repository;
+
+import com.milsabores.backend.dto.CursorProducto;
+import com.milsabores.backend.dto.FiltroProductos;
+import com.milsabores.backend.model.Producto;
+
+import java.util.List;
+
+/**
+ * Queries dinámicas de Producto (fragmento implementado en ProductoRepositoryCustomImpl)
+ */
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Página keyset del catálogo con categoría cargada (sin colecciones)
+     *
+     * @param cursor última fila de la página anterior, o null para la primera página
+     * @param limite máximo de filas a devolver
+     */
+    List<Producto> buscarPagina(FiltroProductos filtro, CursorProducto cursor, int limite);
+}
@@ -0,0 +1,77 @@
+package com.milsabores.backend.repository;
+
+import com.milsabores.backend.dto.CursorProducto;
+import com.milsabores.backend.dto.FiltroProductos;
+import com.milsabores.backend.model.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Paginación keyset del catálogo
+ *
+ * A diferencia de OFFSET, el costo de cada página no crece con el número de
+ * página: el WHERE sobre (nombre, id) o id recorre el índice desde el cursor
+ * (idx_productos_nombre_id, idx_productos_categoria_*, ver V8).
+ * Los filtros de variantes se resuelven con EXISTS para no multiplicar filas
+ * y que el LIMIT se aplique sobre productos.
+ */
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Producto> buscarPagina(FiltroProductos filtro, CursorProducto cursor, int limite) {
+        StringBuilder jpql = new StringBuilder("SELECT p FROM Producto p LEFT JOIN FETCH p.categoria");
+        List<String> condiciones = new ArrayList<>();
+        Map<String, Object> parametros = new HashMap<>();
+
+        if (filtro.getCategoriaId() != null) {
+            condiciones.add("p.categoria.id = :categoriaId");
+            parametros.put("categoriaId", filtro.getCategoriaId());
+        }
+
+        if (filtro.filtraVariantes()) {
+            StringBuilder existe = new StringBuilder("EXISTS (SELECT 1 FROM VarianteProducto v WHERE v.producto = p");
+            if (filtro.getPrecioMin() != null) {
+                existe.append(" AND v.precio >= :precioMin");
+                parametros.put("precioMin", filtro.getPrecioMin());
+            }
+            if (filtro.getPrecioMax() != null) {
+                existe.append(" AND v.precio <= :precioMax");
+                parametros.put("precioMax", filtro.getPrecioMax());
+            }
+            if (filtro.isSoloConStock()) {
+                existe.append(" AND v.stock > 0");
+            }
+            condiciones.add(existe.append(")").toString());
+        }
+
+        boolean porNombre = filtro.getOrden() == FiltroProductos.Orden.NOMBRE;
+        if (cursor != null) {
+            if (porNombre) {
+                condiciones.add("(p.nombre > :cursorNombre OR (p.nombre = :cursorNombre AND p.id > :cursorId))");
+                parametros.put("cursorNombre", cursor.nombre());
+            } else {
+                condiciones.add("p.id > :cursorId");
+            }
+            parametros.put("cursorId", cursor.id());
+        }
+
+        if (!condiciones.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", condiciones));
+        }
+        jpql.append(porNombre ? " ORDER BY p.nombre, p.id" : " ORDER BY p.id");
+
+        TypedQuery<Producto> query = entityManager.createQuery(jpql.toString(), Producto.class);
+        parametros.forEach(query::setParameter);
+        query.setMaxResults(limite);
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,25 @@
+package com.milsabores.backend.repository;
+
+import com.milsabores.backend.model.RegistroIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repositorio de claves de idempotencia de órdenes
+ * Capa de persistencia - Clean Architecture
+ */
+@Repository
+public interface RegistroIdempotenciaRepository extends JpaRepository<RegistroIdempotencia, String> {
+
+    /**
+     * Eliminar claves vencidas
+     */
+    @Modifying
+    @Query("DELETE FROM RegistroIdempotencia r WHERE r.creadoEn < :limite")
+    int eliminarAnterioresA(@Param("limite") LocalDateTime limite);
+}
@@ -2,7 +2,11 @@ package com.milsabores.backend.repository;
 
 import com.milsabores.backend.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -14,5 +18,26 @@ import java.util.Optional;
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByCorreo(String correo);
     boolean existsByCorreo(String correo);
+
+    /**
+     * Login (AuthService): usuario y rol en una sola consulta
+     */
+    @Query("SELECT u FROM Usuario u JOIN FETCH u.rol WHERE u.correo = :correo")
+    Optional<Usuario> findConRolByCorreo(@Param("correo") String correo);
     boolean existsByRut(String rut);
+
+    /**
+     * Solo la token_version (VersionesToken): sin cargar el usuario ni su rol
+     */
+    @Query("SELECT u.tokenVersion FROM Usuario u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    /**
+     * Rehash tras login (AuthService): solo si el hash no cambió entretanto.
+     * No toca token_version: la contraseña sigue siendo la misma
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Usuario u SET u.password = :nuevo WHERE u.id = :id AND u.password = :anterior")
+    int actualizarHash(@Param("id") Long id, @Param("anterior") String anterior, @Param("nuevo") String nuevo);
 }
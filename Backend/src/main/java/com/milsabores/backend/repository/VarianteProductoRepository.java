@@ -0,0 +1,60 @@
+package com.milsabores.backend.repository;
+
+import com.milsabores.backend.model.VarianteProducto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio para gestión de variantes de producto
+ * Capa de persistencia - Clean Architecture
+ */
+@Repository
+public interface VarianteProductoRepository extends JpaRepository<VarianteProducto, Long> {
+
+    /**
+     * Variantes con su producto en una sola query (checkout)
+     * Evita un findById por item y la carga lazy de producto.variantes
+     */
+    @Query("SELECT v FROM VarianteProducto v JOIN FETCH v.producto WHERE v.id IN :ids")
+    List<VarianteProducto> findAllConProductoByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Descontar stock de forma atómica solo si alcanza
+     *
+     * La condición se evalúa en la BD bajo el lock de la fila: dos checkouts
+     * concurrentes no pueden vender la misma unidad.
+     *
+     * @return 1 si se descontó, 0 si el stock era insuficiente (o la variante no existe)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE VarianteProducto v SET v.stock = v.stock - :cantidad WHERE v.id = :id AND v.stock >= :cantidad")
+    int descontarStock(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    /**
+     * Aplicar un descuento ya reservado en LibroStock (flush del journal)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE VarianteProducto v SET v.stock = v.stock - :cantidad WHERE v.id = :id")
+    int aplicarDescuento(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    /**
+     * Stock disponible de una variante: stock persistido menos movimientos pendientes
+     * Una sola sentencia para que un flush concurrente no se cuente dos veces.
+     */
+    @Query("SELECT COALESCE(v.stock, 0) - COALESCE((SELECT SUM(m.cantidad) FROM MovimientoStock m WHERE m.varianteId = v.id), 0) " +
+           "FROM VarianteProducto v WHERE v.id = :id")
+    Long findStockDisponible(@Param("id") Long id);
+
+    /**
+     * Stock disponible de todas las variantes: filas [id, disponible]
+     */
+    @Query("SELECT v.id, COALESCE(v.stock, 0) - COALESCE((SELECT SUM(m.cantidad) FROM MovimientoStock m WHERE m.varianteId = v.id), 0) " +
+           "FROM VarianteProducto v")
+    List<Object[]> findStockDisponibleTodas();
+}
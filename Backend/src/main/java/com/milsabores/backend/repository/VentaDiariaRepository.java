@@ -0,0 +1,49 @@
+package com.milsabores.backend.repository;
+
+import com.milsabores.backend.model.VentaDiaria;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio del acumulado de ventas por día
+ * Capa de persistencia - Clean Architecture
+ */
+@Repository
+public interface VentaDiariaRepository extends JpaRepository<VentaDiaria, LocalDate> {
+
+    /**
+     * Días del rango [desde, hasta] con ventas registradas
+     */
+    List<VentaDiaria> findByDiaBetweenOrderByDia(LocalDate desde, LocalDate hasta);
+
+    /**
+     * Bloquear la fila del día (SELECT ... FOR UPDATE) para recalcularla
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM VentaDiaria v WHERE v.dia = :dia")
+    Optional<VentaDiaria> bloquear(@Param("dia") LocalDate dia);
+
+    @Modifying
+    @Query("DELETE FROM VentaDiaria v WHERE v.dia < :hasta")
+    int eliminarAnterioresA(@Param("hasta") LocalDate hasta);
+
+    /**
+     * Cargar los días anteriores a :hasta agregando ordenes en la BD
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ventas_diarias (dia, ordenes, total) " +
+           "SELECT CAST(o.fecha AS DATE), COUNT(*), COALESCE(SUM(o.total), 0) FROM ordenes o " +
+           "WHERE o.fecha < :hasta GROUP BY CAST(o.fecha AS DATE)",
+           nativeQuery = true)
+    int cargarDesdeOrdenes(@Param("hasta") LocalDateTime hasta);
+}
@@ -0,0 +1,54 @@
+package com.milsabores.backend.repository;
+
+import com.milsabores.backend.model.VentaMensual;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio del acumulado de ventas por mes
+ * Capa de persistencia - Clean Architecture
+ */
+@Repository
+public interface VentaMensualRepository extends JpaRepository<VentaMensual, LocalDate> {
+
+    /**
+     * Meses del rango [desde, hasta] (primer día de cada mes) con ventas registradas
+     */
+    List<VentaMensual> findByMesBetweenOrderByMes(LocalDate desde, LocalDate hasta);
+
+    /**
+     * Total histórico de órdenes: una fila por mes
+     */
+    @Query("SELECT COALESCE(SUM(v.ordenes), 0) FROM VentaMensual v")
+    Long sumarOrdenes();
+
+    /**
+     * Bloquear la fila del mes (SELECT ... FOR UPDATE) para recalcularla
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM VentaMensual v WHERE v.mes = :mes")
+    Optional<VentaMensual> bloquear(@Param("mes") LocalDate mes);
+
+    @Modifying
+    @Query("DELETE FROM VentaMensual v WHERE v.mes < :hasta")
+    int eliminarAnterioresA(@Param("hasta") LocalDate hasta);
+
+    /**
+     * Cargar los meses anteriores a :hasta a partir de ventas_diarias (ya reconstruida)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ventas_mensuales (mes, ordenes, total) " +
+           "SELECT CAST(DATE_TRUNC('month', v.dia) AS DATE), SUM(v.ordenes), SUM(v.total) FROM ventas_diarias v " +
+           "WHERE v.dia < :hasta GROUP BY CAST(DATE_TRUNC('month', v.dia) AS DATE)",
+           nativeQuery = true)
+    int cargarDesdeDias(@Param("hasta") LocalDate hasta);
+}
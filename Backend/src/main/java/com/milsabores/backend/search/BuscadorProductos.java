@@ -0,0 +1,97 @@
+package com.milsabores.backend.search;
+
+import com.milsabores.backend.cache.CatalogoCache;
+import com.milsabores.backend.cache.CatalogoSnapshot;
+import com.milsabores.backend.cache.CatalogoSnapshotPublicadoEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Búsqueda de productos en memoria sobre el snapshot del catálogo
+ *
+ * - Se actualiza al publicarse cada snapshot (CatalogoSnapshotPublicadoEvent),
+ *   reutilizando la tokenización de los productos que no cambiaron
+ * - Las consultas leen un IndiceBusqueda inmutable: sin locks ni queries a PostgreSQL
+ * - Si el índice quedó atrás del snapshot vigente, la consulta lo actualiza antes
+ *
+ * Métricas:
+ * - catalogo.busqueda.consulta: latencia de cada búsqueda
+ * - catalogo.busqueda.terminos: términos distintos en el índice
+ */
+@Component
+public class BuscadorProductos {
+
+    private static final Logger logger = LoggerFactory.getLogger(BuscadorProductos.class);
+
+    private final CatalogoCache catalogoCache;
+    private final AtomicReference<IndiceBusqueda> indiceActual = new AtomicReference<>(IndiceBusqueda.vacio());
+    private final ReentrantLock lockActualizacion = new ReentrantLock();
+    private final Timer tiempoConsulta;
+
+    public BuscadorProductos(CatalogoCache catalogoCache, MeterRegistry meterRegistry) {
+        this.catalogoCache = catalogoCache;
+        this.tiempoConsulta = Timer.builder("catalogo.busqueda.consulta")
+                .description("Latencia de búsqueda de productos")
+                .register(meterRegistry);
+        Gauge.builder("catalogo.busqueda.terminos", indiceActual, ref -> ref.get().getTotalTerminos())
+                .description("Términos distintos en el índice de búsqueda")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Buscar en el catálogo vigente
+     *
+     * @param pagina página (desde 0)
+     * @param tamano resultados por página
+     */
+    public IndiceBusqueda.Resultado buscar(String consulta, int pagina, int tamano) {
+        long inicio = System.nanoTime();
+        IndiceBusqueda indice = obtenerIndice();
+        IndiceBusqueda.Resultado resultado = indice.buscar(consulta, pagina, tamano);
+        tiempoConsulta.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return resultado;
+    }
+
+    @EventListener
+    public void onSnapshotPublicado(CatalogoSnapshotPublicadoEvent event) {
+        actualizar(event.snapshot());
+    }
+
+    private IndiceBusqueda obtenerIndice() {
+        CatalogoSnapshot snapshot = catalogoCache.obtener();
+        IndiceBusqueda indice = indiceActual.get();
+        if (indice.getVersion() == snapshot.getVersion()) {
+            return indice;
+        }
+        return actualizar(snapshot);
+    }
+
+    private IndiceBusqueda actualizar(CatalogoSnapshot snapshot) {
+        lockActualizacion.lock();
+        try {
+            IndiceBusqueda anterior = indiceActual.get();
+            if (anterior.getVersion() >= snapshot.getVersion()) {
+                return anterior;
+            }
+
+            long inicio = System.currentTimeMillis();
+            IndiceBusqueda nuevo = IndiceBusqueda.construir(snapshot.getVersion(), snapshot.getProductos(), anterior);
+            indiceActual.set(nuevo);
+            logger.info("🔎 [BUSQUEDA] Índice v{} - Productos: {} ({} sin cambios), Términos: {} en {}ms",
+                    nuevo.getVersion(), nuevo.getTotalProductos(), nuevo.getReutilizados(),
+                    nuevo.getTotalTerminos(), System.currentTimeMillis() - inicio);
+            return nuevo;
+        } finally {
+            lockActualizacion.unlock();
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.milsabores.backend.search;
+
+import com.milsabores.backend.dto.ProductoDTO;
+import com.milsabores.backend.dto.VarianteProductoDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido inmutable sobre el catálogo
+ *
+ * Estructura (arrays planos, sin objetos por posting):
+ * - terminos[]: diccionario ordenado; un prefijo es un rango contiguo (búsqueda binaria)
+ * - inicio[t]..inicio[t+1]: postings del término t en docs[] / pesos[]
+ * - productos[doc]: producto del documento (docs ordenados por ID de producto)
+ *
+ * Pesos por campo: nombre 8, categoría 4, variante 2, descripción 1.
+ * Una coincidencia exacta de término vale el doble que una por prefijo.
+ *
+ * Construcción incremental: cada producto se tokeniza una vez; al llegar un
+ * snapshot nuevo se reutiliza el DocumentoIndexado de todo producto que no cambió.
+ */
+public final class IndiceBusqueda {
+
+    static final int PESO_NOMBRE = 8;
+    static final int PESO_CATEGORIA = 4;
+    static final int PESO_VARIANTE = 2;
+    static final int PESO_DESCRIPCION = 1;
+
+    private static final char FIN_PREFIJO = Character.MAX_VALUE;
+
+    /**
+     * Producto ya tokenizado: términos distintos con su peso acumulado por campo
+     */
+    record DocumentoIndexado(ProductoDTO producto, String[] terminos, int[] pesos) {
+    }
+
+    /**
+     * Resultado de una consulta: total de coincidencias y la página pedida
+     */
+    public record Resultado(int total, List<ProductoDTO> productos) {
+    }
+
+    private final long version;
+    private final ProductoDTO[] productos;
+    private final Map<Long, DocumentoIndexado> documentos;
+    private final String[] terminos;
+    private final int[] inicio;
+    private final int[] docs;
+    private final int[] pesos;
+    private final int reutilizados;
+
+    private IndiceBusqueda(long version, ProductoDTO[] productos, Map<Long, DocumentoIndexado> documentos,
+                           String[] terminos, int[] inicio, int[] docs, int[] pesos, int reutilizados) {
+        this.version = version;
+        this.productos = productos;
+        this.documentos = documentos;
+        this.terminos = terminos;
+        this.inicio = inicio;
+        this.docs = docs;
+        this.pesos = pesos;
+        this.reutilizados = reutilizados;
+    }
+
+    public static IndiceBusqueda vacio() {
+        return new IndiceBusqueda(0, new ProductoDTO[0], Map.of(), new String[0], new int[]{0}, new int[0], new int[0], 0);
+    }
+
+    /**
+     * Construir el índice para una versión del catálogo
+     *
+     * @param productos productos ordenados por ID (como en CatalogoSnapshot)
+     * @param anterior  índice previo cuyos documentos sin cambios se reutilizan
+     */
+    public static IndiceBusqueda construir(long version, List<ProductoDTO> productos, IndiceBusqueda anterior) {
+        int n = productos.size();
+        ProductoDTO[] porDoc = productos.toArray(new ProductoDTO[0]);
+        DocumentoIndexado[] tokenizados = new DocumentoIndexado[n];
+        Map<Long, DocumentoIndexado> documentos = new HashMap<>(Math.max(16, n * 4 / 3 + 1));
+        int reutilizados = 0;
+
+        for (int doc = 0; doc < n; doc++) {
+            ProductoDTO producto = porDoc[doc];
+            DocumentoIndexado previo = anterior != null ? anterior.documentos.get(producto.getId()) : null;
+            if (previo != null && previo.producto().equals(producto)) {
+                tokenizados[doc] = previo;
+                reutilizados++;
+            } else {
+                tokenizados[doc] = tokenizar(producto);
+            }
+            documentos.put(producto.getId(), tokenizados[doc]);
+        }
+
+        // 1. Diccionario: término -> cantidad de postings
+        Map<String, int[]> conteo = new HashMap<>();
+        int totalPostings = 0;
+        for (DocumentoIndexado documento : tokenizados) {
+            for (String termino : documento.terminos()) {
+                conteo.computeIfAbsent(termino, t -> new int[1])[0]++;
+            }
+            totalPostings += documento.terminos().length;
+        }
+        String[] terminos = conteo.keySet().toArray(new String[0]);
+        Arrays.sort(terminos);
+
+        // 2. Offsets de cada término (counting sort) y mapa término -> posición
+        int[] inicio = new int[terminos.length + 1];
+        Map<String, Integer> posicion = new HashMap<>(Math.max(16, terminos.length * 4 / 3 + 1));
+        for (int t = 0; t < terminos.length; t++) {
+            inicio[t + 1] = inicio[t] + conteo.get(terminos[t])[0];
+            posicion.put(terminos[t], t);
+        }
+
+        // 3. Postings: recorriendo docs en orden, cada lista queda ordenada por doc
+        int[] docs = new int[totalPostings];
+        int[] pesos = new int[totalPostings];
+        int[] cursor = Arrays.copyOf(inicio, terminos.length);
+        for (int doc = 0; doc < n; doc++) {
+            DocumentoIndexado documento = tokenizados[doc];
+            for (int i = 0; i < documento.terminos().length; i++) {
+                int t = posicion.get(documento.terminos()[i]);
+                int p = cursor[t]++;
+                docs[p] = doc;
+                pesos[p] = documento.pesos()[i];
+            }
+        }
+
+        return new IndiceBusqueda(version, porDoc, documentos, terminos, inicio, docs, pesos, reutilizados);
+    }
+
+    /**
+     * Buscar productos que contengan TODOS los tokens de la consulta (cada uno como prefijo)
+     *
+     * Orden: puntaje descendente, luego ID de producto ascendente.
+     */
+    public Resultado buscar(String consulta, int pagina, int tamano) {
+        List<String> tokens = TextoNormalizador.tokenizar(consulta);
+        if (tokens.isEmpty() || productos.length == 0) {
+            return new Resultado(0, List.of());
+        }
+
+        // Coincidencias de cada token: docs[] ordenados + puntajes paralelos
+        List<int[][]> porToken = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            int[][] coincidencias = coincidencias(token);
+            if (coincidencias[0].length == 0) {
+                return new Resultado(0, List.of());
+            }
+            porToken.add(coincidencias);
+        }
+
+        // Intersectar empezando por la lista más corta
+        porToken.sort((a, b) -> Integer.compare(a[0].length, b[0].length));
+        int[] docsResultado = porToken.get(0)[0];
+        int[] puntajes = porToken.get(0)[1];
+        int total = docsResultado.length;
+        for (int k = 1; k < porToken.size() && total > 0; k++) {
+            int[] otrosDocs = porToken.get(k)[0];
+            int[] otrosPuntajes = porToken.get(k)[1];
+            int[] nuevosDocs = new int[total];
+            int[] nuevosPuntajes = new int[total];
+            int i = 0, j = 0, m = 0;
+            while (i < total && j < otrosDocs.length) {
+                if (docsResultado[i] < otrosDocs[j]) {
+                    i++;
+                } else if (docsResultado[i] > otrosDocs[j]) {
+                    j++;
+                } else {
+                    nuevosDocs[m] = docsResultado[i];
+                    nuevosPuntajes[m++] = puntajes[i++] + otrosPuntajes[j++];
+                }
+            }
+            docsResultado = nuevosDocs;
+            puntajes = nuevosPuntajes;
+            total = m;
+        }
+
+        int desde = pagina * tamano;
+        if (desde >= total) {
+            return new Resultado(total, List.of());
+        }
+
+        // Clave de orden: puntaje descendente en los 32 bits altos, doc ascendente en los bajos
+        long[] claves = new long[total];
+        for (int i = 0; i < total; i++) {
+            claves[i] = ((long) (Integer.MAX_VALUE - puntajes[i]) << 32) | docsResultado[i];
+        }
+        Arrays.sort(claves);
+
+        int hasta = Math.min(total, desde + tamano);
+        List<ProductoDTO> resultado = new ArrayList<>(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            resultado.add(productos[(int) claves[i]]);
+        }
+        return new Resultado(total, Collections.unmodifiableList(resultado));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getTotalProductos() {
+        return productos.length;
+    }
+
+    public int getTotalTerminos() {
+        return terminos.length;
+    }
+
+    public int getReutilizados() {
+        return reutilizados;
+    }
+
+    /**
+     * Docs (ordenados) que tienen algún término con el prefijo dado, con su mejor puntaje
+     */
+    private int[][] coincidencias(String prefijo) {
+        int desde = limiteInferior(prefijo);
+        int hasta = limiteInferior(prefijo + FIN_PREFIJO);
+        if (desde >= hasta) {
+            return new int[][]{new int[0], new int[0]};
+        }
+
+        // Un solo término: los postings ya están ordenados por doc
+        if (hasta - desde == 1) {
+            int bonus = terminos[desde].length() == prefijo.length() ? 2 : 1;
+            int largo = inicio[hasta] - inicio[desde];
+            int[] d = Arrays.copyOfRange(docs, inicio[desde], inicio[hasta]);
+            int[] p = new int[largo];
+            for (int i = 0; i < largo; i++) {
+                p[i] = pesos[inicio[desde] + i] * bonus;
+            }
+            return new int[][]{d, p};
+        }
+
+        // Varios términos: empaquetar (doc, puntaje), ordenar y quedarse con el mejor por doc
+        long[] pares = new long[inicio[hasta] - inicio[desde]];
+        int k = 0;
+        for (int t = desde; t < hasta; t++) {
+            int bonus = terminos[t].length() == prefijo.length() ? 2 : 1;
+            for (int p = inicio[t]; p < inicio[t + 1]; p++) {
+                pares[k++] = ((long) docs[p] << 32) | (pesos[p] * bonus);
+            }
+        }
+        Arrays.sort(pares);
+
+        int[] d = new int[pares.length];
+        int[] p = new int[pares.length];
+        int m = 0;
+        for (long par : pares) {
+            int doc = (int) (par >>> 32);
+            int puntaje = (int) par;
+            if (m > 0 && d[m - 1] == doc) {
+                p[m - 1] = Math.max(p[m - 1], puntaje);
+            } else {
+                d[m] = doc;
+                p[m++] = puntaje;
+            }
+        }
+        return new int[][]{Arrays.copyOf(d, m), Arrays.copyOf(p, m)};
+    }
+
+    private int limiteInferior(String clave) {
+        int lo = 0, hi = terminos.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (terminos[mid].compareTo(clave) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static DocumentoIndexado tokenizar(ProductoDTO producto) {
+        Map<String, Integer> pesos = new HashMap<>();
+        agregar(pesos, producto.getNombre(), PESO_NOMBRE);
+        if (producto.getCategoria() != null) {
+            agregar(pesos, producto.getCategoria().getNombre(), PESO_CATEGORIA);
+        }
+        // Todas las variantes cuentan como un solo campo
+        StringBuilder variantes = new StringBuilder();
+        for (VarianteProductoDTO variante : producto.getVariantes()) {
+            if (variante.getNombre() != null) {
+                variantes.append(variante.getNombre()).append(' ');
+            }
+        }
+        agregar(pesos, variantes.toString(), PESO_VARIANTE);
+        agregar(pesos, producto.getDescripcion(), PESO_DESCRIPCION);
+
+        String[] terminos = pesos.keySet().toArray(new String[0]);
+        int[] valores = new int[terminos.length];
+        for (int i = 0; i < terminos.length; i++) {
+            valores[i] = pesos.get(terminos[i]);
+        }
+        return new DocumentoIndexado(producto, terminos, valores);
+    }
+
+    /**
+     * Sumar el peso del campo una vez por término (repetir una palabra no infla el puntaje)
+     */
+    private static void agregar(Map<String, Integer> pesos, String texto, int peso) {
+        for (String token : new LinkedHashSet<>(TextoNormalizador.tokenizar(texto))) {
+            pesos.merge(token, peso, Integer::sum);
+        }
+    }
+}
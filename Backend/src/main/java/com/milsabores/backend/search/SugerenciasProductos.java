@@ -0,0 +1,105 @@
+package com.milsabores.backend.search;
+
+import com.milsabores.backend.cache.CatalogoCache;
+import com.milsabores.backend.cache.CatalogoSnapshot;
+import com.milsabores.backend.cache.CatalogoSnapshotPublicadoEvent;
+import com.milsabores.backend.dto.CategoriaDTO;
+import com.milsabores.backend.dto.ProductoDTO;
+import com.milsabores.backend.dto.SugerenciaDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Autocompletado de nombres de productos y categorías
+ *
+ * El trie se reconstruye con cada snapshot del catálogo (CatalogoSnapshotPublicadoEvent),
+ * así las escrituras de ProductoService/CategoriaService se reflejan después del commit
+ * y el tráfico por tecla nunca llega a PostgreSQL.
+ *
+ * Ranking: categorías primero (más productos = antes), luego productos con stock.
+ *
+ * Métricas:
+ * - catalogo.sugerencias.nodos: nodos del trie vigente
+ */
+@Component
+public class SugerenciasProductos {
+
+    private static final Logger logger = LoggerFactory.getLogger(SugerenciasProductos.class);
+
+    private static final int PUNTAJE_CATEGORIA = 1_000;
+    private static final int PUNTAJE_PRODUCTO = 100;
+    private static final int BONUS_CON_STOCK = 10;
+
+    private final CatalogoCache catalogoCache;
+    private final AtomicReference<TrieSugerencias> trieActual = new AtomicReference<>(TrieSugerencias.vacio());
+    private final ReentrantLock lockActualizacion = new ReentrantLock();
+
+    public SugerenciasProductos(CatalogoCache catalogoCache, MeterRegistry meterRegistry) {
+        this.catalogoCache = catalogoCache;
+        Gauge.builder("catalogo.sugerencias.nodos", trieActual, ref -> ref.get().getTotalNodos())
+                .description("Nodos del trie de autocompletado")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sugerencias para el prefijo escrito
+     * En estado estable no asigna memoria salvo la vista del resultado.
+     */
+    public List<SugerenciaDTO> sugerir(String prefijo, int limite) {
+        CatalogoSnapshot snapshot = catalogoCache.obtener();
+        TrieSugerencias trie = trieActual.get();
+        if (trie.getVersion() != snapshot.getVersion()) {
+            trie = actualizar(snapshot);
+        }
+        return trie.sugerir(prefijo, limite);
+    }
+
+    @EventListener
+    public void onSnapshotPublicado(CatalogoSnapshotPublicadoEvent event) {
+        actualizar(event.snapshot());
+    }
+
+    private TrieSugerencias actualizar(CatalogoSnapshot snapshot) {
+        lockActualizacion.lock();
+        try {
+            TrieSugerencias anterior = trieActual.get();
+            if (anterior.getVersion() >= snapshot.getVersion()) {
+                return anterior;
+            }
+
+            long inicio = System.currentTimeMillis();
+            List<TrieSugerencias.Entrada> entradas = new ArrayList<>();
+            for (CategoriaDTO categoria : snapshot.getCategorias()) {
+                int productos = snapshot.getProductosDeCategoria(categoria.getId()).size();
+                entradas.add(new TrieSugerencias.Entrada(
+                        new SugerenciaDTO(SugerenciaDTO.CATEGORIA, categoria.getId(), categoria.getNombre()),
+                        PUNTAJE_CATEGORIA + productos));
+            }
+            for (ProductoDTO producto : snapshot.getProductos()) {
+                boolean conStock = producto.getVariantes().stream()
+                        .anyMatch(v -> v.getStock() != null && v.getStock() > 0);
+                entradas.add(new TrieSugerencias.Entrada(
+                        new SugerenciaDTO(SugerenciaDTO.PRODUCTO, producto.getId(), producto.getNombre()),
+                        PUNTAJE_PRODUCTO + (conStock ? BONUS_CON_STOCK : 0)));
+            }
+
+            TrieSugerencias nuevo = TrieSugerencias.construir(snapshot.getVersion(), entradas);
+            trieActual.set(nuevo);
+            logger.info("🔤 [SUGERENCIAS] Trie v{} - Entradas: {}, Nodos: {} en {}ms",
+                    nuevo.getVersion(), nuevo.getTotalEntradas(), nuevo.getTotalNodos(),
+                    System.currentTimeMillis() - inicio);
+            return nuevo;
+        } finally {
+            lockActualizacion.unlock();
+        }
+    }
+}
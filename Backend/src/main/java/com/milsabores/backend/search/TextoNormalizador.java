@@ -0,0 +1,124 @@
+package com.milsabores.backend.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Normalización de texto para búsqueda en español
+ *
+ * - Minúsculas y sin tildes: "Crème" -> "creme", "Ñandú" -> "nandu"
+ * - Todo lo que no es letra o dígito separa tokens
+ * - Stopwords muy frecuentes ("de", "la", "con"...) no se indexan
+ *
+ * plegar(char) usa una tabla precalculada para Latin-1 / Latin Extended-A,
+ * así el autocompletado puede normalizar carácter a carácter sin asignar memoria.
+ */
+public final class TextoNormalizador {
+
+    /**
+     * Caracteres cubiertos por la tabla (Basic Latin + Latin-1 + Latin Extended-A)
+     */
+    private static final int LIMITE_TABLA = 0x180;
+
+    /**
+     * Carácter plegado para cada código < LIMITE_TABLA; SEPARADOR si no es letra/dígito
+     */
+    private static final char[] TABLA = new char[LIMITE_TABLA];
+
+    public static final char SEPARADOR = ' ';
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "de", "del", "la", "las", "el", "los", "y", "e", "o", "u",
+            "con", "en", "a", "al", "un", "una", "para", "por", "sin");
+
+    static {
+        for (int c = 0; c < LIMITE_TABLA; c++) {
+            TABLA[c] = calcularPlegado((char) c);
+        }
+    }
+
+    private TextoNormalizador() {
+    }
+
+    /**
+     * Plegar un carácter: minúscula sin diacríticos, o SEPARADOR si no es alfanumérico
+     */
+    public static char plegar(char c) {
+        if (c < LIMITE_TABLA) {
+            return TABLA[c];
+        }
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : SEPARADOR;
+    }
+
+    /**
+     * Normalizar un texto completo (tokens separados por un espacio)
+     */
+    public static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(texto.length());
+        boolean separando = true;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = plegar(texto.charAt(i));
+            if (c == SEPARADOR) {
+                if (!separando) {
+                    sb.append(SEPARADOR);
+                    separando = true;
+                }
+            } else {
+                sb.append(c);
+                separando = false;
+            }
+        }
+        int largo = sb.length();
+        if (largo > 0 && sb.charAt(largo - 1) == SEPARADOR) {
+            sb.setLength(largo - 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Tokens normalizados del texto, sin stopwords
+     */
+    public static List<String> tokenizar(String texto) {
+        String normalizado = normalizar(texto);
+        List<String> tokens = new ArrayList<>();
+        if (normalizado.isEmpty()) {
+            return tokens;
+        }
+        for (String token : normalizado.split(" ")) {
+            if (!STOPWORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static char calcularPlegado(char c) {
+        if (!Character.isLetterOrDigit(c)) {
+            return SEPARADOR;
+        }
+        // NFD separa la letra base de la tilde: "é" -> "e" + U+0301
+        String descompuesto = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        char base = descompuesto.charAt(0);
+        if (c == 'ß') {
+            return 's';
+        }
+        if (c == 'æ' || c == 'Æ') {
+            return 'a';
+        }
+        if (c == 'ø' || c == 'Ø') {
+            return 'o';
+        }
+        if (c == 'đ' || c == 'Đ') {
+            return 'd';
+        }
+        if (c == 'ł' || c == 'Ł') {
+            return 'l';
+        }
+        return Character.toLowerCase(Character.isLetterOrDigit(base) ? base : c);
+    }
+}
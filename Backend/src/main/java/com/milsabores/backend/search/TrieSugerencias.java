@@ -0,0 +1,323 @@
+package com.milsabores.backend.search;
+
+import com.milsabores.backend.dto.SugerenciaDTO;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+
+/**
+ * Trie inmutable de prefijos para autocompletado, almacenado en arrays planos
+ *
+ * - Nodo n: hijos en [inicioHijos[n], inicioHijos[n + 1]), ordenados por carácter
+ *   (búsqueda binaria sobre caracter[])
+ * - Cada nodo guarda sus TOP_N mejores entradas precalculadas en top[]
+ * - Las entradas se numeran por ranking (puntaje desc, nombre asc): el top-N de
+ *   un nodo son los N ids más bajos de su subárbol
+ *
+ * Cada nombre se indexa desde el inicio de sus primeras palabras, así "reina"
+ * sugiere "Brazo de Reina". La consulta se pliega carácter a carácter con
+ * TextoNormalizador.plegar: el recorrido no asigna memoria y el resultado es
+ * una vista sobre top[] con SugerenciaDTO precalculadas.
+ *
+ * Solo se indexan los primeros PROFUNDIDAD_MAXIMA caracteres desde cada palabra.
+ * Los nodos de esa profundidad guardan todas sus entradas (no solo el top-N), así
+ * un prefijo más largo se resuelve filtrando esa lista contra el prefijo completo.
+ */
+public final class TrieSugerencias {
+
+    public static final int TOP_N = 10;
+
+    /**
+     * Profundidad máxima indexada (más allá el prefijo ya es prácticamente único
+     * y sugerir filtra las entradas del nodo en vez de seguir bajando)
+     */
+    static final int PROFUNDIDAD_MAXIMA = 24;
+
+    /**
+     * Palabras de cada nombre desde las que también se puede empezar a escribir
+     */
+    static final int PALABRAS_INDEXADAS = 4;
+
+    /**
+     * Entrada a indexar: la sugerencia y su puntaje (mayor = primero)
+     */
+    public record Entrada(SugerenciaDTO sugerencia, int puntaje) {
+    }
+
+    private final long version;
+    private final SugerenciaDTO[] entradas;
+    private final String[] normalizados;
+    private final char[] caracter;
+    private final int[] inicioHijos;
+    private final int[] inicioTop;
+    private final int[] top;
+
+    private TrieSugerencias(long version, SugerenciaDTO[] entradas, String[] normalizados, char[] caracter,
+                            int[] inicioHijos, int[] inicioTop, int[] top) {
+        this.version = version;
+        this.entradas = entradas;
+        this.normalizados = normalizados;
+        this.caracter = caracter;
+        this.inicioHijos = inicioHijos;
+        this.inicioTop = inicioTop;
+        this.top = top;
+    }
+
+    public static TrieSugerencias vacio() {
+        return construir(0, List.of());
+    }
+
+    /**
+     * Construir el trie para una versión del catálogo
+     */
+    public static TrieSugerencias construir(long version, List<Entrada> entradas) {
+        List<Entrada> ordenadas = new ArrayList<>(entradas);
+        ordenadas.sort(Comparator.comparingInt(Entrada::puntaje).reversed()
+                .thenComparing(e -> TextoNormalizador.normalizar(e.sugerencia().getNombre()))
+                .thenComparing(e -> e.sugerencia().getTipo())
+                .thenComparing(e -> e.sugerencia().getId()));
+
+        // 1. Trie temporal con nodos enlazados
+        NodoTemporal raiz = new NodoTemporal();
+        String[] normalizados = new String[ordenadas.size()];
+        for (int id = 0; id < ordenadas.size(); id++) {
+            String normalizado = TextoNormalizador.normalizar(ordenadas.get(id).sugerencia().getNombre());
+            normalizados[id] = normalizado;
+            int palabras = 0;
+            for (int i = 0; i < normalizado.length() && palabras < PALABRAS_INDEXADAS; i++) {
+                if (i == 0 || normalizado.charAt(i - 1) == TextoNormalizador.SEPARADOR) {
+                    insertar(raiz, normalizado, i, id);
+                    palabras++;
+                }
+            }
+        }
+        raiz.cerrar();
+
+        // 2. Aplanar en orden BFS: los hijos de cada nodo quedan contiguos
+        List<NodoTemporal> orden = new ArrayList<>();
+        orden.add(raiz);
+        for (int i = 0; i < orden.size(); i++) {
+            orden.addAll(orden.get(i).hijos.values());
+        }
+
+        int nodos = orden.size();
+        char[] caracter = new char[nodos];
+        int[] inicioHijos = new int[nodos + 1];
+        int[] inicioTop = new int[nodos + 1];
+        int totalTop = 0;
+        int siguienteHijo = 1;
+        for (int n = 0; n < nodos; n++) {
+            NodoTemporal nodo = orden.get(n);
+            caracter[n] = nodo.caracter;
+            inicioHijos[n] = siguienteHijo;
+            siguienteHijo += nodo.hijos.size();
+            inicioTop[n] = totalTop;
+            totalTop += nodo.top.length;
+        }
+        inicioHijos[nodos] = siguienteHijo;
+        inicioTop[nodos] = totalTop;
+
+        int[] top = new int[totalTop];
+        for (int n = 0; n < nodos; n++) {
+            int[] nodoTop = orden.get(n).top;
+            System.arraycopy(nodoTop, 0, top, inicioTop[n], nodoTop.length);
+        }
+
+        SugerenciaDTO[] sugerencias = ordenadas.stream().map(Entrada::sugerencia).toArray(SugerenciaDTO[]::new);
+        return new TrieSugerencias(version, sugerencias, normalizados, caracter, inicioHijos, inicioTop, top);
+    }
+
+    /**
+     * Mejores sugerencias para el prefijo escrito (sin asignar memoria salvo la vista del resultado)
+     *
+     * @param prefijo texto tal como lo escribió el usuario (tildes/mayúsculas/espacios se normalizan)
+     * @param limite  máximo de sugerencias (1..TOP_N)
+     */
+    public List<SugerenciaDTO> sugerir(CharSequence prefijo, int limite) {
+        int nodo = 0;
+        int profundidad = 0;
+        boolean empezado = false;
+        boolean espacioPendiente = false;
+        for (int i = 0; i < prefijo.length(); i++) {
+            char c = TextoNormalizador.plegar(prefijo.charAt(i));
+            if (c == TextoNormalizador.SEPARADOR) {
+                espacioPendiente = empezado;
+                continue;
+            }
+            if (espacioPendiente) {
+                if (profundidad == PROFUNDIDAD_MAXIMA) {
+                    return filtrar(nodo, prefijo, limite);
+                }
+                nodo = hijo(nodo, TextoNormalizador.SEPARADOR);
+                profundidad++;
+                espacioPendiente = false;
+                if (nodo < 0) {
+                    return List.of();
+                }
+            }
+            if (profundidad == PROFUNDIDAD_MAXIMA) {
+                return filtrar(nodo, prefijo, limite);
+            }
+            nodo = hijo(nodo, c);
+            profundidad++;
+            if (nodo < 0) {
+                return List.of();
+            }
+            empezado = true;
+        }
+        if (!empezado) {
+            return List.of();
+        }
+
+        int desde = inicioTop[nodo];
+        int largo = Math.min(Math.min(limite, TOP_N), inicioTop[nodo + 1] - desde);
+        return largo <= 0 ? List.of() : new Vista(desde, largo);
+    }
+
+    /**
+     * Prefijo más largo que lo indexado: entradas del nodo (todas, en orden de
+     * ranking) cuyo nombre tiene una palabra indexada que empieza con el prefijo
+     */
+    private List<SugerenciaDTO> filtrar(int nodo, CharSequence prefijo, int limite) {
+        String buscado = TextoNormalizador.normalizar(prefijo.toString());
+        int maximo = Math.min(limite, TOP_N);
+        List<SugerenciaDTO> resultado = new ArrayList<>(Math.max(maximo, 0));
+        for (int i = inicioTop[nodo]; i < inicioTop[nodo + 1] && resultado.size() < maximo; i++) {
+            int entrada = top[i];
+            if (palabraEmpiezaCon(normalizados[entrada], buscado)) {
+                resultado.add(entradas[entrada]);
+            }
+        }
+        return Collections.unmodifiableList(resultado);
+    }
+
+    private static boolean palabraEmpiezaCon(String normalizado, String buscado) {
+        int palabras = 0;
+        for (int i = 0; i < normalizado.length() && palabras < PALABRAS_INDEXADAS; i++) {
+            if (i == 0 || normalizado.charAt(i - 1) == TextoNormalizador.SEPARADOR) {
+                if (normalizado.startsWith(buscado, i)) {
+                    return true;
+                }
+                palabras++;
+            }
+        }
+        return false;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getTotalNodos() {
+        return caracter.length;
+    }
+
+    public int getTotalEntradas() {
+        return entradas.length;
+    }
+
+    private int hijo(int nodo, char c) {
+        int lo = inicioHijos[nodo];
+        int hi = inicioHijos[nodo + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char actual = caracter[mid];
+            if (actual < c) {
+                lo = mid + 1;
+            } else if (actual > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static void insertar(NodoTemporal raiz, String texto, int desde, int entrada) {
+        NodoTemporal nodo = raiz;
+        int hasta = Math.min(texto.length(), desde + PROFUNDIDAD_MAXIMA);
+        for (int i = desde; i < hasta; i++) {
+            nodo = nodo.hijos.computeIfAbsent(texto.charAt(i), NodoTemporal::new);
+            nodo.completo = i - desde + 1 == PROFUNDIDAD_MAXIMA;
+            nodo.agregarPropia(entrada);
+        }
+    }
+
+    /**
+     * Vista inmutable sobre top[] (la única asignación por consulta)
+     */
+    private final class Vista extends AbstractList<SugerenciaDTO> implements RandomAccess {
+        private final int desde;
+        private final int largo;
+
+        private Vista(int desde, int largo) {
+            this.desde = desde;
+            this.largo = largo;
+        }
+
+        @Override
+        public SugerenciaDTO get(int index) {
+            if (index < 0 || index >= largo) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return entradas[top[desde + index]];
+        }
+
+        @Override
+        public int size() {
+            return largo;
+        }
+    }
+
+    /**
+     * Nodo usado solo durante la construcción
+     */
+    private static final class NodoTemporal {
+        private final char caracter;
+        private final TreeMap<Character, NodoTemporal> hijos = new TreeMap<>();
+        // Nodo en PROFUNDIDAD_MAXIMA: guarda todas sus entradas, no solo TOP_N
+        private boolean completo;
+        // Entradas que pasan por este nodo (ids ascendentes = mejor ranking primero)
+        private int[] propias = new int[4];
+        private int totalPropias;
+        private int[] top;
+
+        private NodoTemporal() {
+            this.caracter = 0;
+        }
+
+        private NodoTemporal(Character caracter) {
+            this.caracter = caracter;
+        }
+
+        /**
+         * Registrar una entrada cuyo texto pasa por este nodo
+         * Las entradas se insertan en orden de ranking (todas las palabras de una
+         * entrada antes que la siguiente): basta con guardar las primeras TOP_N distintas,
+         * y un repetido solo puede ser la última agregada.
+         */
+        private void agregarPropia(int entrada) {
+            if ((!completo && totalPropias >= TOP_N) || (totalPropias > 0 && propias[totalPropias - 1] == entrada)) {
+                return;
+            }
+            if (totalPropias == propias.length) {
+                propias = Arrays.copyOf(propias, Math.max(TOP_N, propias.length * 2));
+            }
+            propias[totalPropias++] = entrada;
+        }
+
+        private void cerrar() {
+            top = Arrays.copyOf(propias, totalPropias);
+            propias = null;
+            for (NodoTemporal hijo : hijos.values()) {
+                hijo.cerrar();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.milsabores.backend.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets por cliente para una ruta (LimiteSolicitudesFilter)
+ *
+ * Cada cubeta es un solo AtomicLong con el "instante teórico de llegada"
+ * (GCRA): equivale a un token bucket de capacidad N que recarga un token cada
+ * intervalo, pero se consulta y actualiza con un CAS, sin locks ni timers.
+ *
+ * Clientes en franjas (lock striping): cada franja es un LinkedHashMap LRU
+ * acotado con su propio lock, que solo se toma para buscar/crear la cubeta.
+ * Un cliente desalojado vuelve con la cubeta llena (falla hacia permitir).
+ */
+class CubetasTokens {
+
+    private static final int FRANJAS = 16;
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final Map<String, AtomicLong>[] franjas;
+
+    /**
+     * @param capacidad  solicitudes seguidas permitidas (ráfaga)
+     * @param porMinuto  tokens que se recargan por minuto
+     * @param maxClientes clientes recordados en total
+     */
+    @SuppressWarnings("unchecked")
+    CubetasTokens(int capacidad, int porMinuto, int maxClientes) {
+        if (capacidad < 1 || porMinuto < 1) {
+            throw new IllegalArgumentException("capacidad y por-minuto deben ser mayores a 0");
+        }
+        this.intervaloNanos = 60_000_000_000L / porMinuto;
+        this.toleranciaNanos = intervaloNanos * (capacidad - 1);
+
+        int maxPorFranja = Math.max(1, maxClientes / FRANJAS);
+        this.franjas = new Map[FRANJAS];
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AtomicLong> eldest) {
+                    return size() > maxPorFranja;
+                }
+            };
+        }
+    }
+
+    /**
+     * Consumir un token del cliente
+     *
+     * @return 0 si se permite; si no, nanos hasta que haya un token disponible
+     */
+    long intentar(String cliente, long ahoraNanos) {
+        AtomicLong llegadaTeorica = cubeta(cliente, ahoraNanos);
+        while (true) {
+            long actual = llegadaTeorica.get();
+            long base = Math.max(actual, ahoraNanos);
+            long adelanto = base - ahoraNanos;
+            if (adelanto > toleranciaNanos) {
+                return adelanto - toleranciaNanos;
+            }
+            if (llegadaTeorica.compareAndSet(actual, base + intervaloNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Clientes recordados (métrica)
+     */
+    int clientes() {
+        int total = 0;
+        for (Map<String, AtomicLong> franja : franjas) {
+            synchronized (franja) {
+                total += franja.size();
+            }
+        }
+        return total;
+    }
+
+    private AtomicLong cubeta(String cliente, long ahoraNanos) {
+        Map<String, AtomicLong> franja = franjas[(cliente.hashCode() & 0x7fffffff) % FRANJAS];
+        synchronized (franja) {
+            return franja.computeIfAbsent(cliente, c -> new AtomicLong(ahoraNanos));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.milsabores.backend.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hash y verificación BCrypt fuera de los threads de Tomcat
+ *
+ * PROBLEMA:
+ * - BCrypt es CPU puro (~50-100ms con costo 10); en una ola de logins todos los
+ *   workers de Tomcat quedan calculando hashes y el catálogo deja de responder
+ *
+ * SOLUCIÓN:
+ * - Pool fijo de seguridad.bcrypt.hilos threads con cola acotada (seguridad.bcrypt.cola)
+ * - Cola llena: IllegalStateException inmediata (503 + Retry-After), sin esperar
+ * - Los endpoints de auth devuelven CompletableFuture: el thread de Tomcat se
+ *   libera mientras el hash corre aquí
+ * - requiereRehash(): hashes con un costo menor al configurado se recalculan en
+ *   el siguiente login exitoso (AuthService)
+ *
+ * Métricas (GET /actuator/metrics/...):
+ * - seguridad.bcrypt.cola: tareas esperando un thread
+ * - seguridad.bcrypt.rechazos: tareas rechazadas por cola llena
+ * - seguridad.bcrypt.tiempo: tiempo de cada hash/verificación (sin la espera en cola)
+ */
+@Component
+public class HashContrasenas {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashContrasenas.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor ejecutor;
+
+    private final Counter rechazos;
+    private final Timer tiempo;
+
+    public HashContrasenas(PasswordEncoder passwordEncoder,
+                           MeterRegistry meterRegistry,
+                           @Value("${seguridad.bcrypt.hilos:2}") int hilos,
+                           @Value("${seguridad.bcrypt.cola:64}") int capacidadCola) {
+        this.passwordEncoder = passwordEncoder;
+        AtomicInteger numero = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("seguridad.bcrypt.cola", ejecutor, e -> e.getQueue().size())
+                .description("Hashes BCrypt esperando un thread")
+                .register(meterRegistry);
+        this.rechazos = Counter.builder("seguridad.bcrypt.rechazos")
+                .description("Hashes BCrypt rechazados por cola llena")
+                .register(meterRegistry);
+        this.tiempo = Timer.builder("seguridad.bcrypt.tiempo")
+                .description("Tiempo de cada hash o verificación BCrypt")
+                .register(meterRegistry);
+
+        logger.info("✅ [BCRYPT] Pool de hash - hilos: {}, cola: {}", hilos, capacidadCola);
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Calcular el hash de una contraseña en el pool
+     *
+     * @throws IllegalStateException si la cola está llena
+     */
+    public CompletableFuture<String> codificar(String password) {
+        return enviar(() -> passwordEncoder.encode(password));
+    }
+
+    /**
+     * Comparar una contraseña con su hash en el pool
+     *
+     * @throws IllegalStateException si la cola está llena
+     */
+    public CompletableFuture<Boolean> coincide(String password, String hash) {
+        return enviar(() -> passwordEncoder.matches(password, hash));
+    }
+
+    /**
+     * Hash para flujos síncronos (backoffice): el costo de CPU igual queda
+     * acotado por el pool, aunque el thread que llama espera el resultado
+     *
+     * @throws IllegalStateException si la cola está llena
+     */
+    public String codificarYEsperar(String password) {
+        try {
+            return codificar(password).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException causa ? causa : e;
+        }
+    }
+
+    /**
+     * true si el hash se generó con un costo menor al configurado
+     */
+    public boolean requiereRehash(String hash) {
+        return passwordEncoder.upgradeEncoding(hash);
+    }
+
+    private <T> CompletableFuture<T> enviar(Supplier<T> tarea) {
+        try {
+            return CompletableFuture.supplyAsync(() -> tiempo.record(tarea), ejecutor);
+        } catch (RejectedExecutionException e) {
+            rechazos.increment();
+            logger.warn("⚠️ [BCRYPT] Cola llena ({} en espera), hash rechazado", ejecutor.getQueue().size());
+            throw new IllegalStateException("Demasiados inicios de sesión en curso, reintente en unos segundos");
+        }
+    }
+}
@@ -7,8 +7,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -19,6 +21,12 @@ import java.io.IOException;
 /**
  * Filtro JWT para validar tokens en cada request
  * Clean Architecture - Filtro de infraestructura
+ *
+ * Modo solo claims (jwt.solo-claims=true, por defecto): el principal se arma
+ * con el correo y el rol del token ya verificado (firma + expiración), sin
+ * consultar usuarios/roles. Rol cambiado o usuario eliminado: su token_version
+ * ya no coincide con la del claim "ver" (VersionesToken) y el token se ignora.
+ * Tokens emitidos antes de V14 (sin "uid"/"ver") se validan contra la BD hasta expirar.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -31,6 +39,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private VersionesToken versionesToken;
+
+    @Value("${jwt.solo-claims:true}")
+    private boolean soloClaims;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -40,13 +54,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String method = request.getMethod();
 
         String username = null;
-        String jwt = null;
+        TokenVerificado token = null;
 
-        // Extraer token del header Authorization
+        // Extraer token del header Authorization (firma y expiración; una vez por token, ver JwtUtil)
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
+                token = jwtUtil.verificar(jwt);
+                username = token.correo();
                 logger.debug("🔐 [JWT Filter] Token encontrado para usuario: {}", username);
             } catch (Exception e) {
                 logger.warn("⚠️ [JWT Filter] Error al extraer username del token en {}: {}", requestPath, e.getMessage());
@@ -60,9 +75,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Validar token y establecer autenticación
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = soloClaims && token.tieneVersion()
+                        ? desdeClaims(token)
+                        : desdeBaseDeDatos(username);
 
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                if (userDetails != null) {
                     UsernamePasswordAuthenticationToken authenticationToken = 
                         new UsernamePasswordAuthenticationToken(
                             userDetails, 
@@ -95,4 +112,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Spring Security decidirá si rechazar basándose en SecurityConfig
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Principal desde los claims (sin BD); null si el token fue revocado
+     */
+    private UserDetails desdeClaims(TokenVerificado token) {
+        if (!versionesToken.vigente(token.usuarioId(), token.version())) {
+            logger.warn("🚫 [JWT Filter] Token revocado para: {} (versión {})", token.correo(), token.version());
+            return null;
+        }
+        return User.withUsername(token.correo())
+                .password("")
+                .authorities("ROLE_" + token.rol().toUpperCase())
+                .build();
+    }
+
+    /**
+     * Principal desde usuarios/roles (jwt.solo-claims=false o token anterior a V14)
+     * El token ya fue verificado al extraer los claims: basta con que el usuario exista.
+     */
+    private UserDetails desdeBaseDeDatos(String username) {
+        return this.userDetailsService.loadUserByUsername(username);
+    }
 }
@@ -1,5 +1,6 @@
 package com.milsabores.backend.security;
 
+import com.milsabores.backend.model.Usuario;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
@@ -9,85 +10,112 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.function.Function;
 
 /**
  * Utilidad para generación y validación de tokens JWT
  * Clean Architecture - Infraestructura de seguridad
+ *
+ * Verificación:
+ * - Clave HMAC y parser se construyen una vez (son inmutables y thread-safe)
+ * - Cada token se parsea y verifica una sola vez: verificar() devuelve un
+ *   TokenVerificado y todo lo demás (correo, rol, expiración) sale de ahí
+ * - Caché LRU de tokens ya verificados, indexada por SHA-256 del token: los
+ *   requests siguientes de la misma sesión no repiten base64 + JSON + HMAC;
+ *   la expiración se vuelve a comprobar en cada acierto
  */
 @Component
 public class JwtUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
-    @Value("${jwt.secret:milsabores-secret-key-super-secure-2024-pasteleria-jwt-token-security}")
-    private String secret;
+    public static final String CLAIM_ROL = "rol";
+    public static final String CLAIM_USUARIO_ID = "uid";
+    public static final String CLAIM_VERSION = "ver";
 
-    @Value("${jwt.expiration:86400000}") // 24 horas en milisegundos
-    private Long expiration;
+    private final SecretKey clave;
+    private final JwtParser parser;
+    private final long expiration;
+    private final int maximoVerificados;
 
-    /**
-     * Genera la clave secreta para firmar tokens
-     */
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
-    }
-
-    /**
-     * Extrae el username (correo) del token
-     */
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    // Orden de acceso: sale el token que lleva más tiempo sin usarse
+    private final Map<ByteBuffer, TokenVerificado> verificados = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, TokenVerificado> eldest) {
+            return size() > maximoVerificados;
+        }
+    };
+
+    public JwtUtil(@Value("${jwt.secret:milsabores-secret-key-super-secure-2024-pasteleria-jwt-token-security}") String secret,
+                   @Value("${jwt.expiration:86400000}") long expiration, // 24 horas en milisegundos
+                   @Value("${jwt.verificados.max-tokens:5000}") int maximoVerificados) {
+        this.clave = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(clave).build();
+        this.expiration = expiration;
+        this.maximoVerificados = maximoVerificados;
     }
 
     /**
-     * Extrae la fecha de expiración del token
+     * Verificar firma y expiración del token (una sola vez por token mientras esté en caché)
+     *
+     * @throws JwtException token alterado, mal formado o expirado
      */
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
+    public TokenVerificado verificar(String token) {
+        ByteBuffer huella = huella(token);
+        TokenVerificado verificado;
+        synchronized (verificados) {
+            verificado = verificados.get(huella);
+        }
 
-    /**
-     * Extrae un claim específico del token
-     */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        if (verificado == null) {
+            verificado = TokenVerificado.desde(parsear(token));
+            if (maximoVerificados > 0) {
+                synchronized (verificados) {
+                    verificados.put(huella, verificado);
+                }
+            }
+        } else if (verificado.expiraEnMillis() <= System.currentTimeMillis()) {
+            synchronized (verificados) {
+                verificados.remove(huella);
+            }
+            throw new ExpiredJwtException(null, null, "JWT expirado para: " + verificado.correo());
+        }
+        return verificado;
     }
 
     /**
-     * Extrae todos los claims del token
+     * Extrae el username (correo) del token
      */
-    private Claims extractAllClaims(String token) {
-        try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-        } catch (JwtException e) {
-            logger.error("❌ [JWT] Error al parsear token: {}", e.getMessage());
-            throw e;
-        }
+    public String extractUsername(String token) {
+        return verificar(token).correo();
     }
 
     /**
-     * Verifica si el token ha expirado
+     * Extrae el rol del token
      */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public String extractRol(String token) {
+        return verificar(token).rol();
     }
 
     /**
      * Genera un token JWT para un usuario
+     *
+     * Lleva todo lo que el filtro necesita para autenticar sin ir a la BD:
+     * correo (subject), rol, ID y token_version (ver VersionesToken)
      */
-    public String generateToken(UserDetails userDetails, String rol) {
+    public String generateToken(Usuario usuario) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("rol", rol);
-        return createToken(claims, userDetails.getUsername());
+        claims.put(CLAIM_ROL, usuario.getRol().getNombre());
+        claims.put(CLAIM_USUARIO_ID, usuario.getId());
+        claims.put(CLAIM_VERSION, usuario.getTokenVersion());
+        return createToken(claims, usuario.getCorreo());
     }
 
     /**
@@ -102,7 +130,7 @@ public class JwtUtil {
                 .subject(subject)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(clave)
                 .compact();
 
         logger.info("🔐 [JWT] Token generado para: {} (expira: {})", subject, expiryDate);
@@ -114,15 +142,15 @@ public class JwtUtil {
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            boolean isValid = (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-            
+            final String username = verificar(token).correo();
+            boolean isValid = username.equals(userDetails.getUsername());
+
             if (isValid) {
                 logger.debug("✅ [JWT] Token válido para: {}", username);
             } else {
                 logger.warn("⚠️ [JWT] Token inválido o expirado para: {}", username);
             }
-            
+
             return isValid;
         } catch (JwtException e) {
             logger.error("❌ [JWT] Error de validación: {}", e.getMessage());
@@ -131,10 +159,26 @@ public class JwtUtil {
     }
 
     /**
-     * Extrae el rol del token
+     * Parsear y verificar (firma + expiración) sin caché
      */
-    public String extractRol(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("rol", String.class);
+    private Claims parsear(String token) {
+        try {
+            return parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException e) {
+            logger.error("❌ [JWT] Error al parsear token: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * SHA-256 del token: clave de caché de 32 bytes en vez del token completo
+     */
+    private static ByteBuffer huella(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Todo JRE incluye SHA-256
+            throw new IllegalStateException(e);
+        }
     }
 }
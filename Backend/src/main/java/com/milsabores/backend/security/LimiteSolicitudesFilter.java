@@ -0,0 +1,161 @@
+package com.milsabores.backend.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Límite de solicitudes por IP para los endpoints públicos de escritura
+ *
+ * PROBLEMA:
+ * - Login, registro, contacto y logs del frontend son públicos y sin límite:
+ *   un flood llega directo a BCrypt o a PostgreSQL (pool de 2 conexiones)
+ *
+ * SOLUCIÓN:
+ * - Token bucket por (ruta, IP) en memoria (CubetasTokens), configurable por
+ *   ruta con limite.<ruta>.capacidad (ráfaga) y limite.<ruta>.por-minuto
+ * - Sin token: 429 + Retry-After escrito aquí mismo, antes de Spring Security,
+ *   sin tocar la BD ni los controladores
+ * - Corre después de CorrelationIdFilter: el 429 lleva X-Correlation-ID
+ *
+ * La clave es la IP y no el X-Correlation-ID: este lo envía el cliente y
+ * cambiarlo en cada request bastaría para saltarse el límite. Detrás de un
+ * proxy (Railway) la IP real viene en limite.cabecera-ip (último valor).
+ *
+ * Métricas (GET /actuator/metrics/...), con tag ruta:
+ * - limite.solicitudes.rechazadas: requests respondidos con 429
+ * - limite.clientes: IPs recordadas
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class LimiteSolicitudesFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LimiteSolicitudesFilter.class);
+
+    private static final String CUERPO_429 = "{\"error\":\"Demasiadas solicitudes, reintente en unos segundos\"}";
+
+    private final boolean habilitado;
+    private final String cabeceraIp;
+    private final List<Ruta> rutas;
+
+    private record Ruta(String nombre, String metodo, String path, CubetasTokens cubetas, Counter rechazos) {
+    }
+
+    public LimiteSolicitudesFilter(MeterRegistry meterRegistry,
+                                   @Value("${limite.habilitado:true}") boolean habilitado,
+                                   @Value("${limite.cabecera-ip:}") String cabeceraIp,
+                                   @Value("${limite.max-clientes:10000}") int maxClientes,
+                                   @Value("${limite.login.capacidad:10}") int loginCapacidad,
+                                   @Value("${limite.login.por-minuto:20}") int loginPorMinuto,
+                                   @Value("${limite.registro.capacidad:3}") int registroCapacidad,
+                                   @Value("${limite.registro.por-minuto:5}") int registroPorMinuto,
+                                   @Value("${limite.contactos.capacidad:3}") int contactosCapacidad,
+                                   @Value("${limite.contactos.por-minuto:5}") int contactosPorMinuto,
+                                   @Value("${limite.logs.capacidad:30}") int logsCapacidad,
+                                   @Value("${limite.logs.por-minuto:60}") int logsPorMinuto) {
+        this.habilitado = habilitado;
+        this.cabeceraIp = cabeceraIp;
+        this.rutas = List.of(
+                ruta(meterRegistry, "login", "/api/auth/login", loginCapacidad, loginPorMinuto, maxClientes),
+                ruta(meterRegistry, "registro", "/api/auth/registro", registroCapacidad, registroPorMinuto, maxClientes),
+                ruta(meterRegistry, "contactos", "/api/contactos", contactosCapacidad, contactosPorMinuto, maxClientes),
+                ruta(meterRegistry, "logs", "/api/logs", logsCapacidad, logsPorMinuto, maxClientes));
+
+        logger.info("✅ [LIMITE] Límite por IP {} (ráfaga, por minuto) - login {}, {}; registro {}, {}; contactos {}, {}; logs {}, {}",
+                habilitado ? "habilitado" : "deshabilitado",
+                loginCapacidad, loginPorMinuto, registroCapacidad, registroPorMinuto,
+                contactosCapacidad, contactosPorMinuto, logsCapacidad, logsPorMinuto);
+    }
+
+    private static Ruta ruta(MeterRegistry meterRegistry, String nombre, String path,
+                             int capacidad, int porMinuto, int maxClientes) {
+        CubetasTokens cubetas = new CubetasTokens(capacidad, porMinuto, maxClientes);
+        Gauge.builder("limite.clientes", cubetas, CubetasTokens::clientes)
+                .description("IPs con token bucket en memoria")
+                .tag("ruta", nombre)
+                .register(meterRegistry);
+        Counter rechazos = Counter.builder("limite.solicitudes.rechazadas")
+                .description("Solicitudes rechazadas con 429")
+                .tag("ruta", nombre)
+                .register(meterRegistry);
+        return new Ruta(nombre, "POST", path, cubetas, rechazos);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !habilitado || buscarRuta(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Ruta ruta = buscarRuta(request);
+        String ip = ipCliente(request);
+        long esperaNanos = ruta.cubetas().intentar(ip, System.nanoTime());
+        if (esperaNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ruta.rechazos().increment();
+        logger.debug("⛔ [LIMITE] {} rechazado para {}", ruta.nombre(), ip);
+        long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(esperaNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(segundos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(CUERPO_429);
+    }
+
+    /**
+     * Ruta con límite para el request, comparando el path ya decodificado y
+     * normalizado (sin context path, ";..." ni "//"), el mismo con que Spring MVC
+     * elige el handler: POST /api/auth/%6Cogin también es el login
+     */
+    private Ruta buscarRuta(HttpServletRequest request) {
+        String metodo = request.getMethod();
+        String uri = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        for (Ruta ruta : rutas) {
+            if (ruta.metodo().equals(metodo) && ruta.path().equals(uri)) {
+                return ruta;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * IP del cliente: último valor de limite.cabecera-ip (el que agregó el
+     * proxy propio, no falsificable por el cliente) o la IP de la conexión
+     */
+    private String ipCliente(HttpServletRequest request) {
+        if (!cabeceraIp.isEmpty()) {
+            String valor = request.getHeader(cabeceraIp);
+            if (valor != null && !valor.isBlank()) {
+                int coma = valor.lastIndexOf(',');
+                return (coma < 0 ? valor : valor.substring(coma + 1)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
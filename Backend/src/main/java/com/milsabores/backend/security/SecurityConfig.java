@@ -41,6 +41,10 @@ public class SecurityConfig {
     @Value("${frontend.url:http://localhost:5173}")
     private String frontendUrl;
 
+    // Subirlo recalcula los hashes existentes en el siguiente login (HashContrasenas)
+    @Value("${seguridad.bcrypt.costo:10}")
+    private int costoBcrypt;
+
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
@@ -73,6 +77,7 @@ public class SecurityConfig {
                 // Catálogo público - solo lectura
                 .requestMatchers(HttpMethod.GET, "/api/productos/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/categorias/**").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/productos/lote").permitAll()  // Carrito: precios y stock
                 
                 // Contacto público - solo creación
                 .requestMatchers(HttpMethod.POST, "/api/contactos").permitAll()
@@ -80,6 +85,10 @@ public class SecurityConfig {
                 // Endpoints solo para ADMIN
                 .requestMatchers("/api/usuarios/**").hasRole("ADMIN")
                 .requestMatchers("/api/reportes/**").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/ordenes/stats/**").hasRole("ADMIN")
+                
+                // Recepción asíncrona de órdenes - CLIENTE autenticado (antes de GET /api/ordenes/**)
+                .requestMatchers("/api/ordenes/async/**").hasRole("CLIENTE")
                 
                 // Endpoints para ADMIN y EMPLEADO
                 .requestMatchers(HttpMethod.GET, "/api/ordenes/**").hasAnyRole("ADMIN", "EMPLEADO")
@@ -139,6 +148,9 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(allowedOrigins);
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // ETag visible para el frontend (revalidación del catálogo con If-None-Match)
+        // Idempotent-Replayed: el checkout sabe si la orden vino de un reintento
+        configuration.setExposedHeaders(Arrays.asList("ETag", "Idempotent-Replayed"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
@@ -152,7 +164,7 @@ public class SecurityConfig {
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(costoBcrypt);
     }
 
     /**
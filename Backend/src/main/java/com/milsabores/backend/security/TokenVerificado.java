@@ -0,0 +1,32 @@
+package com.milsabores.backend.security;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Vista inmutable de un JWT ya verificado (firma y expiración)
+ *
+ * Se construye una vez por token y JwtUtil la reutiliza mientras el token
+ * siga en su caché: los requests siguientes no vuelven a parsear ni a firmar.
+ *
+ * @param usuarioId     claim "uid"; null en tokens anteriores a V14
+ * @param version       claim "ver" (token_version); null en tokens anteriores a V14
+ * @param expiraEnMillis expiración (epoch millis)
+ */
+public record TokenVerificado(String correo, String rol, Long usuarioId, Integer version, long expiraEnMillis) {
+
+    static TokenVerificado desde(Claims claims) {
+        return new TokenVerificado(
+                claims.getSubject(),
+                claims.get(JwtUtil.CLAIM_ROL, String.class),
+                claims.get(JwtUtil.CLAIM_USUARIO_ID, Long.class),
+                claims.get(JwtUtil.CLAIM_VERSION, Integer.class),
+                claims.getExpiration().getTime());
+    }
+
+    /**
+     * true si el token trae ID y token_version (autenticable solo con claims)
+     */
+    public boolean tieneVersion() {
+        return usuarioId != null && version != null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.milsabores.backend.security;
+
+/**
+ * Evento publicado por UsuarioService cuando cambia la token_version de un
+ * usuario (rol, correo o contraseña) o cuando se elimina.
+ *
+ * VersionesToken lo escucha DESPUÉS del commit: los JWT anteriores dejan de
+ * valer en esta instancia de inmediato (en otras, al vencer su caché).
+ *
+ * @param versionToken nueva versión; null si el usuario fue eliminado
+ */
+public record UsuarioModificadoEvent(Long usuarioId, Integer versionToken) {
+}
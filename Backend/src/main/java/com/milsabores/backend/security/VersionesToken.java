@@ -0,0 +1,115 @@
+package com.milsabores.backend.security;
+
+import com.milsabores.backend.repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * token_version vigente por usuario, en memoria (acotada y con vencimiento)
+ *
+ * PROBLEMA:
+ * - Con autenticación solo por claims un JWT seguiría valiendo hasta expirar
+ *   aunque al usuario le cambien el rol o lo eliminen
+ *
+ * SOLUCIÓN:
+ * - Cada JWT lleva la token_version del usuario al emitirse (claim "ver")
+ * - El filtro lo acepta solo si coincide con la versión vigente de esta caché
+ * - Falta o vencida: una consulta liviana por ID (solo token_version) y se recuerda;
+ *   un usuario activo cuesta a lo más una consulta cada ttl, no una por request
+ * - Cambios hechos por esta instancia: UsuarioModificadoEvent actualiza la caché
+ *   después del commit; ttl acota cuánto tarda en verlos otra instancia
+ *
+ * token_version solo crece y un usuario eliminado no vuelve: al guardar se
+ * conserva la versión más alta y ELIMINADO nunca se reemplaza. Así una carga
+ * que leyó la versión anterior justo antes de un cambio no revive el token revocado.
+ */
+@Component
+public class VersionesToken {
+
+    private static final Logger logger = LoggerFactory.getLogger(VersionesToken.class);
+
+    // Versión de un usuario que ya no existe: ningún token coincide
+    private static final int ELIMINADO = -1;
+
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlMillis;
+    private final int maximoUsuarios;
+
+    // Orden de acceso: sale el usuario que lleva más tiempo sin hacer requests
+    private final Map<Long, Entrada> versiones = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entrada> eldest) {
+            return size() > maximoUsuarios;
+        }
+    };
+
+    private record Entrada(int version, long cargadaEnMillis) {
+    }
+
+    public VersionesToken(UsuarioRepository usuarioRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${jwt.versiones.ttl-segundos:300}") long ttlSegundos,
+                          @Value("${jwt.versiones.max-usuarios:10000}") int maximoUsuarios) {
+        this.usuarioRepository = usuarioRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.ttlMillis = Duration.ofSeconds(ttlSegundos).toMillis();
+        this.maximoUsuarios = maximoUsuarios;
+    }
+
+    /**
+     * true si un token con esta versión sigue vigente para el usuario
+     */
+    public boolean vigente(Long usuarioId, int versionToken) {
+        long ahora = System.currentTimeMillis();
+        Entrada entrada;
+        synchronized (versiones) {
+            entrada = versiones.get(usuarioId);
+        }
+        if (entrada == null || ahora - entrada.cargadaEnMillis() > ttlMillis) {
+            // Fuera del lock: una consulta lenta no bloquea a los demás usuarios
+            Entrada cargada = new Entrada(cargar(usuarioId), ahora);
+            synchronized (versiones) {
+                entrada = versiones.merge(usuarioId, cargada, VersionesToken::masReciente);
+            }
+        }
+        return entrada.version() != ELIMINADO && entrada.version() == versionToken;
+    }
+
+    @TransactionalEventListener
+    public void onUsuarioModificado(UsuarioModificadoEvent event) {
+        int version = event.versionToken() != null ? event.versionToken() : ELIMINADO;
+        synchronized (versiones) {
+            versiones.merge(event.usuarioId(), new Entrada(version, System.currentTimeMillis()), VersionesToken::masReciente);
+        }
+        logger.info("🔐 [JWT] Tokens anteriores revocados para usuario ID: {} (versión: {})",
+                event.usuarioId(), event.versionToken() != null ? event.versionToken() : "eliminado");
+    }
+
+    /**
+     * La versión más alta con la marca de tiempo más nueva; ELIMINADO es definitivo
+     */
+    private static Entrada masReciente(Entrada actual, Entrada nueva) {
+        int version = actual.version() == ELIMINADO || nueva.version() == ELIMINADO
+                ? ELIMINADO
+                : Math.max(actual.version(), nueva.version());
+        return new Entrada(version, Math.max(actual.cargadaEnMillis(), nueva.cargadaEnMillis()));
+    }
+
+    private int cargar(Long usuarioId) {
+        Optional<Integer> version = transactionTemplate.execute(status ->
+                usuarioRepository.findTokenVersionById(usuarioId));
+        return version.orElse(ELIMINADO);
+    }
+}
@@ -4,23 +4,30 @@ import com.milsabores.backend.dto.LoginRequest;
 import com.milsabores.backend.dto.LoginResponse;
 import com.milsabores.backend.model.Usuario;
 import com.milsabores.backend.repository.UsuarioRepository;
-import com.milsabores.backend.security.CustomUserDetailsService;
+import com.milsabores.backend.security.HashContrasenas;
 import com.milsabores.backend.security.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Servicio de autenticación con JWT
  * Capa de lógica de negocio - Clean Architecture
+ *
+ * Login en una sola consulta: usuario + rol (JOIN FETCH), verificación BCrypt
+ * y token generado desde esa misma instancia. No pasa por el
+ * AuthenticationManager, que volvería a cargar el usuario vía UserDetailsService.
+ *
+ * BCrypt corre en HashContrasenas (pool acotado): login y registro devuelven
+ * CompletableFuture y el thread de Tomcat queda libre mientras tanto. Las
+ * escrituras en BD que siguen al hash (rehash) van a applicationTaskExecutor:
+ * los threads de BCrypt solo calculan hashes.
  */
 @Service
 public class AuthService {
@@ -29,82 +36,110 @@ public class AuthService {
     private final UsuarioRepository usuarioRepository;
     private final UsuarioService usuarioService;
     private final JwtUtil jwtUtil;
-    private final CustomUserDetailsService userDetailsService;
-    private final AuthenticationManager authenticationManager;
-    private final PasswordEncoder passwordEncoder;
+    private final HashContrasenas hashContrasenas;
+    private final Executor ejecutorBd;
+
+    // Hash de referencia para correos inexistentes: el login tarda lo mismo
+    // exista o no el usuario (no revela qué correos están registrados)
+    private final String hashSinUsuario;
 
     @Autowired
     public AuthService(
             UsuarioRepository usuarioRepository, 
             UsuarioService usuarioService,
             JwtUtil jwtUtil,
-            CustomUserDetailsService userDetailsService,
-            AuthenticationManager authenticationManager,
-            PasswordEncoder passwordEncoder) {
+            HashContrasenas hashContrasenas,
+            PasswordEncoder passwordEncoder,
+            @Qualifier("applicationTaskExecutor") Executor ejecutorBd) {
         this.usuarioRepository = usuarioRepository;
         this.usuarioService = usuarioService;
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
-        this.authenticationManager = authenticationManager;
-        this.passwordEncoder = passwordEncoder;
+        this.hashContrasenas = hashContrasenas;
+        this.ejecutorBd = ejecutorBd;
+        this.hashSinUsuario = passwordEncoder.encode("usuario-inexistente");
     }
 
     /**
      * Autentica un usuario con credenciales y genera token JWT
      * @param loginRequest correo y password
-     * @return LoginResponse con datos del usuario y token
+     * @return LoginResponse con datos del usuario y token (al terminar la verificación BCrypt)
+     * @throws IllegalStateException si el pool de BCrypt está saturado
      */
-    public LoginResponse authenticate(LoginRequest loginRequest) {
+    public CompletableFuture<LoginResponse> authenticate(LoginRequest loginRequest) {
         logger.info("🔐 [AUTH] Intento de login para: {}", loginRequest.getCorreo());
 
+        // Validar entrada
+        if (loginRequest.getCorreo() == null || loginRequest.getPassword() == null) {
+            logger.warn("⚠️ [AUTH] Credenciales vacías");
+            return CompletableFuture.completedFuture(new LoginResponse("Correo y contraseña son obligatorios", false));
+        }
+
+        Usuario usuario;
         try {
-            // Validar entrada
-            if (loginRequest.getCorreo() == null || loginRequest.getPassword() == null) {
-                logger.warn("⚠️ [AUTH] Credenciales vacías");
-                return new LoginResponse("Correo y contraseña son obligatorios", false);
-            }
-
-            // Autenticar con Spring Security
-            authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                    loginRequest.getCorreo(),
-                    loginRequest.getPassword()
-                )
-            );
-
-            // Cargar usuario desde BD
-            Optional<Usuario> usuarioOpt = usuarioRepository.findByCorreo(loginRequest.getCorreo());
-            if (usuarioOpt.isEmpty()) {
-                logger.warn("⚠️ [AUTH] Usuario no encontrado: {}", loginRequest.getCorreo());
-                return new LoginResponse("Usuario no encontrado", false);
-            }
-
-            Usuario usuario = usuarioOpt.get();
-            
-            // Cargar UserDetails para generar token
-            UserDetails userDetails = userDetailsService.loadUserByUsername(usuario.getCorreo());
-            String token = jwtUtil.generateToken(userDetails, usuario.getRol().getNombre());
-
-            // Login exitoso
-            logger.info("✅ [AUTH] Login exitoso para: {} - Rol: {}", 
-                        usuario.getCorreo(), usuario.getRol().getNombre());
-
-            return new LoginResponse(
-                usuario.getId(),
-                usuario.getNombre(),
-                usuario.getApellido(),
-                usuario.getCorreo(),
-                usuario.getRol().getNombre(),
-                token,
-                "Login exitoso",
-                true
-            );
-        } catch (BadCredentialsException e) {
-            logger.warn("⚠️ [AUTH] Credenciales inválidas para: {}", loginRequest.getCorreo());
-            return new LoginResponse("Correo o contraseña incorrectos", false);
-        } catch (Exception e) {
+            usuario = usuarioRepository.findConRolByCorreo(loginRequest.getCorreo()).orElse(null);
+        } catch (RuntimeException e) {
             logger.error("❌ [AUTH] Error en autenticación: {}", e.getMessage());
-            return new LoginResponse("Error al autenticar usuario", false);
+            return CompletableFuture.completedFuture(new LoginResponse("Error al autenticar usuario", false));
+        }
+
+        String hash = usuario != null ? usuario.getPassword() : hashSinUsuario;
+        return hashContrasenas.coincide(loginRequest.getPassword(), hash)
+                .thenApply(coincide -> {
+                    if (usuario == null || !coincide) {
+                        logger.warn("⚠️ [AUTH] Credenciales inválidas para: {}", loginRequest.getCorreo());
+                        return new LoginResponse("Correo o contraseña incorrectos", false);
+                    }
+                    rehashSiCorresponde(usuario, loginRequest.getPassword());
+                    return respuestaLogin(usuario);
+                })
+                .exceptionally(e -> {
+                    logger.error("❌ [AUTH] Error en autenticación: {}", e.getMessage());
+                    return new LoginResponse("Error al autenticar usuario", false);
+                });
+    }
+
+    private LoginResponse respuestaLogin(Usuario usuario) {
+        String token = jwtUtil.generateToken(usuario);
+
+        // Login exitoso
+        logger.info("✅ [AUTH] Login exitoso para: {} - Rol: {}", 
+                    usuario.getCorreo(), usuario.getRol().getNombre());
+
+        return new LoginResponse(
+            usuario.getId(),
+            usuario.getNombre(),
+            usuario.getApellido(),
+            usuario.getCorreo(),
+            usuario.getRol().getNombre(),
+            token,
+            "Login exitoso",
+            true
+        );
+    }
+
+    /**
+     * Hash con un costo menor al configurado (seguridad.bcrypt.costo): recalcularlo
+     * con la contraseña recién verificada, sin demorar la respuesta del login
+     */
+    private void rehashSiCorresponde(Usuario usuario, String password) {
+        if (!hashContrasenas.requiereRehash(usuario.getPassword())) {
+            return;
+        }
+        String anterior = usuario.getPassword();
+        try {
+            hashContrasenas.codificar(password)
+                    .thenAcceptAsync(nuevo -> {
+                        if (usuarioRepository.actualizarHash(usuario.getId(), anterior, nuevo) == 1) {
+                            logger.info("🔁 [AUTH] Hash recalculado con el costo actual - ID: {}", usuario.getId());
+                        }
+                    }, ejecutorBd)
+                    .exceptionally(e -> {
+                        logger.warn("⚠️ [AUTH] No se pudo recalcular el hash - ID: {}: {}", usuario.getId(), e.getMessage());
+                        return null;
+                    });
+        } catch (IllegalStateException e) {
+            // Pool saturado: se reintenta en el próximo login
+            logger.debug("⏳ [AUTH] Rehash postergado - ID: {}", usuario.getId());
         }
     }
 
@@ -112,36 +147,41 @@ public class AuthService {
      * Registrar nuevo usuario desde formulario público
      * @param usuario datos del nuevo usuario
      * @return LoginResponse con datos del usuario registrado y token
+     * @throws IllegalStateException si el pool de BCrypt está saturado
      */
-    public LoginResponse registrar(Usuario usuario) {
+    public CompletableFuture<LoginResponse> registrar(Usuario usuario) {
         logger.info("📝 [REGISTRO] Intento de registro para: {}", usuario.getCorreo());
 
+        CompletableFuture<Usuario> registro;
         try {
             // Delegar validación y creación al UsuarioService
-            Usuario nuevoUsuario = usuarioService.registrar(usuario);
-
-            // Generar token para auto-login
-            UserDetails userDetails = userDetailsService.loadUserByUsername(nuevoUsuario.getCorreo());
-            String token = jwtUtil.generateToken(userDetails, nuevoUsuario.getRol().getNombre());
-
-            logger.info("✅ [REGISTRO] Usuario registrado exitosamente: {}", nuevoUsuario.getCorreo());
-
-            return new LoginResponse(
-                nuevoUsuario.getId(),
-                nuevoUsuario.getNombre(),
-                nuevoUsuario.getApellido(),
-                nuevoUsuario.getCorreo(),
-                nuevoUsuario.getRol().getNombre(),
-                token,
-                "Registro exitoso",
-                true
-            );
+            registro = usuarioService.registrar(usuario);
         } catch (IllegalArgumentException e) {
             logger.warn("⚠️ [REGISTRO] Error de validación: {}", e.getMessage());
-            return new LoginResponse(e.getMessage(), false);
-        } catch (Exception e) {
-            logger.error("❌ [REGISTRO] Error inesperado: {}", e.getMessage());
-            return new LoginResponse("Error al registrar usuario", false);
+            return CompletableFuture.completedFuture(new LoginResponse(e.getMessage(), false));
         }
+
+        return registro
+                .thenApply(nuevoUsuario -> {
+                    // Generar token para auto-login
+                    String token = jwtUtil.generateToken(nuevoUsuario);
+
+                    logger.info("✅ [REGISTRO] Usuario registrado exitosamente: {}", nuevoUsuario.getCorreo());
+
+                    return new LoginResponse(
+                        nuevoUsuario.getId(),
+                        nuevoUsuario.getNombre(),
+                        nuevoUsuario.getApellido(),
+                        nuevoUsuario.getCorreo(),
+                        nuevoUsuario.getRol().getNombre(),
+                        token,
+                        "Registro exitoso",
+                        true
+                    );
+                })
+                .exceptionally(e -> {
+                    logger.error("❌ [REGISTRO] Error inesperado: {}", e.getMessage());
+                    return new LoginResponse("Error al registrar usuario", false);
+                });
     }
 }
@@ -1,11 +1,16 @@
 package com.milsabores.backend.service;
 
+import com.milsabores.backend.cache.CatalogoCache;
+import com.milsabores.backend.cache.CatalogoModificadoEvent;
+import com.milsabores.backend.dto.CategoriaDTO;
 import com.milsabores.backend.model.Categoria;
 import com.milsabores.backend.repository.CategoriaRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -21,20 +26,26 @@ public class CategoriaService {
 
     private static final Logger logger = LoggerFactory.getLogger(CategoriaService.class);
     private final CategoriaRepository categoriaRepository;
+    private final CatalogoCache catalogoCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public CategoriaService(CategoriaRepository categoriaRepository) {
+    public CategoriaService(CategoriaRepository categoriaRepository,
+                            CatalogoCache catalogoCache,
+                            ApplicationEventPublisher eventPublisher) {
         this.categoriaRepository = categoriaRepository;
+        this.catalogoCache = catalogoCache;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Obtener todas las categorías
+     * Obtener todas las categorías desde el snapshot del catálogo (sin conexión al pool)
      */
-    @Transactional(readOnly = true)
-    public List<Categoria> obtenerTodas() {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<CategoriaDTO> obtenerTodas() {
         logger.debug("🔍 [SERVICE] Obteniendo todas las categorías");
         try {
-            List<Categoria> categorias = categoriaRepository.findAll();
+            List<CategoriaDTO> categorias = catalogoCache.obtener().getCategorias();
             logger.info("✅ [SERVICE] {} categorías encontradas", categorias.size());
             return categorias;
         } catch (Exception e) {
@@ -44,31 +55,36 @@ public class CategoriaService {
     }
 
     /**
-     * Obtener categoría por ID
+     * Obtener categoría por ID desde el snapshot del catálogo
      */
-    public Optional<Categoria> obtenerPorId(Long id) {
-        return categoriaRepository.findById(id);
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<CategoriaDTO> obtenerPorId(Long id) {
+        return catalogoCache.obtener().getCategoria(id);
     }
 
     /**
      * Crear nueva categoría
      */
-    public Categoria crear(Categoria categoria) {
+    public CategoriaDTO crear(Categoria categoria) {
         validarCategoria(categoria);
-        return categoriaRepository.save(categoria);
+        Categoria guardada = categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent("CategoriaService.crear"));
+        return CategoriaDTO.desde(guardada);
     }
 
     /**
      * Actualizar categoría existente
      */
-    public Categoria actualizar(Long id, Categoria categoriaActualizada) {
+    public CategoriaDTO actualizar(Long id, Categoria categoriaActualizada) {
         return categoriaRepository.findById(id)
                 .map(categoria -> {
                     validarCategoria(categoriaActualizada);
                     categoria.setNombre(categoriaActualizada.getNombre());
                     categoria.setDescripcion(categoriaActualizada.getDescripcion());
                     categoria.setImagen(categoriaActualizada.getImagen());
-                    return categoriaRepository.save(categoria);
+                    Categoria guardada = categoriaRepository.save(categoria);
+                    eventPublisher.publishEvent(new CatalogoModificadoEvent("CategoriaService.actualizar"));
+                    return CategoriaDTO.desde(guardada);
                 })
                 .orElseThrow(() -> new RuntimeException("Categoría no encontrada con ID: " + id));
     }
@@ -81,6 +97,7 @@ public class CategoriaService {
             throw new RuntimeException("Categoría no encontrada con ID: " + id);
         }
         categoriaRepository.deleteById(id);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent("CategoriaService.eliminar"));
     }
 
     /**
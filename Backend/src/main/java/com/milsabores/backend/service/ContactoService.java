@@ -1,5 +1,6 @@
 package com.milsabores.backend.service;
 
+import com.milsabores.backend.dto.ContactoDTO;
 import com.milsabores.backend.model.Contacto;
 import com.milsabores.backend.repository.ContactoRepository;
 import org.slf4j.Logger;
@@ -47,30 +48,37 @@ public class ContactoService {
     /**
      * Obtener todos los mensajes ordenados por fecha (admin)
      */
-    public List<Contacto> obtenerTodos() {
+    @Transactional(readOnly = true)
+    public List<ContactoDTO> obtenerTodos() {
         logger.info("📋 Listando todos los mensajes de contacto");
-        return contactoRepository.findAllByOrderByFechaEnvioDesc();
+        return contactoRepository.findAllByOrderByFechaEnvioDesc().stream()
+                .map(ContactoDTO::desde)
+                .toList();
     }
     
     /**
      * Obtener mensajes por estado de lectura (admin)
      */
-    public List<Contacto> obtenerPorEstado(Boolean leido) {
+    @Transactional(readOnly = true)
+    public List<ContactoDTO> obtenerPorEstado(Boolean leido) {
         logger.info("🔍 Buscando mensajes con estado leído: {}", leido);
-        return contactoRepository.findByLeidoOrderByFechaEnvioDesc(leido);
+        return contactoRepository.findByLeidoOrderByFechaEnvioDesc(leido).stream()
+                .map(ContactoDTO::desde)
+                .toList();
     }
     
     /**
      * Obtener mensaje por ID (admin)
      */
-    public Optional<Contacto> obtenerPorId(Long id) {
-        return contactoRepository.findById(id);
+    @Transactional(readOnly = true)
+    public Optional<ContactoDTO> obtenerPorId(Long id) {
+        return contactoRepository.findById(id).map(ContactoDTO::desde);
     }
     
     /**
      * Marcar mensaje como leído/no leído (admin)
      */
-    public Contacto marcarComoLeido(Long id, Boolean leido) {
+    public ContactoDTO marcarComoLeido(Long id, Boolean leido) {
         return contactoRepository.findById(id)
                 .map(contacto -> {
                     contacto.setLeido(leido);
@@ -79,7 +87,7 @@ public class ContactoService {
                     logger.info("✅ Mensaje {} marcado como {}", 
                                id, leido ? "LEÍDO" : "NO LEÍDO");
                     
-                    return actualizado;
+                    return ContactoDTO.desde(actualizado);
                 })
                 .orElseThrow(() -> {
                     logger.error("❌ Mensaje de contacto no encontrado con ID: {}", id);
@@ -0,0 +1,382 @@
+package com.milsabores.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milsabores.backend.dto.FiltroOrdenes;
+import com.milsabores.backend.exception.ServicioSaturadoException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Exportación de órdenes y sus líneas para contabilidad (CSV o NDJSON)
+ *
+ * PROBLEMA:
+ * - Contabilidad descargaba GET /api/ordenes y exportaba en el navegador
+ * - Todo el historial se materializaba en heap dos veces (entidades + JSON)
+ *
+ * SOLUCIÓN:
+ * - Una sola query (ordenes + usuarios + detalles) leída con un cursor JDBC
+ *   forward-only y fetch size fijo: el driver trae N filas por round trip
+ * - Cada fila se escribe al OutputStream de la respuesta apenas se lee;
+ *   la memoria usada no depende de cuántas filas tenga la exportación
+ * - PostgreSQL solo respeta el fetch size con autocommit desactivado:
+ *   la lectura corre dentro de una transacción de solo lectura
+ *
+ * La exportación ocupa una conexión mientras dura; con un pool de 2 se
+ * permite una sola exportación a la vez (ordenes.exportacion.simultaneas).
+ */
+@Service
+public class ExportacionOrdenesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionOrdenesService.class);
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    // Orden cronológico: las líneas de una orden llegan juntas y en orden
+    private static final String SQL_BASE =
+            "SELECT o.id AS orden_id, o.fecha, o.estado, o.total, " +
+            "u.id AS usuario_id, u.correo, u.nombre AS cliente_nombre, u.apellido AS cliente_apellido, " +
+            "d.id AS detalle_id, d.producto_id, p.nombre AS producto_nombre, " +
+            "d.variante_id, v.nombre AS variante_nombre, d.cantidad, d.precio_unitario, d.subtotal " +
+            "FROM ordenes o " +
+            "JOIN usuarios u ON u.id = o.usuario_id " +
+            "LEFT JOIN detalles_orden d ON d.orden_id = o.id " +
+            "LEFT JOIN productos p ON p.id = d.producto_id " +
+            "LEFT JOIN variantes_producto v ON v.id = d.variante_id";
+
+    public enum Formato {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Formato(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Formato desde(String valor) {
+            for (Formato formato : values()) {
+                if (formato.name().equalsIgnoreCase(valor)) {
+                    return formato;
+                }
+            }
+            throw new IllegalArgumentException("Formato no soportado: " + valor + " (usar 'csv' o 'ndjson')");
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Semaphore exportacionesEnCurso;
+
+    @Autowired
+    public ExportacionOrdenesService(DataSource dataSource,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper,
+                                     @Value("${ordenes.exportacion.fetch-size:1000}") int fetchSize,
+                                     @Value("${ordenes.exportacion.simultaneas:1}") int simultaneas) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.exportacionesEnCurso = new Semaphore(simultaneas);
+    }
+
+    /**
+     * Validar el filtro y preparar el cuerpo de la exportación
+     *
+     * El cupo se toma dentro del cuerpo, cuando Spring empieza a escribir la
+     * respuesta, y se libera al terminar (o si el cliente se desconecta): si el
+     * cuerpo nunca llega a ejecutarse no queda un cupo tomado. Aquí solo se
+     * rechaza de antemano cuando no hay cupo libre, para responder 503 limpio.
+     *
+     * @throws IllegalArgumentException si el filtro es inválido
+     * @throws ServicioSaturadoException si ya hay demasiadas exportaciones en curso
+     */
+    public StreamingResponseBody preparar(FiltroOrdenes filtro, Formato formato) {
+        if (filtro.getDesde() != null && filtro.getHasta() != null && filtro.getDesde().isAfter(filtro.getHasta())) {
+            throw new IllegalArgumentException("desde no puede ser posterior a hasta");
+        }
+        if (exportacionesEnCurso.availablePermits() == 0) {
+            throw enCurso();
+        }
+        return salida -> {
+            // Otra exportación pudo tomar el cupo entre preparar y este punto
+            if (!exportacionesEnCurso.tryAcquire()) {
+                throw enCurso();
+            }
+            try {
+                exportar(filtro, formato, salida);
+            } finally {
+                exportacionesEnCurso.release();
+            }
+        };
+    }
+
+    private static ServicioSaturadoException enCurso() {
+        return new ServicioSaturadoException("Ya hay una exportación de órdenes en curso, reintente en unos minutos", 60);
+    }
+
+    /**
+     * Escribir las órdenes del filtro en la salida
+     *
+     * @return filas escritas (una por línea de orden en CSV, una por orden en NDJSON)
+     */
+    public long exportar(FiltroOrdenes filtro, Formato formato, OutputStream salida) throws IOException {
+        long inicio = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+        Escritor escritor = formato == Formato.CSV ? new EscritorCsv(writer) : new EscritorNdjson(writer, objectMapper);
+
+        List<Object> parametros = new ArrayList<>();
+        String sql = construirSql(filtro, parametros);
+
+        try {
+            escritor.iniciar();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                    conexion -> {
+                        PreparedStatement sentencia = conexion.prepareStatement(sql,
+                                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        for (int i = 0; i < parametros.size(); i++) {
+                            sentencia.setObject(i + 1, parametros.get(i));
+                        }
+                        return sentencia;
+                    },
+                    escritor::fila));
+            long filas = escritor.terminar();
+            writer.flush();
+            logger.info("✅ [EXPORT] Órdenes exportadas - formato: {}, filas: {}, tiempo: {}ms, filtro: {}",
+                    formato, filas, System.currentTimeMillis() - inicio, filtro);
+            return filas;
+        } catch (UncheckedIOException e) {
+            // El cliente cerró la descarga: la transacción de lectura se libera
+            logger.warn("⚠️ [EXPORT] Exportación interrumpida: {}", e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+
+    private String construirSql(FiltroOrdenes filtro, List<Object> parametros) {
+        List<String> condiciones = new ArrayList<>();
+        if (filtro.getDesde() != null) {
+            condiciones.add("o.fecha >= ?");
+            parametros.add(Timestamp.valueOf(filtro.getDesde().atStartOfDay()));
+        }
+        if (filtro.getHasta() != null) {
+            condiciones.add("o.fecha < ?");
+            parametros.add(Timestamp.valueOf(filtro.getHasta().plusDays(1).atStartOfDay()));
+        }
+        if (filtro.getEstado() != null) {
+            condiciones.add("o.estado = ?");
+            parametros.add(filtro.getEstado());
+        }
+        StringBuilder sql = new StringBuilder(SQL_BASE);
+        if (!condiciones.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", condiciones));
+        }
+        return sql.append(" ORDER BY o.fecha, o.id, d.id").toString();
+    }
+
+    private interface Escritor {
+        void iniciar() throws IOException;
+
+        void fila(ResultSet rs) throws SQLException;
+
+        long terminar() throws IOException;
+    }
+
+    /**
+     * Una fila por línea de orden; los datos de la orden se repiten en cada línea
+     */
+    private static final class EscritorCsv implements Escritor {
+
+        private static final String ENCABEZADO = "orden_id,fecha,estado,total,usuario_id,cliente_correo,cliente_nombre," +
+                "detalle_id,producto_id,producto_nombre,variante_id,variante_nombre,cantidad,precio_unitario,subtotal";
+
+        private final Writer writer;
+        private long filas;
+
+        EscritorCsv(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void iniciar() throws IOException {
+            writer.write(ENCABEZADO);
+            writer.write('\n');
+        }
+
+        @Override
+        public void fila(ResultSet rs) throws SQLException {
+            try {
+                writer.write(rs.getLong("orden_id") + ",");
+                writer.write(rs.getTimestamp("fecha").toLocalDateTime() + ",");
+                writer.write(texto(rs.getString("estado")) + ",");
+                writer.write(rs.getInt("total") + ",");
+                writer.write(rs.getLong("usuario_id") + ",");
+                writer.write(texto(rs.getString("correo")) + ",");
+                writer.write(texto(nombreCompleto(rs)) + ",");
+                writer.write(numero(rs, "detalle_id") + ",");
+                writer.write(numero(rs, "producto_id") + ",");
+                writer.write(texto(rs.getString("producto_nombre")) + ",");
+                writer.write(numero(rs, "variante_id") + ",");
+                writer.write(texto(rs.getString("variante_nombre")) + ",");
+                writer.write(numero(rs, "cantidad") + ",");
+                writer.write(numero(rs, "precio_unitario") + ",");
+                writer.write(numero(rs, "subtotal"));
+                writer.write('\n');
+                filas++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public long terminar() {
+            return filas;
+        }
+
+        private static String numero(ResultSet rs, String columna) throws SQLException {
+            Object valor = rs.getObject(columna);
+            return valor == null ? "" : valor.toString();
+        }
+
+        /**
+         * Comillas si hace falta (RFC 4180) y apóstrofo ante =, +, -, @ para que
+         * la planilla no interprete el texto como fórmula
+         */
+        static String texto(String valor) {
+            if (valor == null || valor.isEmpty()) {
+                return "";
+            }
+            if ("=+-@".indexOf(valor.charAt(0)) >= 0) {
+                valor = "'" + valor;
+            }
+            if (valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0 || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0) {
+                return '"' + valor.replace("\"", "\"\"") + '"';
+            }
+            return valor;
+        }
+    }
+
+    /**
+     * Un objeto JSON por orden con sus líneas en "detalles"
+     * Las filas de una misma orden llegan seguidas (ORDER BY o.fecha, o.id):
+     * la orden se cierra cuando cambia el orden_id, sin acumular en memoria.
+     */
+    private static final class EscritorNdjson implements Escritor {
+
+        private final JsonGenerator json;
+        private Long ordenActual;
+        private long ordenes;
+
+        EscritorNdjson(Writer writer, ObjectMapper objectMapper) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(writer);
+            this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // El separador entre objetos es el salto de línea que escribe cerrarOrden
+            this.json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void iniciar() {
+        }
+
+        @Override
+        public void fila(ResultSet rs) throws SQLException {
+            try {
+                long ordenId = rs.getLong("orden_id");
+                if (ordenActual == null || ordenActual != ordenId) {
+                    cerrarOrden();
+                    ordenActual = ordenId;
+                    json.writeStartObject();
+                    json.writeNumberField("id", ordenId);
+                    json.writeStringField("fecha", rs.getTimestamp("fecha").toLocalDateTime().toString());
+                    json.writeStringField("estado", rs.getString("estado"));
+                    json.writeNumberField("total", rs.getInt("total"));
+                    json.writeObjectFieldStart("usuario");
+                    json.writeNumberField("id", rs.getLong("usuario_id"));
+                    json.writeStringField("correo", rs.getString("correo"));
+                    json.writeStringField("nombre", nombreCompleto(rs));
+                    json.writeEndObject();
+                    json.writeArrayFieldStart("detalles");
+                }
+                if (rs.getObject("detalle_id") != null) {
+                    json.writeStartObject();
+                    json.writeNumberField("id", rs.getLong("detalle_id"));
+                    json.writeNumberField("productoId", rs.getLong("producto_id"));
+                    json.writeStringField("productoNombre", rs.getString("producto_nombre"));
+                    long varianteId = rs.getLong("variante_id");
+                    if (rs.wasNull()) {
+                        json.writeNullField("varianteId");
+                    } else {
+                        json.writeNumberField("varianteId", varianteId);
+                    }
+                    json.writeStringField("varianteNombre", rs.getString("variante_nombre"));
+                    json.writeNumberField("cantidad", rs.getInt("cantidad"));
+                    json.writeNumberField("precioUnitario", rs.getInt("precio_unitario"));
+                    json.writeNumberField("subtotal", rs.getInt("subtotal"));
+                    json.writeEndObject();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public long terminar() throws IOException {
+            cerrarOrden();
+            json.flush();
+            return ordenes;
+        }
+
+        private void cerrarOrden() throws IOException {
+            if (ordenActual != null) {
+                json.writeEndArray();
+                json.writeEndObject();
+                json.writeRaw('\n');
+                ordenes++;
+            }
+        }
+    }
+
+    private static String nombreCompleto(ResultSet rs) throws SQLException {
+        String nombre = rs.getString("cliente_nombre");
+        String apellido = rs.getString("cliente_apellido");
+        if (apellido == null || apellido.isBlank()) {
+            return nombre;
+        }
+        return nombre == null ? apellido : nombre + " " + apellido;
+    }
+}
@@ -0,0 +1,228 @@
+package com.milsabores.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milsabores.backend.dto.CrearOrdenRequest;
+import com.milsabores.backend.dto.OrdenDTO;
+import com.milsabores.backend.exception.IdempotenciaConflictoException;
+import com.milsabores.backend.model.RegistroIdempotencia;
+import com.milsabores.backend.repository.RegistroIdempotenciaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deduplicación de POST /api/ordenes/crear con Idempotency-Key
+ *
+ * PROBLEMA:
+ * - El frontend reintenta cuando la respuesta tarda y cada reintento creaba
+ *   otra orden y otro descuento de stock
+ *
+ * SOLUCIÓN:
+ * - Memoria: mapa acotado (LRU por antigüedad + TTL) clave -> CompletableFuture de la orden.
+ *   Un duplicado concurrente espera el resultado de la ejecución en curso en vez
+ *   de ejecutar crearOrden otra vez.
+ * - BD: idempotencia_ordenes se inserta en la MISMA transacción que la orden.
+ *   Si la memoria se perdió (reinicio) o el duplicado llega a otra instancia,
+ *   se responde con la orden original; la PK evita una segunda orden.
+ * - La clave se asocia al usuario y a la huella SHA-256 del body: la misma clave
+ *   con otro carrito es un error del cliente (422), no un replay.
+ * - Los errores no se guardan: un reintento después de un fallo vuelve a ejecutar.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    public static final int LARGO_MAXIMO_CLAVE = 255;
+    private static final long ESPERA_DUPLICADO_SEGUNDOS = 30;
+
+    private final OrdenService ordenService;
+    private final RegistroIdempotenciaRepository registroRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final int maximoEnMemoria;
+
+    // Orden de inserción = orden de antigüedad: la entrada más vieja es la primera en salir
+    private final Map<String, Entrada> recientes = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+            return size() > maximoEnMemoria;
+        }
+    };
+
+    /**
+     * Resultado de crear (o reproducir) una orden
+     *
+     * @param repetida true si se devolvió una orden creada por un request anterior
+     */
+    public record Resultado(OrdenDTO orden, boolean repetida) {
+    }
+
+    private record Entrada(String huella, CompletableFuture<OrdenDTO> orden, long creadaEnMillis) {
+    }
+
+    @Autowired
+    public IdempotenciaService(OrdenService ordenService,
+                               RegistroIdempotenciaRepository registroRepository,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               @Value("${ordenes.idempotencia.ttl-horas:24}") long ttlHoras,
+                               @Value("${ordenes.idempotencia.max-claves:10000}") int maximoEnMemoria) {
+        this.ordenService = ordenService;
+        this.registroRepository = registroRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHoras);
+        this.maximoEnMemoria = maximoEnMemoria;
+    }
+
+    /**
+     * Crear la orden una sola vez por (usuario, Idempotency-Key)
+     */
+    public Resultado crearOrden(String idempotencyKey, CrearOrdenRequest request) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > LARGO_MAXIMO_CLAVE) {
+            throw new IllegalArgumentException("Idempotency-Key debe tener entre 1 y " + LARGO_MAXIMO_CLAVE + " caracteres");
+        }
+        String clave = request.getUsuarioId() + ":" + idempotencyKey;
+        String huella = huella(request);
+
+        CompletableFuture<OrdenDTO> propia = new CompletableFuture<>();
+        Entrada existente;
+        synchronized (recientes) {
+            existente = vigente(clave);
+            if (existente == null) {
+                recientes.put(clave, new Entrada(huella, propia, System.currentTimeMillis()));
+            }
+        }
+
+        if (existente != null) {
+            verificarHuella(existente.huella(), huella, idempotencyKey);
+            logger.info("🔁 [IDEMPOTENCIA] Clave repetida, esperando resultado original - {}", clave);
+            return new Resultado(esperar(existente.orden()), true);
+        }
+
+        try {
+            Resultado resultado = ejecutarUnaVez(clave, huella, idempotencyKey, request);
+            propia.complete(resultado.orden());
+            return resultado;
+        } catch (RuntimeException e) {
+            // El fallo no queda registrado: el próximo reintento vuelve a ejecutar
+            synchronized (recientes) {
+                recientes.remove(clave);
+            }
+            propia.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Resultado ejecutarUnaVez(String clave, String huella, String idempotencyKey, CrearOrdenRequest request) {
+        Optional<RegistroIdempotencia> registrado = registroRepository.findById(clave);
+        if (registrado.isPresent()) {
+            return reproducir(registrado.get(), huella, idempotencyKey);
+        }
+
+        try {
+            OrdenDTO orden = transactionTemplate.execute(status -> {
+                OrdenDTO creada = ordenService.crearOrden(request);
+                registroRepository.saveAndFlush(
+                        new RegistroIdempotencia(clave, huella, creada.getId(), LocalDateTime.now()));
+                return creada;
+            });
+            return new Resultado(orden, false);
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia registró la misma clave primero: su orden es la válida
+            logger.warn("⚠️ [IDEMPOTENCIA] Clave registrada en paralelo por otra instancia - {}", clave);
+            return registroRepository.findById(clave)
+                    .map(registro -> reproducir(registro, huella, idempotencyKey))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private Resultado reproducir(RegistroIdempotencia registro, String huella, String idempotencyKey) {
+        verificarHuella(registro.getHuella(), huella, idempotencyKey);
+        logger.info("🔁 [IDEMPOTENCIA] Orden {} reproducida desde BD - clave {}", registro.getOrdenId(), registro.getClave());
+        return new Resultado(ordenService.obtenerPorId(registro.getOrdenId()), true);
+    }
+
+    /**
+     * Purgar claves vencidas (memoria y BD), una vez por hora
+     */
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT5M")
+    public void purgarVencidas() {
+        synchronized (recientes) {
+            recientes.values().removeIf(entrada -> vencida(entrada) && entrada.orden().isDone());
+        }
+        Integer eliminadas = transactionTemplate.execute(status ->
+                registroRepository.eliminarAnterioresA(LocalDateTime.now().minus(ttl)));
+        if (eliminadas != null && eliminadas > 0) {
+            logger.info("🧹 [IDEMPOTENCIA] {} claves vencidas eliminadas", eliminadas);
+        }
+    }
+
+    private Entrada vigente(String clave) {
+        Entrada entrada = recientes.get(clave);
+        if (entrada != null && vencida(entrada) && entrada.orden().isDone()) {
+            recientes.remove(clave);
+            return null;
+        }
+        return entrada;
+    }
+
+    private boolean vencida(Entrada entrada) {
+        return System.currentTimeMillis() - entrada.creadaEnMillis() > ttl.toMillis();
+    }
+
+    private static void verificarHuella(String original, String actual, String idempotencyKey) {
+        if (!original.equals(actual)) {
+            throw new IdempotenciaConflictoException(
+                    "La Idempotency-Key '" + idempotencyKey + "' ya se usó con un carrito distinto");
+        }
+    }
+
+    private static OrdenDTO esperar(CompletableFuture<OrdenDTO> enCurso) {
+        try {
+            return enCurso.get(ESPERA_DUPLICADO_SEGUNDOS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // El request original falló (ej: stock insuficiente): el duplicado recibe el mismo error
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("La orden original sigue en proceso, reintente más tarde");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrumpido esperando la orden original");
+        }
+    }
+
+    private String huella(CrearOrdenRequest request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular la huella del request", e);
+        }
+    }
+}
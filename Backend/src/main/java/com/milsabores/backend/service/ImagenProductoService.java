@@ -1,5 +1,6 @@
 package com.milsabores.backend.service;
 
+import com.milsabores.backend.cache.CatalogoModificadoEvent;
 import com.milsabores.backend.model.ImagenProducto;
 import com.milsabores.backend.model.Producto;
 import com.milsabores.backend.repository.ImagenProductoRepository;
@@ -9,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -30,6 +32,7 @@ public class ImagenProductoService {
     private final ImagenProductoRepository imagenRepository;
     private final ProductoRepository productoRepository;
     private final RestTemplate restTemplate;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Value("${supabase.url}")
     private String supabaseUrl;
@@ -43,10 +46,12 @@ public class ImagenProductoService {
     @Autowired
     public ImagenProductoService(ImagenProductoRepository imagenRepository,
                                  ProductoRepository productoRepository,
-                                 RestTemplate restTemplate) {
+                                 RestTemplate restTemplate,
+                                 ApplicationEventPublisher eventPublisher) {
         this.imagenRepository = imagenRepository;
         this.productoRepository = productoRepository;
         this.restTemplate = restTemplate;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
@@ -124,6 +129,7 @@ public class ImagenProductoService {
         logger.info("💾 [DATABASE] Imagen guardada en BD con ID: {}", imagenGuardada.getId());
         logger.info("🔗 [PUBLIC URL] {}", urlPublica);
         
+        eventPublisher.publishEvent(new CatalogoModificadoEvent("ImagenProductoService.subirImagen"));
         return imagenGuardada;
     }
     
@@ -156,6 +162,7 @@ public class ImagenProductoService {
         // Eliminar de base de datos
         imagenRepository.delete(imagen);
         logger.info("💾 [DATABASE] Imagen eliminada de BD");
+        eventPublisher.publishEvent(new CatalogoModificadoEvent("ImagenProductoService.eliminarImagen"));
     }
     
     /**
@@ -188,7 +195,9 @@ public class ImagenProductoService {
                 });
         
         imagen.setEsPrincipal(true);
-        return imagenRepository.save(imagen);
+        ImagenProducto guardada = imagenRepository.save(imagen);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent("ImagenProductoService.marcarComoPrincipal"));
+        return guardada;
     }
     
     // ===== MÉTODOS AUXILIARES =====
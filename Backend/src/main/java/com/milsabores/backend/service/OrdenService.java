@@ -1,24 +1,37 @@
 package com.milsabores.backend.service;
 
+import com.milsabores.backend.cache.CatalogoModificadoEvent;
 import com.milsabores.backend.dto.CrearOrdenRequest;
+import com.milsabores.backend.dto.CursorOrden;
+import com.milsabores.backend.dto.FiltroOrdenes;
+import com.milsabores.backend.dto.OrdenDTO;
+import com.milsabores.backend.dto.PaginaOrdenesDTO;
+import com.milsabores.backend.estadisticas.AcumuladoVentas;
+import com.milsabores.backend.estadisticas.OrdenConfirmadaEvent;
+import com.milsabores.backend.inventario.LibroStock;
 import com.milsabores.backend.model.DetalleOrden;
 import com.milsabores.backend.model.Orden;
 import com.milsabores.backend.model.Usuario;
 import com.milsabores.backend.model.Producto;
 import com.milsabores.backend.model.VarianteProducto;
+import com.milsabores.backend.model.VentaDiaria;
+import com.milsabores.backend.model.VentaMensual;
 import com.milsabores.backend.repository.DetalleOrdenRepository;
 import com.milsabores.backend.repository.OrdenRepository;
 import com.milsabores.backend.repository.UsuarioRepository;
 import com.milsabores.backend.repository.ProductoRepository;
+import com.milsabores.backend.repository.VarianteProductoRepository;
+import com.milsabores.backend.repository.VentaDiariaRepository;
+import com.milsabores.backend.repository.VentaMensualRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -30,40 +43,109 @@ import java.util.stream.Collectors;
 public class OrdenService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrdenService.class);
+    public static final int LIMITE_PAGINA_DEFECTO = 20;
+    public static final int LIMITE_PAGINA_MAXIMO = 100;
+
     private final OrdenRepository ordenRepository;
     private final DetalleOrdenRepository detalleOrdenRepository;
     private final UsuarioRepository usuarioRepository;
     private final ProductoRepository productoRepository;
+    private final VarianteProductoRepository varianteProductoRepository;
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final VentaMensualRepository ventaMensualRepository;
+    private final LibroStock libroStock;
+    private final AcumuladoVentas acumuladoVentas;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public OrdenService(
         OrdenRepository ordenRepository,
         DetalleOrdenRepository detalleOrdenRepository,
         UsuarioRepository usuarioRepository,
-        ProductoRepository productoRepository
+        ProductoRepository productoRepository,
+        VarianteProductoRepository varianteProductoRepository,
+        VentaDiariaRepository ventaDiariaRepository,
+        VentaMensualRepository ventaMensualRepository,
+        LibroStock libroStock,
+        AcumuladoVentas acumuladoVentas,
+        ApplicationEventPublisher eventPublisher
     ) {
         this.ordenRepository = ordenRepository;
         this.detalleOrdenRepository = detalleOrdenRepository;
         this.usuarioRepository = usuarioRepository;
         this.productoRepository = productoRepository;
+        this.varianteProductoRepository = varianteProductoRepository;
+        this.ventaDiariaRepository = ventaDiariaRepository;
+        this.ventaMensualRepository = ventaMensualRepository;
+        this.libroStock = libroStock;
+        this.acumuladoVentas = acumuladoVentas;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Obtener todas las órdenes ordenadas por fecha descendente
+     * Los DTOs se arman dentro de la transacción: la conexión se libera antes de serializar.
      */
-    public List<Orden> obtenerTodasOrdenes() {
+    @Transactional(readOnly = true)
+    public List<OrdenDTO> obtenerTodasOrdenes() {
         logger.info("📋 [ORDEN] Obteniendo todas las órdenes");
-        List<Orden> ordenes = ordenRepository.findAllByOrderByFechaDesc();
+        List<OrdenDTO> ordenes = ordenRepository.findAllConDetallesOrderByFechaDesc().stream()
+            .map(OrdenDTO::desde)
+            .toList();
         logger.info("📊 [ORDEN] Total órdenes: {}", ordenes.size());
         return ordenes;
     }
 
+    /**
+     * Página de órdenes (más recientes primero) con cursor keyset y filtros
+     * Dos queries por página (órdenes+cliente, detalles) sin importar el historial.
+     *
+     * @throws IllegalArgumentException si el límite, el rango de fechas o el cursor son inválidos
+     */
+    @Transactional(readOnly = true)
+    public PaginaOrdenesDTO obtenerPagina(FiltroOrdenes filtro, String cursor, int limite) {
+        if (limite < 1 || limite > LIMITE_PAGINA_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_PAGINA_MAXIMO);
+        }
+        if (filtro.getDesde() != null && filtro.getHasta() != null && filtro.getDesde().isAfter(filtro.getHasta())) {
+            throw new IllegalArgumentException("desde no puede ser posterior a hasta");
+        }
+
+        CursorOrden desde = cursor == null || cursor.isBlank() ? null : CursorOrden.decodificar(cursor);
+
+        // Se pide una fila extra para saber si hay página siguiente sin un COUNT
+        List<Orden> filas = ordenRepository.buscarPagina(filtro, desde, limite + 1);
+        boolean hayMas = filas.size() > limite;
+        List<Orden> pagina = hayMas ? filas.subList(0, limite) : filas;
+
+        List<OrdenDTO> ordenes = ordenRepository.cargarDetalles(pagina).stream()
+            .map(OrdenDTO::desde)
+            .toList();
+        String siguienteCursor = hayMas ? CursorOrden.desde(ordenes.get(ordenes.size() - 1)).codificar() : null;
+
+        logger.info("✅ [ORDEN] Página de órdenes - {} órdenes, hayMas: {}, filtro: {}", ordenes.size(), hayMas, filtro);
+        return new PaginaOrdenesDTO(ordenes, siguienteCursor, hayMas, limite);
+    }
+
+    /**
+     * Obtener una orden con sus detalles
+     */
+    @Transactional(readOnly = true)
+    public OrdenDTO obtenerPorId(Long id) {
+        return ordenRepository.findByIdConDetalles(id)
+            .map(OrdenDTO::desde)
+            .orElseThrow(() -> new RuntimeException("Orden no encontrada con ID: " + id));
+    }
+
     /**
      * Crear nueva orden desde carrito de compras
      * Valida stock, descuenta inventario y guarda orden con detalles
+     * Productos y variantes se cargan en lote: el número de queries no crece con los items.
+     * El stock se reserva en LibroStock (memoria + journal) o, si está deshabilitado,
+     * con UPDATE condicional; en ambos casos sin lost updates ni sobreventa.
      */
     @Transactional
-    public Orden crearOrden(CrearOrdenRequest request) {
+    public OrdenDTO crearOrden(CrearOrdenRequest request) {
         logger.info("🛒 [CREAR ORDEN] Iniciando creación de orden para usuario ID: {}", request.getUsuarioId());
         
         // 1. Validar usuario existe
@@ -73,32 +155,34 @@ public class OrdenService {
                 return new RuntimeException("Usuario no encontrado");
             });
         
-        // 2. Validar stock disponible para todos los items
+        // 2. Cargar productos y variantes de todos los items en una query por tabla
+        Map<Long, VarianteProducto> variantes = cargarVariantes(request.getItems());
+        Map<Long, Producto> productosSinVariante = cargarProductosSinVariante(request.getItems());
+        
+        // Validar existencia de productos y variantes
         for (CrearOrdenRequest.ItemOrden item : request.getItems()) {
-            Producto producto = productoRepository.findById(item.getProductoId())
-                .orElseThrow(() -> {
+            if (item.getCantidad() == null || item.getCantidad() < 1) {
+                throw new IllegalArgumentException("Cantidad inválida para " + item.getNombreProducto());
+            }
+            if (item.getVarianteId() == null) {
+                if (!productosSinVariante.containsKey(item.getProductoId())) {
                     logger.error("❌ Producto no encontrado: {}", item.getProductoId());
-                    return new RuntimeException("Producto no encontrado: " + item.getNombreProducto());
-                });
-            
-            // Si tiene variante, validar stock de la variante
-            if (item.getVarianteId() != null) {
-                VarianteProducto variante = producto.getVariantes().stream()
-                    .filter(v -> v.getId().equals(item.getVarianteId()))
-                    .findFirst()
-                    .orElseThrow(() -> {
-                        logger.error("❌ Variante no encontrada: {}", item.getVarianteId());
-                        return new RuntimeException("Variante no encontrada");
-                    });
-                
-                if (variante.getStock() < item.getCantidad()) {
-                    logger.error("❌ Stock insuficiente - Producto: {}, Variante: {}, Stock: {}, Solicitado: {}", 
-                        producto.getNombre(), variante.getNombre(), variante.getStock(), item.getCantidad());
-                    throw new RuntimeException("Stock insuficiente para " + producto.getNombre() + " - " + variante.getNombre());
+                    throw new RuntimeException("Producto no encontrado: " + item.getNombreProducto());
                 }
+                continue;
+            }
+            
+            VarianteProducto variante = variantes.get(item.getVarianteId());
+            if (variante == null || !variante.getProducto().getId().equals(item.getProductoId())) {
+                logger.error("❌ Variante no encontrada: {} (producto {})", item.getVarianteId(), item.getProductoId());
+                throw new RuntimeException("Variante no encontrada");
             }
         }
         
+        // Reservar stock de todas las variantes (todo o nada)
+        SortedMap<Long, Integer> cantidades = cantidadesPorVariante(request.getItems());
+        reservarStock(cantidades, variantes);
+        
         // 3. Crear orden principal
         Orden orden = new Orden();
         orden.setUsuario(usuario);
@@ -109,11 +193,12 @@ public class OrdenService {
         Orden ordenGuardada = ordenRepository.save(orden);
         logger.info("✅ [ORDEN] Orden creada con ID: {}", ordenGuardada.getId());
         
-        // 4. Crear detalles y descontar stock
+        // 4. Crear detalles
         List<DetalleOrden> detalles = new ArrayList<>();
         
         for (CrearOrdenRequest.ItemOrden item : request.getItems()) {
-            Producto producto = productoRepository.findById(item.getProductoId()).get();
+            VarianteProducto variante = item.getVarianteId() != null ? variantes.get(item.getVarianteId()) : null;
+            Producto producto = variante != null ? variante.getProducto() : productosSinVariante.get(item.getProductoId());
             
             // Crear detalle de orden
             DetalleOrden detalle = new DetalleOrden();
@@ -123,22 +208,10 @@ public class OrdenService {
             detalle.setPrecioUnitario(item.getPrecioUnitario());
             detalle.setSubtotal(item.getCantidad() * item.getPrecioUnitario());
             
-            // Si tiene variante, asociarla y descontar stock
-            if (item.getVarianteId() != null) {
-                VarianteProducto variante = producto.getVariantes().stream()
-                    .filter(v -> v.getId().equals(item.getVarianteId()))
-                    .findFirst()
-                    .get();
-                
+            // El stock ya se reservó (libro o UPDATE); la entidad no se modifica para
+            // que el flush no sobrescriba el valor persistido con uno leído antes
+            if (variante != null) {
                 detalle.setVariante(variante);
-                
-                // DESCONTAR STOCK
-                int nuevoStock = variante.getStock() - item.getCantidad();
-                variante.setStock(nuevoStock);
-                
-                logger.info("📉 [STOCK] Producto: {}, Variante: {}, Stock anterior: {}, Cantidad vendida: {}, Stock nuevo: {}", 
-                    producto.getNombre(), variante.getNombre(), variante.getStock() + item.getCantidad(), 
-                    item.getCantidad(), nuevoStock);
             }
             
             detalles.add(detalle);
@@ -148,30 +221,119 @@ public class OrdenService {
         detalleOrdenRepository.saveAll(detalles);
         ordenGuardada.setDetalles(detalles);
         
-        // 6. Guardar cambios en productos (actualiza stock)
-        for (CrearOrdenRequest.ItemOrden item : request.getItems()) {
-            if (item.getVarianteId() != null) {
-                productoRepository.save(productoRepository.findById(item.getProductoId()).get());
-            }
+        // 6. Con LibroStock el descuento queda en el journal y el flush invalida el catálogo;
+        //    con UPDATE condicional el stock ya cambió y el snapshot se invalida después del commit
+        if (libroStock.isHabilitado()) {
+            libroStock.registrarMovimientos(ordenGuardada.getId(), cantidades);
+        } else {
+            eventPublisher.publishEvent(CatalogoModificadoEvent.stock("OrdenService.crearOrden"));
         }
         
+        // 7. Sumar a ventas_diarias / ventas_mensuales antes del commit de esta misma transacción;
+        //    las series en vivo (VentasEnVivo, MasVendidos) reciben el evento después del commit
+        acumuladoVentas.registrar(ordenGuardada);
+        List<OrdenConfirmadaEvent.Linea> lineas = detalles.stream()
+            .map(detalle -> new OrdenConfirmadaEvent.Linea(detalle.getProducto().getId(),
+                detalle.getVariante() != null ? detalle.getVariante().getId() : null, detalle.getCantidad()))
+            .toList();
+        eventPublisher.publishEvent(new OrdenConfirmadaEvent(ordenGuardada.getId(), ordenGuardada.getFecha(),
+            ordenGuardada.getTotal() != null ? ordenGuardada.getTotal() : 0L, lineas));
+        
         logger.info("✅ [CREAR ORDEN] Orden completada - ID: {}, Total: ${}, Items: {}", 
             ordenGuardada.getId(), ordenGuardada.getTotal(), detalles.size());
         
-        return ordenGuardada;
+        return OrdenDTO.desde(ordenGuardada);
+    }
+
+    /**
+     * Cantidad total por variante, ordenada por ID
+     *
+     * Una línea repetida no puede saltarse la validación de stock, y dos órdenes
+     * con las mismas variantes toman los locks (o CAS) en el mismo orden.
+     */
+    private SortedMap<Long, Integer> cantidadesPorVariante(List<CrearOrdenRequest.ItemOrden> items) {
+        SortedMap<Long, Integer> cantidades = new TreeMap<>();
+        for (CrearOrdenRequest.ItemOrden item : items) {
+            if (item.getVarianteId() != null) {
+                cantidades.merge(item.getVarianteId(), item.getCantidad(), Integer::sum);
+            }
+        }
+        return cantidades;
+    }
+
+    /**
+     * Descontar el stock de todas las variantes de la orden
+     *
+     * - LibroStock: reserva con CAS en memoria, sin tocar variantes_producto
+     * - Sin libro: un UPDATE condicional por variante; si alguna no alcanza,
+     *   la excepción hace rollback de los descuentos anteriores
+     */
+    private void reservarStock(SortedMap<Long, Integer> cantidades, Map<Long, VarianteProducto> variantes) {
+        if (libroStock.isHabilitado()) {
+            libroStock.reservar(cantidades).ifPresent(varianteId ->
+                stockInsuficiente(variantes.get(varianteId), cantidades.get(varianteId)));
+            logger.info("📉 [STOCK] Reservadas {} variantes en libro de stock", cantidades.size());
+            return;
+        }
+        
+        cantidades.forEach((varianteId, cantidad) -> {
+            VarianteProducto variante = variantes.get(varianteId);
+            if (varianteProductoRepository.descontarStock(varianteId, cantidad) == 0) {
+                stockInsuficiente(variante, cantidad);
+            }
+            logger.info("📉 [STOCK] Producto: {}, Variante: {}, Cantidad descontada: {}", 
+                variante.getProducto().getNombre(), variante.getNombre(), cantidad);
+        });
+    }
+
+    private void stockInsuficiente(VarianteProducto variante, int cantidad) {
+        logger.warn("⚠️ [STOCK] Stock insuficiente - Producto: {}, Variante: {}, Solicitado: {}", 
+            variante.getProducto().getNombre(), variante.getNombre(), cantidad);
+        throw new RuntimeException("Stock insuficiente para " + variante.getProducto().getNombre() + " - " + variante.getNombre());
+    }
+
+    /**
+     * Variantes referenciadas por la orden, con su producto, indexadas por ID
+     */
+    private Map<Long, VarianteProducto> cargarVariantes(List<CrearOrdenRequest.ItemOrden> items) {
+        Set<Long> ids = items.stream()
+            .map(CrearOrdenRequest.ItemOrden::getVarianteId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return varianteProductoRepository.findAllConProductoByIdIn(ids).stream()
+            .collect(Collectors.toMap(VarianteProducto::getId, v -> v));
+    }
+
+    /**
+     * Productos de los items que no indican variante, indexados por ID
+     */
+    private Map<Long, Producto> cargarProductosSinVariante(List<CrearOrdenRequest.ItemOrden> items) {
+        Set<Long> ids = items.stream()
+            .filter(item -> item.getVarianteId() == null)
+            .map(CrearOrdenRequest.ItemOrden::getProductoId)
+            .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return productoRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Producto::getId, p -> p));
     }
 
     /**
      * Obtener estadísticas de ventas de los últimos 15 días
      * Retorna Map con fecha y total vendido por día
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> obtenerVentasUltimos15Dias() {
         logger.info("📈 [STATS] Calculando ventas últimos 15 días");
         
-        LocalDateTime fin = LocalDateTime.now();
-        LocalDateTime inicio = fin.minusDays(15).with(LocalTime.MIN);
+        LocalDate hoy = LocalDate.now();
         
-        List<Orden> ordenes = ordenRepository.findByFechaBetweenOrderByFechaDesc(inicio, fin);
+        // Acumulado por día (V13): a lo más 16 filas sin importar cuántas órdenes haya
+        List<VentaDiaria> filas = ventaDiariaRepository.findByDiaBetweenOrderByDia(hoy.minusDays(15), hoy);
         
         // Agrupar por día
         Map<LocalDate, Long> ventasPorDia = new TreeMap<>();
@@ -183,9 +345,13 @@ public class OrdenService {
         }
         
         // Sumar ventas por día
-        for (Orden orden : ordenes) {
-            LocalDate diaOrden = orden.getFecha().toLocalDate();
-            ventasPorDia.merge(diaOrden, orden.getTotal().longValue(), Long::sum);
+        long cantidadOrdenes = 0;
+        for (VentaDiaria fila : filas) {
+            if (fila.getOrdenes() == 0) {
+                continue;
+            }
+            ventasPorDia.merge(fila.getDia(), fila.getTotal(), Long::sum);
+            cantidadOrdenes += fila.getOrdenes();
         }
         
         // Convertir a formato para gráfico
@@ -200,7 +366,6 @@ public class OrdenService {
             .collect(Collectors.toList());
         
         Long totalVendido = ventasPorDia.values().stream().mapToLong(Long::longValue).sum();
-        Long cantidadOrdenes = (long) ordenes.size();
         
         Map<String, Object> resultado = new HashMap<>();
         resultado.put("datos", datos);
@@ -217,19 +382,22 @@ public class OrdenService {
      * Retorna Map con mes y total vendido
      * ACTUALIZADO: Muestra últimos 6 meses en vez de primer semestre fijo
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> obtenerVentasPrimerSemestre() {
         logger.info("📈 [STATS] Calculando ventas últimos 6 meses");
         
         // Calcular últimos 6 meses desde hoy
         LocalDate fechaActual = LocalDate.now();
-        LocalDateTime fin = fechaActual.atTime(23, 59, 59);
-        LocalDateTime inicio = fechaActual.minusMonths(5).withDayOfMonth(1).atStartOfDay();
+        LocalDate mesActual = fechaActual.withDayOfMonth(1);
+        LocalDate inicio = mesActual.minusMonths(5);
         
-        logger.info("📅 [STATS] Rango de fechas - Inicio: {}, Fin: {}", inicio, fin);
+        logger.info("📅 [STATS] Rango de meses - Inicio: {}, Fin: {}", inicio, mesActual);
         
-        List<Orden> ordenes = ordenRepository.findByFechaBetweenOrderByFechaDesc(inicio, fin);
+        // Acumulado por mes (V13): a lo más 6 filas sin importar cuántas órdenes haya
+        List<VentaMensual> filas = ventaMensualRepository.findByMesBetweenOrderByMes(inicio, mesActual);
+        long cantidadOrdenes = filas.stream().mapToLong(VentaMensual::getOrdenes).sum();
         
-        logger.info("📊 [STATS] Órdenes encontradas en rango: {}", ordenes.size());
+        logger.info("📊 [STATS] Órdenes encontradas en rango: {}", cantidadOrdenes);
         
         // Agrupar por mes (últimos 6 meses)
         Map<String, Long> ventasPorMes = new LinkedHashMap<>();
@@ -244,10 +412,9 @@ public class OrdenService {
         }
         
         // Sumar ventas por mes
-        for (Orden orden : ordenes) {
-            int mesNumero = orden.getFecha().getMonthValue();
-            String nombreMes = nombresMeses[mesNumero - 1];
-            ventasPorMes.merge(nombreMes, orden.getTotal().longValue(), Long::sum);
+        for (VentaMensual fila : filas) {
+            String nombreMes = nombresMeses[fila.getMes().getMonthValue() - 1];
+            ventasPorMes.merge(nombreMes, fila.getTotal(), Long::sum);
         }
         
         // Convertir a formato para gráfico
@@ -261,7 +428,6 @@ public class OrdenService {
             .collect(Collectors.toList());
         
         Long totalVendido = ventasPorMes.values().stream().mapToLong(Long::longValue).sum();
-        Long cantidadOrdenes = (long) ordenes.size();
         
         Map<String, Object> resultado = new HashMap<>();
         resultado.put("datos", datos);
@@ -275,21 +441,22 @@ public class OrdenService {
 
     /**
      * Obtener resumen de estadísticas generales
+     * Lee ventas_mensuales: una fila por mes de historial en vez de contar ordenes.
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> obtenerResumenGeneral() {
         logger.info("📊 [STATS] Generando resumen general");
         
-        Long totalOrdenes = ordenRepository.count();
+        Long totalOrdenes = ventaMensualRepository.sumarOrdenes();
         
-        LocalDateTime inicioMes = LocalDate.now().withDayOfMonth(1).atStartOfDay();
-        LocalDateTime finMes = LocalDateTime.now();
-        Long ordenesMesActual = ordenRepository.countByFechaBetween(inicioMes, finMes);
-        Long ventasMesActual = ordenRepository.sumTotalByFechaBetween(inicioMes, finMes);
+        Optional<VentaMensual> mesActual = ventaMensualRepository.findById(LocalDate.now().withDayOfMonth(1));
+        Long ordenesMesActual = mesActual.map(VentaMensual::getOrdenes).orElse(0L);
+        Long ventasMesActual = mesActual.map(VentaMensual::getTotal).orElse(0L);
         
         Map<String, Object> resumen = new HashMap<>();
         resumen.put("totalOrdenes", totalOrdenes);
         resumen.put("ordenesMesActual", ordenesMesActual);
-        resumen.put("ventasMesActual", ventasMesActual != null ? ventasMesActual : 0L);
+        resumen.put("ventasMesActual", ventasMesActual);
         
         logger.info("✅ [STATS] Resumen - Total órdenes: {}, Mes actual: {}", totalOrdenes, ordenesMesActual);
         return resumen;
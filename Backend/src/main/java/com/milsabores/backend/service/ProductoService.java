@@ -1,13 +1,31 @@
 package com.milsabores.backend.service;
 
+import com.milsabores.backend.cache.CatalogoCache;
+import com.milsabores.backend.cache.CatalogoModificadoEvent;
+import com.milsabores.backend.cache.CatalogoSnapshot;
+import com.milsabores.backend.dto.CursorProducto;
+import com.milsabores.backend.dto.FiltroProductos;
+import com.milsabores.backend.dto.ItemLoteDTO;
+import com.milsabores.backend.dto.LoteProductosRequest;
+import com.milsabores.backend.dto.PaginaProductosDTO;
+import com.milsabores.backend.dto.ProductoDTO;
+import com.milsabores.backend.dto.ResultadoBusquedaDTO;
+import com.milsabores.backend.dto.SugerenciaDTO;
+import com.milsabores.backend.estadisticas.CompradosJuntos;
+import com.milsabores.backend.inventario.StockModificadoEvent;
 import com.milsabores.backend.model.Producto;
 import com.milsabores.backend.model.VarianteProducto;
 import com.milsabores.backend.repository.ProductoRepository;
-import org.hibernate.Hibernate;
+import com.milsabores.backend.search.BuscadorProductos;
+import com.milsabores.backend.search.IndiceBusqueda;
+import com.milsabores.backend.search.SugerenciasProductos;
+import com.milsabores.backend.search.TrieSugerencias;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -23,48 +41,67 @@ public class ProductoService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductoService.class);
 
+    public static final int LIMITE_PAGINA_DEFECTO = 20;
+    public static final int LIMITE_PAGINA_MAXIMO = 100;
+    public static final int LIMITE_LOTE_MAXIMO = 200;
+
     private final ProductoRepository productoRepository;
     private final CategoriaService categoriaService;
+    private final CatalogoCache catalogoCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BuscadorProductos buscadorProductos;
+    private final SugerenciasProductos sugerenciasProductos;
+    private final CompradosJuntos compradosJuntos;
 
     @Autowired
-    public ProductoService(ProductoRepository productoRepository, CategoriaService categoriaService) {
+    public ProductoService(ProductoRepository productoRepository,
+                           CategoriaService categoriaService,
+                           CatalogoCache catalogoCache,
+                           ApplicationEventPublisher eventPublisher,
+                           BuscadorProductos buscadorProductos,
+                           SugerenciasProductos sugerenciasProductos,
+                           CompradosJuntos compradosJuntos) {
         this.productoRepository = productoRepository;
         this.categoriaService = categoriaService;
+        this.catalogoCache = catalogoCache;
+        this.eventPublisher = eventPublisher;
+        this.buscadorProductos = buscadorProductos;
+        this.sugerenciasProductos = sugerenciasProductos;
+        this.compradosJuntos = compradosJuntos;
     }
 
     /**
      * Obtener todos los productos
+     *
+     * Servido desde CatalogoCache: sin transacción ni conexión del pool.
+     * Propagation.SUPPORTS anula el @Transactional de la clase, que pediría
+     * una conexión a Hikari aunque no se ejecute ninguna query.
      */
-    @Transactional(readOnly = true)
-    public List<Producto> obtenerTodos() {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ProductoDTO> obtenerTodos() {
         logger.debug("🔍 [SERVICE] Obteniendo todos los productos");
-        List<Producto> productos = productoRepository.findAllWithCollections();
-        logger.info("✅ [SERVICE] {} productos encontrados", productos.size());
-        return productos;
+        CatalogoSnapshot snapshot = catalogoCache.obtener();
+        logger.info("✅ [SERVICE] {} productos encontrados (catálogo v{})",
+                snapshot.getProductos().size(), snapshot.getVersion());
+        return snapshot.getProductos();
     }
     
     /**
-     * Obtener producto por ID
-     * 
-     * FIX ALTERNATIVO: Usar JPQL JOIN FETCH en vez de Hibernate.initialize()
-     * Problema: @EntityGraph + Hibernate.initialize() no funcionan en PgBouncer
-     * Solución: JOIN FETCH explícito carga collections en una sola query
+     * Obtener producto por ID desde el snapshot del catálogo
      */
-    @Transactional(readOnly = true)
-    public Optional<Producto> obtenerPorId(Long id) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<ProductoDTO> obtenerPorId(Long id) {
         logger.debug("🔍 [SERVICE] Obteniendo producto con ID: {}", id);
         
-        // Cambiar de findById() a findByIdWithCollections()
-        // JOIN FETCH carga variantes + imagenes + categoria en UNA sola query
-        Optional<Producto> productoOpt = productoRepository.findByIdWithCollections(id);
+        Optional<ProductoDTO> productoOpt = catalogoCache.obtener().getProducto(id);
         
         if (productoOpt.isPresent()) {
-            Producto producto = productoOpt.get();
+            ProductoDTO producto = productoOpt.get();
             
             logger.info("✅ [SERVICE] Producto cargado - ID: {}, Variantes: {}, Imagenes: {}", 
                 producto.getId(), 
-                producto.getVariantes() != null ? producto.getVariantes().size() : 0, 
-                producto.getImagenes() != null ? producto.getImagenes().size() : 0
+                producto.getVariantes().size(), 
+                producto.getImagenes().size()
             );
         } else {
             logger.warn("⚠️ [SERVICE] Producto no encontrado con ID: {}", id);
@@ -74,23 +111,168 @@ public class ProductoService {
     }
 
     /**
-     * Obtener productos por categoría
+     * Obtener productos por categoría desde el snapshot del catálogo
      */
-    @Transactional(readOnly = true)
-    public List<Producto> obtenerPorCategoria(Long categoriaId) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ProductoDTO> obtenerPorCategoria(Long categoriaId) {
         logger.debug("🔍 [SERVICE] Obteniendo productos de categoría: {}", categoriaId);
-        if (!categoriaService.existe(categoriaId)) {
+        CatalogoSnapshot snapshot = catalogoCache.obtener();
+        if (!snapshot.existeCategoria(categoriaId)) {
             throw new RuntimeException("Categoría no encontrada con ID: " + categoriaId);
         }
-        List<Producto> productos = productoRepository.findByCategoriaIdWithCollections(categoriaId);
+        List<ProductoDTO> productos = snapshot.getProductosDeCategoria(categoriaId);
         logger.info("✅ [SERVICE] {} productos encontrados para categoría {}", productos.size(), categoriaId);
         return productos;
     }
 
+    /**
+     * Obtener una página del catálogo con paginación keyset
+     *
+     * Costo constante por página (no depende del tamaño del catálogo ni del
+     * número de página): 1 query keyset + 2 queries IN para las colecciones.
+     *
+     * @param cursor cursor opaco de la página anterior, o null para la primera
+     * @throws IllegalArgumentException si el cursor, el límite o el rango de precio son inválidos
+     */
+    @Transactional(readOnly = true)
+    public PaginaProductosDTO obtenerPagina(FiltroProductos filtro, String cursor, int limite) {
+        if (limite < 1 || limite > LIMITE_PAGINA_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_PAGINA_MAXIMO);
+        }
+        if ((filtro.getPrecioMin() != null && filtro.getPrecioMin() < 0)
+                || (filtro.getPrecioMax() != null && filtro.getPrecioMax() < 0)) {
+            throw new IllegalArgumentException("El precio no puede ser negativo");
+        }
+        if (filtro.getPrecioMin() != null && filtro.getPrecioMax() != null
+                && filtro.getPrecioMin() > filtro.getPrecioMax()) {
+            throw new IllegalArgumentException("precioMin no puede ser mayor que precioMax");
+        }
+
+        CursorProducto desde = cursor == null || cursor.isBlank() ? null
+                : CursorProducto.decodificar(cursor, filtro.getOrden());
+
+        // Se pide una fila extra para saber si hay página siguiente sin un COUNT
+        List<Producto> filas = productoRepository.buscarPagina(filtro, desde, limite + 1);
+        boolean hayMas = filas.size() > limite;
+        List<Producto> pagina = hayMas ? filas.subList(0, limite) : filas;
+
+        List<ProductoDTO> productos = productoRepository.cargarColecciones(pagina).stream()
+                .map(ProductoDTO::desde)
+                .toList();
+        String siguienteCursor = hayMas
+                ? CursorProducto.desde(productos.get(productos.size() - 1), filtro.getOrden()).codificar()
+                : null;
+
+        logger.info("✅ [SERVICE] Página de catálogo - {} productos, hayMas: {}, filtro: {}",
+                productos.size(), hayMas, filtro);
+        return new PaginaProductosDTO(productos, siguienteCursor, hayMas, limite);
+    }
+
+    /**
+     * Búsqueda de texto sobre nombre, descripción, categoría y variantes
+     * Insensible a tildes y mayúsculas; cada palabra se compara como prefijo.
+     *
+     * @throws IllegalArgumentException si la consulta está vacía o la paginación es inválida
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ResultadoBusquedaDTO buscar(String consulta, int pagina, int tamano) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new IllegalArgumentException("La consulta de búsqueda no puede estar vacía");
+        }
+        if (pagina < 0 || tamano < 1 || tamano > LIMITE_PAGINA_MAXIMO) {
+            throw new IllegalArgumentException("Paginación inválida: pagina >= 0 y tamano entre 1 y " + LIMITE_PAGINA_MAXIMO);
+        }
+
+        IndiceBusqueda.Resultado resultado = buscadorProductos.buscar(consulta, pagina, tamano);
+        logger.info("🔎 [SERVICE] Búsqueda '{}' - {} resultados", consulta, resultado.total());
+        return new ResultadoBusquedaDTO(consulta, resultado.total(), pagina, tamano, resultado.productos());
+    }
+
+    /**
+     * Autocompletado de nombres de productos y categorías para un prefijo
+     * Pensado para tráfico por tecla: sin queries, sin log por request.
+     *
+     * @param limite máximo de sugerencias (se acota a 1..TrieSugerencias.TOP_N)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<SugerenciaDTO> sugerir(String prefijo, int limite) {
+        if (prefijo == null || prefijo.isBlank()) {
+            return List.of();
+        }
+        int limiteAcotado = Math.max(1, Math.min(limite, TrieSugerencias.TOP_N));
+        return sugerenciasProductos.sugerir(prefijo, limiteAcotado);
+    }
+
+    /**
+     * Productos comprados frecuentemente junto al producto (ProductDetail)
+     * Matriz de co-ocurrencia en memoria + snapshot del catálogo: sin queries.
+     * Los productos eliminados del catálogo se omiten.
+     *
+     * @param limite máximo de productos (1..CompradosJuntos.K_MAXIMO)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ProductoDTO> compradosJuntos(Long productoId, int limite) {
+        if (limite < 1 || limite > CompradosJuntos.K_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + CompradosJuntos.K_MAXIMO);
+        }
+        CatalogoSnapshot snapshot = catalogoCache.obtener();
+        // Se piden K_MAXIMO para completar el límite aunque haya productos eliminados
+        return compradosJuntos.recomendar(productoId, CompradosJuntos.K_MAXIMO).stream()
+                .map(snapshot::getProducto)
+                .flatMap(Optional::stream)
+                .limit(limite)
+                .toList();
+    }
+
+    /**
+     * Resolver en lote los pares (producto, variante) del carrito
+     *
+     * Un solo acceso al snapshot para todos los items, sin queries: el carrito
+     * obtiene precio y stock vigentes en un round trip en vez de uno por item.
+     * El stock es el del último snapshot (se invalida en cada orden); la
+     * validación definitiva la hace OrdenService.crearOrden.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ItemLoteDTO> resolverLote(List<LoteProductosRequest.Item> items) {
+        if (items == null || items.isEmpty()) {
+            return List.of();
+        }
+        if (items.size() > LIMITE_LOTE_MAXIMO) {
+            throw new IllegalArgumentException("Máximo " + LIMITE_LOTE_MAXIMO + " items por lote");
+        }
+
+        CatalogoSnapshot snapshot = catalogoCache.obtener();
+        List<ItemLoteDTO> resultado = items.stream()
+                .map(item -> resolverItem(snapshot, item))
+                .toList();
+
+        logger.debug("🛒 [SERVICE] Lote resuelto - {} items (catálogo v{})", resultado.size(), snapshot.getVersion());
+        return resultado;
+    }
+
+    private ItemLoteDTO resolverItem(CatalogoSnapshot snapshot, LoteProductosRequest.Item item) {
+        if (item == null || item.getProductoId() == null) {
+            throw new IllegalArgumentException("Cada item debe indicar productoId");
+        }
+        Optional<ProductoDTO> productoOpt = snapshot.getProducto(item.getProductoId());
+        if (productoOpt.isEmpty()) {
+            return ItemLoteDTO.noEncontrado(item.getProductoId(), item.getVarianteId());
+        }
+        ProductoDTO producto = productoOpt.get();
+        if (item.getVarianteId() == null) {
+            return ItemLoteDTO.desde(producto);
+        }
+        return producto.getVariantes().stream()
+                .filter(v -> item.getVarianteId().equals(v.getId()))
+                .findFirst()
+                .map(variante -> ItemLoteDTO.desde(producto, variante))
+                .orElseGet(() -> ItemLoteDTO.noEncontrado(item.getProductoId(), item.getVarianteId()));
+    }
+
     /**
      * Crear nuevo producto
      */
-    public Producto crear(Producto producto) {
+    public ProductoDTO crear(Producto producto) {
         validarProducto(producto);
         
         // Establecer relación bidireccional con variantes
@@ -100,13 +282,15 @@ public class ProductoService {
             }
         }
         
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent("ProductoService.crear"));
+        return ProductoDTO.desde(guardado);
     }
 
     /**
      * Actualizar producto existente
      */
-    public Producto actualizar(Long id, Producto productoActualizado) {
+    public ProductoDTO actualizar(Long id, Producto productoActualizado) {
         return productoRepository.findById(id)
                 .map(producto -> {
                     validarProducto(productoActualizado);
@@ -126,7 +310,12 @@ public class ProductoService {
                         }
                     }
                     
-                    return productoRepository.save(producto);
+                    Producto guardado = productoRepository.save(producto);
+                    eventPublisher.publishEvent(new CatalogoModificadoEvent("ProductoService.actualizar"));
+                    // El stock de las variantes se fijó directamente: el libro de stock se recarga
+                    eventPublisher.publishEvent(new StockModificadoEvent("ProductoService.actualizar"));
+                    // DTO armado dentro de la transacción (imagenes es lazy)
+                    return ProductoDTO.desde(guardado);
                 })
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + id));
     }
@@ -139,6 +328,7 @@ public class ProductoService {
             throw new RuntimeException("Producto no encontrado con ID: " + id);
         }
         productoRepository.deleteById(id);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent("ProductoService.eliminar"));
     }
 
     /**
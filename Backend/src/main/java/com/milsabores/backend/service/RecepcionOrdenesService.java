@@ -0,0 +1,258 @@
+package com.milsabores.backend.service;
+
+import com.milsabores.backend.cache.CatalogoCache;
+import com.milsabores.backend.cache.CatalogoSnapshot;
+import com.milsabores.backend.dto.CrearOrdenRequest;
+import com.milsabores.backend.dto.EstadoOrdenDTO;
+import com.milsabores.backend.dto.OrdenDTO;
+import com.milsabores.backend.dto.ProductoDTO;
+import com.milsabores.backend.dto.VarianteProductoDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recepción asíncrona de órdenes con commit agrupado (group commit)
+ *
+ * PROBLEMA:
+ * - En promociones cada checkout abre su propia transacción sobre un pool de 2 conexiones
+ * - Los requests esperan conexión hasta el connection-timeout (20s) y fallan
+ *
+ * SOLUCIÓN (opcional, ordenes.async.habilitado=true):
+ * - POST /api/ordenes/async valida el carrito contra el snapshot del catálogo (sin BD),
+ *   lo encola en una cola acotada y responde 202 con un token
+ * - Un único thread escritor toma hasta lote-maximo órdenes y las confirma en UNA
+ *   transacción (una conexión y un commit para todo el lote)
+ * - Si el lote falla (ej: una orden sin stock), se reintenta orden por orden para
+ *   aislar la fallida; las demás se confirman igual
+ * - El cliente consulta GET /api/ordenes/async/{token} hasta COMPLETADA o RECHAZADA
+ *
+ * Las órdenes en cola viven en memoria: si el proceso cae antes del commit se pierden
+ * y el token deja de existir (el cliente debe reintentar).
+ *
+ * Métricas (GET /actuator/metrics/...):
+ * - ordenes.async.cola: órdenes esperando al escritor
+ * - ordenes.async.lote: tamaño de cada lote confirmado
+ * - ordenes.async.commit: tiempo de cada transacción de lote
+ */
+@Service
+public class RecepcionOrdenesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecepcionOrdenesService.class);
+
+    private static final long RETENCION_ESTADOS_MS = 60 * 60 * 1000L;
+
+    private final OrdenService ordenService;
+    private final CatalogoCache catalogoCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean habilitado;
+    private final int loteMaximo;
+
+    private final BlockingQueue<Pendiente> cola;
+    private final Map<String, Estado> estados = new ConcurrentHashMap<>();
+    private volatile Thread escritor;
+
+    private final DistributionSummary tamanoLote;
+    private final Timer tiempoCommit;
+
+    private record Pendiente(String token, CrearOrdenRequest request) {
+    }
+
+    private record Estado(EstadoOrdenDTO dto, long actualizadoEnMillis) {
+    }
+
+    @Autowired
+    public RecepcionOrdenesService(OrdenService ordenService,
+                                   CatalogoCache catalogoCache,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${ordenes.async.habilitado:false}") boolean habilitado,
+                                   @Value("${ordenes.async.capacidad:1000}") int capacidad,
+                                   @Value("${ordenes.async.lote-maximo:50}") int loteMaximo) {
+        this.ordenService = ordenService;
+        this.catalogoCache = catalogoCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.habilitado = habilitado;
+        this.loteMaximo = loteMaximo;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+
+        Gauge.builder("ordenes.async.cola", cola, BlockingQueue::size)
+                .description("Órdenes asíncronas esperando al escritor")
+                .register(meterRegistry);
+        this.tamanoLote = DistributionSummary.builder("ordenes.async.lote")
+                .description("Órdenes confirmadas por transacción")
+                .register(meterRegistry);
+        this.tiempoCommit = Timer.builder("ordenes.async.commit")
+                .description("Tiempo de la transacción de un lote de órdenes")
+                .register(meterRegistry);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        escritor = new Thread(this::procesarCola, "ordenes-async-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+        logger.info("✅ [ORDEN ASYNC] Recepción asíncrona habilitada - capacidad: {}, lote máximo: {}",
+                cola.remainingCapacity(), loteMaximo);
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (escritor != null) {
+            escritor.interrupt();
+        }
+    }
+
+    /**
+     * Validar y encolar una orden
+     *
+     * @return token para consultar el estado
+     * @throws IllegalArgumentException si el carrito no es válido contra el catálogo
+     * @throws IllegalStateException si el modo está deshabilitado o la cola está llena
+     */
+    public String encolar(CrearOrdenRequest request) {
+        if (!habilitado) {
+            throw new IllegalStateException("La recepción asíncrona de órdenes está deshabilitada");
+        }
+        validar(request, catalogoCache.obtener());
+
+        String token = UUID.randomUUID().toString();
+        estados.put(token, new Estado(EstadoOrdenDTO.enCola(token), System.currentTimeMillis()));
+        if (!cola.offer(new Pendiente(token, request))) {
+            estados.remove(token);
+            throw new IllegalStateException("Cola de órdenes llena, reintente en unos segundos");
+        }
+        logger.info("📥 [ORDEN ASYNC] Orden encolada - token: {}, usuario: {}, en cola: {}",
+                token, request.getUsuarioId(), cola.size());
+        return token;
+    }
+
+    /**
+     * Estado de una orden encolada (vacío si el token no existe o ya expiró)
+     */
+    public Optional<EstadoOrdenDTO> consultar(String token) {
+        return Optional.ofNullable(estados.get(token)).map(Estado::dto);
+    }
+
+    /**
+     * Validación sin BD: productos y variantes existen y el snapshot tiene stock suficiente
+     * El descuento definitivo lo hace crearOrden al confirmar el lote.
+     */
+    private void validar(CrearOrdenRequest request, CatalogoSnapshot snapshot) {
+        if (request.getUsuarioId() == null) {
+            throw new IllegalArgumentException("La orden debe indicar usuarioId");
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("La orden no tiene items");
+        }
+        for (CrearOrdenRequest.ItemOrden item : request.getItems()) {
+            if (item.getCantidad() == null || item.getCantidad() < 1 || item.getPrecioUnitario() == null) {
+                throw new IllegalArgumentException("Cantidad o precio inválido para " + item.getNombreProducto());
+            }
+            ProductoDTO producto = snapshot.getProducto(item.getProductoId())
+                    .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado: " + item.getNombreProducto()));
+            if (item.getVarianteId() == null) {
+                continue;
+            }
+            VarianteProductoDTO variante = producto.getVariantes().stream()
+                    .filter(v -> item.getVarianteId().equals(v.getId()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Variante no encontrada"));
+            if (variante.getStock() == null || variante.getStock() < item.getCantidad()) {
+                throw new IllegalArgumentException("Stock insuficiente para " + producto.getNombre() + " - " + variante.getNombre());
+            }
+        }
+    }
+
+    private void procesarCola() {
+        List<Pendiente> lote = new ArrayList<>(loteMaximo);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                lote.add(cola.take());
+                cola.drainTo(lote, loteMaximo - 1);
+                confirmarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.error("❌ [ORDEN ASYNC] Error inesperado en el escritor: {}", e.getMessage(), e);
+            } finally {
+                lote.clear();
+            }
+        }
+        logger.info("🛑 [ORDEN ASYNC] Escritor detenido - {} órdenes quedaron en cola", cola.size());
+    }
+
+    /**
+     * Confirmar el lote en una transacción; si falla, orden por orden
+     */
+    void confirmarLote(List<Pendiente> lote) {
+        try {
+            List<OrdenDTO> creadas = tiempoCommit.record(() -> transactionTemplate.execute(status -> {
+                List<OrdenDTO> resultado = new ArrayList<>(lote.size());
+                for (Pendiente pendiente : lote) {
+                    resultado.add(ordenService.crearOrden(pendiente.request()));
+                }
+                return resultado;
+            }));
+            for (int i = 0; i < lote.size(); i++) {
+                completar(lote.get(i).token(), EstadoOrdenDTO.completada(lote.get(i).token(), creadas.get(i)));
+            }
+            tamanoLote.record(lote.size());
+            logger.info("✅ [ORDEN ASYNC] Lote confirmado - {} órdenes en una transacción", lote.size());
+        } catch (RuntimeException e) {
+            if (lote.size() == 1) {
+                rechazar(lote.get(0), e);
+                return;
+            }
+            logger.warn("⚠️ [ORDEN ASYNC] Lote de {} falló ({}), confirmando orden por orden", lote.size(), e.getMessage());
+            for (Pendiente pendiente : lote) {
+                confirmarLote(List.of(pendiente));
+            }
+        }
+    }
+
+    private void rechazar(Pendiente pendiente, RuntimeException e) {
+        logger.warn("❌ [ORDEN ASYNC] Orden rechazada - token: {}, motivo: {}", pendiente.token(), e.getMessage());
+        completar(pendiente.token(), EstadoOrdenDTO.rechazada(pendiente.token(), e.getMessage()));
+    }
+
+    private void completar(String token, EstadoOrdenDTO estado) {
+        estados.put(token, new Estado(estado, System.currentTimeMillis()));
+    }
+
+    /**
+     * Olvidar estados terminados hace más de una hora
+     */
+    @Scheduled(fixedDelayString = "PT5M")
+    public void purgarEstados() {
+        long limite = System.currentTimeMillis() - RETENCION_ESTADOS_MS;
+        estados.values().removeIf(estado -> estado.dto().isTerminado() && estado.actualizadoEnMillis() < limite);
+    }
+}
@@ -1,22 +1,35 @@
 package com.milsabores.backend.service;
 
 import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.dto.UsuarioDTO;
 import com.milsabores.backend.model.Usuario;
 import com.milsabores.backend.repository.RolRepository;
 import com.milsabores.backend.repository.UsuarioRepository;
+import com.milsabores.backend.security.HashContrasenas;
+import com.milsabores.backend.security.UsuarioModificadoEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 
 /**
  * Servicio de gestión de usuarios
  * Capa de lógica de negocio - Clean Architecture
+ *
+ * Las contraseñas se codifican en HashContrasenas (pool BCrypt acotado) antes
+ * de abrir la transacción: el hash no retiene una conexión del pool de BD.
+ * El INSERT posterior corre en applicationTaskExecutor, no en los threads de
+ * BCrypt: esperar una conexión de Hikari no frena los logins en cola.
  */
 @Service
 public class UsuarioService {
@@ -27,20 +40,33 @@ public class UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
     private final RolRepository rolRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final HashContrasenas hashContrasenas;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor ejecutorBd;
 
     @Autowired
-    public UsuarioService(UsuarioRepository usuarioRepository, RolRepository rolRepository, PasswordEncoder passwordEncoder) {
+    public UsuarioService(UsuarioRepository usuarioRepository, RolRepository rolRepository, HashContrasenas hashContrasenas,
+                          ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                          @Qualifier("applicationTaskExecutor") Executor ejecutorBd) {
         this.usuarioRepository = usuarioRepository;
+        this.ejecutorBd = ejecutorBd;
         this.rolRepository = rolRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.hashContrasenas = hashContrasenas;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
      * Registrar nuevo usuario (público - desde formulario)
+     *
+     * Validaciones en el thread que llama; el hash corre en el pool BCrypt y el
+     * INSERT al terminar, en ejecutorBd (save() abre su propia transacción)
+     *
+     * @throws IllegalArgumentException datos inválidos o duplicados
+     * @throws IllegalStateException si el pool de BCrypt está saturado
      */
-    @Transactional
-    public Usuario registrar(Usuario usuario) {
+    public CompletableFuture<Usuario> registrar(Usuario usuario) {
         logger.info("📝 [USUARIO] Iniciando registro de usuario: {}", usuario.getCorreo());
 
         // Validaciones
@@ -64,21 +90,21 @@ public class UsuarioService {
             usuario.setRol(rolCliente);
         }
 
-        // Encriptar contraseña antes de guardar
-        usuario.setPassword(passwordEncoder.encode(usuario.getPassword()));
-
-        // Guardar
-        Usuario nuevoUsuario = usuarioRepository.save(usuario);
-        logger.info("✅ [USUARIO] Usuario registrado exitosamente - ID: {}, RUT: {}", 
-                    nuevoUsuario.getId(), nuevoUsuario.getRut());
-
-        return nuevoUsuario;
+        // Encriptar contraseña y guardar
+        return hashContrasenas.codificar(usuario.getPassword()).thenApplyAsync(hash -> {
+            usuario.setPassword(hash);
+            Usuario nuevoUsuario = usuarioRepository.save(usuario);
+            logger.info("✅ [USUARIO] Usuario registrado exitosamente - ID: {}, RUT: {}", 
+                        nuevoUsuario.getId(), nuevoUsuario.getRut());
+            return nuevoUsuario;
+        }, ejecutorBd);
     }
 
     /**
      * Crear usuario desde Backoffice (admin)
+     *
+     * @throws IllegalStateException si el pool de BCrypt está saturado
      */
-    @Transactional
     public Usuario crear(Usuario usuario, String nombreRol) {
         logger.info("👤 [ADMIN] Creando usuario: {} - Rol: {}", usuario.getCorreo(), nombreRol);
 
@@ -100,7 +126,7 @@ public class UsuarioService {
         usuario.setRol(rol);
 
         // Encriptar contraseña antes de guardar
-        usuario.setPassword(passwordEncoder.encode(usuario.getPassword()));
+        usuario.setPassword(hashContrasenas.codificarYEsperar(usuario.getPassword()));
 
         // Guardar
         Usuario nuevoUsuario = usuarioRepository.save(usuario);
@@ -112,9 +138,12 @@ public class UsuarioService {
     /**
      * Listar todos los usuarios (admin)
      */
-    public List<Usuario> listarTodos() {
+    @Transactional(readOnly = true)
+    public List<UsuarioDTO> listarTodos() {
         logger.info("📋 [ADMIN] Listando todos los usuarios");
-        List<Usuario> usuarios = usuarioRepository.findAll();
+        List<UsuarioDTO> usuarios = usuarioRepository.findAll().stream()
+                .map(UsuarioDTO::desde)
+                .toList();
         logger.info("📊 [ADMIN] Total usuarios: {}", usuarios.size());
         return usuarios;
     }
@@ -122,7 +151,15 @@ public class UsuarioService {
     /**
      * Obtener usuario por ID
      */
-    public Usuario obtenerPorId(Long id) {
+    @Transactional(readOnly = true)
+    public UsuarioDTO obtenerPorId(Long id) {
+        return UsuarioDTO.desde(buscarEntidad(id));
+    }
+
+    /**
+     * Cargar la entidad Usuario (uso interno de actualizar/eliminar)
+     */
+    private Usuario buscarEntidad(Long id) {
         logger.info("🔍 [USUARIO] Buscando usuario ID: {}", id);
         return usuarioRepository.findById(id)
                 .orElseThrow(() -> {
@@ -133,12 +170,26 @@ public class UsuarioService {
 
     /**
      * Actualizar usuario existente (admin)
+     *
+     * @throws IllegalStateException si el pool de BCrypt está saturado
      */
-    @Transactional
     public Usuario actualizar(Long id, Usuario usuarioActualizado, String nombreRol) {
         logger.info("✏️ [ADMIN] Actualizando usuario ID: {}", id);
 
-        Usuario usuarioExistente = obtenerPorId(id);
+        // Nueva contraseña: hash antes de abrir la transacción
+        String nuevoHash = null;
+        if (usuarioActualizado.getPassword() != null && !usuarioActualizado.getPassword().isEmpty()) {
+            nuevoHash = hashContrasenas.codificarYEsperar(usuarioActualizado.getPassword());
+        }
+        String hash = nuevoHash;
+        return transactionTemplate.execute(status -> actualizarEnTransaccion(id, usuarioActualizado, nombreRol, hash));
+    }
+
+    private Usuario actualizarEnTransaccion(Long id, Usuario usuarioActualizado, String nombreRol, String nuevoHash) {
+        Usuario usuarioExistente = buscarEntidad(id);
+        String correoAnterior = usuarioExistente.getCorreo();
+        String passwordAnterior = usuarioExistente.getPassword();
+        Long rolAnterior = usuarioExistente.getRol().getId();
 
         // Validar cambios de correo/RUT
         if (!usuarioExistente.getCorreo().equals(usuarioActualizado.getCorreo())) {
@@ -163,8 +214,8 @@ public class UsuarioService {
         usuarioExistente.setComuna(usuarioActualizado.getComuna());
 
         // Actualizar password solo si se proporciona uno nuevo
-        if (usuarioActualizado.getPassword() != null && !usuarioActualizado.getPassword().isEmpty()) {
-            usuarioExistente.setPassword(usuarioActualizado.getPassword());
+        if (nuevoHash != null) {
+            usuarioExistente.setPassword(nuevoHash);
         }
 
         // Actualizar rol si se proporciona
@@ -174,7 +225,18 @@ public class UsuarioService {
             usuarioExistente.setRol(rol);
         }
 
+        // Rol, correo o contraseña distintos: los JWT ya emitidos dejan de valer
+        boolean revocarTokens = !correoAnterior.equals(usuarioExistente.getCorreo())
+                || !passwordAnterior.equals(usuarioExistente.getPassword())
+                || !rolAnterior.equals(usuarioExistente.getRol().getId());
+        if (revocarTokens) {
+            usuarioExistente.setTokenVersion(usuarioExistente.getTokenVersion() + 1);
+        }
+
         Usuario guardado = usuarioRepository.save(usuarioExistente);
+        if (revocarTokens) {
+            eventPublisher.publishEvent(new UsuarioModificadoEvent(id, guardado.getTokenVersion()));
+        }
         logger.info("✅ [ADMIN] Usuario actualizado - ID: {}", id);
 
         return guardado;
@@ -187,7 +249,7 @@ public class UsuarioService {
     public void eliminar(Long id) {
         logger.info("🗑️ [ADMIN] Eliminando usuario ID: {}", id);
 
-        Usuario usuario = obtenerPorId(id);
+        Usuario usuario = buscarEntidad(id);
         
         // Evitar eliminar el último admin
         if (usuario.getRol().getNombre().equals("ADMIN")) {
@@ -201,6 +263,7 @@ public class UsuarioService {
         }
 
         usuarioRepository.deleteById(id);
+        eventPublisher.publishEvent(new UsuarioModificadoEvent(id, null));
         logger.info("✅ [ADMIN] Usuario eliminado - ID: {}", id);
     }
 
@@ -0,0 +1,25 @@
+-- ===================================================================
+-- MIGRACION V10 - CLAVES DE IDEMPOTENCIA DE ORDENES
+-- ===================================================================
+-- Autor: Sistema Automatizado
+-- Fecha: 2025-12-06
+-- Descripcion: Registro persistente de Idempotency-Key usadas en
+--              POST /api/ordenes/crear. Se inserta en la misma transacción
+--              que la orden: un reintento con la misma clave devuelve la
+--              orden original aunque la memoria se haya perdido (reinicio)
+--              o el reintento llegue a otra instancia.
+-- ===================================================================
+
+CREATE TABLE IF NOT EXISTS idempotencia_ordenes (
+    clave VARCHAR(300) PRIMARY KEY,
+    huella VARCHAR(64) NOT NULL,
+    orden_id BIGINT NOT NULL,
+    creado_en TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_idempotencia_orden FOREIGN KEY (orden_id) REFERENCES ordenes(id) ON DELETE CASCADE
+);
+
+-- Purga periódica de claves vencidas
+CREATE INDEX IF NOT EXISTS idx_idempotencia_ordenes_creado_en ON idempotencia_ordenes(creado_en);
+
+COMMENT ON COLUMN idempotencia_ordenes.clave IS 'usuarioId:Idempotency-Key';
+COMMENT ON COLUMN idempotencia_ordenes.huella IS 'SHA-256 del body: misma clave con otro body se rechaza';
@@ -0,0 +1,21 @@
+-- ===================================================================
+-- MIGRACION V11 - SECUENCIAS POOLED PARA INSERTS EN LOTE
+-- ===================================================================
+-- Autor: Sistema Automatizado
+-- Fecha: 2025-12-07
+-- Descripcion: Con GenerationType.IDENTITY Hibernate ejecuta cada INSERT
+--              apenas se persiste la entidad para conocer el ID, lo que
+--              desactiva el batching JDBC. Ordenes, detalles, variantes,
+--              imágenes y movimientos de stock (un INSERT por variante en
+--              cada checkout) pasan a un generador pooled: Hibernate reserva 50
+--              IDs con un solo nextval y agrupa los INSERT en un batch.
+--              Se reutilizan las secuencias creadas por BIGSERIAL; el
+--              DEFAULT de la columna se mantiene para inserts manuales.
+--              INCREMENT BY debe coincidir con allocationSize de la entidad.
+-- ===================================================================
+
+ALTER SEQUENCE IF EXISTS ordenes_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS detalles_orden_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS variantes_producto_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS imagenes_producto_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS movimientos_stock_id_seq INCREMENT BY 50;
@@ -0,0 +1,18 @@
+-- ===================================================================
+-- MIGRACION V12 - INDICES PARA PAGINACION KEYSET DE ORDENES
+-- ===================================================================
+-- Autor: Sistema Automatizado
+-- Fecha: 2025-12-08
+-- Descripcion: Indices compuestos para GET /api/ordenes/pagina
+--              (orden fecha DESC, id DESC con cursor y filtros de fecha
+--              y estado). La carga de detalles por página
+--              (WHERE orden_id IN ...) ya usa idx_detalles_orden (V1).
+--              idx_ordenes_fecha (V1) no incluye el id de desempate: con
+--              (fecha, id) el cursor recorre el índice sin ordenar en memoria.
+-- ===================================================================
+
+-- Keyset: ORDER BY fecha DESC, id DESC con WHERE (fecha, id) < (:fecha, :id)
+CREATE INDEX IF NOT EXISTS idx_ordenes_fecha_id ON ordenes(fecha DESC, id DESC);
+
+-- Keyset filtrando por estado (igualdad primero, luego el orden de la página)
+CREATE INDEX IF NOT EXISTS idx_ordenes_estado_fecha_id ON ordenes(estado, fecha DESC, id DESC);
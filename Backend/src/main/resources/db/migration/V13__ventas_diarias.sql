@@ -0,0 +1,30 @@
+-- ===================================================================
+-- MIGRACION V13 - ACUMULADOS DE VENTAS POR DIA Y POR MES
+-- ===================================================================
+-- Autor: Sistema Automatizado
+-- Fecha: 2025-12-09
+-- Descripcion: Totales de ventas mantenidos incrementalmente por
+--              OrdenService.crearOrden (misma transacción que la orden,
+--              ver AcumuladoVentas). Los endpoints /api/ordenes/stats/*
+--              leen estas tablas en vez de agregar ordenes: 16 filas para
+--              los últimos 15 días, 6 para el semestre y una por mes para
+--              el total histórico. El historial previo se carga con
+--              AcumuladoVentas.reconstruir() al arrancar si están vacías.
+-- ===================================================================
+
+CREATE TABLE IF NOT EXISTS ventas_diarias (
+    dia DATE PRIMARY KEY,
+    ordenes BIGINT NOT NULL DEFAULT 0,
+    total BIGINT NOT NULL DEFAULT 0
+);
+
+-- mes = primer día del mes
+CREATE TABLE IF NOT EXISTS ventas_mensuales (
+    mes DATE PRIMARY KEY,
+    ordenes BIGINT NOT NULL DEFAULT 0,
+    total BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT chk_ventas_mensuales_mes CHECK (EXTRACT(DAY FROM mes) = 1)
+);
+
+COMMENT ON TABLE ventas_diarias IS 'Órdenes y total vendido por día (acumulado incremental de ordenes)';
+COMMENT ON TABLE ventas_mensuales IS 'Órdenes y total vendido por mes (acumulado incremental de ordenes)';
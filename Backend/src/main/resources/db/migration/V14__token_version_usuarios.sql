@@ -0,0 +1,17 @@
+-- ===================================================================
+-- MIGRACION V14 - VERSION DE TOKEN POR USUARIO
+-- ===================================================================
+-- Autor: Sistema Automatizado
+-- Fecha: 2025-12-10
+-- Descripcion: El filtro JWT autentica con los claims del token sin
+--              consultar usuarios en cada request. Cada token lleva la
+--              token_version del usuario al emitirse; cambiar rol, correo
+--              o contraseña la incrementa y los tokens anteriores dejan
+--              de valer (ver VersionesToken). Los usuarios existentes
+--              parten en 0.
+-- ===================================================================
+
+ALTER TABLE usuarios
+    ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN usuarios.token_version IS 'Se incrementa al cambiar rol, correo o contraseña: invalida los JWT emitidos antes';
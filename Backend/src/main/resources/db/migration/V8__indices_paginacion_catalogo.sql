@@ -0,0 +1,28 @@
+-- ===================================================================
+-- MIGRACION V8 - INDICES PARA PAGINACION KEYSET DEL CATALOGO
+-- ===================================================================
+-- Autor: Sistema Automatizado
+-- Fecha: 2025-12-03
+-- Descripcion: Indices compuestos para GET /api/productos/pagina
+--              (cursor por id o por nombre+id, filtros por categoría,
+--              rango de precio de variantes y solo con stock)
+-- ===================================================================
+
+-- Keyset por nombre: ORDER BY nombre, id con WHERE (nombre, id) > (:nombre, :id)
+CREATE INDEX IF NOT EXISTS idx_productos_nombre_id ON productos(nombre, id);
+
+-- Keyset dentro de una categoría (orden por id y por nombre)
+CREATE INDEX IF NOT EXISTS idx_productos_categoria_id_id ON productos(categoria_id, id);
+CREATE INDEX IF NOT EXISTS idx_productos_categoria_nombre_id ON productos(categoria_id, nombre, id);
+
+-- EXISTS sobre variantes por rango de precio (index-only con stock incluido)
+CREATE INDEX IF NOT EXISTS idx_variantes_producto_precio
+    ON variantes_producto(producto_id, precio) INCLUDE (stock);
+
+-- EXISTS sobre variantes con stock disponible (índice parcial, pequeño)
+CREATE INDEX IF NOT EXISTS idx_variantes_producto_con_stock
+    ON variantes_producto(producto_id, precio)
+    WHERE stock > 0;
+
+COMMENT ON INDEX idx_productos_nombre_id IS 'Paginación keyset del catálogo ordenado por nombre';
+COMMENT ON INDEX idx_variantes_producto_con_stock IS 'Filtro soloConStock de la paginación del catálogo';
@@ -0,0 +1,27 @@
+-- ===================================================================
+-- MIGRACION V9 - JOURNAL DE MOVIMIENTOS DE STOCK PENDIENTES
+-- ===================================================================
+-- Autor: Sistema Automatizado
+-- Fecha: 2025-12-05
+-- Descripcion: Descuentos de stock reservados en memoria (LibroStock) que
+--              aún no se aplican a variantes_producto. Cada orden inserta
+--              sus movimientos en la misma transacción; el flush periódico
+--              los aplica en lote y los elimina. Al arrancar se aplican los
+--              que hayan quedado pendientes (recuperación tras caída).
+-- ===================================================================
+
+CREATE TABLE IF NOT EXISTS movimientos_stock (
+    id BIGSERIAL PRIMARY KEY,
+    variante_id BIGINT NOT NULL,
+    orden_id BIGINT NOT NULL,
+    cantidad INTEGER NOT NULL,
+    fecha TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_movimiento_variante FOREIGN KEY (variante_id) REFERENCES variantes_producto(id) ON DELETE CASCADE,
+    CONSTRAINT fk_movimiento_orden FOREIGN KEY (orden_id) REFERENCES ordenes(id) ON DELETE CASCADE,
+    CONSTRAINT chk_movimiento_cantidad CHECK (cantidad > 0)
+);
+
+-- Stock disponible = variantes_producto.stock - SUM(pendientes de la variante)
+CREATE INDEX IF NOT EXISTS idx_movimientos_stock_variante ON movimientos_stock(variante_id);
+
+COMMENT ON TABLE movimientos_stock IS 'Descuentos de stock confirmados pendientes de aplicar a variantes_producto';
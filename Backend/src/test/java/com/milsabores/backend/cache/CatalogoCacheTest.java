@@ -0,0 +1,67 @@
+package com.milsabores.backend.cache;
+
+import com.milsabores.backend.repository.CategoriaRepository;
+import com.milsabores.backend.repository.ProductoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogoCacheTest {
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final CategoriaRepository categoriaRepository = mock(CategoriaRepository.class);
+    private final CatalogoCache cache = new CatalogoCache(productoRepository, categoriaRepository,
+            mock(PlatformTransactionManager.class), mock(ApplicationEventPublisher.class), new SimpleMeterRegistry(), 200);
+
+    @AfterEach
+    void detener() {
+        cache.detener();
+    }
+
+    @Test
+    void invalidacionesDeStockSirvenElSnapshotAnteriorYSeAgrupan() throws Exception {
+        when(productoRepository.findAllWithCollections()).thenReturn(List.of());
+        CatalogoSnapshot inicial = cache.obtener();
+        verify(productoRepository, times(1)).findAllWithCollections();
+
+        // Ráfaga de checkouts: ningún request espera una recarga
+        for (int i = 0; i < 50; i++) {
+            cache.onCatalogoModificado(CatalogoModificadoEvent.stock("OrdenService.crearOrden"));
+            assertThat(cache.obtener()).isSameAs(inicial);
+        }
+        verify(productoRepository, times(1)).findAllWithCollections();
+
+        CatalogoSnapshot siguiente = esperarVersion(inicial.getVersion() + 1);
+        assertThat(siguiente.getVersion()).isEqualTo(inicial.getVersion() + 1);
+        // Una sola reconstrucción para toda la ráfaga
+        Thread.sleep(400);
+        verify(productoRepository, times(2)).findAllWithCollections();
+    }
+
+    @Test
+    void cambioDelCatalogoSeReconstruyeEnBackgroundSinEsperaDeStock() throws Exception {
+        when(productoRepository.findAllWithCollections()).thenReturn(List.of());
+        CatalogoSnapshot inicial = cache.obtener();
+
+        cache.onCatalogoModificado(new CatalogoModificadoEvent("ProductoService.actualizar"));
+
+        assertThat(esperarVersion(inicial.getVersion() + 1).getVersion()).isEqualTo(inicial.getVersion() + 1);
+    }
+
+    private CatalogoSnapshot esperarVersion(long version) throws InterruptedException {
+        for (int i = 0; i < 200 && cache.obtener().getVersion() < version; i++) {
+            Thread.sleep(10);
+        }
+        return cache.obtener();
+    }
+}
@@ -0,0 +1,38 @@
+package com.milsabores.backend.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RespuestaSerializadaTest {
+
+    private final RespuestaSerializada respuesta = new RespuestaSerializada(1,
+            "[]".getBytes(StandardCharsets.UTF_8), new byte[] {0x1f, (byte) 0x8b}, "\"abc\"");
+
+    @Test
+    void gzipEsOtraRepresentacionConSuPropioEtag() {
+        ResponseEntity<byte[]> identidad = respuesta.comoRespuesta(null, null);
+        ResponseEntity<byte[]> gzip = respuesta.comoRespuesta(null, "br, gzip");
+
+        assertThat(identidad.getHeaders().getETag()).isEqualTo("\"abc\"");
+        assertThat(gzip.getHeaders().getETag()).isEqualTo("\"abc-gzip\"");
+        assertThat(gzip.getHeaders().getFirst("Content-Encoding")).isEqualTo("gzip");
+        assertThat(respuesta.comoRespuesta(null, "gzip;q=0").getHeaders().getETag()).isEqualTo("\"abc\"");
+    }
+
+    @Test
+    void ifNoneMatchAceptaAmbosEtags() {
+        ResponseEntity<byte[]> noModificada = respuesta.comoRespuesta("\"abc-gzip\"", "gzip");
+        assertThat(noModificada.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(noModificada.getHeaders().getETag()).isEqualTo("\"abc-gzip\"");
+
+        assertThat(respuesta.coincideCon("\"abc\"")).isTrue();
+        assertThat(respuesta.coincideCon("W/\"abc-gzip\"")).isTrue();
+        assertThat(respuesta.coincideCon("\"otro\", \"abc-gzip\"")).isTrue();
+        assertThat(respuesta.coincideCon("\"abc-br\"")).isFalse();
+    }
+}
@@ -0,0 +1,112 @@
+package com.milsabores.backend.controller;
+
+import com.milsabores.backend.dto.FiltroOrdenes;
+import com.milsabores.backend.estadisticas.AcumuladoVentas;
+import com.milsabores.backend.estadisticas.VentasEnVivo;
+import com.milsabores.backend.exception.ServicioSaturadoException;
+import com.milsabores.backend.repository.OrdenRepository;
+import com.milsabores.backend.repository.VentaDiariaRepository;
+import com.milsabores.backend.service.ExportacionOrdenesService;
+import com.milsabores.backend.service.IdempotenciaService;
+import com.milsabores.backend.service.OrdenService;
+import com.milsabores.backend.service.RecepcionOrdenesService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que los endpoints de streaming lleguen a su return value handler
+ * (cuerpo escrito en el async dispatch) y que los rechazos respondan 400/503.
+ */
+class OrdenControllerTest {
+
+    private final ExportacionOrdenesService exportacionService = mock(ExportacionOrdenesService.class);
+    // Un solo dashboard en vivo a la vez
+    private final VentasEnVivo ventasEnVivo = new VentasEnVivo(mock(OrdenRepository.class), mock(VentaDiariaRepository.class),
+            mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 1, 60_000, 15_000);
+
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new OrdenController(
+            mock(OrdenService.class), mock(IdempotenciaService.class), mock(RecepcionOrdenesService.class),
+            exportacionService, mock(AcumuladoVentas.class), ventasEnVivo)).build();
+
+    @Test
+    void exportarEscribeElCsvEnStreaming() throws Exception {
+        StreamingResponseBody cuerpo = salida -> salida.write("orden_id,fecha\n1,2025-12-01\n".getBytes(StandardCharsets.UTF_8));
+        when(exportacionService.preparar(any(FiltroOrdenes.class), eq(ExportacionOrdenesService.Formato.CSV))).thenReturn(cuerpo);
+
+        MvcResult resultado = mockMvc.perform(get("/api/ordenes/exportar").param("formato", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", startsWith("attachment; filename=\"ordenes-")))
+                .andExpect(content().string("orden_id,fecha\n1,2025-12-01\n"));
+    }
+
+    @Test
+    void exportarConFormatoInvalidoResponde400() throws Exception {
+        mockMvc.perform(get("/api/ordenes/exportar").param("formato", "xlsx"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(containsString("xlsx")));
+    }
+
+    @Test
+    void exportarSaturadoResponde503ConRetryAfter() throws Exception {
+        when(exportacionService.preparar(any(FiltroOrdenes.class), any()))
+                .thenThrow(new ServicioSaturadoException("Ya hay una exportación de órdenes en curso", 60));
+
+        mockMvc.perform(get("/api/ordenes/exportar"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "60"))
+                .andExpect(jsonPath("$.error").value("Ya hay una exportación de órdenes en curso"));
+    }
+
+    @Test
+    void streamEnVivoEnviaEventoVentas() throws Exception {
+        MvcResult resultado = mockMvc.perform(get("/api/ordenes/stats/en-vivo/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Accel-Buffering", "no"))
+                .andReturn();
+
+        assertThat(resultado.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        assertThat(resultado.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .contains("event:ventas")
+                .contains("\"horaActual\"");
+    }
+
+    @Test
+    void streamEnVivoLlenoResponde503ConRetryAfter() throws Exception {
+        mockMvc.perform(get("/api/ordenes/stats/en-vivo/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        mockMvc.perform(get("/api/ordenes/stats/en-vivo/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "30"))
+                .andExpect(jsonPath("$.error").value(containsString("dashboards")));
+    }
+}
@@ -0,0 +1,195 @@
+package com.milsabores.backend.estadisticas;
+
+import com.milsabores.backend.dto.CrearOrdenRequest;
+import com.milsabores.backend.dto.VentasDia;
+import com.milsabores.backend.inventario.LibroStock;
+import com.milsabores.backend.model.Categoria;
+import com.milsabores.backend.model.Producto;
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.model.VarianteProducto;
+import com.milsabores.backend.model.VentaDiaria;
+import com.milsabores.backend.model.VentaMensual;
+import com.milsabores.backend.repository.CategoriaRepository;
+import com.milsabores.backend.repository.DetalleOrdenRepository;
+import com.milsabores.backend.repository.OrdenRepository;
+import com.milsabores.backend.repository.ProductoRepository;
+import com.milsabores.backend.repository.RolRepository;
+import com.milsabores.backend.repository.UsuarioRepository;
+import com.milsabores.backend.repository.VarianteProductoRepository;
+import com.milsabores.backend.repository.VentaDiariaRepository;
+import com.milsabores.backend.repository.VentaMensualRepository;
+import com.milsabores.backend.service.OrdenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica que ventas_diarias y ventas_mensuales se mantengan en la transacción
+ * de la orden (incluido el rollback y varias órdenes por transacción) y que la
+ * reconstrucción desde ordenes sea exacta e idempotente.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:acumulado;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "stock.ledger.habilitado=false",
+        "logging.level.com.milsabores.backend=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.engine.transaction.internal.TransactionImpl=WARN",
+        "logging.level.com.zaxxer.hikari.pool.HikariPool=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrdenService.class, LibroStock.class, AcumuladoVentas.class, SimpleMeterRegistry.class})
+class AcumuladoVentasTest {
+
+    @Autowired private OrdenService ordenService;
+    @Autowired private AcumuladoVentas acumuladoVentas;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private VentaDiariaRepository ventaDiariaRepository;
+    @Autowired private VentaMensualRepository ventaMensualRepository;
+    @Autowired private OrdenRepository ordenRepository;
+    @Autowired private DetalleOrdenRepository detalleOrdenRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private ProductoRepository productoRepository;
+    @Autowired private VarianteProductoRepository varianteProductoRepository;
+
+    private Long usuarioId;
+    private Long productoId;
+    private Long varianteId;
+
+    @BeforeEach
+    void poblar() {
+        Rol rol = rolRepository.save(new Rol(null, "CLIENTE"));
+        Usuario usuario = new Usuario();
+        usuario.setRut("77777777-7");
+        usuario.setNombre("Cliente");
+        usuario.setCorreo("acumulado@test.cl");
+        usuario.setPassword("x");
+        usuario.setRol(rol);
+        usuarioId = usuarioRepository.save(usuario).getId();
+
+        Categoria categoria = categoriaRepository.save(new Categoria(null, "Tortas", "Tortas de prueba", null));
+        Producto producto = new Producto();
+        producto.setNombre("Torta Mil Hojas");
+        producto.setPrecioBase(15000);
+        producto.setCategoria(categoria);
+        producto.getVariantes().add(new VarianteProducto(null, "15 personas", 15000, 10, null, producto));
+        producto = productoRepository.save(producto);
+        productoId = producto.getId();
+        varianteId = producto.getVariantes().iterator().next().getId();
+    }
+
+    @AfterEach
+    void limpiar() {
+        ventaDiariaRepository.deleteAllInBatch();
+        ventaMensualRepository.deleteAllInBatch();
+        detalleOrdenRepository.deleteAllInBatch();
+        ordenRepository.deleteAllInBatch();
+        varianteProductoRepository.deleteAllInBatch();
+        productoRepository.deleteAllInBatch();
+        categoriaRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+        rolRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void acumulaOrdenesConfirmadasEnSuTransaccion() {
+        ordenService.crearOrden(request(1));
+        ordenService.crearOrden(request(2));
+        // Como un lote de la recepción asíncrona: varias órdenes, un commit
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            ordenService.crearOrden(request(1));
+            ordenService.crearOrden(request(3));
+        });
+
+        LocalDate hoy = LocalDate.now();
+        assertThat(ventaDiariaRepository.findById(hoy)).contains(new VentaDiaria(hoy, 4L, 7 * 15000L));
+        assertThat(ventaMensualRepository.findById(hoy.withDayOfMonth(1)))
+                .contains(new VentaMensual(hoy.withDayOfMonth(1), 4L, 7 * 15000L));
+        assertThat(ordenService.obtenerResumenGeneral())
+                .containsEntry("totalOrdenes", 4L)
+                .containsEntry("ventasMesActual", 7 * 15000L);
+    }
+
+    @Test
+    void rollbackNoModificaElAcumulado() {
+        ordenService.crearOrden(request(2));
+
+        assertThatThrownBy(() -> ordenService.crearOrden(request(50)))
+                .hasMessageContaining("Stock insuficiente");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            ordenService.crearOrden(request(1));
+            status.setRollbackOnly();
+        });
+
+        assertThat(ventaDiariaRepository.findById(LocalDate.now()))
+                .contains(new VentaDiaria(LocalDate.now(), 1L, 2 * 15000L));
+    }
+
+    @Test
+    void reconstruirCoincideConOrdenesYEsIdempotente() {
+        List<Object[]> filas = new ArrayList<>();
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime fecha = ahora.minusHours(i * 5L);
+            filas.add(new Object[]{i + 1L, Timestamp.valueOf(fecha), 1000 + (i % 7) * 500, "COMPLETADA", usuarioId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ordenes (id, fecha, total, estado, usuario_id) VALUES (?, ?, ?, ?, ?)", filas);
+
+        acumuladoVentas.reconstruir();
+        Map<LocalDate, VentaDiaria> primera = diasConVentas();
+        acumuladoVentas.reconstruir();
+
+        Map<LocalDate, VentaDiaria> esperado = ordenRepository
+                .sumarVentasPorDia(LocalDate.now().minusYears(1).atStartOfDay(), ahora.plusDays(1)).stream()
+                .collect(Collectors.toMap(VentasDia::dia, v -> new VentaDiaria(v.dia(), v.ordenes(), v.total())));
+        assertThat(primera).isEqualTo(esperado);
+        assertThat(diasConVentas()).isEqualTo(esperado);
+
+        long totalMeses = ventaMensualRepository.findAll().stream().mapToLong(VentaMensual::getTotal).sum();
+        assertThat(totalMeses).isEqualTo(esperado.values().stream().mapToLong(VentaDiaria::getTotal).sum());
+        assertThat(ventaMensualRepository.sumarOrdenes()).isEqualTo(500L);
+    }
+
+    private Map<LocalDate, VentaDiaria> diasConVentas() {
+        return ventaDiariaRepository.findAll().stream()
+                .filter(v -> v.getOrdenes() > 0)
+                .collect(Collectors.toMap(VentaDiaria::getDia, v -> v));
+    }
+
+    private CrearOrdenRequest request(int cantidad) {
+        CrearOrdenRequest.ItemOrden item = new CrearOrdenRequest.ItemOrden(
+                productoId, varianteId, cantidad, 15000, "Torta Mil Hojas", "15 personas");
+        return new CrearOrdenRequest(usuarioId, cantidad * 15000, List.of(item));
+    }
+}
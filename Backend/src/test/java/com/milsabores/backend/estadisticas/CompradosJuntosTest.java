@@ -0,0 +1,87 @@
+package com.milsabores.backend.estadisticas;
+
+import com.milsabores.backend.dto.ProductoEnOrden;
+import com.milsabores.backend.repository.DetalleOrdenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompradosJuntosTest {
+
+    private final DetalleOrdenRepository detalleOrdenRepository = mock(DetalleOrdenRepository.class);
+    // Rangos chicos: la reconstrucción lee en varias consultas
+    private final CompradosJuntos compradosJuntos = new CompradosJuntos(detalleOrdenRepository,
+            mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 1000);
+
+    @Test
+    void recomiendaLosMasFrecuentesYSeActualizaConCadaOrden() {
+        compradosJuntos.registrar(1, new long[]{10, 20, 30});
+        compradosJuntos.registrar(2, new long[]{10, 20});
+        compradosJuntos.registrar(3, new long[]{10, 40, 40});
+
+        assertThat(compradosJuntos.recomendar(10, 3)).containsExactly(20L, 30L, 40L);
+        assertThat(compradosJuntos.recomendar(10, 1)).containsExactly(20L);
+        assertThat(compradosJuntos.recomendar(40, 5)).containsExactly(10L);
+        assertThat(compradosJuntos.recomendar(99, 5)).isEmpty();
+
+        compradosJuntos.registrar(4, new long[]{10, 40});
+        compradosJuntos.registrar(5, new long[]{10, 40});
+        assertThat(compradosJuntos.recomendar(10, 2)).containsExactly(40L, 20L);
+
+        assertThatThrownBy(() -> compradosJuntos.recomendar(10, CompradosJuntos.K_MAXIMO + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reconstruccionParalelaCuentaElHistorialYReaplicaLasOrdenesConcurrentes() {
+        // Órdenes 1..10000 con {1, 2}; las múltiplos de 3 también con 3: más hojas que UMBRAL_ORDENES
+        int ordenes = 10_000;
+        List<ProductoEnOrden> historial = new ArrayList<>();
+        for (long orden = 1; orden <= ordenes; orden++) {
+            historial.add(new ProductoEnOrden(orden, 1L));
+            historial.add(new ProductoEnOrden(orden, 2L));
+            if (orden % 3 == 0) {
+                historial.add(new ProductoEnOrden(orden, 3L));
+            }
+        }
+        // Previa a la reconstrucción: la matriz nueva la reemplaza
+        compradosJuntos.registrar(ordenes + 100, new long[]{1, 4});
+
+        AtomicBoolean concurrentes = new AtomicBoolean();
+        when(detalleOrdenRepository.maxOrdenId()).thenReturn((long) ordenes);
+        when(detalleOrdenRepository.findProductosPorOrden(anyLong(), anyLong())).thenAnswer(invocation -> {
+            if (concurrentes.compareAndSet(false, true)) {
+                // Confirmadas mientras se lee: la 5000 ya está en lo leído, la 10001 no
+                compradosJuntos.registrar(5000, new long[]{1, 2});
+                compradosJuntos.registrar(ordenes + 1, new long[]{1, 5});
+            }
+            long desde = invocation.getArgument(0);
+            long hasta = invocation.getArgument(1);
+            return historial.stream().filter(p -> p.ordenId() > desde && p.ordenId() <= hasta).toList();
+        });
+
+        int productos = compradosJuntos.reconstruir();
+
+        assertThat(productos).isEqualTo(4);
+        assertThat(compradosJuntos.recomendar(1, 5)).containsExactly(2L, 3L, 5L);
+        assertThat(compradosJuntos.recomendar(3, 5)).containsExactly(1L, 2L);
+
+        // Una orden más desempata 3 con 2 para el producto 1 solo si los conteos son exactos
+        for (int i = 0; i < ordenes - ordenes / 3; i++) {
+            compradosJuntos.registrar(ordenes + 200 + i, new long[]{1, 3});
+        }
+        assertThat(compradosJuntos.recomendar(1, 2)).containsExactly(2L, 3L);
+        compradosJuntos.registrar(ordenes * 3L, new long[]{1, 3});
+        assertThat(compradosJuntos.recomendar(1, 2)).containsExactly(3L, 2L);
+    }
+}
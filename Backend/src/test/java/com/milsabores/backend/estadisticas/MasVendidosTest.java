@@ -0,0 +1,131 @@
+package com.milsabores.backend.estadisticas;
+
+import com.milsabores.backend.cache.CatalogoCache;
+import com.milsabores.backend.cache.CatalogoSnapshot;
+import com.milsabores.backend.dto.MasVendidoDTO;
+import com.milsabores.backend.dto.ProductoDTO;
+import com.milsabores.backend.dto.TopVentasDTO;
+import com.milsabores.backend.dto.UnidadesVendidasDia;
+import com.milsabores.backend.dto.VarianteProductoDTO;
+import com.milsabores.backend.repository.DetalleOrdenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MasVendidosTest {
+
+    // Después del corte del bean: las órdenes anteriores vendrían de la siembra
+    private static final LocalDateTime BASE = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS).plusHours(10);
+
+    private final DetalleOrdenRepository detalleOrdenRepository = mock(DetalleOrdenRepository.class);
+    private final CatalogoCache catalogoCache = mock(CatalogoCache.class);
+    private final MasVendidos masVendidos = new MasVendidos(detalleOrdenRepository, catalogoCache,
+            mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+
+    MasVendidosTest() {
+        ProductoDTO torta = new ProductoDTO(1L, "Torta de chocolate", null, null, 10000, null,
+                List.of(new VarianteProductoDTO(11L, "8 porciones", 10000, 5, null)), List.of());
+        when(catalogoCache.obtener()).thenReturn(CatalogoSnapshot.construir(1, 0, List.of(torta), List.of()));
+    }
+
+    @Test
+    void estimacionesEncuentranLosMasVendidosDeUnFlujoSesgado() {
+        // Distribución tipo Zipf sobre 5000 productos: muchos más productos que contadores por fila
+        Random random = new Random(42);
+        int productos = 5000;
+        double[] acumulada = new double[productos];
+        double suma = 0;
+        for (int i = 0; i < productos; i++) {
+            suma += 1.0 / (i + 1);
+            acumulada[i] = suma;
+        }
+
+        Map<Long, Long> exactos = new HashMap<>();
+        long unidades = 0;
+        for (int i = 0; i < 200_000; i++) {
+            int posicion = Arrays.binarySearch(acumulada, random.nextDouble() * suma);
+            long productoId = 1000L + (posicion < 0 ? -posicion - 1 : posicion);
+            int cantidad = 1 + random.nextInt(3);
+            masVendidos.registrar(BASE, List.of(new OrdenConfirmadaEvent.Linea(productoId, null, cantidad)));
+            exactos.merge(productoId, (long) cantidad, Long::sum);
+            unidades += cantidad;
+        }
+
+        TopVentasDTO top = masVendidos.consultar(MasVendidos.Ventana.DIA, 5, BASE.toLocalDate(), true);
+        List<Long> esperados = exactos.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(5)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        assertThat(top.getItems()).extracting(MasVendidoDTO::getProductoId).containsExactlyElementsOf(esperados);
+        long errorMaximo = (long) Math.ceil(Math.E / MasVendidos.ANCHO_SKETCH * unidades);
+        for (MasVendidoDTO item : top.getItems()) {
+            long exacto = exactos.get(item.getProductoId());
+            assertThat(item.getUnidades()).isBetween(exacto, exacto + errorMaximo);
+        }
+        assertThat(top.isConciliado()).isFalse();
+    }
+
+    @Test
+    void ventanasSumanDiasYLaCargaInicialQuedaConciliada() {
+        LocalDate hoy = LocalDate.now();
+        when(detalleOrdenRepository.sumarUnidadesPorDia(any(), any())).thenReturn(List.of(
+                new UnidadesVendidasDia(hoy.minusDays(20), 2L, null, 50L),
+                new UnidadesVendidasDia(hoy.minusDays(3), 1L, 11L, 8L),
+                new UnidadesVendidasDia(hoy.minusDays(1), 1L, 11L, 4L),
+                new UnidadesVendidasDia(hoy.minusDays(1), 3L, null, 6L)
+        ));
+
+        masVendidos.sembrar();
+
+        TopVentasDTO semana = masVendidos.consultar(MasVendidos.Ventana.SEMANA, 10, hoy, true);
+        assertThat(semana.isConciliado()).isTrue();
+        assertThat(semana.getDesde()).isEqualTo(hoy.minusDays(6).toString());
+        assertThat(semana.getItems()).extracting(MasVendidoDTO::getProductoId, MasVendidoDTO::getUnidades)
+                .containsExactly(tuple(1L, 12L), tuple(3L, 6L));
+        assertThat(semana.getItems().get(0).getProducto()).isEqualTo("Torta de chocolate");
+        assertThat(semana.getItems().get(1).getProducto()).isEqualTo("Producto #3");
+
+        TopVentasDTO mes = masVendidos.consultar(MasVendidos.Ventana.MES, 1, hoy, true);
+        assertThat(mes.getItems()).extracting(MasVendidoDTO::getProductoId).containsExactly(2L);
+
+        TopVentasDTO variantes = masVendidos.consultar(MasVendidos.Ventana.SEMANA, 10, hoy, false);
+        assertThat(variantes.getItems()).singleElement()
+                .satisfies(item -> {
+                    assertThat(item.getVariante()).isEqualTo("8 porciones");
+                    assertThat(item.getUnidades()).isEqualTo(12);
+                });
+
+        // Dentro de 8 días la semana ya no incluye lo cargado y el día siguiente trae estimaciones
+        masVendidos.registrar(BASE, List.of(new OrdenConfirmadaEvent.Linea(3L, null, 2)));
+        assertThat(masVendidos.consultar(MasVendidos.Ventana.DIA, 10, BASE.toLocalDate(), true).isConciliado()).isFalse();
+        TopVentasDTO despues = masVendidos.consultar(MasVendidos.Ventana.SEMANA, 10, hoy.plusDays(8), true);
+        assertThat(despues.getItems()).isEmpty();
+        assertThat(despues.isConciliado()).isFalse();
+    }
+
+    @Test
+    void rechazaKFueraDeRango() {
+        assertThatThrownBy(() -> masVendidos.topProductos(MasVendidos.Ventana.DIA, MasVendidos.K_MAXIMO + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MasVendidos.Ventana.desde("anio"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
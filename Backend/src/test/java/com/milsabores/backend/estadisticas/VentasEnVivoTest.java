@@ -0,0 +1,93 @@
+package com.milsabores.backend.estadisticas;
+
+import com.milsabores.backend.dto.VentasEnVivoDTO;
+import com.milsabores.backend.exception.ServicioSaturadoException;
+import com.milsabores.backend.repository.OrdenRepository;
+import com.milsabores.backend.repository.VentaDiariaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class VentasEnVivoTest {
+
+    // Después del corte del bean: las órdenes anteriores vendrían de la siembra
+    private static final LocalDateTime BASE = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS).plusHours(10);
+
+    private final VentasEnVivo ventas = new VentasEnVivo(mock(OrdenRepository.class), mock(VentaDiariaRepository.class),
+            mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 2, 60_000, 15_000);
+
+    @Test
+    void cubetasAvanzanConElTiempoYExpulsanPeriodosViejos() {
+        ventas.registrar(BASE.plusMinutes(5), 1000);
+        ventas.registrar(BASE.plusMinutes(50), 2000);
+        ventas.registrar(BASE.plusHours(1), 500);
+
+        VentasEnVivoDTO unaHoraDespues = ventas.instantanea(BASE.plusHours(1).plusMinutes(10));
+        assertThat(unaHoraDespues.getHoras()).hasSize(VentasEnVivo.HORAS);
+        assertThat(unaHoraDespues.getHoraActual().getOrdenes()).isEqualTo(1);
+        assertThat(unaHoraDespues.getHoras().get(VentasEnVivo.HORAS - 2).getTotal()).isEqualTo(3000);
+        assertThat(unaHoraDespues.getDias()).hasSize(VentasEnVivo.DIAS);
+
+        // 48 horas después la posición de BASE se reutiliza para la nueva hora
+        ventas.registrar(BASE.plusHours(VentasEnVivo.HORAS), 700);
+        VentasEnVivoDTO despues = ventas.instantanea(BASE.plusHours(VentasEnVivo.HORAS));
+        assertThat(despues.getHoraActual().getTotal()).isEqualTo(700);
+        assertThat(despues.getHoras().stream().mapToLong(VentasEnVivoDTO.Punto::getTotal).sum()).isEqualTo(1200);
+        assertThat(despues.getVersion()).isEqualTo(4);
+
+        // Una orden tardía de un período ya expulsado no pisa la cubeta nueva
+        ventas.registrar(BASE.plusMinutes(30), 9999);
+        assertThat(ventas.instantanea(BASE.plusHours(VentasEnVivo.HORAS)).getHoraActual().getTotal()).isEqualTo(700);
+    }
+
+    @Test
+    void sumasConcurrentesNoPierdenOrdenes() throws Exception {
+        int threads = 8;
+        int porThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tareas.add(executor.submit(() -> {
+                    for (int i = 0; i < porThread; i++) {
+                        // Dos horas del mismo día: también compiten por crear la cubeta nueva
+                        ventas.registrar(BASE.plusMinutes(i % 120), 10);
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        VentasEnVivoDTO instantanea = ventas.instantanea(BASE.plusHours(1));
+        long esperadas = (long) threads * porThread;
+        assertThat(instantanea.getHoy().getOrdenes()).isEqualTo(esperadas);
+        assertThat(instantanea.getHoy().getTotal()).isEqualTo(esperadas * 10);
+        assertThat(instantanea.getHoras().stream().mapToLong(VentasEnVivoDTO.Punto::getOrdenes).sum()).isEqualTo(esperadas);
+    }
+
+    @Test
+    void limitaLosStreamsAbiertos() {
+        ventas.suscribir();
+        ventas.suscribir();
+
+        assertThatThrownBy(ventas::suscribir)
+                .isInstanceOf(ServicioSaturadoException.class);
+        assertThat(ventas.getSuscriptores()).isEqualTo(2);
+    }
+}
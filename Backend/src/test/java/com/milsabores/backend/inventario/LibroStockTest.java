@@ -0,0 +1,228 @@
+package com.milsabores.backend.inventario;
+
+import com.milsabores.backend.dto.CrearOrdenRequest;
+import com.milsabores.backend.estadisticas.AcumuladoVentas;
+import com.milsabores.backend.model.Categoria;
+import com.milsabores.backend.model.MovimientoStock;
+import com.milsabores.backend.model.Producto;
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.model.VarianteProducto;
+import com.milsabores.backend.repository.CategoriaRepository;
+import com.milsabores.backend.repository.DetalleOrdenRepository;
+import com.milsabores.backend.repository.MovimientoStockRepository;
+import com.milsabores.backend.repository.OrdenRepository;
+import com.milsabores.backend.repository.ProductoRepository;
+import com.milsabores.backend.repository.RolRepository;
+import com.milsabores.backend.repository.UsuarioRepository;
+import com.milsabores.backend.repository.VarianteProductoRepository;
+import com.milsabores.backend.service.OrdenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica el libro de stock: reservas concurrentes sin sobreventa, devolución
+ * en rollback, flush en lote a variantes_producto y recuperación del journal
+ * al arrancar. Transacciones reales contra H2 (el test no es transaccional).
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:libro;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=" + LibroStockTest.HILOS,
+        "stock.ledger.habilitado=true",
+        "logging.level.com.milsabores.backend=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.engine.transaction.internal.TransactionImpl=WARN",
+        "logging.level.com.zaxxer.hikari.pool.HikariPool=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrdenService.class, LibroStock.class, AcumuladoVentas.class, SimpleMeterRegistry.class})
+class LibroStockTest {
+
+    static final int HILOS = 8;
+    private static final int STOCK_INICIAL = 100;
+    private static final int INTENTOS_POR_HILO = 40;
+
+    @Autowired private LibroStock libroStock;
+    @Autowired private OrdenService ordenService;
+    @Autowired private OrdenRepository ordenRepository;
+    @Autowired private DetalleOrdenRepository detalleOrdenRepository;
+    @Autowired private MovimientoStockRepository movimientoStockRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private ProductoRepository productoRepository;
+    @Autowired private VarianteProductoRepository varianteProductoRepository;
+
+    private Long usuarioId;
+    private Long productoId;
+    private Long varianteId;
+    private Long otraVarianteId;
+
+    @BeforeEach
+    void poblar() {
+        Rol rol = rolRepository.save(new Rol(null, "CLIENTE"));
+        Usuario usuario = new Usuario();
+        usuario.setRut("22222222-2");
+        usuario.setNombre("Cliente");
+        usuario.setCorreo("libro@test.cl");
+        usuario.setPassword("x");
+        usuario.setRol(rol);
+        usuarioId = usuarioRepository.save(usuario).getId();
+
+        Categoria categoria = categoriaRepository.save(new Categoria(null, "Tortas", "Tortas de prueba", null));
+        Producto producto = new Producto();
+        producto.setNombre("Torta Selva Negra");
+        producto.setPrecioBase(12000);
+        producto.setCategoria(categoria);
+        producto.getVariantes().add(new VarianteProducto(null, "8 personas", 12000, STOCK_INICIAL, null, producto));
+        producto.getVariantes().add(new VarianteProducto(null, "15 personas", 20000, 1, null, producto));
+        producto = productoRepository.save(producto);
+
+        productoId = producto.getId();
+        for (VarianteProducto variante : producto.getVariantes()) {
+            if (variante.getStock() == STOCK_INICIAL) {
+                varianteId = variante.getId();
+            } else {
+                otraVarianteId = variante.getId();
+            }
+        }
+        libroStock.recargar("test");
+    }
+
+    @AfterEach
+    void limpiar() {
+        movimientoStockRepository.deleteAllInBatch();
+        detalleOrdenRepository.deleteAllInBatch();
+        ordenRepository.deleteAllInBatch();
+        varianteProductoRepository.deleteAllInBatch();
+        productoRepository.deleteAllInBatch();
+        categoriaRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+        rolRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void checkoutsConcurrentesNoSobrevendenYElFlushAplicaElTotal() throws Exception {
+        AtomicInteger exitosas = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Callable<Void>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(() -> {
+                for (int i = 0; i < INTENTOS_POR_HILO; i++) {
+                    try {
+                        ordenService.crearOrden(orden(item(varianteId, 1)));
+                        exitosas.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertThat(e.getMessage()).startsWith("Stock insuficiente");
+                    }
+                }
+                return null;
+            });
+        }
+
+        for (Future<Void> futuro : pool.invokeAll(tareas)) {
+            futuro.get();
+        }
+        pool.shutdown();
+
+        assertThat(exitosas.get()).isEqualTo(STOCK_INICIAL);
+        assertThat(libroStock.disponible(varianteId)).isZero();
+        // Write-behind: la fila no se tocó durante el checkout
+        assertThat(stockPersistido(varianteId)).isEqualTo(STOCK_INICIAL);
+        assertThat(movimientoStockRepository.count()).isEqualTo(STOCK_INICIAL);
+
+        assertThat(libroStock.flush()).isEqualTo(STOCK_INICIAL);
+        assertThat(stockPersistido(varianteId)).isZero();
+        assertThat(movimientoStockRepository.count()).isZero();
+        assertThat(libroStock.disponible(varianteId)).isZero();
+    }
+
+    @Test
+    void rollbackDevuelveLaReservaAlLibro() {
+        // La segunda variante no alcanza: la primera se libera
+        assertThatThrownBy(() -> ordenService.crearOrden(orden(item(varianteId, 5), item(otraVarianteId, 2))))
+                .hasMessageStartingWith("Stock insuficiente");
+        assertThat(libroStock.disponible(varianteId)).isEqualTo(STOCK_INICIAL);
+
+        // Falla después de reservar (detalle sin precio): el rollback devuelve las unidades
+        CrearOrdenRequest sinPrecio = new CrearOrdenRequest(usuarioId, 0,
+                List.of(new CrearOrdenRequest.ItemOrden(productoId, varianteId, 3, null, "Torta Selva Negra", null)));
+        assertThatThrownBy(() -> ordenService.crearOrden(sinPrecio)).isInstanceOf(RuntimeException.class);
+        assertThat(libroStock.disponible(varianteId)).isEqualTo(STOCK_INICIAL);
+        assertThat(movimientoStockRepository.count()).isZero();
+    }
+
+    @Test
+    void reconciliarAplicaElJournalPendienteTrasUnaCaida() {
+        // Órdenes confirmadas antes de la caída cuyo flush nunca corrió
+        Long ordenId = ordenService.crearOrden(orden(item(varianteId, 1))).getId();
+        movimientoStockRepository.save(new MovimientoStock(null, varianteId, ordenId, 29, LocalDateTime.now()));
+        assertThat(stockPersistido(varianteId)).isEqualTo(STOCK_INICIAL);
+
+        libroStock.reconciliar();
+
+        assertThat(stockPersistido(varianteId)).isEqualTo(STOCK_INICIAL - 30);
+        assertThat(movimientoStockRepository.count()).isZero();
+        assertThat(libroStock.disponible(varianteId)).isEqualTo(STOCK_INICIAL - 30);
+    }
+
+    @Test
+    void recargarRespetaMovimientosPendientes() {
+        ordenService.crearOrden(orden(item(varianteId, 10)));
+
+        // El administrador fija el stock en la BD antes del flush
+        VarianteProducto variante = varianteProductoRepository.findById(varianteId).orElseThrow();
+        variante.setStock(50);
+        varianteProductoRepository.save(variante);
+        libroStock.recargar("test");
+
+        // 50 fijados menos 10 vendidos aún no aplicados
+        assertThat(libroStock.disponible(varianteId)).isEqualTo(40);
+        libroStock.flush();
+        assertThat(stockPersistido(varianteId)).isEqualTo(40);
+    }
+
+    private int stockPersistido(Long id) {
+        return varianteProductoRepository.findById(id).orElseThrow().getStock();
+    }
+
+    private CrearOrdenRequest.ItemOrden item(Long variante, int cantidad) {
+        return new CrearOrdenRequest.ItemOrden(productoId, variante, cantidad, 12000, "Torta Selva Negra", null);
+    }
+
+    private CrearOrdenRequest orden(CrearOrdenRequest.ItemOrden... items) {
+        int total = 0;
+        for (CrearOrdenRequest.ItemOrden item : items) {
+            total += item.getCantidad() * item.getPrecioUnitario();
+        }
+        return new CrearOrdenRequest(usuarioId, total, List.of(items));
+    }
+}
@@ -0,0 +1,150 @@
+package com.milsabores.backend.repository;
+
+import com.milsabores.backend.dto.CursorOrden;
+import com.milsabores.backend.dto.FiltroOrdenes;
+import com.milsabores.backend.dto.OrdenDTO;
+import com.milsabores.backend.model.Categoria;
+import com.milsabores.backend.model.DetalleOrden;
+import com.milsabores.backend.model.Orden;
+import com.milsabores.backend.model.Producto;
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.model.VarianteProducto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica la paginación keyset de órdenes: recorrido completo sin repetir
+ * (con fechas empatadas), filtros y un número fijo de queries por página.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.SQL=WARN"
+})
+class OrdenRepositoryTest {
+
+    private static final int ORDENES = 25;
+    private static final int DETALLES_POR_ORDEN = 3;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 12, 1, 10, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrdenRepository ordenRepository;
+
+    @BeforeEach
+    void poblarOrdenes() {
+        Rol rol = entityManager.persist(new Rol(null, "CLIENTE"));
+        Usuario usuario = new Usuario();
+        usuario.setRut("66666666-6");
+        usuario.setNombre("Cliente");
+        usuario.setCorreo("ordenes@test.cl");
+        usuario.setPassword("x");
+        usuario.setRol(rol);
+        entityManager.persist(usuario);
+
+        Categoria categoria = entityManager.persist(new Categoria(null, "Tortas", "Tortas de prueba", null));
+        Producto producto = new Producto();
+        producto.setNombre("Torta Amor");
+        producto.setPrecioBase(9000);
+        producto.setCategoria(categoria);
+        entityManager.persist(producto);
+        VarianteProducto variante = entityManager.persist(new VarianteProducto(null, "8 personas", 9000, 10, null, producto));
+
+        for (int i = 0; i < ORDENES; i++) {
+            Orden orden = new Orden();
+            orden.setUsuario(usuario);
+            // Una orden por día, con pares empatados en la misma fecha para probar el desempate por id
+            orden.setFecha(BASE.plusDays(i / 2));
+            orden.setTotal(9000 * DETALLES_POR_ORDEN);
+            orden.setEstado(i % 5 == 0 ? "CANCELADA" : "COMPLETADA");
+            entityManager.persist(orden);
+            for (int d = 0; d < DETALLES_POR_ORDEN; d++) {
+                entityManager.persist(new DetalleOrden(null, 1, 9000, 9000, orden, producto, variante));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void buscarPagina_recorreTodasLasOrdenesSinRepetirYEnOrden() {
+        List<Orden> vistas = new ArrayList<>();
+        CursorOrden cursor = null;
+        List<Orden> pagina;
+        do {
+            pagina = ordenRepository.buscarPagina(FiltroOrdenes.builder().build(), cursor, 4);
+            vistas.addAll(pagina);
+            if (!pagina.isEmpty()) {
+                Orden ultima = pagina.get(pagina.size() - 1);
+                cursor = new CursorOrden(ultima.getFecha(), ultima.getId());
+            }
+        } while (pagina.size() == 4);
+
+        assertThat(vistas).hasSize(ORDENES);
+        assertThat(vistas).extracting(Orden::getId).doesNotHaveDuplicates();
+        assertThat(vistas).isSortedAccordingTo(Comparator.comparing(Orden::getFecha)
+                .thenComparing(Orden::getId).reversed());
+    }
+
+    @Test
+    void buscarPagina_filtraPorEstadoYRangoDeFechas() {
+        FiltroOrdenes canceladas = FiltroOrdenes.builder().estado("CANCELADA").build();
+        FiltroOrdenes primerosTresDias = FiltroOrdenes.builder()
+                .desde(LocalDate.of(2025, 12, 1))
+                .hasta(LocalDate.of(2025, 12, 3))
+                .build();
+
+        assertThat(ordenRepository.buscarPagina(canceladas, null, 100)).hasSize(ORDENES / 5);
+        assertThat(ordenRepository.buscarPagina(primerosTresDias, null, 100)).hasSize(6);
+    }
+
+    @Test
+    void paginaConDetallesSeCargaEnDosQueries() {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        List<Orden> pagina = ordenRepository.buscarPagina(FiltroOrdenes.builder().build(), null, 10);
+        List<OrdenDTO> ordenes = ordenRepository.cargarDetalles(pagina).stream()
+                .map(OrdenDTO::desde)
+                .toList();
+
+        assertThat(ordenes).hasSize(10);
+        assertThat(ordenes).allSatisfy(o -> {
+            assertThat(o.getDetalles()).hasSize(DETALLES_POR_ORDEN);
+            assertThat(o.getUsuario().getCorreo()).isEqualTo("ordenes@test.cl");
+        });
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void cursorOrden_codificaYDecodifica() {
+        CursorOrden cursor = new CursorOrden(LocalDateTime.of(2025, 12, 7, 18, 30, 5, 123_456_000), 42L);
+
+        assertThat(CursorOrden.decodificar(cursor.codificar())).isEqualTo(cursor);
+        assertThatThrownBy(() -> CursorOrden.decodificar("no-es-un-cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
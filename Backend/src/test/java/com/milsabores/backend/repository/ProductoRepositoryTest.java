@@ -0,0 +1,220 @@
+package com.milsabores.backend.repository;
+
+import com.milsabores.backend.dto.CursorProducto;
+import com.milsabores.backend.dto.FiltroProductos;
+import com.milsabores.backend.dto.ProductoDTO;
+import com.milsabores.backend.model.Categoria;
+import com.milsabores.backend.model.ImagenProducto;
+import com.milsabores.backend.model.Producto;
+import com.milsabores.backend.model.VarianteProducto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que la carga por fases de ProductoRepository no genere producto cartesiano
+ * (variantes × imagenes) y entregue el mismo payload que el JOIN FETCH doble anterior.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+class ProductoRepositoryTest {
+
+    private static final int PRODUCTOS = 10;
+    private static final int VARIANTES_POR_PRODUCTO = 7;
+    private static final int IMAGENES_POR_PRODUCTO = 3;
+
+    private static final AtomicInteger sentencias = new AtomicInteger();
+    private static final AtomicInteger filas = new AtomicInteger();
+
+    @TestConfiguration
+    static class ContadorJdbcConfig {
+        @Bean
+        static BeanPostProcessor contadorDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? contar(dataSource, DataSource.class) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    private Long categoriaId;
+
+    @BeforeEach
+    void poblarCatalogo() {
+        Categoria categoria = entityManager.persist(new Categoria(null, "Tortas", "Tortas de prueba", null));
+        categoriaId = categoria.getId();
+
+        for (int i = 0; i < PRODUCTOS; i++) {
+            Producto producto = new Producto();
+            producto.setNombre("Producto " + i);
+            producto.setPrecioBase(1000 * (i + 1));
+            producto.setCategoria(categoria);
+            entityManager.persist(producto);
+
+            for (int v = 0; v < VARIANTES_POR_PRODUCTO; v++) {
+                VarianteProducto variante = new VarianteProducto(null, "Variante " + v, 1000 + v, i == 0 ? 0 : 10, null, producto);
+                entityManager.persist(variante);
+            }
+            for (int m = 0; m < IMAGENES_POR_PRODUCTO; m++) {
+                ImagenProducto imagen = new ImagenProducto(null, producto, "https://cdn/img" + i + "_" + m + ".jpg",
+                        "img" + i + "_" + m + ".jpg", "image/jpeg", 1024L, m == 0, m, LocalDateTime.now());
+                entityManager.persist(imagen);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findAllWithCollections_cargaEnTresQueriesSinProductoCartesiano() {
+        reiniciarContadores();
+
+        List<ProductoDTO> productos = productoRepository.findAllWithCollections().stream()
+                .map(ProductoDTO::desde)
+                .toList();
+
+        assertThat(productos).hasSize(PRODUCTOS);
+        assertThat(sentencias.get()).isEqualTo(3);
+        // productos + variantes + imagenes, en vez de productos × variantes × imagenes
+        assertThat(filas.get()).isEqualTo(PRODUCTOS + PRODUCTOS * VARIANTES_POR_PRODUCTO + PRODUCTOS * IMAGENES_POR_PRODUCTO);
+        assertThat(productos).allSatisfy(p -> {
+            assertThat(p.getVariantes()).hasSize(VARIANTES_POR_PRODUCTO);
+            assertThat(p.getImagenes()).hasSize(IMAGENES_POR_PRODUCTO);
+            assertThat(p.getCategoria().getId()).isEqualTo(categoriaId);
+        });
+    }
+
+    @Test
+    void findByCategoriaIdWithCollections_cargaEnTresQueries() {
+        reiniciarContadores();
+
+        List<Producto> productos = productoRepository.findByCategoriaIdWithCollections(categoriaId);
+
+        assertThat(productos).hasSize(PRODUCTOS);
+        assertThat(sentencias.get()).isEqualTo(3);
+        assertThat(filas.get()).isEqualTo(PRODUCTOS + PRODUCTOS * VARIANTES_POR_PRODUCTO + PRODUCTOS * IMAGENES_POR_PRODUCTO);
+    }
+
+    @Test
+    void findAllWithCollections_mismoPayloadQueJoinFetchDoble() {
+        List<ProductoDTO> esperado = entityManager.getEntityManager()
+                .createQuery("SELECT DISTINCT p FROM Producto p " +
+                        "LEFT JOIN FETCH p.variantes " +
+                        "LEFT JOIN FETCH p.imagenes " +
+                        "LEFT JOIN FETCH p.categoria", Producto.class)
+                .getResultList().stream()
+                .map(ProductoDTO::desde)
+                .sorted((a, b) -> a.getId().compareTo(b.getId()))
+                .toList();
+        entityManager.clear();
+
+        List<ProductoDTO> obtenido = productoRepository.findAllWithCollections().stream()
+                .map(ProductoDTO::desde)
+                .toList();
+
+        assertThat(obtenido).isEqualTo(esperado);
+    }
+
+    @Test
+    void buscarPagina_recorreTodoElCatalogoPorNombreSinRepetir() {
+        FiltroProductos filtro = FiltroProductos.builder().orden(FiltroProductos.Orden.NOMBRE).build();
+        List<Long> vistos = new ArrayList<>();
+        CursorProducto cursor = null;
+        List<Producto> pagina;
+        do {
+            pagina = productoRepository.buscarPagina(filtro, cursor, 3);
+            pagina.forEach(p -> vistos.add(p.getId()));
+            if (!pagina.isEmpty()) {
+                Producto ultimo = pagina.get(pagina.size() - 1);
+                cursor = new CursorProducto(FiltroProductos.Orden.NOMBRE, ultimo.getId(), ultimo.getNombre());
+            }
+        } while (pagina.size() == 3);
+
+        assertThat(vistos).hasSize(PRODUCTOS).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void buscarPagina_filtraPorPrecioYStockDeVariantes() {
+        FiltroProductos conStock = FiltroProductos.builder().soloConStock(true).build();
+        FiltroProductos fueraDeRango = FiltroProductos.builder().precioMin(2000).build();
+        FiltroProductos enRango = FiltroProductos.builder().categoriaId(categoriaId).precioMin(1006).precioMax(1006).build();
+
+        assertThat(productoRepository.buscarPagina(conStock, null, 100)).hasSize(PRODUCTOS - 1);
+        assertThat(productoRepository.buscarPagina(fueraDeRango, null, 100)).isEmpty();
+        assertThat(productoRepository.buscarPagina(enRango, null, 100)).hasSize(PRODUCTOS);
+    }
+
+    @Test
+    void cursorProducto_codificaYDecodificaNombresConSeparador() {
+        CursorProducto cursor = new CursorProducto(FiltroProductos.Orden.NOMBRE, 42L, "Torta | Ñandú");
+
+        assertThat(CursorProducto.decodificar(cursor.codificar(), FiltroProductos.Orden.NOMBRE)).isEqualTo(cursor);
+    }
+
+    private static void reiniciarContadores() {
+        sentencias.set(0);
+        filas.set(0);
+    }
+
+    /**
+     * Proxy JDBC mínimo: cuenta sentencias preparadas y filas leídas de cada ResultSet
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T contar(T objetivo, Class<T> tipo) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, args) -> {
+            Object resultado;
+            try {
+                resultado = metodo.invoke(objetivo, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (resultado instanceof Connection conexion) {
+                return contar(conexion, Connection.class);
+            }
+            if (resultado instanceof PreparedStatement sentencia) {
+                sentencias.incrementAndGet();
+                return contar(sentencia, PreparedStatement.class);
+            }
+            if (resultado instanceof Statement sentencia) {
+                return contar(sentencia, Statement.class);
+            }
+            if (resultado instanceof ResultSet resultSet) {
+                return contar(resultSet, ResultSet.class);
+            }
+            if (objetivo instanceof ResultSet && metodo.getName().equals("next") && Boolean.TRUE.equals(resultado)) {
+                filas.incrementAndGet();
+            }
+            return resultado;
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package com.milsabores.backend.search;
+
+import com.milsabores.backend.dto.CategoriaDTO;
+import com.milsabores.backend.dto.ProductoDTO;
+import com.milsabores.backend.dto.VarianteProductoDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceBusquedaTest {
+
+    private static final CategoriaDTO TORTAS = new CategoriaDTO(1L, "Tortas Cuadradas", null, null);
+    private static final CategoriaDTO POSTRES = new CategoriaDTO(2L, "Postres Individuales", null, null);
+    private static final String[] CONSULTAS = {"torta lucuma", "cheesecake frambuesa", "pie limon", "mousse cafe",
+            "brazo manjar", "kuchen nuez", "alfajor creme", "tartaleta pina"};
+
+    @Test
+    void normalizar_pliegaTildesYEnie() {
+        assertThat(TextoNormalizador.normalizar("Crème Brûlée de Ñandú!")).isEqualTo("creme brulee de nandu");
+        assertThat(TextoNormalizador.tokenizar("Brazo de Reina")).containsExactly("brazo", "reina");
+    }
+
+    @Test
+    void buscar_insensibleATildesYPorPrefijo() {
+        IndiceBusqueda indice = IndiceBusqueda.construir(1, List.of(
+                producto(1L, "Brazo de Reina", "Clásico manjar", TORTAS),
+                producto(2L, "Crème Brûlée", "Postre francés", POSTRES),
+                producto(3L, "Torta de Piña", "Con crema", TORTAS)), null);
+
+        assertThat(ids(indice.buscar("brazo de reina", 0, 10))).containsExactly(1L);
+        assertThat(ids(indice.buscar("CREME brul", 0, 10))).containsExactly(2L);
+        assertThat(ids(indice.buscar("pina", 0, 10))).containsExactly(3L);
+        assertThat(ids(indice.buscar("piña torta", 0, 10))).containsExactly(3L);
+        assertThat(indice.buscar("mousse", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void buscar_rankeaNombreSobreDescripcionYPagina() {
+        IndiceBusqueda indice = IndiceBusqueda.construir(1, List.of(
+                producto(1L, "Torta Tres Leches", "Bizcocho con chocolate", TORTAS),
+                producto(2L, "Torta de Chocolate", "Bizcocho húmedo", TORTAS),
+                producto(3L, "Mousse de Chocolate", "Postre", POSTRES)), null);
+
+        IndiceBusqueda.Resultado resultado = indice.buscar("choco", 0, 2);
+        assertThat(resultado.total()).isEqualTo(3);
+        // nombre + categoría "Tortas" no aplica; empate de nombre se resuelve por ID
+        assertThat(ids(resultado)).containsExactly(2L, 3L);
+        assertThat(ids(indice.buscar("choco", 1, 2))).containsExactly(1L);
+    }
+
+    @Test
+    void construir_reutilizaProductosSinCambios() {
+        ProductoDTO brazo = producto(1L, "Brazo de Reina", null, TORTAS);
+        ProductoDTO torta = producto(2L, "Torta Selva Negra", null, TORTAS);
+        IndiceBusqueda v1 = IndiceBusqueda.construir(1, List.of(brazo, torta), null);
+
+        ProductoDTO tortaEditada = producto(2L, "Torta Selva Negra Premium", null, TORTAS);
+        IndiceBusqueda v2 = IndiceBusqueda.construir(2, List.of(brazo, tortaEditada), v1);
+
+        assertThat(v2.getReutilizados()).isEqualTo(1);
+        assertThat(ids(v2.buscar("premium", 0, 10))).containsExactly(2L);
+        assertThat(v1.buscar("premium", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void buscar_catalogoSinteticoDe50kProductos() {
+        IndiceBusqueda indice = IndiceBusqueda.construir(1, catalogoSintetico(50_000), null);
+
+        for (String consulta : CONSULTAS) {
+            assertThat(indice.buscar(consulta, 0, 20).productos()).isNotEmpty();
+        }
+        IndiceBusqueda.Resultado porNumero = indice.buscar("4999", 0, 20);
+        assertThat(porNumero.total()).isEqualTo(11);
+        assertThat(ids(porNumero)).allMatch(id -> id.toString().startsWith("4999"));
+    }
+
+    /**
+     * Latencia de búsqueda sobre 50k productos (no corre en el build normal)
+     * mvn test -Dtest=IndiceBusquedaTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkBusquedaEn50kProductos() {
+        IndiceBusqueda indice = IndiceBusqueda.construir(1, catalogoSintetico(50_000), null);
+        for (int i = 0; i < 2_000; i++) {
+            indice.buscar(CONSULTAS[i % CONSULTAS.length], 0, 20);
+        }
+
+        long[] tiempos = new long[4_000];
+        for (int i = 0; i < tiempos.length; i++) {
+            long inicio = System.nanoTime();
+            indice.buscar(CONSULTAS[i % CONSULTAS.length], 0, 20);
+            tiempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tiempos);
+        System.out.printf("Búsqueda 50k productos - p50: %dµs, p99: %dµs%n",
+                tiempos[tiempos.length / 2] / 1_000, tiempos[tiempos.length * 99 / 100] / 1_000);
+    }
+
+    private static List<ProductoDTO> catalogoSintetico(int cantidad) {
+        String[] sabores = {"chocolate", "vainilla", "frambuesa", "lúcuma", "manjar", "piña", "crème", "nuez", "limón", "café"};
+        String[] tipos = {"Torta", "Kuchen", "Pie", "Mousse", "Cheesecake", "Brazo", "Alfajor", "Tartaleta"};
+        Random random = new Random(42);
+        List<ProductoDTO> productos = new ArrayList<>(cantidad);
+        for (long id = 1; id <= cantidad; id++) {
+            String nombre = tipos[random.nextInt(tipos.length)] + " de " + sabores[random.nextInt(sabores.length)]
+                    + " " + sabores[random.nextInt(sabores.length)] + " " + id;
+            productos.add(producto(id, nombre, "Receta de temporada número " + id, id % 2 == 0 ? TORTAS : POSTRES));
+        }
+        return productos;
+    }
+
+    private static ProductoDTO producto(Long id, String nombre, String descripcion, CategoriaDTO categoria) {
+        List<VarianteProductoDTO> variantes = List.of(
+                new VarianteProductoDTO(id * 10, "8 porciones", 10000, 5, null),
+                new VarianteProductoDTO(id * 10 + 1, "15 porciones", 18000, 5, null));
+        return new ProductoDTO(id, nombre, descripcion, null, 10000, categoria, variantes, List.of());
+    }
+
+    private static List<Long> ids(IndiceBusqueda.Resultado resultado) {
+        return resultado.productos().stream().map(ProductoDTO::getId).toList();
+    }
+}
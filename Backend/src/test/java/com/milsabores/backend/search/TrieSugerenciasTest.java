@@ -0,0 +1,102 @@
+package com.milsabores.backend.search;
+
+import com.milsabores.backend.dto.SugerenciaDTO;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrieSugerenciasTest {
+
+    @Test
+    void sugerir_porPrefijoInsensibleATildesYPorPalabra() {
+        TrieSugerencias trie = TrieSugerencias.construir(1, List.of(
+                entrada(SugerenciaDTO.CATEGORIA, 1L, "Tortas Cuadradas", 1_005),
+                entrada(SugerenciaDTO.PRODUCTO, 10L, "Torta de Piña", 110),
+                entrada(SugerenciaDTO.PRODUCTO, 11L, "Brazo de Reina", 110),
+                entrada(SugerenciaDTO.PRODUCTO, 12L, "Tiramisú", 100)));
+
+        assertThat(nombres(trie.sugerir("tor", 10))).containsExactly("Tortas Cuadradas", "Torta de Piña");
+        assertThat(nombres(trie.sugerir("  TORTA  DE pi", 10))).containsExactly("Torta de Piña");
+        assertThat(nombres(trie.sugerir("reina", 10))).containsExactly("Brazo de Reina");
+        assertThat(nombres(trie.sugerir("tiramisu", 10))).containsExactly("Tiramisú");
+        assertThat(trie.sugerir("x", 10)).isEmpty();
+        assertThat(trie.sugerir("   ", 10)).isEmpty();
+    }
+
+    @Test
+    void sugerir_respetaLimiteYRanking() {
+        List<TrieSugerencias.Entrada> entradas = new ArrayList<>();
+        for (long id = 1; id <= 30; id++) {
+            entradas.add(entrada(SugerenciaDTO.PRODUCTO, id, "Kuchen " + id, (int) id));
+        }
+        TrieSugerencias trie = TrieSugerencias.construir(1, entradas);
+
+        List<SugerenciaDTO> sugerencias = trie.sugerir("kuchen", 3);
+        assertThat(sugerencias).extracting(SugerenciaDTO::getId).containsExactly(30L, 29L, 28L);
+        assertThat(trie.sugerir("kuchen", 50)).hasSize(TrieSugerencias.TOP_N);
+    }
+
+    @Test
+    void sugerir_prefijoMasLargoQueLoIndexado() {
+        List<TrieSugerencias.Entrada> entradas = new ArrayList<>();
+        entradas.add(entrada(SugerenciaDTO.PRODUCTO, 1L, "Torta de Chocolate con Frambuesa Grande", 1));
+        entradas.add(entrada(SugerenciaDTO.PRODUCTO, 2L, "Torta de Chocolate con Frutilla", 50));
+        // Más de TOP_N nombres comparten los primeros 24 caracteres y rankean antes
+        for (long id = 10; id < 10 + 2 * TrieSugerencias.TOP_N; id++) {
+            entradas.add(entrada(SugerenciaDTO.PRODUCTO, id, "Torta de Chocolate con Fudge " + id, 100));
+        }
+        TrieSugerencias trie = TrieSugerencias.construir(1, entradas);
+
+        String prefijo = "torta de chocolate con f";
+        assertThat(prefijo).hasSize(TrieSugerencias.PROFUNDIDAD_MAXIMA);
+        assertThat(trie.sugerir(prefijo, 10)).hasSize(10);
+        assertThat(nombres(trie.sugerir("Torta de Chocolate con Fram", 10)))
+                .containsExactly("Torta de Chocolate con Frambuesa Grande");
+        assertThat(nombres(trie.sugerir("torta  de chocolate con frambuesa gr", 10)))
+                .containsExactly("Torta de Chocolate con Frambuesa Grande");
+        assertThat(nombres(trie.sugerir("chocolate con frambuesa grande", 10)))
+                .containsExactly("Torta de Chocolate con Frambuesa Grande");
+        assertThat(nombres(trie.sugerir("torta de chocolate con fr", 10)))
+                .containsExactly("Torta de Chocolate con Frutilla", "Torta de Chocolate con Frambuesa Grande");
+        assertThat(trie.sugerir("torta de chocolate con fx", 10)).isEmpty();
+    }
+
+    @Test
+    void sugerir_casiSinAsignarMemoria() {
+        List<TrieSugerencias.Entrada> entradas = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            entradas.add(entrada(SugerenciaDTO.PRODUCTO, id, "Torta de Chocolate " + id, 100));
+        }
+        TrieSugerencias trie = TrieSugerencias.construir(1, entradas);
+        String[] consultas = {"t", "to", "tor", "torta", "torta d", "choc", "chocolate 12"};
+
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        int iteraciones = 200_000;
+        long suma = 0;
+        for (int i = 0; i < iteraciones; i++) {
+            suma += trie.sugerir(consultas[i % consultas.length], 8).size();
+        }
+        long antes = mx.getThreadAllocatedBytes(id);
+        for (int i = 0; i < iteraciones; i++) {
+            suma += trie.sugerir(consultas[i % consultas.length], 8).size();
+        }
+        long bytesPorConsulta = (mx.getThreadAllocatedBytes(id) - antes) / iteraciones;
+
+        assertThat(suma).isPositive();
+        // A lo más la vista del resultado (~24 bytes)
+        assertThat(bytesPorConsulta).isLessThanOrEqualTo(32);
+    }
+
+    private static TrieSugerencias.Entrada entrada(String tipo, Long id, String nombre, int puntaje) {
+        return new TrieSugerencias.Entrada(new SugerenciaDTO(tipo, id, nombre), puntaje);
+    }
+
+    private static List<String> nombres(List<SugerenciaDTO> sugerencias) {
+        return sugerencias.stream().map(SugerenciaDTO::getNombre).toList();
+    }
+}
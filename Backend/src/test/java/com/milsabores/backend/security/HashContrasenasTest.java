@@ -0,0 +1,52 @@
+package com.milsabores.backend.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HashContrasenasTest {
+
+    @Test
+    void colaLlenaRechazaDeInmediatoSinBloquearAlQueLlama() throws Exception {
+        CountDownLatch ocupado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        PasswordEncoder lento = mock(PasswordEncoder.class);
+        when(lento.matches(anyString(), anyString())).thenAnswer(invocation -> {
+            ocupado.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return true;
+        });
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        HashContrasenas hashContrasenas = new HashContrasenas(lento, registro, 1, 1);
+
+        try {
+            // Uno en el thread, uno en la cola
+            CompletableFuture<Boolean> enCurso = hashContrasenas.coincide("a", "hash");
+            assertThat(ocupado.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<Boolean> enCola = hashContrasenas.coincide("b", "hash");
+
+            assertThatThrownBy(() -> hashContrasenas.coincide("c", "hash"))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> hashContrasenas.codificarYEsperar("c"))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(registro.get("seguridad.bcrypt.rechazos").counter().count()).isEqualTo(2.0);
+
+            liberar.countDown();
+            assertThat(enCurso.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(enCola.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            liberar.countDown();
+            hashContrasenas.detener();
+        }
+    }
+}
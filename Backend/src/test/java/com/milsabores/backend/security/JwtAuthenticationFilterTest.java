@@ -0,0 +1,127 @@
+package com.milsabores.backend.security;
+
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private final UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+    private final CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+    private final VersionesToken versionesToken = new VersionesToken(usuarioRepository,
+            mock(PlatformTransactionManager.class), 300, 100);
+    private final JwtUtil jwtUtil = new JwtUtil("clave-de-prueba-para-firmar-tokens-hmac-sha-256-bits", 60_000L, 100);
+    private final JwtAuthenticationFilter filtro = new JwtAuthenticationFilter();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filtro, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filtro, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filtro, "versionesToken", versionesToken);
+        ReflectionTestUtils.setField(filtro, "soloClaims", true);
+    }
+
+    @AfterEach
+    void limpiar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void autenticaConLosClaimsSinConsultarUsuarios() throws Exception {
+        when(usuarioRepository.findTokenVersionById(7L)).thenReturn(Optional.of(0));
+        String token = jwtUtil.generateToken(usuario(7L, "admin@milsabores.cl", "ADMIN", 0));
+
+        for (int i = 0; i < 3; i++) {
+            Authentication autenticacion = filtrar(token);
+            assertThat(autenticacion).isNotNull();
+            assertThat(autenticacion.getName()).isEqualTo("admin@milsabores.cl");
+            assertThat(autenticacion.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                    .containsExactly("ROLE_ADMIN");
+        }
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        // La versión se consulta una vez y queda en memoria
+        verify(usuarioRepository, times(1)).findTokenVersionById(7L);
+    }
+
+    @Test
+    void cambioDeRolOEliminacionRevocanLosTokensEmitidos() throws Exception {
+        when(usuarioRepository.findTokenVersionById(7L)).thenReturn(Optional.of(0));
+        String anterior = jwtUtil.generateToken(usuario(7L, "ana@milsabores.cl", "ADMIN", 0));
+        assertThat(filtrar(anterior)).isNotNull();
+
+        versionesToken.onUsuarioModificado(new UsuarioModificadoEvent(7L, 1));
+        assertThat(filtrar(anterior)).isNull();
+        String nuevo = jwtUtil.generateToken(usuario(7L, "ana@milsabores.cl", "CLIENTE", 1));
+        assertThat(filtrar(nuevo).getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_CLIENTE");
+
+        versionesToken.onUsuarioModificado(new UsuarioModificadoEvent(7L, null));
+        assertThat(filtrar(nuevo)).isNull();
+
+        // Usuario inexistente en la BD (por ejemplo eliminado desde otra instancia)
+        when(usuarioRepository.findTokenVersionById(8L)).thenReturn(Optional.empty());
+        assertThat(filtrar(jwtUtil.generateToken(usuario(8L, "ex@milsabores.cl", "CLIENTE", 0)))).isNull();
+    }
+
+    @Test
+    void cargaConcurrenteConVersionAnteriorNoReviveElTokenRevocado() throws Exception {
+        String anterior = jwtUtil.generateToken(usuario(9L, "pia@milsabores.cl", "CLIENTE", 0));
+        // La consulta lee la versión 0 y, antes de guardarla, se confirma el cambio de contraseña
+        when(usuarioRepository.findTokenVersionById(9L)).thenAnswer(invocacion -> {
+            versionesToken.onUsuarioModificado(new UsuarioModificadoEvent(9L, 1));
+            return Optional.of(0);
+        });
+        assertThat(filtrar(anterior)).isNull();
+        assertThat(versionesToken.vigente(9L, 0)).isFalse();
+        assertThat(versionesToken.vigente(9L, 1)).isTrue();
+
+        // Igual con una eliminación: ELIMINADO no se reemplaza por la versión leída
+        when(usuarioRepository.findTokenVersionById(10L)).thenAnswer(invocacion -> {
+            versionesToken.onUsuarioModificado(new UsuarioModificadoEvent(10L, null));
+            return Optional.of(3);
+        });
+        assertThat(versionesToken.vigente(10L, 3)).isFalse();
+        assertThat(versionesToken.vigente(10L, 3)).isFalse();
+    }
+
+    private Authentication filtrar(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ordenes");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockFilterChain cadena = new MockFilterChain();
+        filtro.doFilter(request, new MockHttpServletResponse(), cadena);
+        assertThat(cadena.getRequest()).isNotNull();
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static Usuario usuario(Long id, String correo, String rol, int version) {
+        Usuario usuario = new Usuario();
+        usuario.setId(id);
+        usuario.setCorreo(correo);
+        usuario.setRol(new Rol(null, rol));
+        usuario.setTokenVersion(version);
+        return usuario;
+    }
+}
@@ -0,0 +1,122 @@
+package com.milsabores.backend.security;
+
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.repository.UsuarioRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Costo por request de JwtAuthenticationFilter con y sin la caché de tokens verificados
+ *
+ * No corre con mvn test (no es *Test). Para ejecutarlo:
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.milsabores.backend.security.JwtFiltroBenchmark
+ *
+ * filtro*: request completo por el filtro (verificación + versión + principal)
+ * verificar*: solo JwtUtil.verificar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtFiltroBenchmark {
+
+    private static final String SECRETO = "milsabores-secret-key-super-secure-2024-pasteleria-jwt-token-security";
+
+    private JwtUtil conCache;
+    private JwtUtil sinCache;
+    private JwtAuthenticationFilter filtroConCache;
+    private JwtAuthenticationFilter filtroSinCache;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        conCache = new JwtUtil(SECRETO, 3_600_000L, 5000);
+        sinCache = new JwtUtil(SECRETO, 3_600_000L, 0);
+
+        Usuario usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setCorreo("admin@milsabores.cl");
+        usuario.setRol(new Rol(1L, "ADMIN"));
+        usuario.setTokenVersion(0);
+        token = conCache.generateToken(usuario);
+
+        UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+        when(usuarioRepository.findTokenVersionById(1L)).thenReturn(Optional.of(0));
+        VersionesToken versionesToken = new VersionesToken(usuarioRepository, mock(PlatformTransactionManager.class), 300, 100);
+
+        filtroConCache = filtro(conCache, versionesToken);
+        filtroSinCache = filtro(sinCache, versionesToken);
+    }
+
+    @Benchmark
+    public Authentication filtroConCache() throws Exception {
+        return filtrar(filtroConCache);
+    }
+
+    @Benchmark
+    public Authentication filtroSinCache() throws Exception {
+        return filtrar(filtroSinCache);
+    }
+
+    @Benchmark
+    public TokenVerificado verificarConCache() {
+        return conCache.verificar(token);
+    }
+
+    @Benchmark
+    public TokenVerificado verificarSinCache() {
+        return sinCache.verificar(token);
+    }
+
+    private Authentication filtrar(JwtAuthenticationFilter filtro) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ordenes");
+        request.addHeader("Authorization", "Bearer " + token);
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return autenticacion;
+    }
+
+    private static JwtAuthenticationFilter filtro(JwtUtil jwtUtil, VersionesToken versionesToken) {
+        JwtAuthenticationFilter filtro = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filtro, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filtro, "userDetailsService", mock(CustomUserDetailsService.class));
+        ReflectionTestUtils.setField(filtro, "versionesToken", versionesToken);
+        ReflectionTestUtils.setField(filtro, "soloClaims", true);
+        return filtro;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtFiltroBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,57 @@
+package com.milsabores.backend.security;
+
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static final String SECRETO = "clave-de-prueba-para-firmar-tokens-hmac-sha-256-bits";
+
+    @Test
+    void verificaUnaVezYReutilizaElResultado() {
+        JwtUtil jwtUtil = new JwtUtil(SECRETO, 60_000L, 10);
+        String token = jwtUtil.generateToken(usuario());
+
+        TokenVerificado primero = jwtUtil.verificar(token);
+        assertThat(primero.correo()).isEqualTo("cliente@milsabores.cl");
+        assertThat(primero.rol()).isEqualTo("CLIENTE");
+        assertThat(primero.usuarioId()).isEqualTo(3L);
+        assertThat(primero.version()).isEqualTo(2);
+        // Acierto de caché: misma vista, sin volver a parsear
+        assertThat(jwtUtil.verificar(token)).isSameAs(primero);
+        assertThat(jwtUtil.extractUsername(token)).isEqualTo("cliente@milsabores.cl");
+
+        // Otra firma: no comparte la entrada de caché y falla la verificación
+        String alterado = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertThatThrownBy(() -> jwtUtil.verificar(alterado)).isInstanceOf(JwtException.class);
+        String otraClave = new JwtUtil(SECRETO.replace('a', 'b'), 60_000L, 10).generateToken(usuario());
+        assertThatThrownBy(() -> jwtUtil.verificar(otraClave)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void tokenEnCacheExpiraIgual() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil(SECRETO, 1_000L, 10);
+        String token = jwtUtil.generateToken(usuario());
+        assertThat(jwtUtil.verificar(token)).isNotNull();
+
+        Thread.sleep(1_100);
+
+        assertThatThrownBy(() -> jwtUtil.verificar(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThatThrownBy(() -> jwtUtil.verificar(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    private static Usuario usuario() {
+        Usuario usuario = new Usuario();
+        usuario.setId(3L);
+        usuario.setCorreo("cliente@milsabores.cl");
+        usuario.setRol(new Rol(2L, "CLIENTE"));
+        usuario.setTokenVersion(2);
+        return usuario;
+    }
+}
@@ -0,0 +1,88 @@
+package com.milsabores.backend.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimiteSolicitudesFilterTest {
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    // login: ráfaga de 3, luego 1 por minuto
+    private final LimiteSolicitudesFilter filtro = new LimiteSolicitudesFilter(registro, true, "X-Forwarded-For", 100,
+            3, 1, 3, 5, 3, 5, 30, 60);
+
+    @Test
+    void superadaLaRafagaResponde429PorIpYRuta() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(enviar("POST", "/api/auth/login", "1.1.1.1").getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rechazada = enviar("POST", "/api/auth/login", "1.1.1.1");
+        assertThat(rechazada.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(rechazada.getHeader("Retry-After"))).isBetween(1L, 60L);
+        assertThat(rechazada.getContentAsString()).contains("error");
+
+        // Otra IP, otra ruta con límite y rutas sin límite siguen pasando
+        assertThat(enviar("POST", "/api/auth/login", "2.2.2.2").getStatus()).isEqualTo(200);
+        assertThat(enviar("POST", "/api/auth/registro", "1.1.1.1").getStatus()).isEqualTo(200);
+        for (int i = 0; i < 5; i++) {
+            assertThat(enviar("GET", "/api/productos", "1.1.1.1").getStatus()).isEqualTo(200);
+        }
+
+        assertThat(registro.get("limite.solicitudes.rechazadas").tag("ruta", "login").counter().count()).isEqualTo(1.0);
+        assertThat(registro.get("limite.clientes").tag("ruta", "login").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void usaElUltimoValorDeLaCabeceraDelProxy() throws Exception {
+        // El cliente puede anteponer valores falsos; el último lo agrega el proxy
+        for (int i = 0; i < 3; i++) {
+            assertThat(enviar("POST", "/api/auth/login", "falsa-" + i + ", 3.3.3.3").getStatus()).isEqualTo(200);
+        }
+        assertThat(enviar("POST", "/api/auth/login", "otra, 3.3.3.3").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void pathCodificadoCuentaComoLaMismaRuta() throws Exception {
+        // Spring MVC decodifica el path antes de elegir el handler: todas llegan al login
+        String[] variantes = {"/api/auth/login", "/api/auth/%6Cogin", "/api/auth/%6c%6F%67in", "/api//auth/login",
+                "/api/auth/login;jsessionid=x"};
+        for (int i = 0; i < 3; i++) {
+            assertThat(enviar("POST", variantes[i], "4.4.4.4").getStatus()).isEqualTo(200);
+        }
+        for (int i = 3; i < variantes.length; i++) {
+            assertThat(enviar("POST", variantes[i], "4.4.4.4").getStatus()).isEqualTo(429);
+        }
+        assertThat(enviar("POST", "/api/auth/%6Cogin", "4.4.4.4").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void cubetaRecargaUnTokenPorIntervalo() {
+        CubetasTokens cubetas = new CubetasTokens(2, 60, 100); // un token por segundo
+        long t0 = 1_000_000_000L;
+
+        assertThat(cubetas.intentar("a", t0)).isZero();
+        assertThat(cubetas.intentar("a", t0)).isZero();
+        assertThat(cubetas.intentar("a", t0)).isEqualTo(1_000_000_000L);
+        assertThat(cubetas.intentar("a", t0 + 999_999_999L)).isEqualTo(1L);
+        assertThat(cubetas.intentar("a", t0 + 1_000_000_000L)).isZero();
+
+        // Acotado: los clientes menos recientes se desalojan
+        for (int i = 0; i < 1_000; i++) {
+            cubetas.intentar("cliente-" + i, t0);
+        }
+        assertThat(cubetas.clientes()).isLessThanOrEqualTo(100);
+    }
+
+    private MockHttpServletResponse enviar(String metodo, String uri, String forwardedFor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, uri);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
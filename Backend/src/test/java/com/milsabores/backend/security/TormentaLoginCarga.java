@@ -0,0 +1,179 @@
+package com.milsabores.backend.security;
+
+import com.milsabores.backend.BackendApplication;
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.repository.RolRepository;
+import com.milsabores.backend.repository.UsuarioRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prueba de carga: latencia del catálogo durante una ola de logins
+ *
+ * Levanta la aplicación sobre H2 en memoria (sin Postgres) dos veces:
+ * - "sin limite": pool BCrypt tan grande como los threads de Tomcat (como
+ *   cuando el hash corría en el request)
+ * - "acotado": configuración por defecto (seguridad.bcrypt.hilos / cola)
+ * y en cada una mide GET /api/productos solo y con clientes haciendo login
+ * en paralelo. Imprime p50/p99 del catálogo y logins OK / 503 / otros.
+ *
+ * No corre con mvn test (no es *Test). Para ejecutarlo:
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.milsabores.backend.security.TormentaLoginCarga [clientes] [segundos]
+ */
+public class TormentaLoginCarga {
+
+    private static final String CORREO = "carga@milsabores.cl";
+    private static final String PASSWORD = "carga-1234";
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newCachedThreadPool())
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        // devtools relanzaría main() con los argumentos de Spring
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        TormentaLoginCarga carga = new TormentaLoginCarga();
+        List<String> resultados = new ArrayList<>();
+        resultados.add(carga.escenario("sin limite", clientes, segundos,
+                "--seguridad.bcrypt.hilos=200", "--seguridad.bcrypt.cola=100000"));
+        resultados.add(carga.escenario("acotado", clientes, segundos));
+
+        System.out.println();
+        System.out.printf("Catálogo (GET /api/productos) con %d clientes haciendo login, %ds por medición%n", clientes, segundos);
+        resultados.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private String escenario(String nombre, int clientes, int segundos, String... propiedades) throws Exception {
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:carga;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                // Todos los clientes salen de 127.0.0.1: sin límite por IP
+                "--limite.habilitado=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.milsabores=WARN"));
+        argumentos.addAll(List.of(propiedades));
+
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(BackendApplication.class)
+                .run(argumentos.toArray(String[]::new))) {
+            crearUsuario(app);
+            String base = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+
+            // Calentamiento: JIT, caché del catálogo, primer login
+            medirCatalogo(base, 3);
+            login(base);
+
+            Percentiles solo = medirCatalogo(base, segundos);
+
+            AtomicBoolean activa = new AtomicBoolean(true);
+            AtomicInteger ok = new AtomicInteger();
+            AtomicInteger saturado = new AtomicInteger();
+            AtomicInteger otros = new AtomicInteger();
+            ExecutorService tormenta = Executors.newFixedThreadPool(clientes);
+            for (int i = 0; i < clientes; i++) {
+                tormenta.submit(() -> {
+                    while (activa.get()) {
+                        int estado = login(base);
+                        (estado == 200 ? ok : estado == 503 ? saturado : otros).incrementAndGet();
+                    }
+                });
+            }
+            Percentiles conTormenta = medirCatalogo(base, segundos);
+            activa.set(false);
+            tormenta.shutdown();
+            tormenta.awaitTermination(30, TimeUnit.SECONDS);
+
+            return String.format("  %-10s | solo: %s | con logins: %s | logins OK: %d, 503: %d, otros: %d",
+                    nombre, solo, conTormenta, ok.get(), saturado.get(), otros.get());
+        }
+    }
+
+    private static void crearUsuario(ConfigurableApplicationContext app) {
+        RolRepository roles = app.getBean(RolRepository.class);
+        Rol cliente = roles.findByNombre("CLIENTE").orElseGet(() -> roles.save(new Rol(null, "CLIENTE")));
+        Usuario usuario = new Usuario();
+        usuario.setRut("11111111-1");
+        usuario.setNombre("Carga");
+        usuario.setApellido("Prueba");
+        usuario.setCorreo(CORREO);
+        usuario.setPassword(app.getBean(PasswordEncoder.class).encode(PASSWORD));
+        usuario.setDireccion("Calle 1");
+        usuario.setRegion("RM");
+        usuario.setComuna("Santiago");
+        usuario.setRol(cliente);
+        app.getBean(UsuarioRepository.class).save(usuario);
+    }
+
+    /**
+     * GET /api/productos secuencial durante el tiempo indicado
+     */
+    private Percentiles medirCatalogo(String base, int segundos) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/api/productos")).GET().build();
+        List<Long> latencias = new ArrayList<>();
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        while (System.nanoTime() < fin) {
+            long inicio = System.nanoTime();
+            http.send(request, HttpResponse.BodyHandlers.discarding());
+            latencias.add(System.nanoTime() - inicio);
+        }
+        return new Percentiles(latencias);
+    }
+
+    private int login(String base) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"correo\":\"" + CORREO + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private record Percentiles(List<Long> latencias) {
+
+        Percentiles {
+            latencias = new ArrayList<>(latencias);
+            Collections.sort(latencias);
+        }
+
+        private double ms(double percentil) {
+            int indice = (int) Math.min(latencias.size() - 1, Math.ceil(percentil * latencias.size()) - 1);
+            return latencias.get(Math.max(indice, 0)) / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d p50=%.1fms p99=%.1fms", latencias.size(), ms(0.50), ms(0.99));
+        }
+    }
+}
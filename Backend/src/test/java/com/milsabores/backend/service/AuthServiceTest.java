@@ -0,0 +1,139 @@
+package com.milsabores.backend.service;
+
+import com.milsabores.backend.dto.LoginRequest;
+import com.milsabores.backend.dto.LoginResponse;
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.repository.RolRepository;
+import com.milsabores.backend.repository.UsuarioRepository;
+import com.milsabores.backend.security.HashContrasenas;
+import com.milsabores.backend.security.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTest {
+
+    // Costo mínimo de BCrypt: el test no mide tiempos
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private final HashContrasenas hashContrasenas = new HashContrasenas(passwordEncoder, new SimpleMeterRegistry(), 2, 16);
+    private final UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+    private final JwtUtil jwtUtil = new JwtUtil("clave-de-prueba-para-firmar-tokens-hmac-sha-256-bits", 60_000L, 100);
+    // Las escrituras después del hash van aquí, nunca a los threads bcrypt-N
+    private final ExecutorService ejecutorBd = Executors.newSingleThreadExecutor(r -> new Thread(r, "bd-test"));
+    private final AuthService authService = new AuthService(usuarioRepository, mock(UsuarioService.class),
+            jwtUtil, hashContrasenas, passwordEncoder, ejecutorBd);
+
+    @AfterEach
+    void detener() {
+        hashContrasenas.detener();
+        ejecutorBd.shutdownNow();
+    }
+
+    @Test
+    void loginConsultaElUsuarioUnaSolaVez() {
+        Usuario usuario = usuario(passwordEncoder.encode("secreta"));
+        when(usuarioRepository.findConRolByCorreo("ana@milsabores.cl")).thenReturn(Optional.of(usuario));
+
+        LoginResponse respuesta = authService.authenticate(new LoginRequest("ana@milsabores.cl", "secreta")).join();
+
+        assertThat(respuesta.isSuccess()).isTrue();
+        assertThat(respuesta.getRol()).isEqualTo("CLIENTE");
+        assertThat(jwtUtil.verificar(respuesta.getToken()).usuarioId()).isEqualTo(3L);
+        verify(usuarioRepository, times(1)).findConRolByCorreo("ana@milsabores.cl");
+        // Mismo costo que el configurado: no hay rehash
+        verify(usuarioRepository, never()).actualizarHash(eq(3L), anyString(), anyString());
+
+        assertThat(authService.authenticate(new LoginRequest("ana@milsabores.cl", "otra")).join().isSuccess()).isFalse();
+    }
+
+    @Test
+    void correoInexistenteRespondeComoCredencialesInvalidas() {
+        when(usuarioRepository.findConRolByCorreo(anyString())).thenReturn(Optional.empty());
+
+        LoginResponse respuesta = authService.authenticate(new LoginRequest("nadie@milsabores.cl", "x")).join();
+
+        assertThat(respuesta.isSuccess()).isFalse();
+        assertThat(respuesta.getMensaje()).isEqualTo("Correo o contraseña incorrectos");
+        verify(usuarioRepository, never()).findByCorreo(anyString());
+    }
+
+    @Test
+    void hashConCostoAnteriorSeRecalculaEnElLogin() {
+        String anterior = new BCryptPasswordEncoder(4).encode("secreta");
+        PasswordEncoder costoNuevo = new BCryptPasswordEncoder(5);
+        HashContrasenas hashNuevo = new HashContrasenas(costoNuevo, new SimpleMeterRegistry(), 1, 4);
+        AuthService servicio = new AuthService(usuarioRepository, mock(UsuarioService.class), jwtUtil, hashNuevo, costoNuevo, ejecutorBd);
+        when(usuarioRepository.findConRolByCorreo("ana@milsabores.cl")).thenReturn(Optional.of(usuario(anterior)));
+        AtomicReference<String> threadUpdate = new AtomicReference<>();
+        when(usuarioRepository.actualizarHash(eq(3L), anyString(), anyString())).thenAnswer(invocacion -> {
+            threadUpdate.set(Thread.currentThread().getName());
+            return 1;
+        });
+
+        assertThat(servicio.authenticate(new LoginRequest("ana@milsabores.cl", "secreta")).join().isSuccess()).isTrue();
+
+        verify(usuarioRepository, timeout(5_000)).actualizarHash(eq(3L), eq(anterior),
+                argThat(nuevo -> nuevo.startsWith("$2a$05$") && costoNuevo.matches("secreta", nuevo)));
+        assertThat(threadUpdate.get()).isEqualTo("bd-test");
+        hashNuevo.detener();
+    }
+
+    @Test
+    void registroGuardaFueraDeLosThreadsBcrypt() {
+        UsuarioService usuarioService = new UsuarioService(usuarioRepository, mock(RolRepository.class), hashContrasenas,
+                mock(ApplicationEventPublisher.class), mock(PlatformTransactionManager.class), ejecutorBd);
+        AuthService servicio = new AuthService(usuarioRepository, usuarioService, jwtUtil, hashContrasenas, passwordEncoder, ejecutorBd);
+        AtomicReference<String> threadSave = new AtomicReference<>();
+        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocacion -> {
+            threadSave.set(Thread.currentThread().getName());
+            Usuario guardado = invocacion.getArgument(0);
+            guardado.setId(3L);
+            return guardado;
+        });
+
+        Usuario nuevo = usuario("secreta-1234");
+        nuevo.setId(null);
+        nuevo.setRut("11111111-1");
+        nuevo.setNombre("Ana");
+        nuevo.setApellido("Pérez");
+        nuevo.setDireccion("Calle 1");
+        nuevo.setRegion("RM");
+        nuevo.setComuna("Santiago");
+        LoginResponse respuesta = servicio.registrar(nuevo).join();
+
+        assertThat(respuesta.isSuccess()).isTrue();
+        assertThat(threadSave.get()).isEqualTo("bd-test");
+        assertThat(passwordEncoder.matches("secreta-1234", nuevo.getPassword())).isTrue();
+    }
+
+    private static Usuario usuario(String hash) {
+        Usuario usuario = new Usuario();
+        usuario.setId(3L);
+        usuario.setCorreo("ana@milsabores.cl");
+        usuario.setPassword(hash);
+        usuario.setRol(new Rol(2L, "CLIENTE"));
+        return usuario;
+    }
+}
@@ -0,0 +1,226 @@
+package com.milsabores.backend.service;
+
+import com.milsabores.backend.estadisticas.AcumuladoVentas;
+import com.milsabores.backend.inventario.LibroStock;
+import com.milsabores.backend.model.Orden;
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.repository.OrdenRepository;
+import com.milsabores.backend.repository.RolRepository;
+import com.milsabores.backend.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que las estadísticas leídas de ventas_diarias / ventas_mensuales
+ * (reconstruidas desde ordenes) entreguen el mismo JSON que la agrupación en Java
+ * sobre entidades, y compara ambos caminos en latencia y bytes asignados con un
+ * historial sintético grande.
+ *
+ * Benchmark (no corre por defecto):
+ *   mvn test -Dtest=EstadisticasVentasTest -Dbenchmark=true [-Dbenchmark.ordenes=1000000]
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:estadisticas;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=0",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "stock.ledger.habilitado=false",
+        "logging.level.com.milsabores.backend=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.engine.transaction.internal.TransactionImpl=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrdenService.class, LibroStock.class, AcumuladoVentas.class, SimpleMeterRegistry.class})
+class EstadisticasVentasTest {
+
+    private static final String[] NOMBRES_MESES = {"Enero", "Febrero", "Marzo", "Abril", "Mayo", "Junio",
+            "Julio", "Agosto", "Septiembre", "Octubre", "Noviembre", "Diciembre"};
+
+    @Autowired private OrdenService ordenService;
+    @Autowired private AcumuladoVentas acumuladoVentas;
+    @Autowired private OrdenRepository ordenRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private Long usuarioId;
+
+    @BeforeEach
+    void poblarUsuario() {
+        Rol rol = rolRepository.save(new Rol(null, "CLIENTE"));
+        Usuario usuario = new Usuario();
+        usuario.setRut("88888888-8");
+        usuario.setNombre("Cliente");
+        usuario.setCorreo("estadisticas@test.cl");
+        usuario.setPassword("x");
+        usuario.setRol(rol);
+        usuarioId = usuarioRepository.save(usuario).getId();
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM ventas_diarias");
+        jdbcTemplate.update("DELETE FROM ventas_mensuales");
+        ordenRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+        rolRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void acumuladoEntregaLoMismoQueAgruparEnJava() {
+        insertarOrdenes(2_000, 200);
+        acumuladoVentas.reconstruir();
+
+        assertThat(ordenService.obtenerVentasUltimos15Dias()).isEqualTo(enTransaccion(this::ultimos15DiasEnJava));
+        assertThat(ordenService.obtenerVentasPrimerSemestre()).isEqualTo(enTransaccion(this::semestreEnJava));
+        assertThat(ordenService.obtenerResumenGeneral()).containsEntry("totalOrdenes", 2_000L);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkAcumuladoVsEntidades() {
+        int ordenes = Integer.getInteger("benchmark.ordenes", 1_000_000);
+        insertarOrdenes(ordenes, 180);
+        acumuladoVentas.reconstruir();
+
+        medir("15 dias  - entidades + Java", () -> enTransaccion(this::ultimos15DiasEnJava));
+        medir("15 dias  - ventas_diarias  ", ordenService::obtenerVentasUltimos15Dias);
+        medir("6 meses  - entidades + Java", () -> enTransaccion(this::semestreEnJava));
+        medir("6 meses  - ventas_mensuales", ordenService::obtenerVentasPrimerSemestre);
+    }
+
+    /**
+     * Mejor de 3 corridas (tras 1 de calentamiento): tiempo y bytes asignados por el thread
+     */
+    private void medir(String nombre, Supplier<Map<String, Object>> camino) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        camino.get();
+        long mejorMs = Long.MAX_VALUE;
+        long mejorBytes = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long bytesAntes = threads.getCurrentThreadAllocatedBytes();
+            long inicio = System.nanoTime();
+            camino.get();
+            mejorMs = Math.min(mejorMs, (System.nanoTime() - inicio) / 1_000_000);
+            mejorBytes = Math.min(mejorBytes, threads.getCurrentThreadAllocatedBytes() - bytesAntes);
+        }
+        System.out.printf("%s: %6d ms, %8.1f MB asignados%n", nombre, mejorMs, mejorBytes / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Órdenes repartidas en los últimos `dias` días, insertadas por JDBC en lotes
+     */
+    private void insertarOrdenes(int cantidad, int dias) {
+        LocalDateTime ahora = LocalDateTime.now();
+        int lote = 10_000;
+        for (int desde = 0; desde < cantidad; desde += lote) {
+            List<Object[]> filas = new ArrayList<>(lote);
+            for (int i = desde; i < Math.min(desde + lote, cantidad); i++) {
+                LocalDateTime fecha = ahora.minusMinutes((long) i * dias * 24 * 60 / cantidad);
+                filas.add(new Object[]{i + 1L, Timestamp.valueOf(fecha), 1000 + (i % 50) * 500, "COMPLETADA", usuarioId});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO ordenes (id, fecha, total, estado, usuario_id) VALUES (?, ?, ?, ?, ?)", filas);
+        }
+    }
+
+    private <T> T enTransaccion(Supplier<T> accion) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setReadOnly(true);
+        return transaccion.execute(status -> accion.get());
+    }
+
+    // ========== Camino anterior: entidades completas agrupadas en Java ==========
+
+    private Map<String, Object> ultimos15DiasEnJava() {
+        LocalDateTime fin = LocalDateTime.now();
+        LocalDateTime inicio = fin.minusDays(15).with(LocalTime.MIN);
+        List<Orden> ordenes = ordenRepository.findByFechaBetweenOrderByFechaDesc(inicio, fin);
+
+        Map<LocalDate, Long> ventasPorDia = new TreeMap<>();
+        for (int i = 0; i < 15; i++) {
+            ventasPorDia.put(LocalDate.now().minusDays(i), 0L);
+        }
+        for (Orden orden : ordenes) {
+            ventasPorDia.merge(orden.getFecha().toLocalDate(), orden.getTotal().longValue(), Long::sum);
+        }
+        List<Map<String, Object>> datos = ventasPorDia.entrySet().stream()
+                .map(entry -> {
+                    Map<String, Object> punto = new HashMap<>();
+                    punto.put("fecha", entry.getKey().toString());
+                    punto.put("total", entry.getValue());
+                    return punto;
+                })
+                .collect(Collectors.toList());
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("datos", datos);
+        resultado.put("totalVendido", ventasPorDia.values().stream().mapToLong(Long::longValue).sum());
+        resultado.put("cantidadOrdenes", (long) ordenes.size());
+        resultado.put("periodo", "Últimos 15 días");
+        return resultado;
+    }
+
+    private Map<String, Object> semestreEnJava() {
+        LocalDate fechaActual = LocalDate.now();
+        LocalDateTime fin = fechaActual.atTime(23, 59, 59);
+        LocalDateTime inicio = fechaActual.minusMonths(5).withDayOfMonth(1).atStartOfDay();
+        List<Orden> ordenes = ordenRepository.findByFechaBetweenOrderByFechaDesc(inicio, fin);
+
+        Map<String, Long> ventasPorMes = new LinkedHashMap<>();
+        for (int i = 5; i >= 0; i--) {
+            ventasPorMes.put(NOMBRES_MESES[fechaActual.minusMonths(i).getMonthValue() - 1], 0L);
+        }
+        for (Orden orden : ordenes) {
+            ventasPorMes.merge(NOMBRES_MESES[orden.getFecha().getMonthValue() - 1], orden.getTotal().longValue(), Long::sum);
+        }
+        List<Map<String, Object>> datos = ventasPorMes.entrySet().stream()
+                .map(entry -> {
+                    Map<String, Object> punto = new HashMap<>();
+                    punto.put("mes", entry.getKey());
+                    punto.put("total", entry.getValue());
+                    return punto;
+                })
+                .collect(Collectors.toList());
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("datos", datos);
+        resultado.put("totalVendido", ventasPorMes.values().stream().mapToLong(Long::longValue).sum());
+        resultado.put("cantidadOrdenes", (long) ordenes.size());
+        resultado.put("periodo", "Últimos 6 Meses");
+        return resultado;
+    }
+}
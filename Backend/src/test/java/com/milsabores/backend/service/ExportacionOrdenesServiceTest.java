@@ -0,0 +1,168 @@
+package com.milsabores.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milsabores.backend.dto.FiltroOrdenes;
+import com.milsabores.backend.exception.ServicioSaturadoException;
+import com.milsabores.backend.model.Categoria;
+import com.milsabores.backend.model.DetalleOrden;
+import com.milsabores.backend.model.Orden;
+import com.milsabores.backend.model.Producto;
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.model.VarianteProducto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica el contenido de la exportación CSV/NDJSON: una fila por línea de
+ * orden (CSV), un objeto por orden (NDJSON), escape de texto y filtros.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "ordenes.exportacion.fetch-size=2",
+        "logging.level.org.hibernate.SQL=WARN"
+})
+@Import({ExportacionOrdenesService.class, ObjectMapper.class})
+class ExportacionOrdenesServiceTest {
+
+    private static final int ORDENES = 6;
+    private static final int DETALLES_POR_ORDEN = 2;
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private ExportacionOrdenesService exportacionService;
+    @Autowired private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void poblarOrdenes() {
+        Rol rol = entityManager.persist(new Rol(null, "CLIENTE"));
+        Usuario usuario = new Usuario();
+        usuario.setRut("77777777-7");
+        usuario.setNombre("Ana");
+        usuario.setApellido("Pérez");
+        usuario.setCorreo("contabilidad@test.cl");
+        usuario.setPassword("x");
+        usuario.setRol(rol);
+        entityManager.persist(usuario);
+
+        Categoria categoria = entityManager.persist(new Categoria(null, "Tortas", "Tortas de prueba", null));
+        Producto producto = new Producto();
+        producto.setNombre("Torta \"Especial\", grande");
+        producto.setPrecioBase(9000);
+        producto.setCategoria(categoria);
+        entityManager.persist(producto);
+        VarianteProducto variante = entityManager.persist(new VarianteProducto(null, "=SUMA(A1)", 9000, 10, null, producto));
+
+        for (int i = 0; i < ORDENES; i++) {
+            Orden orden = new Orden();
+            orden.setUsuario(usuario);
+            orden.setFecha(LocalDateTime.of(2025, 12, 1, 10, 0).plusDays(i));
+            orden.setTotal(9000 * DETALLES_POR_ORDEN);
+            orden.setEstado(i == 0 ? "CANCELADA" : "COMPLETADA");
+            entityManager.persist(orden);
+            for (int d = 0; d < DETALLES_POR_ORDEN; d++) {
+                entityManager.persist(new DetalleOrden(null, 1, 9000, 9000, orden, producto, d == 0 ? variante : null));
+            }
+        }
+        // Orden sin líneas: aparece igual en la exportación
+        Orden vacia = new Orden(null, LocalDateTime.of(2025, 12, 31, 23, 0), 0, "PENDIENTE", usuario, null);
+        entityManager.persist(vacia);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void csvTieneUnaFilaPorLineaDeOrdenConTextoEscapado() throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        long filas = exportacionService.exportar(FiltroOrdenes.builder().build(), ExportacionOrdenesService.Formato.CSV, salida);
+
+        List<String> lineas = salida.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(filas).isEqualTo(ORDENES * DETALLES_POR_ORDEN + 1);
+        assertThat(lineas).hasSize((int) filas + 1);
+        assertThat(lineas.get(0)).startsWith("orden_id,fecha,estado,total");
+        assertThat(lineas.get(1))
+                .contains(",CANCELADA,")
+                .contains(",Ana Pérez,")
+                .contains(",\"Torta \"\"Especial\"\", grande\",")
+                .contains(",'=SUMA(A1),");
+        // La orden sin líneas va al final con las columnas de detalle vacías
+        assertThat(lineas.get(lineas.size() - 1)).contains(",PENDIENTE,").endsWith(",,,,,,,,");
+    }
+
+    @Test
+    void ndjsonTieneUnObjetoPorOrdenConSusLineas() throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        long ordenes = exportacionService.exportar(FiltroOrdenes.builder().build(), ExportacionOrdenesService.Formato.NDJSON, salida);
+
+        List<String> lineas = salida.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(ordenes).isEqualTo(ORDENES + 1);
+        assertThat(lineas).hasSize(ORDENES + 1);
+        JsonNode primera = objectMapper.readTree(lineas.get(0));
+        assertThat(primera.get("estado").asText()).isEqualTo("CANCELADA");
+        assertThat(primera.get("usuario").get("correo").asText()).isEqualTo("contabilidad@test.cl");
+        assertThat(primera.get("detalles")).hasSize(DETALLES_POR_ORDEN);
+        assertThat(primera.get("detalles").get(1).get("varianteId").isNull()).isTrue();
+        assertThat(objectMapper.readTree(lineas.get(ORDENES)).get("detalles")).isEmpty();
+    }
+
+    @Test
+    void filtraPorEstado() throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        FiltroOrdenes completadas = FiltroOrdenes.builder().estado("COMPLETADA").build();
+
+        long ordenes = exportacionService.exportar(completadas, ExportacionOrdenesService.Formato.NDJSON, salida);
+
+        assertThat(ordenes).isEqualTo(ORDENES - 1);
+    }
+
+    @Test
+    void unaSolaExportacionALaVez() throws Exception {
+        FiltroOrdenes filtro = FiltroOrdenes.builder().build();
+        StreamingResponseBody primera = exportacionService.preparar(filtro, ExportacionOrdenesService.Formato.CSV);
+        StreamingResponseBody carrera = exportacionService.preparar(filtro, ExportacionOrdenesService.Formato.CSV);
+
+        // Mientras la primera escribe, no se puede preparar ni empezar otra
+        primera.writeTo(new ByteArrayOutputStream() {
+            @Override
+            public void write(byte[] b, int off, int len) {
+                assertThatThrownBy(() -> exportacionService.preparar(filtro, ExportacionOrdenesService.Formato.CSV))
+                        .isInstanceOf(ServicioSaturadoException.class);
+                assertThatThrownBy(() -> carrera.writeTo(new ByteArrayOutputStream()))
+                        .isInstanceOf(ServicioSaturadoException.class);
+                super.write(b, off, len);
+            }
+        });
+
+        exportacionService.preparar(filtro, ExportacionOrdenesService.Formato.CSV).writeTo(new ByteArrayOutputStream());
+    }
+
+    @Test
+    void cuerpoDescartadoNoRetieneElCupo() throws Exception {
+        FiltroOrdenes filtro = FiltroOrdenes.builder().build();
+        for (int i = 0; i < 3; i++) {
+            // Spring nunca llega a escribir estos cuerpos (p. ej. el request se cortó antes)
+            exportacionService.preparar(filtro, ExportacionOrdenesService.Formato.CSV);
+        }
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        exportacionService.preparar(filtro, ExportacionOrdenesService.Formato.CSV).writeTo(salida);
+        assertThat(salida.size()).isPositive();
+    }
+}
@@ -0,0 +1,188 @@
+package com.milsabores.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milsabores.backend.dto.CrearOrdenRequest;
+import com.milsabores.backend.exception.IdempotenciaConflictoException;
+import com.milsabores.backend.estadisticas.AcumuladoVentas;
+import com.milsabores.backend.inventario.LibroStock;
+import com.milsabores.backend.model.Categoria;
+import com.milsabores.backend.model.Producto;
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.model.VarianteProducto;
+import com.milsabores.backend.repository.CategoriaRepository;
+import com.milsabores.backend.repository.DetalleOrdenRepository;
+import com.milsabores.backend.repository.OrdenRepository;
+import com.milsabores.backend.repository.ProductoRepository;
+import com.milsabores.backend.repository.RegistroIdempotenciaRepository;
+import com.milsabores.backend.repository.RolRepository;
+import com.milsabores.backend.repository.UsuarioRepository;
+import com.milsabores.backend.repository.VarianteProductoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica que una Idempotency-Key cree una sola orden aunque lleguen
+ * duplicados concurrentes o el reintento llegue después de perder la memoria.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:idempotencia;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=8",
+        "stock.ledger.habilitado=false",
+        "logging.level.com.milsabores.backend=WARN",
+        "logging.level.org.hibernate.SQL=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({IdempotenciaService.class, OrdenService.class, LibroStock.class, AcumuladoVentas.class, SimpleMeterRegistry.class, ObjectMapper.class})
+class IdempotenciaServiceTest {
+
+    private static final int STOCK_INICIAL = 50;
+
+    @Autowired private IdempotenciaService idempotenciaService;
+    @Autowired private OrdenService ordenService;
+    @Autowired private RegistroIdempotenciaRepository registroRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private OrdenRepository ordenRepository;
+    @Autowired private DetalleOrdenRepository detalleOrdenRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private ProductoRepository productoRepository;
+    @Autowired private VarianteProductoRepository varianteProductoRepository;
+
+    private Long usuarioId;
+    private Long productoId;
+    private Long varianteId;
+
+    @BeforeEach
+    void poblar() {
+        Rol rol = rolRepository.save(new Rol(null, "CLIENTE"));
+        Usuario usuario = new Usuario();
+        usuario.setRut("33333333-3");
+        usuario.setNombre("Cliente");
+        usuario.setCorreo("idempotencia@test.cl");
+        usuario.setPassword("x");
+        usuario.setRol(rol);
+        usuarioId = usuarioRepository.save(usuario).getId();
+
+        Categoria categoria = categoriaRepository.save(new Categoria(null, "Tortas", "Tortas de prueba", null));
+        Producto producto = new Producto();
+        producto.setNombre("Torta Mil Hojas");
+        producto.setPrecioBase(15000);
+        producto.setCategoria(categoria);
+        producto.getVariantes().add(new VarianteProducto(null, "10 personas", 15000, STOCK_INICIAL, null, producto));
+        producto = productoRepository.save(producto);
+        productoId = producto.getId();
+        varianteId = producto.getVariantes().iterator().next().getId();
+    }
+
+    @AfterEach
+    void limpiar() {
+        registroRepository.deleteAllInBatch();
+        detalleOrdenRepository.deleteAllInBatch();
+        ordenRepository.deleteAllInBatch();
+        varianteProductoRepository.deleteAllInBatch();
+        productoRepository.deleteAllInBatch();
+        categoriaRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+        rolRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void duplicadosConcurrentesCreanUnaSolaOrden() throws Exception {
+        int duplicados = 8;
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(duplicados);
+        List<Callable<IdempotenciaService.Resultado>> tareas = new ArrayList<>();
+        for (int i = 0; i < duplicados; i++) {
+            tareas.add(() -> {
+                largada.await();
+                return idempotenciaService.crearOrden("checkout-1", orden(2));
+            });
+        }
+        List<Future<IdempotenciaService.Resultado>> futuros = new ArrayList<>();
+        for (Callable<IdempotenciaService.Resultado> tarea : tareas) {
+            futuros.add(pool.submit(tarea));
+        }
+        largada.countDown();
+
+        List<IdempotenciaService.Resultado> resultados = new ArrayList<>();
+        for (Future<IdempotenciaService.Resultado> futuro : futuros) {
+            resultados.add(futuro.get());
+        }
+        pool.shutdown();
+
+        assertThat(resultados).extracting(r -> r.orden().getId()).containsOnly(resultados.get(0).orden().getId());
+        assertThat(resultados).filteredOn(r -> !r.repetida()).hasSize(1);
+        assertThat(ordenRepository.count()).isEqualTo(1);
+        assertThat(varianteProductoRepository.findById(varianteId).orElseThrow().getStock()).isEqualTo(STOCK_INICIAL - 2);
+    }
+
+    @Test
+    void reintentoTrasReinicioSeRespondeDesdeLaBd() {
+        IdempotenciaService.Resultado original = idempotenciaService.crearOrden("checkout-2", orden(1));
+
+        // Instancia nueva = memoria vacía (reinicio u otra réplica)
+        IdempotenciaService otraInstancia = new IdempotenciaService(ordenService, registroRepository,
+                transactionManager, new ObjectMapper(), 24, 100);
+        IdempotenciaService.Resultado reintento = otraInstancia.crearOrden("checkout-2", orden(1));
+
+        assertThat(reintento.repetida()).isTrue();
+        assertThat(reintento.orden().getId()).isEqualTo(original.orden().getId());
+        assertThat(reintento.orden().getDetalles()).hasSize(1);
+        assertThat(ordenRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void mismaClaveConOtroCarritoEsConflicto() {
+        idempotenciaService.crearOrden("checkout-3", orden(1));
+
+        assertThatThrownBy(() -> idempotenciaService.crearOrden("checkout-3", orden(3)))
+                .isInstanceOf(IdempotenciaConflictoException.class);
+        assertThat(ordenRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void unFalloNoQuedaRegistrado() {
+        assertThatThrownBy(() -> idempotenciaService.crearOrden("checkout-4", orden(STOCK_INICIAL + 1)))
+                .hasMessageStartingWith("Stock insuficiente");
+        assertThat(registroRepository.count()).isZero();
+
+        // Mismo body, misma clave: se vuelve a ejecutar (y vuelve a fallar), no se reproduce el error guardado
+        assertThatThrownBy(() -> idempotenciaService.crearOrden("checkout-4", orden(STOCK_INICIAL + 1)))
+                .hasMessageStartingWith("Stock insuficiente");
+        assertThat(ordenRepository.count()).isZero();
+    }
+
+    private CrearOrdenRequest orden(int cantidad) {
+        return new CrearOrdenRequest(usuarioId, cantidad * 15000, List.of(
+                new CrearOrdenRequest.ItemOrden(productoId, varianteId, cantidad, 15000, "Torta Mil Hojas", null)));
+    }
+}
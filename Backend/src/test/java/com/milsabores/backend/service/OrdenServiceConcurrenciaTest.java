@@ -0,0 +1,193 @@
+package com.milsabores.backend.service;
+
+import com.milsabores.backend.dto.CrearOrdenRequest;
+import com.milsabores.backend.estadisticas.AcumuladoVentas;
+import com.milsabores.backend.inventario.LibroStock;
+import com.milsabores.backend.model.Categoria;
+import com.milsabores.backend.model.Producto;
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.model.VarianteProducto;
+import com.milsabores.backend.repository.CategoriaRepository;
+import com.milsabores.backend.repository.DetalleOrdenRepository;
+import com.milsabores.backend.repository.OrdenRepository;
+import com.milsabores.backend.repository.ProductoRepository;
+import com.milsabores.backend.repository.RolRepository;
+import com.milsabores.backend.repository.UsuarioRepository;
+import com.milsabores.backend.repository.VarianteProductoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica que el descuento de stock de OrdenService.crearOrden no sobrevenda
+ * bajo checkouts concurrentes. Cada orden corre en su propia transacción real
+ * (el test no es transaccional) contra H2 con un pool de varias conexiones.
+ *
+ * Cubre el camino sin libro de stock (UPDATE condicional); el libro se prueba en LibroStockTest.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=" + OrdenServiceConcurrenciaTest.HILOS,
+        "stock.ledger.habilitado=false",
+        // Sin log por sentencia: mediríamos el appender de archivo, no el checkout
+        "logging.level.com.milsabores.backend=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.engine.transaction.internal.TransactionImpl=WARN",
+        "logging.level.com.zaxxer.hikari.pool.HikariPool=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrdenService.class, LibroStock.class, AcumuladoVentas.class, SimpleMeterRegistry.class})
+class OrdenServiceConcurrenciaTest {
+
+    static final int HILOS = 8;
+    private static final int STOCK_INICIAL = 100;
+    private static final int INTENTOS_POR_HILO = 40;
+
+    @Autowired private OrdenService ordenService;
+    @Autowired private OrdenRepository ordenRepository;
+    @Autowired private DetalleOrdenRepository detalleOrdenRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private ProductoRepository productoRepository;
+    @Autowired private VarianteProductoRepository varianteProductoRepository;
+
+    private Long usuarioId;
+    private Long productoId;
+    private Long varianteId;
+    private Long otraVarianteId;
+
+    @BeforeEach
+    void poblar() {
+        Rol rol = rolRepository.save(new Rol(null, "CLIENTE"));
+        Usuario usuario = new Usuario();
+        usuario.setRut("11111111-1");
+        usuario.setNombre("Cliente");
+        usuario.setCorreo("cliente@test.cl");
+        usuario.setPassword("x");
+        usuario.setRol(rol);
+        usuarioId = usuarioRepository.save(usuario).getId();
+
+        Categoria categoria = categoriaRepository.save(new Categoria(null, "Tortas", "Tortas de prueba", null));
+        Producto producto = new Producto();
+        producto.setNombre("Torta Tres Leches");
+        producto.setPrecioBase(10000);
+        producto.setCategoria(categoria);
+        producto.getVariantes().add(new VarianteProducto(null, "8 personas", 10000, STOCK_INICIAL, null, producto));
+        producto.getVariantes().add(new VarianteProducto(null, "15 personas", 18000, 1, null, producto));
+        producto = productoRepository.save(producto);
+
+        productoId = producto.getId();
+        for (VarianteProducto variante : producto.getVariantes()) {
+            if (variante.getStock() == STOCK_INICIAL) {
+                varianteId = variante.getId();
+            } else {
+                otraVarianteId = variante.getId();
+            }
+        }
+    }
+
+    @AfterEach
+    void limpiar() {
+        detalleOrdenRepository.deleteAllInBatch();
+        ordenRepository.deleteAllInBatch();
+        varianteProductoRepository.deleteAllInBatch();
+        productoRepository.deleteAllInBatch();
+        categoriaRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+        rolRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void checkoutsConcurrentesNoSobrevenden() throws Exception {
+        int intentos = HILOS * INTENTOS_POR_HILO;
+        AtomicInteger exitosas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Callable<Void>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(() -> {
+                for (int i = 0; i < INTENTOS_POR_HILO; i++) {
+                    try {
+                        ordenService.crearOrden(orden(item(varianteId, 1)));
+                        exitosas.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertThat(e.getMessage()).startsWith("Stock insuficiente");
+                        rechazadas.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        for (Future<Void> futuro : pool.invokeAll(tareas)) {
+            futuro.get();
+        }
+        pool.shutdown();
+
+        assertThat(exitosas.get()).isEqualTo(STOCK_INICIAL);
+        assertThat(rechazadas.get()).isEqualTo(intentos - STOCK_INICIAL);
+        assertThat(varianteProductoRepository.findById(varianteId).orElseThrow().getStock()).isZero();
+        assertThat(ordenRepository.count()).isEqualTo(STOCK_INICIAL);
+        assertThat(detalleOrdenRepository.count()).isEqualTo(STOCK_INICIAL);
+    }
+
+    @Test
+    void stockInsuficienteEnUnItemRevierteLosDemas() {
+        assertThatThrownBy(() -> ordenService.crearOrden(orden(item(varianteId, 5), item(otraVarianteId, 2))))
+                .hasMessageStartingWith("Stock insuficiente");
+
+        assertThat(varianteProductoRepository.findById(varianteId).orElseThrow().getStock()).isEqualTo(STOCK_INICIAL);
+        assertThat(varianteProductoRepository.findById(otraVarianteId).orElseThrow().getStock()).isEqualTo(1);
+        assertThat(ordenRepository.count()).isZero();
+    }
+
+    @Test
+    void lineasRepetidasSeDescuentanAgrupadas() {
+        assertThatThrownBy(() -> ordenService.crearOrden(orden(item(otraVarianteId, 1), item(otraVarianteId, 1))))
+                .hasMessageStartingWith("Stock insuficiente");
+        assertThat(varianteProductoRepository.findById(otraVarianteId).orElseThrow().getStock()).isEqualTo(1);
+
+        ordenService.crearOrden(orden(item(varianteId, 3), item(varianteId, 2)));
+        assertThat(varianteProductoRepository.findById(varianteId).orElseThrow().getStock()).isEqualTo(STOCK_INICIAL - 5);
+    }
+
+    private CrearOrdenRequest.ItemOrden item(Long variante, int cantidad) {
+        return new CrearOrdenRequest.ItemOrden(productoId, variante, cantidad, 10000, "Torta Tres Leches", null);
+    }
+
+    private CrearOrdenRequest orden(CrearOrdenRequest.ItemOrden... items) {
+        int total = 0;
+        for (CrearOrdenRequest.ItemOrden item : items) {
+            total += item.getCantidad() * item.getPrecioUnitario();
+        }
+        return new CrearOrdenRequest(usuarioId, total, List.of(items));
+    }
+}
@@ -0,0 +1,162 @@
+package com.milsabores.backend.service;
+
+import com.milsabores.backend.dto.CrearOrdenRequest;
+import com.milsabores.backend.estadisticas.AcumuladoVentas;
+import com.milsabores.backend.inventario.LibroStock;
+import com.milsabores.backend.model.Categoria;
+import com.milsabores.backend.model.Producto;
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.model.VarianteProducto;
+import com.milsabores.backend.repository.CategoriaRepository;
+import com.milsabores.backend.repository.DetalleOrdenRepository;
+import com.milsabores.backend.repository.MovimientoStockRepository;
+import com.milsabores.backend.repository.OrdenRepository;
+import com.milsabores.backend.repository.ProductoRepository;
+import com.milsabores.backend.repository.RolRepository;
+import com.milsabores.backend.repository.UsuarioRepository;
+import com.milsabores.backend.repository.VarianteProductoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cuenta las sentencias JDBC de una orden de 20 líneas (20 variantes)
+ *
+ * "Antes" fuerza batch_size=1 en la sesión: un round trip por cada INSERT de
+ * detalle y de movimiento, como con IDENTITY. "Después" usa la configuración
+ * (IDs pooled + hibernate.jdbc.batch_size), donde cada tabla se inserta en un batch.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:sentencias;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.order_updates=true",
+        "stock.ledger.habilitado=true",
+        "logging.level.com.milsabores.backend=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.engine.transaction.internal.TransactionImpl=WARN",
+        "logging.level.com.zaxxer.hikari.pool.HikariPool=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrdenService.class, LibroStock.class, AcumuladoVentas.class, SimpleMeterRegistry.class})
+class OrdenServiceSentenciasTest {
+
+    private static final int LINEAS = 20;
+
+    @Autowired private OrdenService ordenService;
+    @Autowired private LibroStock libroStock;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private OrdenRepository ordenRepository;
+    @Autowired private DetalleOrdenRepository detalleOrdenRepository;
+    @Autowired private MovimientoStockRepository movimientoStockRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private ProductoRepository productoRepository;
+    @Autowired private VarianteProductoRepository varianteProductoRepository;
+
+    private Long usuarioId;
+    private Long productoId;
+    private final List<Long> varianteIds = new ArrayList<>();
+
+    @BeforeEach
+    void poblar() {
+        Rol rol = rolRepository.save(new Rol(null, "CLIENTE"));
+        Usuario usuario = new Usuario();
+        usuario.setRut("55555555-5");
+        usuario.setNombre("Cliente");
+        usuario.setCorreo("sentencias@test.cl");
+        usuario.setPassword("x");
+        usuario.setRol(rol);
+        usuarioId = usuarioRepository.save(usuario).getId();
+
+        Categoria categoria = categoriaRepository.save(new Categoria(null, "Tortas", "Tortas de prueba", null));
+        Producto producto = new Producto();
+        producto.setNombre("Torta Tres Leches");
+        producto.setPrecioBase(10000);
+        producto.setCategoria(categoria);
+        for (int i = 0; i < LINEAS; i++) {
+            producto.getVariantes().add(new VarianteProducto(null, (i + 5) + " personas", 10000, 100, null, producto));
+        }
+        producto = productoRepository.save(producto);
+        productoId = producto.getId();
+        producto.getVariantes().forEach(v -> varianteIds.add(v.getId()));
+
+        libroStock.recargar("test");
+        // Calentar: carga de contadores y primera reserva de IDs de cada secuencia
+        crearOrden(null);
+    }
+
+    @AfterEach
+    void limpiar() {
+        movimientoStockRepository.deleteAllInBatch();
+        detalleOrdenRepository.deleteAllInBatch();
+        ordenRepository.deleteAllInBatch();
+        varianteProductoRepository.deleteAllInBatch();
+        productoRepository.deleteAllInBatch();
+        categoriaRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+        rolRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void ordenDeVeinteLineasInsertaEnBatch() {
+        long antes = sentencias(1);
+        long despues = sentencias(null);
+
+        // Sin batch: un INSERT por detalle y por movimiento
+        assertThat(antes).isGreaterThanOrEqualTo(2L * LINEAS);
+        // Con batch: las sentencias no crecen con las líneas
+        assertThat(despues).isLessThan(LINEAS / 2);
+        assertThat(detalleOrdenRepository.count()).isEqualTo(3L * LINEAS);
+    }
+
+    private long sentencias(Integer batchSize) {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        crearOrden(batchSize);
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private void crearOrden(Integer batchSize) {
+        List<CrearOrdenRequest.ItemOrden> items = varianteIds.stream()
+                .map(id -> new CrearOrdenRequest.ItemOrden(productoId, id, 1, 10000, "Torta Tres Leches", null))
+                .toList();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (batchSize != null) {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            }
+            ordenService.crearOrden(new CrearOrdenRequest(usuarioId, 10000 * LINEAS, items));
+        });
+    }
+}
@@ -0,0 +1,180 @@
+package com.milsabores.backend.service;
+
+import com.milsabores.backend.cache.CatalogoCache;
+import com.milsabores.backend.cache.CatalogoSnapshot;
+import com.milsabores.backend.dto.CategoriaDTO;
+import com.milsabores.backend.dto.CrearOrdenRequest;
+import com.milsabores.backend.dto.EstadoOrdenDTO;
+import com.milsabores.backend.dto.ProductoDTO;
+import com.milsabores.backend.estadisticas.AcumuladoVentas;
+import com.milsabores.backend.inventario.LibroStock;
+import com.milsabores.backend.model.Categoria;
+import com.milsabores.backend.model.Producto;
+import com.milsabores.backend.model.Rol;
+import com.milsabores.backend.model.Usuario;
+import com.milsabores.backend.model.VarianteProducto;
+import com.milsabores.backend.repository.CategoriaRepository;
+import com.milsabores.backend.repository.DetalleOrdenRepository;
+import com.milsabores.backend.repository.OrdenRepository;
+import com.milsabores.backend.repository.ProductoRepository;
+import com.milsabores.backend.repository.RolRepository;
+import com.milsabores.backend.repository.UsuarioRepository;
+import com.milsabores.backend.repository.VarianteProductoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifica que la recepción asíncrona confirme las órdenes en lotes y que una
+ * orden sin stock se rechace sin arrastrar a las demás del mismo lote.
+ *
+ * El catálogo se fija con un snapshot estático: la validación previa siempre
+ * pasa y el stock real lo decide la transacción del escritor.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:recepcion;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=8",
+        "stock.ledger.habilitado=false",
+        "ordenes.async.habilitado=true",
+        "ordenes.async.capacidad=1000",
+        "ordenes.async.lote-maximo=50",
+        "logging.level.com.milsabores.backend=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.engine.transaction.internal.TransactionImpl=WARN",
+        "logging.level.com.zaxxer.hikari.pool.HikariPool=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RecepcionOrdenesService.class, OrdenService.class, LibroStock.class, AcumuladoVentas.class, SimpleMeterRegistry.class})
+class RecepcionOrdenesServiceTest {
+
+    @Autowired private RecepcionOrdenesService recepcionOrdenesService;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private OrdenRepository ordenRepository;
+    @Autowired private DetalleOrdenRepository detalleOrdenRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private RolRepository rolRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private ProductoRepository productoRepository;
+    @Autowired private VarianteProductoRepository varianteProductoRepository;
+    @MockBean private CatalogoCache catalogoCache;
+
+    private Long usuarioId;
+    private Long productoId;
+    private Long varianteId;
+
+    private void poblar(int stock) {
+        Rol rol = rolRepository.save(new Rol(null, "CLIENTE"));
+        Usuario usuario = new Usuario();
+        usuario.setRut("44444444-4");
+        usuario.setNombre("Cliente");
+        usuario.setCorreo("async@test.cl");
+        usuario.setPassword("x");
+        usuario.setRol(rol);
+        usuarioId = usuarioRepository.save(usuario).getId();
+
+        Categoria categoria = categoriaRepository.save(new Categoria(null, "Tortas", "Tortas de prueba", null));
+        Producto producto = new Producto();
+        producto.setNombre("Torta Selva Negra");
+        producto.setPrecioBase(12000);
+        producto.setCategoria(categoria);
+        producto.getVariantes().add(new VarianteProducto(null, "12 personas", 12000, stock, null, producto));
+        producto = productoRepository.save(producto);
+        productoId = producto.getId();
+        varianteId = producto.getVariantes().iterator().next().getId();
+
+        CatalogoSnapshot snapshot = CatalogoSnapshot.construir(1, 0,
+                List.of(ProductoDTO.desde(producto)), List.of(CategoriaDTO.desde(categoria)));
+        when(catalogoCache.obtener()).thenReturn(snapshot);
+    }
+
+    @AfterEach
+    void limpiar() {
+        detalleOrdenRepository.deleteAllInBatch();
+        ordenRepository.deleteAllInBatch();
+        varianteProductoRepository.deleteAllInBatch();
+        productoRepository.deleteAllInBatch();
+        categoriaRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+        rolRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void confirmaTodasLasOrdenesEnLotes() throws Exception {
+        int ordenes = 300;
+        poblar(ordenes);
+        double lotesAntes = meterRegistry.get("ordenes.async.lote").summary().count();
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < ordenes; i++) {
+            tokens.add(recepcionOrdenesService.encolar(request(1)));
+        }
+        List<EstadoOrdenDTO> estados = esperar(tokens);
+
+        long lotes = (long) (meterRegistry.get("ordenes.async.lote").summary().count() - lotesAntes);
+
+        assertThat(estados).allMatch(e -> EstadoOrdenDTO.COMPLETADA.equals(e.getEstado()));
+        assertThat(ordenRepository.count()).isEqualTo(ordenes);
+        assertThat(lotes).isLessThan(ordenes);
+        assertThat(varianteProductoRepository.findById(varianteId).orElseThrow().getStock()).isZero();
+    }
+
+    @Test
+    void ordenSinStockSeRechazaSinAfectarAlResto() throws Exception {
+        poblar(20);
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tokens.add(recepcionOrdenesService.encolar(request(4)));
+        }
+        tokens.add(recepcionOrdenesService.encolar(request(1)));
+        List<EstadoOrdenDTO> estados = esperar(tokens);
+
+        assertThat(estados.subList(0, 5)).allMatch(e -> EstadoOrdenDTO.COMPLETADA.equals(e.getEstado()));
+        assertThat(estados.get(5).getEstado()).isEqualTo(EstadoOrdenDTO.RECHAZADA);
+        assertThat(estados.get(5).getError()).contains("Stock insuficiente");
+        assertThat(ordenRepository.count()).isEqualTo(5);
+        assertThat(varianteProductoRepository.findById(varianteId).orElseThrow().getStock()).isZero();
+    }
+
+    private CrearOrdenRequest request(int cantidad) {
+        CrearOrdenRequest.ItemOrden item = new CrearOrdenRequest.ItemOrden(
+                productoId, varianteId, cantidad, 12000, "Torta Selva Negra", "12 personas");
+        return new CrearOrdenRequest(usuarioId, 12000 * cantidad, List.of(item));
+    }
+
+    private List<EstadoOrdenDTO> esperar(List<String> tokens) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 60_000;
+        while (System.currentTimeMillis() < limite) {
+            List<EstadoOrdenDTO> estados = tokens.stream()
+                    .map(token -> recepcionOrdenesService.consultar(token).orElseThrow())
+                    .toList();
+            if (estados.stream().allMatch(EstadoOrdenDTO::isTerminado)) {
+                return estados;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Las órdenes no se confirmaron a tiempo");
+    }
+}
@@ -2,7 +2,7 @@ import React, { useState, useEffect } from "react";
 import { Link } from "react-router-dom";
 import { Chart, registerables } from 'chart.js';
 import { useUser } from "../context/UserContext";
-import api from "../api";
+import api, { suscribirEventos } from "../api";
 import "./css/styles.css";
 
 // Registrar componentes de Chart.js
@@ -13,6 +13,8 @@ export default function Dashboard() {
   const [ventasUltimos15Dias, setVentasUltimos15Dias] = useState(null);
   const [ventasPrimerSemestre, setVentasPrimerSemestre] = useState(null);
   const [ordenes, setOrdenes] = useState([]);
+  const [totalOrdenes, setTotalOrdenes] = useState(0);
+  const [enVivo, setEnVivo] = useState(null);
   const [loading, setLoading] = useState(true);
   const [charts, setCharts] = useState({ area: null, bar: null });
 
@@ -23,6 +25,12 @@ export default function Dashboard() {
     cargarDatos();
   }, []);
 
+  // Ventas de hoy y de la hora actual: el backend las empuja desde memoria (SSE)
+  useEffect(() => {
+    const cancelar = suscribirEventos('/ordenes/stats/en-vivo/stream', setEnVivo);
+    return cancelar;
+  }, []);
+
   useEffect(() => {
     if (ventasUltimos15Dias && ventasPrimerSemestre) {
       crearGraficos();
@@ -39,15 +47,18 @@ export default function Dashboard() {
     try {
       setLoading(true);
       
-      const [res15Dias, resSemestre, resOrdenes] = await Promise.all([
+      // Solo las órdenes recientes; el total viene del resumen (COUNT en BD)
+      const [res15Dias, resSemestre, resOrdenes, resResumen] = await Promise.all([
         api.get('/ordenes/stats/ultimos-15-dias'),
         api.get('/ordenes/stats/primer-semestre'),
-        api.get('/ordenes')
+        api.get('/ordenes/pagina', { params: { limite: 10 } }),
+        api.get('/ordenes/stats/resumen')
       ]);
 
       setVentasUltimos15Dias(res15Dias.data);
       setVentasPrimerSemestre(resSemestre.data);
-      setOrdenes(resOrdenes.data);
+      setOrdenes(resOrdenes.data.ordenes);
+      setTotalOrdenes(resResumen.data.totalOrdenes);
       
       setLoading(false);
     } catch (error) {
@@ -261,7 +272,7 @@ export default function Dashboard() {
                     <div className="card bg-info text-white mb-4">
                       <div className="card-body">
                         <h5>Total Órdenes</h5>
-                        <h3>{ordenes.length}</h3>
+                        <h3>{totalOrdenes}</h3>
                         <small>Registradas en sistema</small>
                       </div>
                     </div>
@@ -269,6 +280,30 @@ export default function Dashboard() {
                 </div>
               )}
 
+              {/* Ventas en vivo */}
+              {enVivo && (
+                <div className="row mb-4">
+                  <div className="col-xl-6 col-md-6">
+                    <div className="card bg-warning text-dark mb-4">
+                      <div className="card-body">
+                        <h5><i className="fas fa-circle text-danger me-2" />Hoy (en vivo)</h5>
+                        <h3>{formatearMoneda(enVivo.hoy.total)}</h3>
+                        <small>{enVivo.hoy.ordenes} órdenes</small>
+                      </div>
+                    </div>
+                  </div>
+                  <div className="col-xl-6 col-md-6">
+                    <div className="card bg-secondary text-white mb-4">
+                      <div className="card-body">
+                        <h5>Hora actual</h5>
+                        <h3>{formatearMoneda(enVivo.horaActual.total)}</h3>
+                        <small>{enVivo.horaActual.ordenes} órdenes</small>
+                      </div>
+                    </div>
+                  </div>
+                </div>
+              )}
+
               {/* Gráficos */}
               <div className="row">
                 <div className="col-xl-6">
@@ -315,7 +350,7 @@ export default function Dashboard() {
               <div className="card mb-4">
                 <div className="card-header">
                   <i className="fas fa-table me-1" />
-                  Tabla de Ventas
+                  Últimas Ventas
                 </div>
                 <div className="card-body">
                   {loading ? (
@@ -6,16 +6,20 @@ import "./css/styles.css";
 export default function Ordenes() {
   const [ordenes, setOrdenes] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [cargandoMas, setCargandoMas] = useState(false);
+  const [siguienteCursor, setSiguienteCursor] = useState(null);
 
   useEffect(() => {
     cargarOrdenes();
   }, []);
 
+  // Paginación keyset: cada página trae 50 órdenes, más recientes primero
   const cargarOrdenes = async () => {
     try {
       setLoading(true);
-      const response = await api.get('/ordenes');
-      setOrdenes(response.data);
+      const response = await api.get('/ordenes/pagina', { params: { limite: 50 } });
+      setOrdenes(response.data.ordenes);
+      setSiguienteCursor(response.data.siguienteCursor);
       setLoading(false);
     } catch (error) {
       console.error('Error al cargar órdenes:', error);
@@ -23,6 +27,19 @@ export default function Ordenes() {
     }
   };
 
+  const cargarMas = async () => {
+    try {
+      setCargandoMas(true);
+      const response = await api.get('/ordenes/pagina', { params: { limite: 50, cursor: siguienteCursor } });
+      setOrdenes(prev => [...prev, ...response.data.ordenes]);
+      setSiguienteCursor(response.data.siguienteCursor);
+    } catch (error) {
+      console.error('Error al cargar más órdenes:', error);
+    } finally {
+      setCargandoMas(false);
+    }
+  };
+
   const formatearFecha = (fechaString) => {
     const fecha = new Date(fechaString);
     return fecha.toLocaleDateString('es-CL', {
@@ -158,7 +175,7 @@ export default function Ordenes() {
                           {ordenes.length > 0 && (
                             <tr className="table-info">
                               <td colSpan="6" className="text-end fw-bold">
-                                Total General:
+                                Total Mostrado:
                               </td>
                               <td className="fw-bold text-success">
                                 {formatearMoneda(
@@ -169,6 +186,13 @@ export default function Ordenes() {
                           )}
                         </tfoot>
                       </table>
+                      {siguienteCursor && (
+                        <div className="text-center">
+                          <button className="btn btn-outline-primary" onClick={cargarMas} disabled={cargandoMas}>
+                            {cargandoMas ? 'Cargando...' : 'Cargar más órdenes'}
+                          </button>
+                        </div>
+                      )}
                     </div>
                   )}
                 </div>
@@ -155,6 +155,70 @@ api.interceptors.response.use(
     }
 );
 
+// ===== SERVER-SENT EVENTS =====
+// EventSource no permite el header Authorization: se lee el stream con fetch.
+// Reconecta tras un corte (timeout del servidor o red) hasta que se cancela.
+export function suscribirEventos(ruta, onEvento, { reintentoMs = 5000 } = {}) {
+    const controlador = new AbortController();
+
+    const conectar = async () => {
+        const headers = { Accept: 'text/event-stream', 'X-Correlation-ID': logger.correlationId };
+        const usuarioData = localStorage.getItem('usuario');
+        if (usuarioData) {
+            try {
+                const usuario = JSON.parse(usuarioData);
+                if (usuario.token) {
+                    headers.Authorization = `Bearer ${usuario.token}`;
+                }
+            } catch (error) {
+                logger.error('Error parseando usuario de localStorage', error);
+            }
+        }
+
+        const respuesta = await fetch(`${BASE_URL}${ruta}`, { headers, signal: controlador.signal });
+        if (!respuesta.ok) {
+            throw new Error(`Stream ${ruta} respondió ${respuesta.status}`);
+        }
+
+        const lector = respuesta.body.getReader();
+        const decodificador = new TextDecoder();
+        let pendiente = '';
+        for (;;) {
+            const { value, done } = await lector.read();
+            if (done) return;
+            pendiente += decodificador.decode(value, { stream: true });
+            // Un evento termina en línea vacía; solo interesan las líneas data:
+            let fin;
+            while ((fin = pendiente.indexOf('\n\n')) >= 0) {
+                const bloque = pendiente.slice(0, fin);
+                pendiente = pendiente.slice(fin + 2);
+                const datos = bloque.split('\n')
+                    .filter(linea => linea.startsWith('data:'))
+                    .map(linea => linea.slice(5))
+                    .join('\n');
+                if (datos) {
+                    onEvento(JSON.parse(datos));
+                }
+            }
+        }
+    };
+
+    const ciclo = async () => {
+        while (!controlador.signal.aborted) {
+            try {
+                await conectar();
+            } catch (error) {
+                if (controlador.signal.aborted) return;
+                logger.warn('Stream interrumpido, reintentando', { ruta, error: error.message });
+            }
+            await new Promise(resolve => setTimeout(resolve, reintentoMs));
+        }
+    };
+    ciclo();
+
+    return () => controlador.abort();
+}
+
 console.log('✅ [API CONFIG] Cliente API configurado correctamente');
 
 export default api;
\ No newline at end of file
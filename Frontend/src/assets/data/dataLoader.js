@@ -204,4 +204,19 @@ export const cargarProductoPorId = async (idProducto) => {
     }
 };
 
+/**
+ * Cargar productos comprados frecuentemente junto a un producto
+ * Endpoint: GET /api/productos/{id}/comprados-juntos?limite=N
+ * Es un complemento de la ficha: ante cualquier error devuelve [] sin romper la página
+ */
+export const cargarCompradosJuntos = async (idProducto, limite = 4) => {
+    try {
+        const response = await api.get(`/productos/${idProducto}/comprados-juntos`, { params: { limite } });
+        return Array.isArray(response.data) ? response.data : [];
+    } catch (error) {
+        console.warn(`⚠️  [dataLoader] Sin recomendaciones para producto ${idProducto}:`, error.message);
+        return [];
+    }
+};
+
 console.log('🛠️  [dataLoader] Módulo de carga de datos inicializado');
\ No newline at end of file
@@ -1,4 +1,4 @@
-import React, { useState } from "react";
+import React, { useEffect, useRef, useState } from "react";
 import "../css/Carrito.css";
 import { useCarrito } from "../context/CarritoContext";
 import { useUser } from "../context/UserContext";
@@ -15,10 +15,18 @@ export default function Carrito() {
   const [mensajeDescuento, setMensajeDescuento] = useState("");
   const [errorConfirmacion, setErrorConfirmacion] = useState("");
   const [procesandoCompra, setProcesandoCompra] = useState(false);
+  // Idempotency-Key de la compra en curso: los reintentos del mismo carrito
+  // reutilizan la clave y el backend devuelve la orden original en vez de duplicarla
+  const claveOrdenRef = useRef(null);
 
   const CODIGO_DESCUENTO = "PMS50AGNOS";
   const TASA_DESCUENTO = 0.10; // 10%
 
+  // Si el carrito o el descuento cambian, es otra compra: nueva clave
+  useEffect(() => {
+    claveOrdenRef.current = null;
+  }, [carrito, descuentoAplicado]);
+
   const subtotal = carrito.reduce(
     (acc, producto) => acc + producto.precio * producto.cantidad,
     0
@@ -84,8 +92,14 @@ export default function Carrito() {
 
       console.log("📦 [ORDEN] Enviando orden al backend:", ordenData);
 
+      if (!claveOrdenRef.current) {
+        claveOrdenRef.current = crypto.randomUUID();
+      }
+
       // Enviar al backend
-      const response = await api.post('/ordenes/crear', ordenData);
+      const response = await api.post('/ordenes/crear', ordenData, {
+        headers: { 'Idempotency-Key': claveOrdenRef.current }
+      });
 
       console.log("✅ [ORDEN] Respuesta del backend:", response.data);
 
@@ -101,6 +115,7 @@ export default function Carrito() {
       });
 
       // Vaciar carrito después de crear la orden
+      claveOrdenRef.current = null;
       vaciarCarrito();
 
     } catch (error) {
@@ -1,8 +1,8 @@
 import React, { useContext, useState, useEffect } from "react";
-import { useParams } from "react-router-dom";
+import { Link, useParams } from "react-router-dom";
 import { CarritoContext } from "../context/CarritoContext";
 import StickerInfoNutricional from "../components/StickerInfoNutricional.jsx";
-import { cargarProductoPorId } from "../assets/data/dataLoader";
+import { cargarCompradosJuntos, cargarProductoPorId } from "../assets/data/dataLoader";
 import { resolveProductImageUrl } from "../utils/assetHelpers";
 import placeholderImage from "../assets/img/product-thumb-1.png";
 import "../css/ProductDetail.css";
@@ -15,6 +15,7 @@ const ProductDetail = () => {
   const [mensaje, setMensaje] = useState({ texto: "", tipo: "" }); // ✅ notificación (texto + tipo)
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  const [compradosJuntos, setCompradosJuntos] = useState([]);
 
   useEffect(() => {
     const fetchProducto = async () => {
@@ -50,6 +51,20 @@ const ProductDetail = () => {
     fetchProducto();
   }, [id]);
 
+  // Recomendaciones: independientes de la carga del producto (si fallan no se muestran)
+  useEffect(() => {
+    let vigente = true;
+    setCompradosJuntos([]);
+    cargarCompradosJuntos(id).then((productos) => {
+      if (vigente) {
+        setCompradosJuntos(productos);
+      }
+    });
+    return () => {
+      vigente = false;
+    };
+  }, [id]);
+
   const handleAgregar = () => {
     console.log('🛒 [ProductDetail] Intentando agregar al carrito');
     console.log('   Tamaño seleccionado:', tamanoSeleccionado);
@@ -259,6 +274,28 @@ const ProductDetail = () => {
           )}
         </div>
       </div>
+
+      {/* Comprados juntos: matriz de co-ocurrencia de órdenes (backend, en memoria) */}
+      {compradosJuntos.length > 0 && (
+        <div className="comprados-juntos">
+          <h3>Frecuentemente comprados juntos</h3>
+          <div className="comprados-juntos-lista">
+            {compradosJuntos.map((recomendado) => (
+              <Link key={recomendado.id} to={`/producto/${recomendado.id}`} className="comprados-juntos-item">
+                <img
+                  src={resolveProductImageUrl(recomendado)}
+                  alt={recomendado.nombre}
+                  loading="lazy"
+                  onError={(e) => {
+                    e.target.src = placeholderImage;
+                  }}
+                />
+                <span>{recomendado.nombre}</span>
+              </Link>
+            ))}
+          </div>
+        </div>
+      )}
     </div>
   );
 };